@@ -0,0 +1,158 @@
+package com.hedgehogsmind.springcouchrest.beans;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hedgehogsmind.springcouchrest.configuration.CouchRestConfiguration;
+import com.hedgehogsmind.springcouchrest.configuration.CouchRestConfigurationAdapter;
+import com.hedgehogsmind.springcouchrest.data.discovery.DiscoveredEntity;
+import com.hedgehogsmind.springcouchrest.workers.mapping.MappedResource;
+import com.hedgehogsmind.springcouchrest.workers.mapping.MappingHandler;
+import com.hedgehogsmind.springcouchrest.workers.mapping.MappingRouter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.HandlerExecutionChain;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Measures {@link CouchRestHandlerMapping#getHandler(HttpServletRequest)}. As the mapping is asked first
+ * for every request of the application, the interesting number is the one for foreign requests
+ * (actuator, static assets, other controllers). Compare it with {@link #emptyBaseline()}.
+ * </p>
+ *
+ * <p>
+ * Run with <code>./gradlew jmh</code>.
+ * </p>
+ *
+ * <p>
+ * Results without and with the fast reject of foreign requests (JMH 1.27 with GC profiler, JDK 17, one core).
+ * Times vary by up to 50 % between runs on that machine, allocations are stable:
+ * </p>
+ *
+ * <pre>
+ *                     without fast reject      with fast reject
+ * foreignRequest      533 ns/op, 865 B/op       13 ns/op,   0 B/op
+ * couchRestRequest    678 ns/op, 993 B/op      763 ns/op, 993 B/op
+ * emptyBaseline         4 ns/op,   0 B/op        4 ns/op,   0 B/op
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CouchRestHandlerMappingBenchmark {
+
+    private static final int RESOURCE_COUNT = 200;
+
+    private CouchRestHandlerMapping handlerMapping;
+
+    private MockHttpServletRequest foreignRequest;
+
+    private MockHttpServletRequest couchRestRequest;
+
+    @Setup
+    public void setup() {
+        final BenchmarkCore core = new BenchmarkCore();
+
+        final List<MappedResource> resources = new ArrayList<>();
+        for ( int i = 0; i < RESOURCE_COUNT; i++ ) {
+            final MappedResource resource = new BenchmarkResource(core, "/api/resource" + i + "/");
+            resource.setup();
+            resources.add(resource);
+        }
+
+        core.mappingRouter = new MappingRouter(resources);
+        handlerMapping = new CouchRestHandlerMapping(core, null, null, null);
+        handlerMapping.setupRouting(List.of());
+
+        foreignRequest = new MockHttpServletRequest("GET", "/actuator/health");
+        couchRestRequest = new MockHttpServletRequest("GET", "/api/resource" + (RESOURCE_COUNT - 1) + "/1");
+    }
+
+    @Benchmark
+    public Object emptyBaseline() {
+        return foreignRequest.getRequestURI();
+    }
+
+    @Benchmark
+    public HandlerExecutionChain foreignRequest() {
+        return handlerMapping.getHandler(foreignRequest);
+    }
+
+    @Benchmark
+    public HandlerExecutionChain couchRestRequest() {
+        return handlerMapping.getHandler(couchRestRequest);
+    }
+
+    /**
+     * Core which only delivers configuration, router and ObjectMapper. No Spring context needed.
+     */
+    private static class BenchmarkCore extends CouchRestCore {
+
+        private final CouchRestConfiguration configuration = new CouchRestConfigurationAdapter();
+
+        private final ObjectMapper objectMapper = new ObjectMapper();
+
+        private MappingRouter mappingRouter;
+
+        private BenchmarkCore() {
+            super(null, null, Optional.empty());
+        }
+
+        @Override
+        public CouchRestConfiguration getCouchRestConfiguration() {
+            return configuration;
+        }
+
+        @Override
+        public MappingRouter getMappingRouter() {
+            return mappingRouter;
+        }
+
+        @Override
+        public ObjectMapper getCouchRestObjectMapper() {
+            return objectMapper;
+        }
+
+        @Override
+        public Optional<PlatformTransactionManager> getTransactionManager() {
+            return Optional.empty();
+        }
+
+    }
+
+    /**
+     * Resource with one sub handler accepting every request.
+     */
+    private static class BenchmarkResource extends MappedResource {
+
+        private BenchmarkResource(final CouchRestCore core, final String path) {
+            super(core, new DiscoveredEntity(null, null, List.of(), Object.class, null), path);
+        }
+
+        @Override
+        protected List<MappingHandler> createSubMappingHandlers() {
+            return List.of(new MappingHandler() {
+                @Override
+                public boolean accepts(HttpServletRequest request) {
+                    return true;
+                }
+
+                @Override
+                public ResponseEntity handle(HttpServletRequest request, ObjectMapper objectMapper) {
+                    return ResponseEntity.ok().build();
+                }
+            });
+        }
+
+    }
+
+}
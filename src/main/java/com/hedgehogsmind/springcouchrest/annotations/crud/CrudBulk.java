@@ -0,0 +1,58 @@
+package com.hedgehogsmind.springcouchrest.annotations.crud;
+
+import com.hedgehogsmind.springcouchrest.annotations.CouchRestModifierAnnotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ *     This annotation enables the bulk endpoint <code>POST /{resource}/_bulk</code> of an entity or repository.
+ *     Clients send many entities at once - as JSON array or as newline delimited JSON
+ *     (<code>application/x-ndjson</code>) - and receive one status per entity.
+ * </p>
+ *
+ * <p>
+ *     The entities are saved in chunks of {@link #chunkSize()}. Each chunk is saved, flushed via JDBC batching
+ *     and committed in its own transaction. Afterwards, the persistence context is cleared. By this, the memory
+ *     needed for the entities does not depend on the number of entities. <b>A failing chunk does not roll back
+ *     the chunks before.</b>
+ * </p>
+ *
+ * <p>
+ *     Without this annotation, the bulk endpoint is disabled. It requires a unique PlatformTransactionManager.
+ * </p>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@CouchRestModifierAnnotation
+public @interface CrudBulk {
+
+    /**
+     * Chunk size used if none is specified.
+     */
+    int DEFAULT_CHUNK_SIZE = 100;
+
+    /**
+     * Maximum number of entities per request used if none is specified.
+     */
+    int DEFAULT_MAX_ITEMS = 10000;
+
+    /**
+     * Number of entities saved and committed together. Also used as JDBC batch size. Must be positive.
+     *
+     * @return Chunk size.
+     */
+    int chunkSize() default DEFAULT_CHUNK_SIZE;
+
+    /**
+     * Maximum number of entities a client can send in one request. Requests with more entities are rejected
+     * before anything is saved. Must be positive.
+     *
+     * @return Maximum number of entities per request.
+     */
+    int maxItems() default DEFAULT_MAX_ITEMS;
+
+}
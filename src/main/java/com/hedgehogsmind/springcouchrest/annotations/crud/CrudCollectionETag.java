@@ -0,0 +1,31 @@
+package com.hedgehogsmind.springcouchrest.annotations.crud;
+
+import com.hedgehogsmind.springcouchrest.annotations.CouchRestModifierAnnotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ *     This annotation enables conditional collection GETs of an entity or repository. Collection responses
+ *     get an <code>ETag</code>, which changes with every write through CouchRest. Requests with a matching
+ *     <code>If-None-Match</code> header are answered with 304 before the query runs.
+ * </p>
+ *
+ * <p>
+ *     <b>Only writes through CouchRest of this application instance are noticed.</b> Only use this annotation,
+ *     if the entities are not changed in any other way (e.g. by other services or other instances).
+ * </p>
+ *
+ * <p>
+ *     Without this annotation, collections are always queried. Single entities get an <code>ETag</code> in any
+ *     case, which is derived from their version or content.
+ * </p>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@CouchRestModifierAnnotation
+public @interface CrudCollectionETag {
+}
@@ -0,0 +1,33 @@
+package com.hedgehogsmind.springcouchrest.annotations.crud;
+
+import com.hedgehogsmind.springcouchrest.annotations.CouchRestModifierAnnotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ *     This annotation enables the direct update mode of an entity or repository. In this mode, updates
+ *     (POST with id) do not load the existing entity. Instead, the body is deserialized into a new instance
+ *     and written by one <code>UPDATE ... WHERE id = ?</code> statement. This saves one database round trip
+ *     per update.
+ * </p>
+ *
+ * <p>
+ *     <b>The body replaces all attributes of the entity</b> - attributes missing in the body are set to their
+ *     default value. If the entity has a (numeric) <code>@Version</code> attribute, the body must contain the
+ *     current version. Otherwise, the update is rejected as conflict.
+ * </p>
+ *
+ * <p>
+ *     Only entities without update callbacks, listeners, collections, embeddables, one-to-one associations
+ *     and non-updatable columns can use this mode. Otherwise, the application does not start.
+ * </p>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@CouchRestModifierAnnotation
+public @interface CrudDirectUpdate {
+}
@@ -0,0 +1,53 @@
+package com.hedgehogsmind.springcouchrest.annotations.crud;
+
+import com.hedgehogsmind.springcouchrest.annotations.CouchRestModifierAnnotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ *     This annotation declares which associations of an entity are loaded together with it by the GET requests of
+ *     an entity or repository. Paths like <code>author</code> or <code>author.company</code> name to-one
+ *     associations, which are joined via an entity graph. Top level collections like <code>tags</code> are loaded
+ *     by one additional query per {@link #batchSize()} entities - never per entity and never by joining them into
+ *     a paged query.
+ * </p>
+ *
+ * <p>
+ *     Associations outside the plan are never loaded while the response is written: not loaded to-one associations
+ *     are written as their id, not loaded collections are omitted.
+ * </p>
+ *
+ * <p>
+ *     Without this annotation, associations are loaded as mapped and serialized as usual.
+ * </p>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@CouchRestModifierAnnotation
+public @interface CrudFetchPlan {
+
+    /**
+     * Batch size used if none is specified.
+     */
+    int DEFAULT_BATCH_SIZE = 50;
+
+    /**
+     * Association paths to load. Segments are separated by dots. Collections are only supported at the top level
+     * and as last segment.
+     *
+     * @return Association paths.
+     */
+    String[] attributePaths() default {};
+
+    /**
+     * Number of entities whose collections are loaded by one query. Must be positive.
+     *
+     * @return Batch size.
+     */
+    int batchSize() default DEFAULT_BATCH_SIZE;
+
+}
@@ -0,0 +1,39 @@
+package com.hedgehogsmind.springcouchrest.annotations.crud;
+
+import com.hedgehogsmind.springcouchrest.annotations.CouchRestModifierAnnotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ *     This annotation enables filtering of the collection GET of an entity or repository. Only the listed
+ *     attributes can be used for filtering. Clients filter via query parameters like <code>title.eq=Note</code>
+ *     or <code>rating.ge=3</code>, see
+ *     {@link com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.FilterOperator} for all operators.
+ * </p>
+ *
+ * <p>
+ *     Filters are executed by the database as part of the WHERE clause. Make sure that the listed attributes
+ *     are indexed, if the collection is large.
+ * </p>
+ *
+ * <p>
+ *     Without this annotation, no attribute can be used for filtering.
+ * </p>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@CouchRestModifierAnnotation
+public @interface CrudFilter {
+
+    /**
+     * Names of the attributes which can be used for filtering. Only basic attributes of the entity are allowed.
+     *
+     * @return Filterable attribute names.
+     */
+    String[] attributes();
+
+}
@@ -0,0 +1,53 @@
+package com.hedgehogsmind.springcouchrest.annotations.crud;
+
+import com.hedgehogsmind.springcouchrest.annotations.CouchRestModifierAnnotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ *     This annotation declares what happens, if an association which has not been loaded (a Hibernate proxy or
+ *     collection) is reached while the response of an entity or repository is written, see {@link Policy}.
+ * </p>
+ *
+ * <p>
+ *     Without this annotation, such associations are loaded ({@link Policy#LOAD}) - or written as reference
+ *     ({@link Policy#REFERENCE}), if the resource has a {@link CrudFetchPlan}. Every occurrence is counted per
+ *     resource and attribute in any case.
+ * </p>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@CouchRestModifierAnnotation
+public @interface CrudLazyLoading {
+
+    /**
+     * Handling of associations which have not been loaded.
+     *
+     * @return Policy.
+     */
+    Policy value();
+
+    enum Policy {
+
+        /**
+         * The association is loaded, which costs one query per association and entity.
+         */
+        LOAD,
+
+        /**
+         * A to-one association is written as its id, a collection is omitted.
+         */
+        REFERENCE,
+
+        /**
+         * Writing the response fails with status 500.
+         */
+        FAIL
+
+    }
+
+}
@@ -45,6 +45,14 @@ public @interface CrudMethods {
      */
     boolean saveUpdate() default true;
 
+    /**
+     * This flag determines whether the HTTP PATCH method shall be enabled for CRUD resources (entities/resources).
+     * As PATCH updates entities as well, it is also disabled if {@link #saveUpdate()} is false.
+     *
+     * @return Enable PATCH CRUD method?
+     */
+    boolean patch() default true;
+
     /**
      * This flag determines whether the HTTP DELETE method shall be enabled for CRUD resources (entities/resources).
      *
@@ -0,0 +1,67 @@
+package com.hedgehogsmind.springcouchrest.annotations.crud;
+
+import com.hedgehogsmind.springcouchrest.annotations.CouchRestModifierAnnotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ *     This annotation enables you to configure the paging of the collection GET of an
+ *     entity or repository. Clients can request pages via the query parameters <code>page</code>
+ *     (zero based) and <code>size</code>.
+ * </p>
+ *
+ * <p>
+ *     The collection GET is always paged. In case this annotation is not present, the defaults
+ *     {@link #DEFAULT_PAGE_SIZE} and {@link #DEFAULT_MAX_PAGE_SIZE} apply. <b>By this, there is no way to
+ *     load all entities of a resource at once.</b>
+ * </p>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@CouchRestModifierAnnotation
+public @interface CrudPaging {
+
+    /**
+     * Page size used if the client does not specify one and this annotation is not present.
+     */
+    int DEFAULT_PAGE_SIZE = 20;
+
+    /**
+     * Maximum page size used if this annotation is not present.
+     */
+    int DEFAULT_MAX_PAGE_SIZE = 100;
+
+    /**
+     * Maximum number of ids per multi-get used if this annotation is not present.
+     */
+    int DEFAULT_MAX_IDS = 1000;
+
+    /**
+     * Page size used if the client does not specify one. Must be positive and not greater than
+     * {@link #maxPageSize()}.
+     *
+     * @return Default page size.
+     */
+    int defaultPageSize() default DEFAULT_PAGE_SIZE;
+
+    /**
+     * Maximum page size a client can request. Larger sizes requested by clients are reduced to this value.
+     * Must be positive.
+     *
+     * @return Maximum page size.
+     */
+    int maxPageSize() default DEFAULT_MAX_PAGE_SIZE;
+
+    /**
+     * Maximum number of ids a client can request at once via the query parameter <code>ids</code>. More ids
+     * are rejected. Must be positive.
+     *
+     * @return Maximum number of ids per multi-get.
+     */
+    int maxIds() default DEFAULT_MAX_IDS;
+
+}
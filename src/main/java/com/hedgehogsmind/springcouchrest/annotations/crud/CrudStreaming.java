@@ -0,0 +1,44 @@
+package com.hedgehogsmind.springcouchrest.annotations.crud;
+
+import com.hedgehogsmind.springcouchrest.annotations.CouchRestModifierAnnotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ *     This annotation enables the streaming mode of the collection GET of an entity or repository.
+ *     Clients request it via the query parameter <code>stream</code> (without value) and then receive
+ *     all entities at once - not only one page.
+ * </p>
+ *
+ * <p>
+ *     In streaming mode, entities are read via a forward-only database cursor and written one by one to the
+ *     response. Every entity is detached right after being written. By this, the memory needed does not depend
+ *     on the size of the collection.
+ * </p>
+ *
+ * <p>
+ *     Without this annotation, the streaming mode is disabled.
+ * </p>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@CouchRestModifierAnnotation
+public @interface CrudStreaming {
+
+    /**
+     * Fetch size used if none is specified.
+     */
+    int DEFAULT_FETCH_SIZE = 500;
+
+    /**
+     * Number of rows the JDBC driver fetches from the database at once. Must be positive.
+     *
+     * @return Fetch size.
+     */
+    int fetchSize() default DEFAULT_FETCH_SIZE;
+
+}
@@ -0,0 +1,52 @@
+package com.hedgehogsmind.springcouchrest.annotations.crud;
+
+import com.hedgehogsmind.springcouchrest.annotations.CouchRestModifierAnnotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ *     This annotation sets Jackson views (see {@link com.fasterxml.jackson.annotation.JsonView}) for the responses
+ *     of an entity or repository: a summary view for collections and a detail view for single entities.
+ * </p>
+ *
+ * <p>
+ *     The summary view is used by all collection GETs (pages, cursor pages, streams and ids) which do not select
+ *     fields explicitly. Only the attributes of the summary view (and the id) are selected from the database -
+ *     entities are not loaded. Hence, the summary view may only contain basic attributes.
+ * </p>
+ *
+ * <p>
+ *     The detail view is used whenever a single entity is returned, e.g. by GET, POST or PATCH. It may contain
+ *     any property.
+ * </p>
+ *
+ * <p>
+ *     Whether properties without {@link com.fasterxml.jackson.annotation.JsonView} annotation are part of a view
+ *     depends on <code>MapperFeature.DEFAULT_VIEW_INCLUSION</code> of the ObjectMapper. Without this annotation
+ *     (or with <code>void.class</code>), no view is used.
+ * </p>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@CouchRestModifierAnnotation
+public @interface CrudViews {
+
+    /**
+     * View for collections. void.class disables the summary view.
+     *
+     * @return Summary view.
+     */
+    Class<?> summary() default void.class;
+
+    /**
+     * View for single entities. void.class disables the detail view.
+     *
+     * @return Detail view.
+     */
+    Class<?> detail() default void.class;
+
+}
@@ -10,7 +10,9 @@ import com.hedgehogsmind.springcouchrest.util.EntityUtil;
 import com.hedgehogsmind.springcouchrest.util.PathUtil;
 import com.hedgehogsmind.springcouchrest.workers.discovery.CouchRestDiscovery;
 import com.hedgehogsmind.springcouchrest.workers.mapping.MappedResource;
+import com.hedgehogsmind.springcouchrest.workers.mapping.MappingRouter;
 import com.hedgehogsmind.springcouchrest.workers.mapping.entity.MappedEntityResource;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.ModificationStamp;
 import com.hedgehogsmind.springcouchrest.workers.springel.CouchRestSpelRoot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,12 +23,18 @@ import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
 import org.springframework.expression.Expression;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
+import javax.validation.Validator;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CouchRestCore {
 
@@ -40,10 +48,16 @@ public class CouchRestCore {
 
     private CouchRestConfiguration couchRestConfiguration;
 
+    private Optional<PlatformTransactionManager> transactionManager;
+
+    private Optional<Validator> validator;
+
     private CouchRestDiscovery couchRestDiscovery;
 
     private Set<MappedResource> mappedResources;
 
+    private MappingRouter mappingRouter;
+
     private ObjectMapper couchRestObjectMapper;
 
     private Object couchRestSpelEvaluationRootObject;
@@ -56,6 +70,8 @@ public class CouchRestCore {
 
     private Expression couchRestDefaultEndpointSecurityRule;
 
+    private final Map<Class<?>, ModificationStamp> modificationStamps = new ConcurrentHashMap<>();
+
     /**
      * Dependency injection constructor.
      *
@@ -87,6 +103,9 @@ public class CouchRestCore {
         fetchCouchRestConfiguration();
         applyCouchRestConfiguration();
 
+        fetchTransactionManager();
+        fetchValidator();
+
         discoverCouchRestResources();
         setupMappings();
     }
@@ -129,6 +148,38 @@ public class CouchRestCore {
         }
     }
 
+    /**
+     * Searches a unique {@link PlatformTransactionManager} bean. If there is none, CouchRest works
+     * without own transactions.
+     */
+    protected void fetchTransactionManager() {
+        this.transactionManager = Optional.ofNullable(
+                applicationContext.getBeanProvider(PlatformTransactionManager.class).getIfUnique()
+        );
+
+        if ( transactionManager.isPresent() ) {
+            log.info("Using PlatformTransactionManager for CouchRest transactions.");
+        } else {
+            log.info("No unique PlatformTransactionManager found. CouchRest will not open own transactions.");
+        }
+    }
+
+    /**
+     * Searches a unique Bean Validation {@link Validator} bean. If there is none, CouchRest only relies on
+     * the validation Hibernate performs on flush.
+     */
+    protected void fetchValidator() {
+        this.validator = Optional.ofNullable(
+                applicationContext.getBeanProvider(Validator.class).getIfUnique()
+        );
+
+        if ( validator.isPresent() ) {
+            log.info("Using Validator for CouchRest direct updates.");
+        } else {
+            log.info("No unique Validator found. CouchRest will not validate direct updates.");
+        }
+    }
+
     /**
      * Does the following:
      * <ul>
@@ -250,13 +301,17 @@ public class CouchRestCore {
 
     /**
      * Creates new mapping set and calls {@link #setupRepositoryMappings()} and
-     * {@link #setupEntityMappings()}.
+     * {@link #setupEntityMappings()}. Afterwards the immutable {@link MappingRouter} is
+     * built for all mapped resources.
      */
     protected void setupMappings() {
         mappedResources = new HashSet<>();
 
         setupRepositoryMappings();
         setupEntityMappings();
+
+        log.info("Building routing table for {} mapped resources.", mappedResources.size());
+        mappingRouter = new MappingRouter(mappedResources);
     }
 
     /**
@@ -450,6 +505,18 @@ public class CouchRestCore {
         return evaluateExpression(couchRestDefaultEndpointSecurityRule, Boolean.class);
     }
 
+    public EntityManager getEntityManager() {
+        return entityManager;
+    }
+
+    public Optional<PlatformTransactionManager> getTransactionManager() {
+        return transactionManager;
+    }
+
+    public Optional<Validator> getValidator() {
+        return validator;
+    }
+
     public ObjectMapper getCouchRestObjectMapper() {
         return couchRestObjectMapper;
     }
@@ -462,6 +529,44 @@ public class CouchRestCore {
         return mappedResources;
     }
 
+    /**
+     * Collects the counts of associations which have not been loaded when a response was written, see
+     * {@link MappedEntityResource#getLazyLoadStatistics()}. Resources without any such association are skipped.
+     *
+     * @return Counts per attribute by resource path.
+     */
+    public SortedMap<String, SortedMap<String, Long>> getLazyLoadCounts() {
+        final SortedMap<String, SortedMap<String, Long>> counts = new TreeMap<>();
+
+        for ( final MappedResource mappedResource : mappedResources ) {
+            if ( !(mappedResource instanceof MappedEntityResource) ) continue;
+
+            final SortedMap<String, Long> resourceCounts =
+                    ((MappedEntityResource) mappedResource).getLazyLoadStatistics().getCounts();
+
+            if ( !resourceCounts.isEmpty() ) {
+                counts.put(mappedResource.getResourcePathWithTrailingSlash(), resourceCounts);
+            }
+        }
+
+        return counts;
+    }
+
+    /**
+     * Returns the modification stamp of the given entity class. All resources of the same entity class share one
+     * stamp, so that a write through any of them is noticed by all.
+     *
+     * @param entityClass Entity class.
+     * @return Stamp.
+     */
+    public ModificationStamp getModificationStamp(final Class<?> entityClass) {
+        return modificationStamps.computeIfAbsent(entityClass, type -> new ModificationStamp());
+    }
+
+    public MappingRouter getMappingRouter() {
+        return mappingRouter;
+    }
+
     public SpelExpressionParser getCouchRestSpelExpressionParser() {
         return couchRestSpelExpressionParser;
     }
@@ -1,5 +1,6 @@
 package com.hedgehogsmind.springcouchrest.beans;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetail;
 import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetailConvertibleRuntimeException;
 import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
@@ -38,15 +39,40 @@ public class CouchRestHandlerAdapter
     @Override
     public ModelAndView handle(HttpServletRequest request, HttpServletResponse response, Object handler) {
 
-        ResponseEntity responseEntityToSend = null;
+        final MappingHandler mappingHandler = (MappingHandler) handler;
+        final ResponseEntity responseEntityToSend = invokeHandler(
+                mappingHandler,
+                request,
+                couchRestCore.getCouchRestObjectMapper()
+        );
+
+        ResponseUtil.writeResponseEntity(
+                responseEntityToSend,
+                request,
+                response,
+                mappingHandler.getObjectWriter(responseEntityToSend.getBody(), couchRestCore.getCouchRestObjectMapper())
+        );
+
+        return null;
+    }
 
+    /**
+     * Lets the handler handle the request. A {@link ProblemDetailConvertibleRuntimeException} is converted into
+     * its problem, any other runtime exception is logged and answered with {@link CouchRestProblems#UNKNOWN_PROBLEM}.
+     *
+     * @param mappingHandler Handler to call.
+     * @param request        Request to handle.
+     * @param objectMapper   ObjectMapper to use for JSON (de-) serialization.
+     * @return Response of handler or problem.
+     */
+    public static ResponseEntity invokeHandler(final MappingHandler mappingHandler,
+                                               final HttpServletRequest request,
+                                               final ObjectMapper objectMapper) {
         try {
-            responseEntityToSend = ((MappingHandler) handler).handle(
-                    request,
-                    couchRestCore.getCouchRestObjectMapper()
-            );
+            return mappingHandler.handle(request, objectMapper);
+
         } catch ( ProblemDetailConvertibleRuntimeException e ) {
-            responseEntityToSend = e.toProblemDetail(
+            return e.toProblemDetail(
                     RequestUtil.fetchLocale(request, Locale.ENGLISH)
             ).toResponseEntity();
 
@@ -59,21 +85,20 @@ public class CouchRestHandlerAdapter
                     "Returning ProblemDetail with type 'unknown problem' to client. ProblemDetail instance: "
                     +exceptionProblemDetail.getInstance(), e);
 
-            responseEntityToSend = exceptionProblemDetail.toResponseEntity();
+            return exceptionProblemDetail.toResponseEntity();
         }
-
-        ResponseUtil.writeResponseEntity(
-                responseEntityToSend,
-                request,
-                response,
-                couchRestCore.getCouchRestObjectMapper()
-        );
-
-        return null;
     }
 
+    /**
+     * CouchRest does not know the time of the last modification, so that the DispatcherServlet neither evaluates
+     * If-Modified-Since headers nor sends Last-Modified headers. Conditional requests use ETags instead.
+     *
+     * @param request Request.
+     * @param handler Handler, which has been found for the request.
+     * @return -1.
+     */
     @Override
     public long getLastModified(HttpServletRequest request, Object handler) {
-        return 0;
+        return -1;
     }
 }
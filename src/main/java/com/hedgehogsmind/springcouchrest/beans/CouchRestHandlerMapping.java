@@ -1,24 +1,32 @@
 package com.hedgehogsmind.springcouchrest.beans;
 
-import com.hedgehogsmind.springcouchrest.workers.mapping.MappedResource;
+import com.hedgehogsmind.springcouchrest.util.RequestUtil;
+import com.hedgehogsmind.springcouchrest.workers.mapping.CouchRestRequestContext;
 import com.hedgehogsmind.springcouchrest.workers.mapping.MappingHandler;
+import com.hedgehogsmind.springcouchrest.workers.mapping.MappingRouter;
+import com.hedgehogsmind.springcouchrest.workers.mapping.batch.BatchHandler;
 import org.springframework.core.Ordered;
 import org.springframework.format.support.FormattingConversionService;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
 import org.springframework.web.servlet.HandlerExecutionChain;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurationSupport;
+import org.springframework.web.servlet.handler.MappedInterceptor;
 import org.springframework.web.servlet.resource.ResourceUrlProvider;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.servlet.http.HttpServletRequest;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 /**
- * Responsible for finding a {@link MappingHandler} for the request.
+ * Responsible for finding a {@link MappingHandler} for the request. The interceptors of Spring MVC are fetched
+ * once at startup and distributed to the routes of the {@link MappingRouter} of the {@link CouchRestCore}.
+ * Batch requests are routed to the {@link BatchHandler}.
  */
 public class CouchRestHandlerMapping
         implements HandlerMapping,
@@ -26,7 +34,13 @@ public class CouchRestHandlerMapping
 
     private final CouchRestCore couchRestCore;
 
-    private final List<HandlerInterceptor> interceptors;
+    private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private MappingRouter mappingRouter;
+
+    private BatchHandler batchHandler;
+
+    private HandlerInterceptor[] batchInterceptors;
 
     private final WebMvcConfigurationSupport webMvcConfigurationSupport;
 
@@ -44,11 +58,15 @@ public class CouchRestHandlerMapping
         this.webMvcConfigurationSupport = webMvcConfigurationSupport;
         this.formattingConversionService = formattingConversionService;
         this.resourceUrlProvider = resourceUrlProvider;
-        this.interceptors = new ArrayList<>();
     }
 
+    /**
+     * Fetches the interceptors of Spring MVC and passes them to {@link #setupRouting(List)}.
+     */
     @PostConstruct
     public void fetchInterceptors() {
+        final List<HandlerInterceptor> interceptors = new ArrayList<>();
+
         try {
             final Method getInterceptors = WebMvcConfigurationSupport.class.getDeclaredMethod(
                     "getInterceptors", FormattingConversionService.class, ResourceUrlProvider.class
@@ -64,15 +82,62 @@ public class CouchRestHandlerMapping
                     resourceUrlProvider
             );
 
-            synchronized ( this.interceptors ) {
-                for ( final Object rawInterceptor : rawInterceptors ) {
-                    this.interceptors.add((HandlerInterceptor) rawInterceptor);
-                }
+            for ( final Object rawInterceptor : rawInterceptors ) {
+                interceptors.add((HandlerInterceptor) rawInterceptor);
             }
 
         } catch ( Throwable t ) {
             throw new RuntimeException("Failed to fetch interceptors fro WebMvcConfigurationSupport for CouchRest.", t);
         }
+
+        setupRouting(interceptors);
+    }
+
+    /**
+     * <p>
+     * Creates the routing table of this mapping, whose routes carry the interceptors applicable to them.
+     * See {@link MappingRouter#withInterceptors(List)}.
+     * </p>
+     *
+     * <p>
+     * Furthermore, the {@link BatchHandler} is created. Its interceptors are matched once against the batch path
+     * and applied to the batch request as a whole. The batch handler dispatches the sub-requests via the same
+     * routing table, so that the interceptors of the routes are applied to every sub-request as well.
+     * </p>
+     *
+     * @param interceptors All interceptors in order.
+     */
+    @SuppressWarnings("deprecation")
+    protected void setupRouting(final List<HandlerInterceptor> interceptors) {
+        this.mappingRouter = couchRestCore.getMappingRouter().withInterceptors(interceptors);
+        this.batchHandler = new BatchHandler(couchRestCore, mappingRouter);
+
+        final String batchPath = batchHandler.getBatchPath();
+        final String batchLookupPath = batchPath.substring(0, batchPath.length() - 1);
+        final List<HandlerInterceptor> applicableInterceptors = new ArrayList<>();
+
+        for ( final HandlerInterceptor interceptor : interceptors ) {
+            if ( interceptor instanceof MappedInterceptor ) {
+                final MappedInterceptor mappedInterceptor = (MappedInterceptor) interceptor;
+
+                if ( mappedInterceptor.matches(batchLookupPath, PATH_MATCHER) ) {
+                    applicableInterceptors.add(mappedInterceptor.getInterceptor());
+                }
+
+            } else {
+                applicableInterceptors.add(interceptor);
+            }
+        }
+
+        this.batchInterceptors = applicableInterceptors.toArray(new HandlerInterceptor[0]);
+    }
+
+    /**
+     * Stops the threads of the {@link BatchHandler}.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if ( batchHandler != null ) batchHandler.shutdown();
     }
 
     @Override
@@ -80,21 +145,38 @@ public class CouchRestHandlerMapping
         return -100;
     }
 
+    /**
+     * <p>
+     * Resolves the {@link MappingHandler} and its precomputed interceptors via the {@link MappingRouter}.
+     * </p>
+     *
+     * <p>
+     * As this mapping is asked before all others, requests whose raw URI can not target the CouchRest base path
+     * are rejected right away - before any path normalization takes place. See
+     * {@link RequestUtil#mayTargetPath(HttpServletRequest, String)}.
+     * </p>
+     *
+     * <p>
+     * All other requests are parsed once into a {@link CouchRestRequestContext}, which is attached to the request
+     * and reused by the resources and sub handlers. Batch requests are checked first.
+     * </p>
+     *
+     * @param request Request to find handler for.
+     * @return Handler execution chain or null if CouchRest does not handle the request.
+     */
     @Override
     public HandlerExecutionChain getHandler(HttpServletRequest request) {
-        for ( final MappedResource mappedResource : couchRestCore.getMappedResources() ) {
+        if ( !RequestUtil.mayTargetPath(request, couchRestCore.getCouchRestConfiguration().getCouchRestBasePath()) ) {
+            return null;
+        }
 
-            final Optional<MappingHandler> resourceSubHandler = mappedResource.findHandler(request);
+        final CouchRestRequestContext context = CouchRestRequestContext.attach(request);
 
-            if ( resourceSubHandler.isPresent() ) {
-                return new HandlerExecutionChain(
-                        resourceSubHandler.get(),
-                        interceptors
-                );
-            }
+        if ( batchHandler.accepts(request) ) {
+            return new HandlerExecutionChain(batchHandler, batchInterceptors);
         }
 
-        return null;
+        return mappingRouter.findHandlerExecutionChain(context);
     }
 
 }
@@ -51,4 +51,28 @@ public interface CouchRestConfiguration {
      */
     Optional<Object> getSpringElEvaluationRootObject();
 
+    /**
+     * Shall return the maximum size of request bodies in bytes. Larger bodies are rejected while being read -
+     * or even before, if the client declares a larger Content-Length. Must be positive.
+     *
+     * @return Maximum request body size in bytes.
+     */
+    long getMaxRequestBodySize();
+
+    /**
+     * Shall return the maximum nesting depth of JSON request bodies (objects and arrays). Deeper nested bodies
+     * are rejected while being parsed. Must be positive.
+     *
+     * @return Maximum nesting depth of request bodies.
+     */
+    int getMaxRequestBodyNestingDepth();
+
+    /**
+     * Shall return the maximum number of sub-requests of one batch request. Larger batches are rejected before
+     * any sub-request is executed. Must be positive.
+     *
+     * @return Maximum number of sub-requests per batch.
+     */
+    int getMaxBatchSize();
+
 }
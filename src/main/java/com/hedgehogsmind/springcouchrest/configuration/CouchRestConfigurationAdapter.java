@@ -9,6 +9,21 @@ import java.util.Optional;
  */
 public class CouchRestConfigurationAdapter implements CouchRestConfiguration {
 
+    /**
+     * Default of {@link #getMaxRequestBodySize()}: 1 MiB.
+     */
+    public static final long DEFAULT_MAX_REQUEST_BODY_SIZE = 1024 * 1024;
+
+    /**
+     * Default of {@link #getMaxRequestBodyNestingDepth()}.
+     */
+    public static final int DEFAULT_MAX_REQUEST_BODY_NESTING_DEPTH = 32;
+
+    /**
+     * Default of {@link #getMaxBatchSize()}.
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+
     @Override
     public String getCouchRestBasePath() {
         return "/api/";
@@ -33,4 +48,19 @@ public class CouchRestConfigurationAdapter implements CouchRestConfiguration {
     public Optional<Object> getSpringElEvaluationRootObject() {
         return Optional.empty();
     }
+
+    @Override
+    public long getMaxRequestBodySize() {
+        return DEFAULT_MAX_REQUEST_BODY_SIZE;
+    }
+
+    @Override
+    public int getMaxRequestBodyNestingDepth() {
+        return DEFAULT_MAX_REQUEST_BODY_NESTING_DEPTH;
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return DEFAULT_MAX_BATCH_SIZE;
+    }
 }
@@ -21,6 +21,12 @@ public class ValidatedAndNormalizedCouchRestConfiguration
 
     private final Optional<Object> springElEvaluationRootObject;
 
+    private final long maxRequestBodySize;
+
+    private final int maxRequestBodyNestingDepth;
+
+    private final int maxBatchSize;
+
     /**
      * Copies data and normalizes it if necessary.
      * @param original Original configuration.
@@ -31,6 +37,9 @@ public class ValidatedAndNormalizedCouchRestConfiguration
         this.baseSecurityRule = validateBaseSecurityRule(original.getBaseSecurityRule());
         this.defaultEndpointSecurityRule = validateDefaultEndpointSecurityRule(original.getDefaultEndpointSecurityRule());
         this.springElEvaluationRootObject = original.getSpringElEvaluationRootObject();
+        this.maxRequestBodySize = validateMaxRequestBodySize(original.getMaxRequestBodySize());
+        this.maxRequestBodyNestingDepth = validateMaxRequestBodyNestingDepth(original.getMaxRequestBodyNestingDepth());
+        this.maxBatchSize = validateMaxBatchSize(original.getMaxBatchSize());
     }
 
     /**
@@ -74,6 +83,48 @@ public class ValidatedAndNormalizedCouchRestConfiguration
         return defaultEndpointSecurityRule;
     }
 
+    /**
+     * Checks that the given size is positive.
+     *
+     * @param maxRequestBodySize Size to check.
+     * @return Size.
+     */
+    public long validateMaxRequestBodySize(final long maxRequestBodySize) {
+        if ( maxRequestBodySize < 1 ) {
+            throw new IllegalArgumentException("CouchRest maxRequestBodySize must be positive.");
+        }
+
+        return maxRequestBodySize;
+    }
+
+    /**
+     * Checks that the given depth is positive.
+     *
+     * @param maxRequestBodyNestingDepth Depth to check.
+     * @return Depth.
+     */
+    public int validateMaxRequestBodyNestingDepth(final int maxRequestBodyNestingDepth) {
+        if ( maxRequestBodyNestingDepth < 1 ) {
+            throw new IllegalArgumentException("CouchRest maxRequestBodyNestingDepth must be positive.");
+        }
+
+        return maxRequestBodyNestingDepth;
+    }
+
+    /**
+     * Checks that the given batch size is positive.
+     *
+     * @param maxBatchSize Batch size to check.
+     * @return Batch size.
+     */
+    public int validateMaxBatchSize(final int maxBatchSize) {
+        if ( maxBatchSize < 1 ) {
+            throw new IllegalArgumentException("CouchRest maxBatchSize must be positive.");
+        }
+
+        return maxBatchSize;
+    }
+
     @Override
     public String getCouchRestBasePath() {
         return basePath;
@@ -98,4 +149,19 @@ public class ValidatedAndNormalizedCouchRestConfiguration
     public Optional<Object> getSpringElEvaluationRootObject() {
         return springElEvaluationRootObject;
     }
+
+    @Override
+    public long getMaxRequestBodySize() {
+        return maxRequestBodySize;
+    }
+
+    @Override
+    public int getMaxRequestBodyNestingDepth() {
+        return maxRequestBodyNestingDepth;
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
 }
@@ -83,6 +83,19 @@ public interface ProblemDetail extends ResponseEntityConvertible<ProblemDetail>
         }
     }
 
+    /**
+     * Uses {@link #PROBLEM_DETAIL_MAPPER} to serialize this problem detail instance as UTF-8 encoded JSON.
+     *
+     * @return JSON bytes.
+     */
+    default byte[] toJsonBytes() {
+        try {
+            return PROBLEM_DETAIL_MAPPER.writeValueAsBytes(this);
+        } catch ( JsonProcessingException e ) {
+            throw new RuntimeException("Could not serialize ProblemDetail as JSON");
+        }
+    }
+
     /**
      * Creates new ResponseEntity by setting status to {@link #getStatus()} and the body to this.
      *
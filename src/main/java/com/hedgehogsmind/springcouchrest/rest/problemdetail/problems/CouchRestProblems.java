@@ -47,4 +47,74 @@ public final class CouchRestProblems {
             403
     );
 
+    public static final I18nProblemDetailDescriptor INVALID_QUERY_PARAMETER = new I18nProblemDetailDescriptor(
+            "couch-rest-invalid-query-parameter",
+            "invalidQueryParameter.title",
+            "invalidQueryParameter.detail",
+            400
+    );
+
+    public static final I18nProblemDetailDescriptor REQUEST_BODY_TOO_LARGE = new I18nProblemDetailDescriptor(
+            "couch-rest-request-body-too-large",
+            "requestBodyTooLarge.title",
+            "requestBodyTooLarge.detail",
+            413
+    );
+
+    public static final I18nProblemDetailDescriptor REQUEST_BODY_TOO_DEEPLY_NESTED = new I18nProblemDetailDescriptor(
+            "couch-rest-request-body-too-deeply-nested",
+            "requestBodyTooDeeplyNested.title",
+            "requestBodyTooDeeplyNested.detail",
+            400
+    );
+
+    public static final I18nProblemDetailDescriptor VERSION_CONFLICT = new I18nProblemDetailDescriptor(
+            "couch-rest-version-conflict",
+            "versionConflict.title",
+            "versionConflict.detail",
+            409
+    );
+
+    public static final I18nProblemDetailDescriptor INCOMPLETE_BODY = new I18nProblemDetailDescriptor(
+            "couch-rest-incomplete-body",
+            "incompleteBody.title",
+            "incompleteBody.detail",
+            422
+    );
+
+    public static final I18nProblemDetailDescriptor UNSUPPORTED_MEDIA_TYPE = new I18nProblemDetailDescriptor(
+            "couch-rest-unsupported-media-type",
+            "unsupportedMediaType.title",
+            "unsupportedMediaType.detail",
+            415
+    );
+
+    public static final I18nProblemDetailDescriptor PATCH_NOT_APPLICABLE = new I18nProblemDetailDescriptor(
+            "couch-rest-patch-not-applicable",
+            "patchNotApplicable.title",
+            "patchNotApplicable.detail",
+            422
+    );
+
+    public static final I18nProblemDetailDescriptor TOO_MANY_BULK_ITEMS = new I18nProblemDetailDescriptor(
+            "couch-rest-too-many-bulk-items",
+            "tooManyBulkItems.title",
+            "tooManyBulkItems.detail",
+            413
+    );
+
+    public static final I18nProblemDetailDescriptor TOO_MANY_BATCH_REQUESTS = new I18nProblemDetailDescriptor(
+            "couch-rest-too-many-batch-requests",
+            "tooManyBatchRequests.title",
+            "tooManyBatchRequests.detail",
+            413
+    );
+
+    public static final I18nProblemDetailDescriptor LAZY_LOADING_NOT_ALLOWED = new I18nProblemDetailDescriptor(
+            "couch-rest-lazy-loading-not-allowed",
+            "lazyLoadingNotAllowed.title",
+            "lazyLoadingNotAllowed.detail",
+            500
+    );
+
 }
@@ -117,17 +117,17 @@ public final class AnnotationUtil {
         final MergedAnnotations mergedAnnotations =
                 MergedAnnotations.from(clazz, MergedAnnotations.SearchStrategy.TYPE_HIERARCHY);
 
-        final Set<Object> fetchedSources = new HashSet<>();
+        final Set<List<Object>> fetchedSourcesAndMetaTypes = new HashSet<>();
 
         // We get each merged annotation for the meta meta annotation
         mergedAnnotations.stream(annoAnnoType).forEach(ma -> {
 
             // We will now fetch the actual annotation from the source, where
-            // the meta meta annotation has been specified
+            // the meta meta annotation has been specified. A source may carry
+            // several annotations > remember source together with meta types
             final Object source = ma.getSource();
-            if ( fetchedSources.contains(source) ) return;
-
             final List<Class<? extends Annotation>> metaTypes = ma.getMetaTypes();
+            if ( !fetchedSourcesAndMetaTypes.add(List.of(source, metaTypes)) ) return;
 
             if ( source instanceof Class ) {
                 final Class sourceClass = (Class) source;
@@ -145,8 +145,6 @@ public final class AnnotationUtil {
                     }
                 }
             }
-
-            fetchedSources.add(source);
         });
 
         return annotations;
@@ -0,0 +1,76 @@
+package com.hedgehogsmind.springcouchrest.util;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.DigestUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Enumeration;
+
+public final class ETagUtil {
+
+    private ETagUtil() {}
+
+    /**
+     * Creates a strong ETag from the version of an entity.
+     *
+     * @param version Version value.
+     * @return Quoted ETag.
+     */
+    public static String fromVersion(final Object version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Creates a strong ETag from the MD5 hash of the given content, like Spring's ShallowEtagHeaderFilter does.
+     *
+     * @param content Serialized body.
+     * @return Quoted ETag.
+     */
+    public static String fromContent(final byte[] content) {
+        return "\"0" + DigestUtils.md5DigestAsHex(content) + "\"";
+    }
+
+    /**
+     * Creates a strong ETag from modification stamps.
+     *
+     * @param stamps Stamps of all resources the response depends on.
+     * @return Quoted ETag.
+     */
+    public static String fromStamps(final long... stamps) {
+        final StringBuilder builder = new StringBuilder("\"");
+
+        for ( int i = 0; i < stamps.length; i++ ) {
+            if ( i > 0 ) builder.append('-');
+            builder.append(Long.toHexString(stamps[i]));
+        }
+
+        return builder.append('"').toString();
+    }
+
+    /**
+     * Checks whether one of the If-None-Match headers of the request matches the given ETag. Uses the weak
+     * comparison, which applies to GET requests.
+     *
+     * @param request Request.
+     * @param eTag    Quoted ETag of current representation.
+     * @return True if the client already has the current representation.
+     */
+    public static boolean matchesIfNoneMatch(final HttpServletRequest request, final String eTag) {
+        final Enumeration<String> headers = request.getHeaders(HttpHeaders.IF_NONE_MATCH);
+        if ( headers == null ) return false;
+
+        while ( headers.hasMoreElements() ) {
+            for ( final String value : headers.nextElement().split(",") ) {
+                final String candidate = value.trim();
+
+                if ( candidate.equals("*") ) return true;
+
+                final String opaqueTag = candidate.startsWith("W/") ? candidate.substring(2) : candidate;
+                if ( opaqueTag.equals(eTag) ) return true;
+            }
+        }
+
+        return false;
+    }
+
+}
@@ -1,8 +1,33 @@
 package com.hedgehogsmind.springcouchrest.util;
 
+import org.hibernate.annotations.SQLDelete;
+import org.hibernate.annotations.SQLUpdate;
+import org.hibernate.engine.spi.CascadeStyle;
+import org.hibernate.engine.spi.CascadingActions;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.id.PostInsertIdentifierGenerator;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.persister.entity.SingleTableEntityPersister;
+import org.hibernate.type.Type;
+import org.springframework.util.ClassUtils;
+
+import javax.persistence.EntityListeners;
 import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import javax.persistence.PreRemove;
+import javax.persistence.PreUpdate;
+import javax.persistence.metamodel.Attribute;
 import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public final class EntityUtil {
 
@@ -37,6 +62,246 @@ public final class EntityUtil {
         return optionalEntityType.get();
     }
 
+    /**
+     * <p>
+     * Checks whether entities of the given type can be deleted by a bulk <code>DELETE ... WHERE id = ?</code>
+     * without changing the outcome compared to loading and removing them. This is not the case, if
+     * </p>
+     * <ul>
+     *     <li>the entity (or a super class) declares JPA callbacks or listeners for removal,</li>
+     *     <li>custom Hibernate delete event listeners (e.g. Envers) are registered,</li>
+     *     <li>a property cascades removals or removes orphans,</li>
+     *     <li>the entity owns collections (join or collection tables),</li>
+     *     <li>the entity is not mapped to a single table or</li>
+     *     <li>a custom delete statement is declared via {@link SQLDelete} (e.g. soft deletes).</li>
+     * </ul>
+     *
+     * <p>
+     * If the JPA provider is not Hibernate, false is returned.
+     * </p>
+     *
+     * @param entityType    Entity type to check.
+     * @param entityManager Entity manager managing the entity type.
+     * @return True if a bulk delete can be used.
+     */
+    public static boolean isBulkDeletable(final EntityType<?> entityType, final EntityManager entityManager) {
+        final Optional<SessionFactoryImplementor> sessionFactory = unwrapSessionFactory(entityManager);
+        if ( sessionFactory.isEmpty() ) return false;
+
+        final Class<?> entityClass = entityType.getJavaType();
+
+        if ( hasAnnotatedCallbacks(entityClass, List.of(EntityListeners.class, SQLDelete.class),
+                List.of(PreRemove.class, PostRemove.class)) ) return false;
+
+        if ( hasCustomListeners(sessionFactory.get(), List.of(EventType.PRE_DELETE, EventType.POST_DELETE,
+                EventType.POST_COMMIT_DELETE)) ) return false;
+
+        final EntityPersister persister = sessionFactory.get().getMetamodel().entityPersister(entityClass);
+
+        if ( !(persister instanceof SingleTableEntityPersister) ) return false;
+
+        for ( final CascadeStyle cascadeStyle : persister.getPropertyCascadeStyles() ) {
+            if ( cascadeStyle.doCascade(CascadingActions.DELETE) || cascadeStyle.hasOrphanDelete() ) return false;
+        }
+
+        return !hasCollections(persister);
+    }
+
+    /**
+     * <p>
+     * Checks whether entities of the given type can be updated by a bulk <code>UPDATE ... WHERE id = ?</code>
+     * which sets all attributes, without changing the outcome compared to loading and merging them. This
+     * is not the case, if
+     * </p>
+     * <ul>
+     *     <li>the entity (or a super class) declares JPA callbacks or listeners for updates,</li>
+     *     <li>custom Hibernate update event listeners (e.g. Envers) are registered,</li>
+     *     <li>the entity owns collections, embeddables or one-to-one associations,</li>
+     *     <li>a property is not updatable,</li>
+     *     <li>the version attribute (if any) is not numeric,</li>
+     *     <li>the entity is not mapped to a single table or</li>
+     *     <li>a custom update statement is declared via {@link SQLUpdate}.</li>
+     * </ul>
+     *
+     * <p>
+     * If the JPA provider is not Hibernate, false is returned.
+     * </p>
+     *
+     * @param entityType    Entity type to check.
+     * @param entityManager Entity manager managing the entity type.
+     * @return True if a bulk update can be used.
+     */
+    public static boolean isBulkUpdatable(final EntityType<?> entityType, final EntityManager entityManager) {
+        final Optional<SessionFactoryImplementor> sessionFactory = unwrapSessionFactory(entityManager);
+        if ( sessionFactory.isEmpty() ) return false;
+
+        final Class<?> entityClass = entityType.getJavaType();
+
+        if ( hasAnnotatedCallbacks(entityClass, List.of(EntityListeners.class, SQLUpdate.class),
+                List.of(PreUpdate.class, PostUpdate.class)) ) return false;
+
+        if ( hasCustomListeners(sessionFactory.get(), List.of(EventType.PRE_UPDATE, EventType.POST_UPDATE,
+                EventType.POST_COMMIT_UPDATE)) ) return false;
+
+        if ( !entityType.getPluralAttributes().isEmpty() ) return false;
+
+        for ( final SingularAttribute<?, ?> attribute : entityType.getSingularAttributes() ) {
+            if ( attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC &&
+                    attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.MANY_TO_ONE ) {
+                return false;
+            }
+
+            if ( attribute.isVersion() &&
+                    !isNumericVersionType(ClassUtils.resolvePrimitiveIfNecessary(attribute.getJavaType())) ) {
+                return false;
+            }
+        }
+
+        final EntityPersister persister = sessionFactory.get().getMetamodel().entityPersister(entityClass);
+
+        if ( !(persister instanceof SingleTableEntityPersister) ) return false;
+
+        for ( final boolean updatable : persister.getPropertyUpdateability() ) {
+            if ( !updatable ) return false;
+        }
+
+        return !hasCollections(persister);
+    }
+
+    /**
+     * Checks whether the ids of the given entity type are generated by the database on insert (e.g.
+     * <code>GenerationType.IDENTITY</code>). Hibernate then has to execute each insert immediately to obtain the id,
+     * which silently disables JDBC batching of inserts.
+     *
+     * <p>
+     * If the JPA provider is not Hibernate, false is returned.
+     * </p>
+     *
+     * @param entityType    Entity type to check.
+     * @param entityManager Entity manager managing the entity type.
+     * @return True if ids are generated on insert.
+     */
+    public static boolean isPostInsertIdGenerated(final EntityType<?> entityType, final EntityManager entityManager) {
+        final Optional<SessionFactoryImplementor> sessionFactory = unwrapSessionFactory(entityManager);
+        if ( sessionFactory.isEmpty() ) return false;
+
+        final EntityPersister persister = sessionFactory.get().getMetamodel().entityPersister(entityType.getJavaType());
+
+        return persister.getIdentifierGenerator() instanceof PostInsertIdentifierGenerator;
+    }
+
+    /**
+     * Checks whether the given type can be incremented as version by <code>version = version + 1</code>.
+     *
+     * @param versionType Type of version attribute (primitives resolved).
+     * @return True if Integer, Long or Short.
+     */
+    private static boolean isNumericVersionType(final Class<?> versionType) {
+        return versionType == Integer.class || versionType == Long.class || versionType == Short.class;
+    }
+
+    /**
+     * Unwraps the Hibernate session factory.
+     *
+     * @param entityManager Entity manager.
+     * @return Session factory or empty if the JPA provider is not Hibernate.
+     */
+    private static Optional<SessionFactoryImplementor> unwrapSessionFactory(final EntityManager entityManager) {
+        try {
+            return Optional.of(entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class));
+        } catch ( PersistenceException e ) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Checks whether the entity has collection properties (join or collection tables).
+     *
+     * @param persister Persister of entity.
+     * @return True if at least one property is a collection.
+     */
+    private static boolean hasCollections(final EntityPersister persister) {
+        for ( final Type propertyType : persister.getPropertyTypes() ) {
+            if ( propertyType.isCollectionType() ) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks the class and its super classes for the given class annotations and methods annotated by one
+     * of the given method annotations.
+     *
+     * @param entityClass       Entity class.
+     * @param classAnnotations  Annotations to look for on the classes.
+     * @param methodAnnotations Annotations to look for on the declared methods.
+     * @return True if one of them is present.
+     */
+    private static boolean hasAnnotatedCallbacks(final Class<?> entityClass,
+                                                 final List<Class<? extends Annotation>> classAnnotations,
+                                                 final List<Class<? extends Annotation>> methodAnnotations) {
+
+        for ( Class<?> current = entityClass; current != null && current != Object.class;
+              current = current.getSuperclass() ) {
+
+            for ( final Class<? extends Annotation> classAnnotation : classAnnotations ) {
+                if ( current.isAnnotationPresent(classAnnotation) ) return true;
+            }
+
+            for ( final Method method : current.getDeclaredMethods() ) {
+                for ( final Class<? extends Annotation> methodAnnotation : methodAnnotations ) {
+                    if ( method.isAnnotationPresent(methodAnnotation) ) return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks whether event listeners, which are not registered by Hibernate itself, are registered for
+     * one of the given event types.
+     *
+     * @param sessionFactory Session factory.
+     * @param eventTypes     Event types to check.
+     * @return True if there is at least one custom listener.
+     */
+    private static boolean hasCustomListeners(final SessionFactoryImplementor sessionFactory,
+                                              final List<EventType<?>> eventTypes) {
+
+        final EventListenerRegistry listenerRegistry = sessionFactory.getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+
+        final AtomicBoolean customListenerFound = new AtomicBoolean();
+
+        for ( final EventType<?> eventType : eventTypes ) {
+            // visits the listeners without the deprecated EventListenerGroup#listeners()
+            listenerRegistry.getEventListenerGroup(eventType).fireEventOnEachListener(
+                    customListenerFound,
+                    (listener, found) -> {
+                        if ( !isHibernateInternalListener(listener) ) found.set(true);
+                    }
+            );
+        }
+
+        return customListenerFound.get();
+    }
+
+    /**
+     * Hibernate registers some event listeners itself (e.g. for JPA callbacks or bean validation). These
+     * do not require loading the entity, as long as no callbacks are declared.
+     *
+     * @param listener Listener to check.
+     * @return True if listener is one of the standard Hibernate listeners.
+     */
+    private static boolean isHibernateInternalListener(final Object listener) {
+        final String className = listener.getClass().getName();
+
+        return className.startsWith("org.hibernate.event.") ||
+                className.startsWith("org.hibernate.jpa.") ||
+                className.startsWith("org.hibernate.cfg.beanvalidation.");
+    }
+
     /**
      * Takes {@link Class#getSimpleName()} and converts first letter to lower one.
      *
@@ -3,18 +3,24 @@ package com.hedgehogsmind.springcouchrest.util;
 public final class PathUtil {
 
     /**
-     * Removes multiple slashes by single one.
+     * Removes multiple slashes by single one. Does not use regular expressions and returns the
+     * given instance if there is nothing to remove.
      *
      * @param path Path to modify.
      * @return Path without double slashes.
      */
     public static String removeMultipleSlashes(final String path) {
-        return path.replaceAll("(\\/{2,})", "/");
+        final int firstDoubleSlash = path.indexOf("//");
+
+        return firstDoubleSlash < 0 ?
+                path :
+                collapseSlashes(path, firstDoubleSlash);
     }
 
     /**
      * First multiple slashes are removed and then a trailing slash is appended if not present yet.
-     * <b>Adds trailing slash only if the path is not empty!</b>
+     * <b>Adds trailing slash only if the path is not empty!</b> In case the path is already normalized,
+     * the given instance is returned and nothing is allocated.
      *
      * @param path Path to modify.
      * @return Path without multiple slashes and with trailing slash.
@@ -24,7 +30,7 @@ public final class PathUtil {
 
         final String onlySingleSlashes = removeMultipleSlashes(path);
 
-        return onlySingleSlashes.endsWith("/") ?
+        return onlySingleSlashes.charAt(onlySingleSlashes.length() - 1) == '/' ?
                 onlySingleSlashes :
                 onlySingleSlashes + "/";
     }
@@ -42,4 +48,108 @@ public final class PathUtil {
                 onlySingleSlashes;
     }
 
+    /**
+     * Splits the path into its parts separated by slashes. Empty parts are ignored.
+     * Does not use regular expressions.
+     *
+     * @param path Path to split.
+     * @return Non empty parts.
+     */
+    public static String[] splitIntoSegments(final String path) {
+        int count = 0;
+        for ( int i = 0; i < path.length(); i++ ) {
+            if ( path.charAt(i) != '/' && (i == 0 || path.charAt(i - 1) == '/') ) count++;
+        }
+
+        final String[] segments = new String[count];
+        int index = 0;
+        int start = 0;
+
+        while ( index < count ) {
+            start = skipSlashes(path, start);
+
+            int end = path.indexOf('/', start);
+            if ( end < 0 ) end = path.length();
+
+            segments[index++] = path.substring(start, end);
+            start = end;
+        }
+
+        return segments;
+    }
+
+    /**
+     * Copies the path without repeated slashes.
+     *
+     * @param path             Path to copy.
+     * @param firstDoubleSlash Index of first occurrence of two slashes.
+     * @return Path without repeated slashes.
+     */
+    private static String collapseSlashes(final String path, final int firstDoubleSlash) {
+        final StringBuilder builder = new StringBuilder(path.length());
+        builder.append(path, 0, firstDoubleSlash + 1);
+
+        for ( int i = firstDoubleSlash + 2; i < path.length(); i++ ) {
+            final char c = path.charAt(i);
+            if ( c == '/' && path.charAt(i - 1) == '/' ) continue;
+            builder.append(c);
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * <p>
+     * Cheap check whether the given raw (not decoded, not normalized) path may start with the given normalized
+     * prefix. Repeated slashes in the raw path are tolerated. This method does not allocate anything.
+     * </p>
+     *
+     * <p>
+     * In case the raw path contains encoded characters or path parameters (';') before the prefix has been
+     * compared completely, this method can not decide cheaply and returns true. So a result of false means,
+     * that the normalized path can not start with the prefix, whereas true means, that it may.
+     * </p>
+     *
+     * @param rawPath          Raw path, e.g. a request URI.
+     * @param offset           Index in rawPath where the comparison starts.
+     * @param normalizedPrefix Normalized prefix, e.g. the CouchRest base path.
+     * @return False if the path definitely does not start with the prefix, otherwise true.
+     */
+    public static boolean mayStartWith(final String rawPath, final int offset, final String normalizedPrefix) {
+        int pathIndex = skipSlashes(rawPath, offset);
+        int prefixIndex = skipSlashes(normalizedPrefix, 0);
+
+        while ( prefixIndex < normalizedPrefix.length() ) {
+            final char prefixChar = normalizedPrefix.charAt(prefixIndex);
+
+            if ( pathIndex >= rawPath.length() ) {
+                // only a missing trailing slash is acceptable
+                return prefixChar == '/' && skipSlashes(normalizedPrefix, prefixIndex) == normalizedPrefix.length();
+            }
+
+            final char pathChar = rawPath.charAt(pathIndex);
+
+            if ( pathChar == '%' || pathChar == ';' ) return true;
+            if ( pathChar != prefixChar ) return false;
+
+            pathIndex = prefixChar == '/' ? skipSlashes(rawPath, pathIndex) : pathIndex + 1;
+            prefixIndex++;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the index of the first character at or after the given index which is not a slash.
+     *
+     * @param value Value to search in.
+     * @param index Start index.
+     * @return Index of first non slash character or length of value.
+     */
+    private static int skipSlashes(final String value, final int index) {
+        int current = index;
+        while ( current < value.length() && value.charAt(current) == '/' ) current++;
+        return current;
+    }
+
 }
@@ -35,4 +35,58 @@ public final class RequestUtil {
         );
     }
 
+    /**
+     * <p>
+     * Fast check whether the request may target a path starting with the given normalized path prefix.
+     * Works directly on the raw {@link HttpServletRequest#getRequestURI()} without decoding, normalizing or
+     * allocating anything. See {@link PathUtil#mayStartWith(String, int, String)}.
+     * </p>
+     *
+     * <p>
+     * If the request URI does not start with the context path, this method returns true and leaves the
+     * decision to the regular path handling.
+     * </p>
+     *
+     * @param request              Request to check.
+     * @param normalizedPathPrefix Normalized path prefix within the application, e.g. the CouchRest base path.
+     * @return False if the request definitely does not target the prefix, otherwise true.
+     */
+    public static boolean mayTargetPath(final HttpServletRequest request, final String normalizedPathPrefix) {
+        final String requestUri = request.getRequestURI();
+        if ( requestUri == null ) return true;
+
+        final String contextPath = request.getContextPath();
+        int offset = 0;
+
+        if ( contextPath != null && !contextPath.isEmpty() ) {
+            if ( !requestUri.startsWith(contextPath) ) return true;
+            offset = contextPath.length();
+        }
+
+        return PathUtil.mayStartWith(requestUri, offset, normalizedPathPrefix);
+    }
+
+    /**
+     * Replaces all occurrences of the given parameter in the raw query string by one with the given value.
+     * The other parameters are kept as they are.
+     *
+     * @param queryString Raw query string (may be null or empty).
+     * @param name        Name of parameter. Must not need encoding.
+     * @param value       New value of parameter. Must not need encoding.
+     * @return New query string without leading question mark.
+     */
+    public static String replaceQueryParameter(final String queryString, final String name, final String value) {
+        final StringBuilder builder = new StringBuilder();
+
+        if ( queryString != null && !queryString.isEmpty() ) {
+            for ( final String parameter : queryString.split("&") ) {
+                if ( parameter.isEmpty() || parameter.equals(name) || parameter.startsWith(name + "=") ) continue;
+
+                builder.append(parameter).append('&');
+            }
+        }
+
+        return builder.append(name).append('=').append(value).toString();
+    }
+
 }
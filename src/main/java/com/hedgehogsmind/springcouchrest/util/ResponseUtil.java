@@ -2,44 +2,62 @@ package com.hedgehogsmind.springcouchrest.util;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.hedgehogsmind.springcouchrest.rest.problemdetail.I18nProblemDetailConvertible;
 import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetail;
 import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetailConvertible;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetailConvertibleRuntimeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 public final class ResponseUtil {
 
     /**
-     * Simple wrapper for {@link #convertBody(Object, ObjectMapper, Locale)}.
+     * Simple wrapper for {@link #convertBody(Object, ObjectWriter, Locale)}.
      */
     public static class BodyConversionResult {
-        private final String bodyAsString;
+        private final byte[] body;
         private final String contentType;
         private final Optional<Integer> overwritingStatus;
 
-        public BodyConversionResult(String bodyAsString, String contentType) {
-            this.bodyAsString = bodyAsString;
+        public BodyConversionResult(byte[] body, String contentType) {
+            this.body = body;
             this.contentType = contentType;
             this.overwritingStatus = Optional.empty();
         }
 
-        public BodyConversionResult(String bodyAsString, String contentType, int status) {
-            this.bodyAsString = bodyAsString;
+        public BodyConversionResult(byte[] body, String contentType, int status) {
+            this.body = body;
             this.contentType = contentType;
             this.overwritingStatus = Optional.of(status);
         }
 
+        /**
+         * Returns the UTF-8 encoded body.
+         *
+         * @return Body bytes.
+         */
+        public byte[] getBody() {
+            return body;
+        }
+
+        /**
+         * Decodes the body. Meant for debugging and tests only, as it copies the body.
+         *
+         * @return Body as string.
+         */
         public String getBodyAsString() {
-            return bodyAsString;
+            return new String(body, StandardCharsets.UTF_8);
         }
 
         public String getContentType() {
@@ -51,48 +69,84 @@ public final class ResponseUtil {
         }
     }
 
+    /**
+     * Convenience method. Calls {@link #writeResponseEntity(ResponseEntity, HttpServletRequest, HttpServletResponse, ObjectWriter)}
+     * with a new untyped ObjectWriter of the given ObjectMapper. Prefer passing a cached ObjectWriter.
+     *
+     * @param responseEntity ResponseEntity to write to response.
+     * @param request Request to check for locale.
+     * @param response Response to write ResponseEntity to.
+     * @param objectMapper ObjectMapper used to serialize generic object body.
+     */
+    public static void writeResponseEntity(
+            final ResponseEntity responseEntity,
+            final HttpServletRequest request,
+            final HttpServletResponse response,
+            final ObjectMapper objectMapper
+            ) {
+
+        writeResponseEntity(responseEntity, request, response, objectMapper.writer());
+    }
+
     /**
      * <p>
      *     To sum it up: Writes a ResponseEntity to the response.
      * </p>
      *
      * <p>
-     *     First fetches tries to fetch locale from request. If none is specified, {@link Locale#ENGLISH} is used.
+     *     First status and headers will be written to the response object. Multiple values of one header
+     *     are joined by a comma.
      * </p>
      *
      * <p>
-     *     Then status and headers will be written to the response object.
+     *     The body, if present, will be encoded once as UTF-8 bytes by using
+     *     {@link #convertBody(Object, ObjectWriter, Locale)}. The bytes are then written directly to the response
+     *     output stream and the content length is set accordingly. The locale for problem details is fetched
+     *     from the request. If none is specified, {@link Locale#ENGLISH} is used.
      * </p>
      *
      * <p>
-     *     The body, if present, will be converted to a
-     *     string by using {@link #convertBody(Object, ObjectMapper, Locale)} representation and is
-     *     then written to the response writer.
+     *     A {@link StreamingResponseBody} is not converted but writes directly to the response output stream.
+     *     If the ResponseEntity does not specify a content type, JSON is assumed.
      * </p>
      *
      * @param responseEntity ResponseEntity to write to response.
      * @param request Request to check for locale.
      * @param response Response to write ResponseEntity to.
-     * @param objectMapper ObjectMapper used to serialize generic object body.
+     * @param jsonWriter ObjectWriter used to serialize generic object body.
      */
     public static void writeResponseEntity(
             final ResponseEntity responseEntity,
             final HttpServletRequest request,
             final HttpServletResponse response,
-            final ObjectMapper objectMapper
+            final ObjectWriter jsonWriter
             ) {
 
-        final Locale locale = RequestUtil.fetchLocale(request, Locale.ENGLISH);
-
         response.setStatus(responseEntity.getStatusCodeValue());
-        responseEntity.getHeaders().forEach((name, value) -> {
-            response.setHeader(name, value.stream().collect(Collectors.joining(", ")));
-        });
+
+        for ( final Map.Entry<String, List<String>> header : responseEntity.getHeaders().entrySet() ) {
+            response.setHeader(header.getKey(), joinHeaderValues(header.getValue()));
+        }
 
         final Object body = responseEntity.getBody();
 
-        if ( body != null ) {
-            final BodyConversionResult conversionResult = convertBody(body, objectMapper, locale);
+        if ( body instanceof StreamingResponseBody ) {
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+            if ( response.getContentType() == null ) {
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            }
+
+            try {
+                ((StreamingResponseBody) body).writeTo(response.getOutputStream());
+                response.flushBuffer();
+            } catch ( IOException e ) {
+                throw new RuntimeException("Could not write response body", e);
+            }
+
+        } else if ( body != null ) {
+            final Locale locale = RequestUtil.fetchLocale(request, Locale.ENGLISH);
+            final BodyConversionResult conversionResult = convertBody(body, jsonWriter, locale);
 
             response.setCharacterEncoding(StandardCharsets.UTF_8.name());
             response.setContentType(conversionResult.getContentType());
@@ -101,9 +155,12 @@ public final class ResponseUtil {
                 response.setStatus(conversionResult.getOverwritingStatus().get());
             }
 
-            if ( conversionResult.getBodyAsString() != null && !conversionResult.getBodyAsString().isEmpty() ) {
+            final byte[] bytes = conversionResult.getBody();
+            response.setContentLength(bytes.length);
+
+            if ( bytes.length > 0 ) {
                 try {
-                    response.getWriter().print(conversionResult.getBodyAsString());
+                    response.getOutputStream().write(bytes);
                 } catch ( IOException e ) {
                     throw new RuntimeException("Could not write response body", e);
                 }
@@ -111,9 +168,32 @@ public final class ResponseUtil {
         }
     }
 
+    /**
+     * Joins multiple header values by a comma.
+     *
+     * @param values Values of one header.
+     * @return Joined values.
+     */
+    private static String joinHeaderValues(final List<String> values) {
+        if ( values.size() == 1 ) return values.get(0);
+
+        final StringBuilder joined = new StringBuilder();
+
+        for ( int i = 0; i < values.size(); i++ ) {
+            if ( i > 0 ) joined.append(", ");
+            joined.append(values.get(i));
+        }
+
+        return joined.toString();
+    }
+
     /**
      * <p>
-     *     Converts body to string body and returns appropriate content type.
+     *     Converts body to UTF-8 bytes and returns appropriate content type.
+     * </p>
+     *
+     * <p>
+     *     A body which has already been converted (e.g. to compute its ETag) is returned as it is.
      * </p>
      *
      * <p>
@@ -128,25 +208,37 @@ public final class ResponseUtil {
      * </p>
      *
      * <p>
-     *     The last option is to try to serialize the given body object as JSON.
+     *     The last option is to try to serialize the given body object as JSON. The bytes are created directly
+     *     by Jackson, which uses its recycled buffers - there is no intermediate string.
+     * </p>
+     *
+     * <p>
+     *     Serialization is guarded: if a {@link ProblemDetailConvertibleRuntimeException} is thrown while
+     *     serializing (e.g. because an association which has not been loaded must not be loaded, see
+     *     {@link com.hedgehogsmind.springcouchrest.annotations.crud.CrudLazyLoading}), its problem detail is
+     *     returned instead. As the body is serialized completely before anything is written, no partial body is
+     *     sent.
      * </p>
      *
      * @param body Body object.
-     * @param objectMapper ObjectMapper for JSON serialization.
+     * @param jsonWriter ObjectWriter for JSON serialization.
      * @param locale Locale for which to localize ProblemDetails for.
      * @return Conversion result.
      */
     public static BodyConversionResult convertBody(
             final Object body,
-            final ObjectMapper objectMapper,
+            final ObjectWriter jsonWriter,
             final Locale locale
     ) {
-        if ( body instanceof String ||
+        if ( body instanceof BodyConversionResult ) {
+            return (BodyConversionResult) body;
+
+        } else if ( body instanceof String ||
                 body instanceof Boolean ||
                 body instanceof Number ) {
 
             return new BodyConversionResult(
-                    String.valueOf(body),
+                    String.valueOf(body).getBytes(StandardCharsets.UTF_8),
                     MediaType.TEXT_PLAIN_VALUE
             );
 
@@ -164,27 +256,47 @@ public final class ResponseUtil {
                 throw new UnsupportedOperationException("problem detail (convertible) type not handled yet");
             }
 
-            final String json = problemDetail.toJson();
             return new BodyConversionResult(
-                    json,
+                    problemDetail.toJsonBytes(),
                     ProblemDetail.CONTENT_TYPE.toString(),
                     problemDetail.getStatus()
             );
 
         } else {
             try {
-                final String json = objectMapper.writeValueAsString(body);
-
                 return new BodyConversionResult(
-                        json,
+                        jsonWriter.writeValueAsBytes(body),
                         MediaType.APPLICATION_JSON_VALUE
                 );
+            } catch ( ProblemDetailConvertibleRuntimeException e ) {
+                return convertBody(e, jsonWriter, locale);
+
             } catch ( JsonProcessingException e ) {
+                final ProblemDetailConvertibleRuntimeException problemCause = findProblemCause(e);
+                if ( problemCause != null ) return convertBody(problemCause, jsonWriter, locale);
+
                 // TODO @peter throw problem detail exception
                 throw new RuntimeException("Could not write body as JSON", e);
             }
         }
     }
 
+    /**
+     * Jackson wraps exceptions thrown by serializers. This method searches the causes for a
+     * {@link ProblemDetailConvertibleRuntimeException}.
+     *
+     * @param exception Exception thrown by Jackson.
+     * @return First problem cause or null.
+     */
+    private static ProblemDetailConvertibleRuntimeException findProblemCause(final Throwable exception) {
+        for ( Throwable cause = exception.getCause(); cause != null && cause != exception; cause = cause.getCause() ) {
+            if ( cause instanceof ProblemDetailConvertibleRuntimeException ) {
+                return (ProblemDetailConvertibleRuntimeException) cause;
+            }
+        }
+
+        return null;
+    }
+
 
 }
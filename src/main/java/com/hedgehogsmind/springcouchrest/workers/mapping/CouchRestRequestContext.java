@@ -0,0 +1,201 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping;
+
+import com.hedgehogsmind.springcouchrest.util.PathUtil;
+import com.hedgehogsmind.springcouchrest.util.RequestUtil;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * <p>
+ * Request scoped, parsed view of a request. It is created once by the handler mapping and attached to the
+ * request as attribute {@link #REQUEST_ATTRIBUTE}. By this, the normalized path is only computed once per
+ * request and not by every resource and sub handler asked during routing and handling.
+ * </p>
+ *
+ * <p>
+ * Locale, query parameters and the path parts after a resource's path are computed lazily. Instances
+ * are not thread safe - just like requests.
+ * </p>
+ */
+public final class CouchRestRequestContext {
+
+    /**
+     * Name of the request attribute the context is stored in.
+     */
+    public static final String REQUEST_ATTRIBUTE = CouchRestRequestContext.class.getName();
+
+    private static final String[] NO_PATH_VARIABLES = new String[0];
+
+    private final HttpServletRequest request;
+
+    private final String requestUri;
+
+    private final String method;
+
+    private final String fullPath;
+
+    private Locale locale;
+
+    private Map<String, String[]> queryParameters;
+
+    private String pathPrefix;
+
+    private String pathAfterPrefix;
+
+    private String[] pathVariablesAfterPrefix;
+
+    /**
+     * Parses the given request.
+     *
+     * @param request Request to parse.
+     */
+    private CouchRestRequestContext(final HttpServletRequest request) {
+        this.request = request;
+        this.requestUri = request.getRequestURI();
+        this.method = request.getMethod();
+        this.fullPath = RequestUtil.getRequestPathWithTrailingSlash(request);
+    }
+
+    /**
+     * Parses the given request and attaches the new context to it. An existing context will be replaced.
+     *
+     * @param request Request to parse.
+     * @return New context.
+     */
+    public static CouchRestRequestContext attach(final HttpServletRequest request) {
+        final CouchRestRequestContext context = new CouchRestRequestContext(request);
+        request.setAttribute(REQUEST_ATTRIBUTE, context);
+        return context;
+    }
+
+    /**
+     * Returns the context attached to the request. In case there is none or it has been created for
+     * another URI or method (e.g. on a forward or error dispatch), a new one is attached.
+     *
+     * @param request Request to get context for.
+     * @return Context of request.
+     */
+    public static CouchRestRequestContext of(final HttpServletRequest request) {
+        final Object attached = request.getAttribute(REQUEST_ATTRIBUTE);
+
+        if ( attached instanceof CouchRestRequestContext ) {
+            final CouchRestRequestContext context = (CouchRestRequestContext) attached;
+
+            if ( context.matches(request) ) return context;
+        }
+
+        return attach(request);
+    }
+
+    /**
+     * Checks whether this context still describes the given request.
+     *
+     * @param request Request to check.
+     * @return True if URI and method are the same.
+     */
+    private boolean matches(final HttpServletRequest request) {
+        return equals(requestUri, request.getRequestURI()) && equals(method, request.getMethod());
+    }
+
+    private static boolean equals(final String a, final String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Request this context has been created for.
+     *
+     * @return Request.
+     */
+    public HttpServletRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * HTTP method of request.
+     *
+     * @return Method.
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Normalized path of request within the application.
+     *
+     * @return Full path with trailing slash.
+     */
+    public String getFullPath() {
+        return fullPath;
+    }
+
+    /**
+     * Locale of request or {@link Locale#ENGLISH} if the request does not specify one.
+     *
+     * @return Locale.
+     */
+    public Locale getLocale() {
+        if ( locale == null ) {
+            locale = RequestUtil.fetchLocale(request, Locale.ENGLISH);
+        }
+
+        return locale;
+    }
+
+    /**
+     * Query parameters of request. Fetched on first access.
+     *
+     * @return Query parameters.
+     */
+    public Map<String, String[]> getQueryParameters() {
+        if ( queryParameters == null ) {
+            queryParameters = request.getParameterMap();
+        }
+
+        return queryParameters;
+    }
+
+    /**
+     * Delivers the part of the full path after the given prefix.
+     *
+     * @param prefix Prefix the full path starts with, e.g. a resource path.
+     * @return Path after prefix. Ends with trailing slash or is empty.
+     */
+    public String getPathAfter(final String prefix) {
+        computePathAfter(prefix);
+        return pathAfterPrefix;
+    }
+
+    /**
+     * Delivers the path variables after the given prefix.
+     *
+     * @param prefix Prefix the full path starts with, e.g. a resource path.
+     * @return Path after prefix split into parts separated by slash. Empty parts ignored.
+     */
+    public String[] getPathVariablesAfter(final String prefix) {
+        computePathAfter(prefix);
+        return pathVariablesAfterPrefix;
+    }
+
+    /**
+     * Computes the path parts after the given prefix. The result for the last prefix is cached, as
+     * all sub handlers of one resource ask for the same prefix.
+     *
+     * @param prefix Prefix the full path starts with.
+     */
+    private void computePathAfter(final String prefix) {
+        if ( prefix.equals(pathPrefix) ) return;
+
+        if ( !fullPath.startsWith(prefix) ) {
+            throw new IllegalArgumentException("Path '" + fullPath + "' does not start with '" + prefix + "'.");
+        }
+
+        pathAfterPrefix = fullPath.substring(prefix.length());
+        pathVariablesAfterPrefix = pathAfterPrefix.isEmpty() ?
+                NO_PATH_VARIABLES :
+                PathUtil.splitIntoSegments(pathAfterPrefix);
+        pathPrefix = prefix;
+    }
+
+}
@@ -3,7 +3,6 @@ package com.hedgehogsmind.springcouchrest.workers.mapping;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hedgehogsmind.springcouchrest.beans.CouchRestCore;
 import com.hedgehogsmind.springcouchrest.data.discovery.DiscoveredUnit;
-import com.hedgehogsmind.springcouchrest.util.RequestUtil;
 import org.springframework.http.ResponseEntity;
 
 import javax.servlet.http.HttpServletRequest;
@@ -109,7 +108,7 @@ public abstract class MappedResource
      * @return Handler or empty.
      */
     public Optional<MappingHandler> findHandler(HttpServletRequest request) {
-        final String path = RequestUtil.getRequestPathWithTrailingSlash(request);
+        final String path = CouchRestRequestContext.of(request).getFullPath();
 
         if (path.startsWith(resourcePathWithTrailingSlash)) {
             for (final MappingHandler subHandler : subMappingHandlers) {
@@ -1,12 +1,14 @@
 package com.hedgehogsmind.springcouchrest.workers.mapping;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.hedgehogsmind.springcouchrest.util.RequestUtil;
+import com.hedgehogsmind.springcouchrest.util.PathUtil;
 import org.springframework.http.ResponseEntity;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.Collections;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * <p>
@@ -21,6 +23,11 @@ import java.util.Map;
  * from the given request and passed to the extended methods. This simplifies the data access for
  * implementation. <b>The overall purpose of this class is convenience.</b>
  * </p>
+ *
+ * <p>
+ * The data is taken from the request's {@link CouchRestRequestContext}. So the path is only normalized and split
+ * once, no matter how many sub handlers are asked.
+ * </p>
  */
 public abstract class MappedResourceSubHandlerBase
         implements MappingHandler {
@@ -36,6 +43,16 @@ public abstract class MappedResourceSubHandlerBase
         this.parentResource = parentResource;
     }
 
+    /**
+     * Obtains the parsed context of the given request. Convenience method.
+     *
+     * @param request Request.
+     * @return Context of request.
+     */
+    protected CouchRestRequestContext getRequestContext(final HttpServletRequest request) {
+        return CouchRestRequestContext.of(request);
+    }
+
     /**
      * Obtains full path of given request. Convenience method.
      *
@@ -43,7 +60,7 @@ public abstract class MappedResourceSubHandlerBase
      * @return Full path of request with trailing slash.
      */
     protected String getRequestsFullPath(final HttpServletRequest request) {
-        return RequestUtil.getRequestPathWithTrailingSlash(request);
+        return getRequestContext(request).getFullPath();
     }
 
     /**
@@ -65,10 +82,7 @@ public abstract class MappedResourceSubHandlerBase
     protected String[] getRequestsPathVariablesAfterParentResource(
             final String pathAfterParentResource
     ) {
-        // we do not need to cut of trailing slash, because split ignores trailing empty strings
-        return (pathAfterParentResource.isEmpty() || pathAfterParentResource.equals("/")) ?
-                new String[0] :
-                pathAfterParentResource.split("/");
+        return PathUtil.splitIntoSegments(pathAfterParentResource);
     }
 
     /**
@@ -88,16 +102,15 @@ public abstract class MappedResourceSubHandlerBase
      */
     @Override
     public boolean accepts(HttpServletRequest request) {
-        final String fullPath = getRequestsFullPath(request);
-        final String pathAfterResource = getRequestsPathAfterParentResource(fullPath);
-        final String[] pathVariables = getRequestsPathVariablesAfterParentResource(pathAfterResource);
+        final CouchRestRequestContext context = getRequestContext(request);
+        final String resourcePath = parentResource.getResourcePathWithTrailingSlash();
 
         return accepts(
                 request,
-                request.getMethod(),
-                fullPath,
-                pathAfterResource,
-                pathVariables
+                context.getMethod(),
+                context.getFullPath(),
+                context.getPathAfter(resourcePath),
+                context.getPathVariablesAfter(resourcePath)
         );
     }
 
@@ -113,22 +126,32 @@ public abstract class MappedResourceSubHandlerBase
      */
     @Override
     public ResponseEntity handle(HttpServletRequest request, ObjectMapper objectMapper) {
-        final String fullPath = getRequestsFullPath(request);
-        final String pathAfterResource = getRequestsPathAfterParentResource(fullPath);
-        final String[] pathVariables = getRequestsPathVariablesAfterParentResource(pathAfterResource);
+        final CouchRestRequestContext context = getRequestContext(request);
+        final String resourcePath = parentResource.getResourcePathWithTrailingSlash();
 
         return handle(
                 request,
                 objectMapper,
-                RequestUtil.fetchLocale(request, Locale.ENGLISH),
-                request.getMethod(),
-                fullPath,
-                pathAfterResource,
-                pathVariables,
-                request.getParameterMap()
+                context.getLocale(),
+                context.getMethod(),
+                context.getFullPath(),
+                context.getPathAfter(resourcePath),
+                context.getPathVariablesAfter(resourcePath),
+                context.getQueryParameters()
         );
     }
 
+    /**
+     * Delivers the HTTP methods this sub handler is capable of handling. Used by {@link MappingRouter}
+     * to build its method dispatch tables. {@link #accepts(HttpServletRequest, String, String, String, String[])}
+     * will only be asked for requests with one of these methods.
+     *
+     * @return HTTP methods of this sub handler. Empty if it may handle requests of any method.
+     */
+    public Set<String> getHttpMethods() {
+        return Collections.emptySet();
+    }
+
     /**
      * <p>
      * Method the extending class needs to implement. In case this sub handler can handle the given request,
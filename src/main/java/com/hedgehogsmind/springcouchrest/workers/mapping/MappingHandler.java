@@ -1,6 +1,7 @@
 package com.hedgehogsmind.springcouchrest.workers.mapping;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.hedgehogsmind.springcouchrest.beans.CouchRestHandlerAdapter;
 import com.hedgehogsmind.springcouchrest.beans.CouchRestHandlerMapping;
 import org.springframework.http.ResponseEntity;
@@ -40,4 +41,20 @@ public interface MappingHandler {
             ObjectMapper objectMapper
     );
 
+    /**
+     * Returns the ObjectWriter which shall be used to serialize the given body returned by
+     * {@link #handle(HttpServletRequest, ObjectMapper)}. Implementations can return ObjectWriters prepared once
+     * for the body types they know. By default, a new untyped ObjectWriter is created.
+     *
+     * @param body         Body of ResponseEntity returned by this handler.
+     * @param objectMapper ObjectMapper which has been passed to {@link #handle(HttpServletRequest, ObjectMapper)}.
+     * @return ObjectWriter for body.
+     */
+    default ObjectWriter getObjectWriter(
+            Object body,
+            ObjectMapper objectMapper
+    ) {
+        return objectMapper.writer();
+    }
+
 }
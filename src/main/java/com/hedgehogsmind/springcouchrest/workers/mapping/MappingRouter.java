@@ -0,0 +1,407 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.handler.MappedInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.*;
+
+/**
+ * <p>
+ * Immutable routing table for all {@link MappedResource}s. The resource paths are stored in a trie
+ * whose nodes represent single path segments. Every node, which represents a resource, holds an
+ * HTTP method dispatch table of that resource's sub handlers.
+ * </p>
+ *
+ * <p>
+ * Finding a {@link MappingHandler} for a request is done in one walk along the request path's segments.
+ * The cost depends on the depth of the path and not on the number of mapped resources. In case
+ * resource paths are nested, the deepest resource is asked first.
+ * </p>
+ *
+ * <p>
+ * Via {@link #withInterceptors(List)} a copy can be created, in which every route holds the
+ * {@link HandlerInterceptor}s applicable to it. {@link MappedInterceptor}s whose path patterns can not match any
+ * path of a route are filtered out once, so that they are not matched again for every request.
+ * </p>
+ */
+public class MappingRouter {
+
+    private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final RouteNode root;
+
+    /**
+     * Builds the routing table for the given resources.
+     *
+     * @param mappedResources Resources to route to.
+     * @throws IllegalStateException if two resources share the same path.
+     */
+    public MappingRouter(final Collection<MappedResource> mappedResources) {
+        final RouteNodeBuilder rootBuilder = new RouteNodeBuilder();
+
+        for ( final MappedResource mappedResource : mappedResources ) {
+            RouteNodeBuilder current = rootBuilder;
+
+            for ( final String segment : getSegments(mappedResource.getResourcePathWithTrailingSlash()) ) {
+                current = current.children.computeIfAbsent(segment, s -> new RouteNodeBuilder());
+            }
+
+            if ( current.resource != null ) {
+                throw new IllegalStateException("There are two resources with the path '" +
+                        mappedResource.getResourcePathWithTrailingSlash() + "'.");
+            }
+
+            current.resource = mappedResource;
+        }
+
+        this.root = rootBuilder.build();
+    }
+
+    /**
+     * Used by {@link #withInterceptors(List)}.
+     *
+     * @param root Root node.
+     */
+    private MappingRouter(final RouteNode root) {
+        this.root = root;
+    }
+
+    /**
+     * Creates a copy of this router, in which every route holds the given interceptors which may apply to it.
+     * {@link MappedInterceptor}s, whose include patterns can not match any path of the route, are dropped.
+     * The remaining ones are matched against the request path in
+     * {@link #findHandlerExecutionChain(CouchRestRequestContext)}. The order of the interceptors is kept.
+     *
+     * @param interceptors Interceptors to apply, in order.
+     * @return New router with per route interceptors.
+     */
+    public MappingRouter withInterceptors(final List<HandlerInterceptor> interceptors) {
+        return new MappingRouter(root.withInterceptors(interceptors));
+    }
+
+    /**
+     * Splits the path into its non empty segments.
+     *
+     * @param path Path to split.
+     * @return Non empty segments.
+     */
+    protected static List<String> getSegments(final String path) {
+        final List<String> segments = new ArrayList<>();
+
+        int start = 0;
+        while ( start < path.length() ) {
+            int end = path.indexOf('/', start);
+            if ( end < 0 ) end = path.length();
+
+            if ( end > start ) segments.add(path.substring(start, end));
+
+            start = end + 1;
+        }
+
+        return segments;
+    }
+
+    /**
+     * Walks along the segments of the request's path and asks the sub handlers of the resources found
+     * on the way, which are registered for the request's HTTP method. The deepest resource is asked first.
+     *
+     * @param request Request to find handler for.
+     * @return Handler or empty if no resource handles the request.
+     */
+    public Optional<MappingHandler> findHandler(final HttpServletRequest request) {
+        return findHandler(CouchRestRequestContext.of(request));
+    }
+
+    /**
+     * Same as {@link #findHandler(HttpServletRequest)}, but uses the already parsed request context.
+     *
+     * @param context Context of request to find handler for.
+     * @return Handler or empty if no resource handles the request.
+     */
+    public Optional<MappingHandler> findHandler(final CouchRestRequestContext context) {
+        return Optional.ofNullable(
+                find(root, context.getFullPath(), 0, context, MappingRouter::toHandler)
+        );
+    }
+
+    /**
+     * Finds the handler like {@link #findHandler(CouchRestRequestContext)} and creates an execution chain with
+     * the interceptors of the handler's route. See {@link #withInterceptors(List)}.
+     *
+     * @param context Context of request to find handler for.
+     * @return Chain or null if no resource handles the request.
+     */
+    public HandlerExecutionChain findHandlerExecutionChain(final CouchRestRequestContext context) {
+        return find(root, context.getFullPath(), 0, context, MappingRouter::toHandlerExecutionChain);
+    }
+
+    private static MappingHandler toHandler(final RouteNode node,
+                                            final MappingHandler handler,
+                                            final CouchRestRequestContext context) {
+        return handler;
+    }
+
+    private static HandlerExecutionChain toHandlerExecutionChain(final RouteNode node,
+                                                                 final MappingHandler handler,
+                                                                 final CouchRestRequestContext context) {
+        return node.interceptors.createChain(handler, context);
+    }
+
+    /**
+     * Recursive part of {@link #findHandler(CouchRestRequestContext)}.
+     *
+     * @param node          Current node.
+     * @param path          Normalized request path.
+     * @param offset        Offset in path where the next segment search starts.
+     * @param context       Context of request.
+     * @param resultFactory Creates the result for the route and handler found.
+     * @param <T>           Type of result.
+     * @return Result or null.
+     */
+    private <T> T find(final RouteNode node,
+                       final String path,
+                       final int offset,
+                       final CouchRestRequestContext context,
+                       final RouteResultFactory<T> resultFactory) {
+
+        int start = offset;
+        while ( start < path.length() && path.charAt(start) == '/' ) start++;
+
+        if ( start < path.length() && !node.children.isEmpty() ) {
+            int end = path.indexOf('/', start);
+            if ( end < 0 ) end = path.length();
+
+            final RouteNode child = node.children.get(path.substring(start, end));
+
+            if ( child != null ) {
+                final T deeperResult = find(child, path, end, context, resultFactory);
+                if ( deeperResult != null ) return deeperResult;
+            }
+        }
+
+        if ( node.resource != null ) {
+            for ( final MappingHandler handler : node.getHandlers(context.getMethod()) ) {
+                if ( handler.accepts(context.getRequest()) ) return resultFactory.create(node, handler, context);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Creates the result of a route search.
+     *
+     * @param <T> Type of result.
+     */
+    @FunctionalInterface
+    private interface RouteResultFactory<T> {
+
+        T create(RouteNode node, MappingHandler handler, CouchRestRequestContext context);
+
+    }
+
+    /**
+     * Immutable node of the routing trie.
+     */
+    private static final class RouteNode {
+
+        private final Map<String, RouteNode> children;
+
+        private final MappedResource resource;
+
+        private final Map<String, List<MappingHandler>> handlersByMethod;
+
+        private final List<MappingHandler> handlersForAnyMethod;
+
+        private final RouteInterceptors interceptors;
+
+        private RouteNode(final Map<String, RouteNode> children, final MappedResource resource) {
+            this.children = children;
+            this.resource = resource;
+            this.interceptors = RouteInterceptors.NONE;
+
+            if ( resource == null ) {
+                this.handlersByMethod = Collections.emptyMap();
+                this.handlersForAnyMethod = Collections.emptyList();
+                return;
+            }
+
+            final List<MappingHandler> subHandlers = resource.getSubMappingHandlers();
+            final Set<String> methods = new HashSet<>();
+            final List<MappingHandler> anyMethod = new ArrayList<>();
+
+            for ( final MappingHandler subHandler : subHandlers ) {
+                final Set<String> handlerMethods = getHttpMethods(subHandler);
+
+                if ( handlerMethods.isEmpty() ) anyMethod.add(subHandler);
+                else methods.addAll(handlerMethods);
+            }
+
+            // Every list keeps the order of the sub handlers defined by the resource
+            final Map<String, List<MappingHandler>> byMethod = new HashMap<>();
+            for ( final String method : methods ) {
+                final List<MappingHandler> methodHandlers = new ArrayList<>();
+
+                for ( final MappingHandler subHandler : subHandlers ) {
+                    final Set<String> handlerMethods = getHttpMethods(subHandler);
+
+                    if ( handlerMethods.isEmpty() || handlerMethods.contains(method) ) {
+                        methodHandlers.add(subHandler);
+                    }
+                }
+
+                byMethod.put(method, List.copyOf(methodHandlers));
+            }
+
+            this.handlersByMethod = Map.copyOf(byMethod);
+            this.handlersForAnyMethod = List.copyOf(anyMethod);
+        }
+
+        private RouteNode(final RouteNode original,
+                          final Map<String, RouteNode> children,
+                          final RouteInterceptors interceptors) {
+            this.children = children;
+            this.resource = original.resource;
+            this.handlersByMethod = original.handlersByMethod;
+            this.handlersForAnyMethod = original.handlersForAnyMethod;
+            this.interceptors = interceptors;
+        }
+
+        private RouteNode withInterceptors(final List<HandlerInterceptor> allInterceptors) {
+            final Map<String, RouteNode> newChildren = new HashMap<>();
+            children.forEach((segment, child) -> newChildren.put(segment, child.withInterceptors(allInterceptors)));
+
+            return new RouteNode(
+                    this,
+                    Map.copyOf(newChildren),
+                    resource != null ?
+                            RouteInterceptors.forRoute(resource.getResourcePathWithTrailingSlash(), allInterceptors) :
+                            RouteInterceptors.NONE
+            );
+        }
+
+        private static Set<String> getHttpMethods(final MappingHandler handler) {
+            return handler instanceof MappedResourceSubHandlerBase ?
+                    ((MappedResourceSubHandlerBase) handler).getHttpMethods() :
+                    Collections.emptySet();
+        }
+
+        private List<MappingHandler> getHandlers(final String method) {
+            return handlersByMethod.getOrDefault(method, handlersForAnyMethod);
+        }
+
+    }
+
+    /**
+     * Immutable, pre-filtered interceptors of a route. As {@link HandlerExecutionChain}s carry per request state,
+     * a new chain is created for every request from the shared interceptor array.
+     */
+    private static final class RouteInterceptors {
+
+        private static final RouteInterceptors NONE = new RouteInterceptors(new HandlerInterceptor[0], false);
+
+        private final HandlerInterceptor[] interceptors;
+
+        private final boolean hasMappedInterceptors;
+
+        private RouteInterceptors(final HandlerInterceptor[] interceptors, final boolean hasMappedInterceptors) {
+            this.interceptors = interceptors;
+            this.hasMappedInterceptors = hasMappedInterceptors;
+        }
+
+        /**
+         * Keeps all interceptors which may apply to paths starting with the given route path.
+         *
+         * @param routePath       Path of route with trailing slash.
+         * @param allInterceptors All interceptors.
+         * @return Interceptors of route.
+         */
+        private static RouteInterceptors forRoute(final String routePath,
+                                                  final List<HandlerInterceptor> allInterceptors) {
+            final String routePathWithoutTrailingSlash = routePath.substring(0, routePath.length() - 1);
+            final List<HandlerInterceptor> routeInterceptors = new ArrayList<>();
+            boolean hasMappedInterceptors = false;
+
+            for ( final HandlerInterceptor interceptor : allInterceptors ) {
+                if ( interceptor instanceof MappedInterceptor ) {
+                    final MappedInterceptor mappedInterceptor = (MappedInterceptor) interceptor;
+                    final String[] includePatterns = mappedInterceptor.getPathPatterns();
+
+                    if ( includePatterns != null && !mayMatch(includePatterns, routePathWithoutTrailingSlash) ) {
+                        continue;
+                    }
+
+                    hasMappedInterceptors = true;
+                }
+
+                routeInterceptors.add(interceptor);
+            }
+
+            return new RouteInterceptors(routeInterceptors.toArray(new HandlerInterceptor[0]), hasMappedInterceptors);
+        }
+
+        private static boolean mayMatch(final String[] patterns, final String routePath) {
+            for ( final String pattern : patterns ) {
+                if ( PATH_MATCHER.matchStart(pattern, routePath) ) return true;
+            }
+
+            return false;
+        }
+
+        /**
+         * Creates a chain for the given handler. {@link MappedInterceptor}s are matched against the request path
+         * and unwrapped.
+         *
+         * @param handler Handler of request.
+         * @param context Context of request.
+         * @return New chain.
+         */
+        @SuppressWarnings("deprecation")
+        private HandlerExecutionChain createChain(final MappingHandler handler, final CouchRestRequestContext context) {
+            if ( !hasMappedInterceptors ) return new HandlerExecutionChain(handler, interceptors);
+
+            final String fullPath = context.getFullPath();
+            final String lookupPath = fullPath.substring(0, fullPath.length() - 1);
+            final HandlerExecutionChain chain = new HandlerExecutionChain(handler);
+
+            for ( final HandlerInterceptor interceptor : interceptors ) {
+                if ( interceptor instanceof MappedInterceptor ) {
+                    final MappedInterceptor mappedInterceptor = (MappedInterceptor) interceptor;
+
+                    if ( mappedInterceptor.matches(lookupPath, PATH_MATCHER) ) {
+                        chain.addInterceptor(mappedInterceptor.getInterceptor());
+                    }
+
+                } else {
+                    chain.addInterceptor(interceptor);
+                }
+            }
+
+            return chain;
+        }
+
+    }
+
+    /**
+     * Mutable counterpart of {@link RouteNode} used while building the trie.
+     */
+    private static final class RouteNodeBuilder {
+
+        private final Map<String, RouteNodeBuilder> children = new HashMap<>();
+
+        private MappedResource resource;
+
+        private RouteNode build() {
+            final Map<String, RouteNode> builtChildren = new HashMap<>();
+            children.forEach((segment, child) -> builtChildren.put(segment, child.build()));
+
+            return new RouteNode(Map.copyOf(builtChildren), resource);
+        }
+
+    }
+
+}
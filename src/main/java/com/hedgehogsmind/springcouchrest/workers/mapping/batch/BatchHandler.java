@@ -0,0 +1,563 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.batch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.hedgehogsmind.springcouchrest.beans.CouchRestCore;
+import com.hedgehogsmind.springcouchrest.beans.CouchRestHandlerAdapter;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+import com.hedgehogsmind.springcouchrest.util.ResponseUtil;
+import com.hedgehogsmind.springcouchrest.workers.mapping.CouchRestRequestContext;
+import com.hedgehogsmind.springcouchrest.workers.mapping.MappingHandler;
+import com.hedgehogsmind.springcouchrest.workers.mapping.MappingRouter;
+import com.hedgehogsmind.springcouchrest.workers.mapping.batch.exceptions.TooManyBatchRequestsException;
+import com.hedgehogsmind.springcouchrest.workers.mapping.body.RequestBodyReader;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.exceptions.InvalidQueryParameterException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Handles batch requests via <code>POST {basePath}_batch</code>. The body is a JSON array of sub-requests
+ * ({@link BatchRequestItem}), which are dispatched through the {@link MappingRouter} and the found
+ * {@link MappingHandler}s directly - without another servlet round trip. The Spring MVC interceptors of the route
+ * are applied to every sub-request, just like to a single request. The response is a JSON array with one
+ * {@link BatchResponseItem} per sub-request in the same order.
+ * </p>
+ *
+ * <p>
+ * By default, the sub-requests are executed independently: each one runs in its own transactions, just like a
+ * single request, and failing sub-requests do not affect the others. Consecutive GET sub-requests are executed in
+ * parallel on a small thread pool. The security context of the batch request is propagated to these threads.
+ * All other sub-requests are executed one after another in the given order. By this, a GET always sees the
+ * changes of the sub-requests before it.
+ * </p>
+ *
+ * <p>
+ * If the query parameter {@link #ATOMIC_PARAMETER} is present, all sub-requests are executed one after another
+ * within one transaction, which the transactions of the handlers join. Changes are flushed after every writing
+ * sub-request, so that failures are reported for the sub-request causing them. The first sub-request answered
+ * with a status of 400 or above rolls back the whole batch. The remaining sub-requests are not executed. All
+ * sub-requests except the failed one are then answered with 424 (Failed Dependency).
+ * </p>
+ */
+public class BatchHandler
+        implements MappingHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchHandler.class);
+
+    public static final String BATCH_PATH_SEGMENT = "_batch";
+
+    public static final String ATOMIC_PARAMETER = "atomic";
+
+    /**
+     * Number of threads executing GET sub-requests in parallel - for all batch requests together.
+     */
+    public static final int PARALLEL_READS = 4;
+
+    private final MappingRouter mappingRouter;
+
+    private final String basePath;
+
+    private final String batchPath;
+
+    private final int maxBatchSize;
+
+    private final RequestBodyReader bodyReader;
+
+    private final EntityManager entityManager;
+
+    private final Optional<TransactionTemplate> readOnlyTransactionTemplate;
+
+    private final Optional<TransactionTemplate> writeTransactionTemplate;
+
+    private final ExecutorService readExecutor;
+
+    /**
+     * Creates the handler. The thread pool for parallel reads starts its threads on demand.
+     *
+     * @param core          Core delivering configuration, ObjectMapper, EntityManager and transaction manager.
+     * @param mappingRouter Router with interceptors to dispatch sub-requests with, see
+     *                      {@link MappingRouter#withInterceptors(List)}.
+     */
+    public BatchHandler(final CouchRestCore core, final MappingRouter mappingRouter) {
+        this.mappingRouter = mappingRouter;
+        this.basePath = core.getCouchRestConfiguration().getCouchRestBasePath();
+        this.batchPath = basePath + BATCH_PATH_SEGMENT + "/";
+        this.maxBatchSize = core.getCouchRestConfiguration().getMaxBatchSize();
+        this.entityManager = core.getEntityManager();
+
+        this.bodyReader = new RequestBodyReader(
+                core.getCouchRestObjectMapper().readerFor(BatchRequestItem[].class),
+                core.getCouchRestConfiguration().getMaxRequestBodySize(),
+                core.getCouchRestConfiguration().getMaxRequestBodyNestingDepth()
+        );
+
+        this.readOnlyTransactionTemplate = core.getTransactionManager().map(transactionManager -> {
+            final TransactionTemplate template = new TransactionTemplate(transactionManager);
+            template.setReadOnly(true);
+            return template;
+        });
+
+        this.writeTransactionTemplate = core.getTransactionManager().map(TransactionTemplate::new);
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.readExecutor = new DelegatingSecurityContextExecutorService(
+                Executors.newFixedThreadPool(PARALLEL_READS, runnable -> {
+                    final Thread thread = new Thread(runnable, "couch-rest-batch-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                })
+        );
+    }
+
+    /**
+     * Normalized path of the batch endpoint.
+     *
+     * @return Path with trailing slash.
+     */
+    public String getBatchPath() {
+        return batchPath;
+    }
+
+    /**
+     * Stops the threads for parallel reads.
+     */
+    public void shutdown() {
+        readExecutor.shutdown();
+    }
+
+    /**
+     * Checks if the request is a POST to {@link #getBatchPath()}.
+     *
+     * @param request Request to evaluate.
+     * @return True for batch requests.
+     */
+    @Override
+    public boolean accepts(HttpServletRequest request) {
+        final CouchRestRequestContext context = CouchRestRequestContext.of(request);
+        return context.getMethod().equals("POST") && context.getFullPath().equals(batchPath);
+    }
+
+    /**
+     * Reads all sub-requests before any of them is executed and executes them atomically or independently.
+     * See class description.
+     *
+     * @param request      Request to handle.
+     * @param objectMapper ObjectMapper to use for JSON (de-) serialization.
+     * @return Responses of sub-requests or problem.
+     */
+    @Override
+    public ResponseEntity handle(HttpServletRequest request, ObjectMapper objectMapper) {
+        final boolean atomic = CouchRestRequestContext.of(request).getQueryParameters().containsKey(ATOMIC_PARAMETER);
+
+        if ( atomic && writeTransactionTemplate.isEmpty() ) {
+            throw new InvalidQueryParameterException("Atomic batches require a unique PlatformTransactionManager",
+                    ATOMIC_PARAMETER);
+        }
+
+        final BatchRequestItem[] items;
+        try {
+            items = (BatchRequestItem[]) bodyReader.read(request);
+        } catch ( JsonProcessingException e ) {
+            return CouchRestProblems.INVALID_DATA.toResponseEntity();
+        } catch ( IOException e ) {
+            // logged and answered with UNKNOWN_PROBLEM by the CouchRestHandlerAdapter
+            throw new UncheckedIOException(e);
+        }
+
+        if ( items == null ) {
+            return CouchRestProblems.INVALID_DATA.toResponseEntity();
+        }
+
+        if ( items.length > maxBatchSize ) {
+            throw new TooManyBatchRequestsException("Batch request contains " + items.length + " sub-requests, " +
+                    "maximum is " + maxBatchSize, maxBatchSize);
+        }
+
+        final List<HttpServletRequest> subRequests = new ArrayList<>(items.length);
+        for ( final BatchRequestItem item : items ) {
+            subRequests.add(createSubRequest(request, item, objectMapper));
+        }
+
+        final Locale locale = CouchRestRequestContext.of(request).getLocale();
+
+        return ResponseEntity.ok(atomic ?
+                executeAtomically(subRequests, objectMapper, locale) :
+                executeIndependently(subRequests, objectMapper, locale)
+        );
+    }
+
+    /**
+     * Creates the sub-request for the given item.
+     *
+     * @param batchRequest Batch request.
+     * @param item         Item of body.
+     * @param objectMapper ObjectMapper to serialize the body of the item with.
+     * @return Sub-request or null if method or path are missing.
+     */
+    private HttpServletRequest createSubRequest(final HttpServletRequest batchRequest,
+                                                final BatchRequestItem item,
+                                                final ObjectMapper objectMapper) {
+
+        if ( item == null || item.getMethod() == null || item.getPath() == null ) return null;
+
+        final String path = item.getPath().startsWith("/") ? item.getPath() : basePath + item.getPath();
+
+        try {
+            return new BatchSubRequest(
+                    batchRequest,
+                    item.getMethod(),
+                    path,
+                    item.getHeaders(),
+                    item.getBody() == null ? null : objectMapper.writeValueAsBytes(item.getBody())
+            );
+        } catch ( JsonProcessingException e ) {
+            return null;
+        }
+    }
+
+    /**
+     * Executes all sub-requests within one transaction. See class description.
+     *
+     * @param subRequests  Sub-requests.
+     * @param objectMapper ObjectMapper.
+     * @param locale       Locale of batch request.
+     * @return Responses.
+     */
+    private List<BatchResponseItem> executeAtomically(final List<HttpServletRequest> subRequests,
+                                                      final ObjectMapper objectMapper,
+                                                      final Locale locale) {
+
+        final BatchResponseItem[] responses = new BatchResponseItem[subRequests.size()];
+
+        final Integer failedIndex = writeTransactionTemplate.get().execute(status -> {
+            for ( int i = 0; i < subRequests.size(); i++ ) {
+                responses[i] = execute(subRequests.get(i), objectMapper, locale, true);
+
+                if ( responses[i].getStatus() >= 400 ) {
+                    status.setRollbackOnly();
+                    return i;
+                }
+            }
+
+            return null;
+        });
+
+        if ( failedIndex != null ) {
+            for ( int i = 0; i < responses.length; i++ ) {
+                if ( i != failedIndex ) responses[i] = BatchResponseItem.failedDependency();
+            }
+        }
+
+        return Arrays.asList(responses);
+    }
+
+    /**
+     * Flushes the changes of a sub-request of an atomic batch.
+     *
+     * @param response Response of sub-request.
+     * @return Given response or problem, if the flush failed.
+     */
+    private ResponseEntity flush(final ResponseEntity response) {
+        try {
+            entityManager.flush();
+            return response;
+
+        } catch ( PersistenceException e ) {
+            final RuntimeException translated = EntityManagerFactoryUtils.convertJpaAccessExceptionIfPossible(e);
+
+            if ( translated instanceof OptimisticLockingFailureException ) {
+                return CouchRestProblems.VERSION_CONFLICT.toResponseEntity();
+            }
+
+            if ( translated instanceof DataIntegrityViolationException ) {
+                return CouchRestProblems.INVALID_DATA.toResponseEntity();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Executes the sub-requests independently. Consecutive GET sub-requests run in parallel, all others one
+     * after another.
+     *
+     * @param subRequests  Sub-requests.
+     * @param objectMapper ObjectMapper.
+     * @param locale       Locale of batch request.
+     * @return Responses.
+     */
+    private List<BatchResponseItem> executeIndependently(final List<HttpServletRequest> subRequests,
+                                                         final ObjectMapper objectMapper,
+                                                         final Locale locale) {
+
+        final BatchResponseItem[] responses = new BatchResponseItem[subRequests.size()];
+
+        int start = 0;
+        while ( start < subRequests.size() ) {
+            int end = start + 1;
+            while ( end < subRequests.size() && isRead(subRequests.get(start)) && isRead(subRequests.get(end)) ) {
+                end++;
+            }
+
+            if ( end - start > 1 ) {
+                executeInParallel(subRequests, start, end, responses, objectMapper, locale);
+            } else {
+                responses[start] = execute(subRequests.get(start), objectMapper, locale, false);
+            }
+
+            start = end;
+        }
+
+        return Arrays.asList(responses);
+    }
+
+    private boolean isRead(final HttpServletRequest subRequest) {
+        return subRequest != null && subRequest.getMethod().equals("GET");
+    }
+
+    /**
+     * Executes the sub-requests from start (inclusive) to end (exclusive) in parallel. The first one is executed
+     * by the current thread. Every sub-request executed by the pool runs in a read-only transaction (if
+     * available), so that the response body can be serialized while the transaction is still open.
+     *
+     * @param subRequests  All sub-requests.
+     * @param start        Start index.
+     * @param end          End index.
+     * @param responses    Responses to fill.
+     * @param objectMapper ObjectMapper.
+     * @param locale       Locale of batch request.
+     */
+    private void executeInParallel(final List<HttpServletRequest> subRequests,
+                                   final int start,
+                                   final int end,
+                                   final BatchResponseItem[] responses,
+                                   final ObjectMapper objectMapper,
+                                   final Locale locale) {
+
+        final List<Future<BatchResponseItem>> futures = new ArrayList<>(end - start - 1);
+
+        for ( int i = start + 1; i < end; i++ ) {
+            final HttpServletRequest subRequest = subRequests.get(i);
+
+            futures.add(readExecutor.submit(() -> readOnlyTransactionTemplate.isPresent() ?
+                    readOnlyTransactionTemplate.get().execute(status -> execute(subRequest, objectMapper, locale, false)) :
+                    execute(subRequest, objectMapper, locale, false)
+            ));
+        }
+
+        responses[start] = execute(subRequests.get(start), objectMapper, locale, false);
+
+        for ( int i = start + 1; i < end; i++ ) {
+            responses[i] = await(futures.get(i - start - 1), objectMapper, locale);
+        }
+    }
+
+    /**
+     * Waits for the response of a sub-request executed by the pool.
+     *
+     * @param future       Future of response.
+     * @param objectMapper ObjectMapper.
+     * @param locale       Locale of batch request.
+     * @return Response or UNKNOWN_PROBLEM, if the execution failed.
+     */
+    private BatchResponseItem await(final Future<BatchResponseItem> future,
+                                    final ObjectMapper objectMapper,
+                                    final Locale locale) {
+        try {
+            return future.get();
+
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+
+        } catch ( ExecutionException e ) {
+            log.error("A CouchRest batch sub-request failed in parallel execution.", e.getCause());
+        }
+
+        return toResponseItem(CouchRestProblems.UNKNOWN_PROBLEM.toResponseEntity(), objectMapper.writer(), locale);
+    }
+
+    /**
+     * Finds the handler and the interceptors of the sub-request via
+     * {@link MappingRouter#findHandlerExecutionChain(CouchRestRequestContext)} and lets them handle the sub-request
+     * like the DispatcherServlet and {@link CouchRestHandlerAdapter} do: if an interceptor rejects the sub-request
+     * in its <code>preHandle</code> method, it is answered with {@link CouchRestProblems#FORBIDDEN}. Exceptions
+     * of interceptors are propagated after the <code>afterCompletion</code> callbacks, so that they fail the batch
+     * like they would fail a single request. The interceptors get a {@link BatchSubResponse}.
+     *
+     * @param subRequest    Sub-request or null, if the item is invalid.
+     * @param objectMapper  ObjectMapper.
+     * @param locale        Locale of batch request.
+     * @param flushChanges  Whether to flush the changes of successful, writing sub-requests.
+     * @return Response.
+     */
+    private BatchResponseItem execute(final HttpServletRequest subRequest,
+                                      final ObjectMapper objectMapper,
+                                      final Locale locale,
+                                      final boolean flushChanges) {
+
+        if ( subRequest == null ) {
+            return toResponseItem(CouchRestProblems.INVALID_DATA.toResponseEntity(), objectMapper.writer(), locale);
+        }
+
+        final HandlerExecutionChain chain = mappingRouter.findHandlerExecutionChain(
+                CouchRestRequestContext.attach(subRequest)
+        );
+
+        if ( chain == null ) {
+            return toResponseItem(CouchRestProblems.NOT_FOUND.toResponseEntity(), objectMapper.writer(), locale);
+        }
+
+        final MappingHandler handler = (MappingHandler) chain.getHandler();
+        final HandlerInterceptor[] interceptors = chain.getInterceptors() != null ?
+                chain.getInterceptors() :
+                new HandlerInterceptor[0];
+        final HttpServletResponse subResponse = new BatchSubResponse();
+
+        int preHandledCount = 0;
+        Exception failure = null;
+
+        try {
+            while ( preHandledCount < interceptors.length ) {
+                if ( !interceptors[preHandledCount].preHandle(subRequest, subResponse, handler) ) {
+                    return toResponseItem(CouchRestProblems.FORBIDDEN.toResponseEntity(), objectMapper.writer(),
+                            locale);
+                }
+
+                preHandledCount++;
+            }
+
+            final BatchResponseItem responseItem = handle(handler, subRequest, objectMapper, locale, flushChanges);
+
+            for ( int i = interceptors.length - 1; i >= 0; i-- ) {
+                interceptors[i].postHandle(subRequest, subResponse, handler, null);
+            }
+
+            return responseItem;
+
+        } catch ( RuntimeException e ) {
+            failure = e;
+            throw e;
+
+        } catch ( Exception e ) {
+            failure = e;
+            throw new IllegalStateException("An interceptor failed for a CouchRest batch sub-request", e);
+
+        } finally {
+            for ( int i = preHandledCount - 1; i >= 0; i-- ) {
+                try {
+                    interceptors[i].afterCompletion(subRequest, subResponse, handler, failure);
+                } catch ( Exception e ) {
+                    log.error("An interceptor failed after completion of a CouchRest batch sub-request.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Lets the handler handle the sub-request like {@link CouchRestHandlerAdapter} does and converts the response.
+     *
+     * @param handler       Handler of sub-request.
+     * @param subRequest    Sub-request.
+     * @param objectMapper  ObjectMapper.
+     * @param locale        Locale of batch request.
+     * @param flushChanges  Whether to flush the changes of successful, writing sub-requests.
+     * @return Response.
+     */
+    private BatchResponseItem handle(final MappingHandler handler,
+                                     final HttpServletRequest subRequest,
+                                     final ObjectMapper objectMapper,
+                                     final Locale locale,
+                                     final boolean flushChanges) {
+
+        ResponseEntity response = CouchRestHandlerAdapter.invokeHandler(handler, subRequest, objectMapper);
+
+        if ( flushChanges && !response.getStatusCode().isError() && !subRequest.getMethod().equals("GET") ) {
+            response = flush(response);
+        }
+
+        try {
+            return toResponseItem(response, handler.getObjectWriter(response.getBody(), objectMapper), locale);
+
+        } catch ( RuntimeException e ) {
+            log.error("Could not convert the response of a CouchRest batch sub-request. " +
+                    "Returning ProblemDetail with type 'unknown problem' for it.", e);
+
+            return toResponseItem(CouchRestProblems.UNKNOWN_PROBLEM.toResponseEntity(), objectMapper.writer(), locale);
+        }
+    }
+
+    /**
+     * Converts the response of a sub-request like {@link ResponseUtil#writeResponseEntity(ResponseEntity,
+     * HttpServletRequest, javax.servlet.http.HttpServletResponse, ObjectWriter)}
+     * does. JSON bodies are embedded without parsing them again.
+     *
+     * @param response   Response of sub-request.
+     * @param jsonWriter ObjectWriter for JSON bodies.
+     * @param locale     Locale for problem details.
+     * @return Response item.
+     */
+    private BatchResponseItem toResponseItem(final ResponseEntity response,
+                                             final ObjectWriter jsonWriter,
+                                             final Locale locale) {
+
+        final Map<String, String> headers = new LinkedHashMap<>();
+        response.getHeaders().forEach((name, values) -> headers.put(name, String.join(", ", values)));
+
+        final Object body = response.getBody();
+        if ( body == null ) return new BatchResponseItem(response.getStatusCodeValue(), headers, null);
+
+        if ( body instanceof StreamingResponseBody ) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+            try {
+                ((StreamingResponseBody) body).writeTo(bytes);
+            } catch ( IOException e ) {
+                throw new RuntimeException("Could not write response body", e);
+            }
+
+            headers.putIfAbsent(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+            return new BatchResponseItem(response.getStatusCodeValue(), headers,
+                    new RawValue(bytes.toString(StandardCharsets.UTF_8)));
+        }
+
+        final ResponseUtil.BodyConversionResult conversionResult = ResponseUtil.convertBody(body, jsonWriter, locale);
+
+        headers.put(HttpHeaders.CONTENT_TYPE, conversionResult.getContentType());
+
+        return new BatchResponseItem(
+                conversionResult.getOverwritingStatus().orElse(response.getStatusCodeValue()),
+                headers,
+                conversionResult.getContentType().equals(MediaType.TEXT_PLAIN_VALUE) ?
+                        body :
+                        new RawValue(conversionResult.getBodyAsString())
+        );
+    }
+
+}
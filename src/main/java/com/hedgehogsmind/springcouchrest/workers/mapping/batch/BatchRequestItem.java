@@ -0,0 +1,53 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.batch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Map;
+
+/**
+ * One sub-request of a batch request. The path may contain a query string. A path without leading slash
+ * is relative to the CouchRest base path.
+ */
+public final class BatchRequestItem {
+
+    private String method;
+
+    private String path;
+
+    private Map<String, String> headers;
+
+    private JsonNode body;
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public void setHeaders(Map<String, String> headers) {
+        this.headers = headers;
+    }
+
+    public JsonNode getBody() {
+        return body;
+    }
+
+    public void setBody(JsonNode body) {
+        this.body = body;
+    }
+
+}
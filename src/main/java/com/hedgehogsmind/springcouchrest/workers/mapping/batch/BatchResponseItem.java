@@ -0,0 +1,49 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.batch;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.http.HttpStatus;
+
+import java.util.Map;
+
+/**
+ * Response to one sub-request of a batch request. JSON bodies are embedded as they are, plain text bodies as
+ * JSON string, number or boolean.
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public final class BatchResponseItem {
+
+    private final int status;
+
+    private final Map<String, String> headers;
+
+    private final Object body;
+
+    public BatchResponseItem(final int status, final Map<String, String> headers, final Object body) {
+        this.status = status;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    /**
+     * Creates the response for a sub-request of an atomic batch, which has been rolled back or not been executed,
+     * because another sub-request failed.
+     *
+     * @return Response with status 424.
+     */
+    public static BatchResponseItem failedDependency() {
+        return new BatchResponseItem(HttpStatus.FAILED_DEPENDENCY.value(), Map.of(), null);
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public Object getBody() {
+        return body;
+    }
+
+}
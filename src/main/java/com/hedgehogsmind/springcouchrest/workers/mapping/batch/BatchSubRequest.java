@@ -0,0 +1,332 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.batch;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * In-memory request for one sub-request of a batch. Method, URI, query parameters, headers and body are the ones
+ * of the sub-request. Headers not given by the sub-request (e.g. Accept-Language) are inherited from the batch
+ * request - except the ones describing the body.
+ * </p>
+ *
+ * <p>
+ * Everything is copied when the sub-request is created and attributes are held in an own map. By this,
+ * sub-requests do not share state with the batch request and can be handled by other threads.
+ * </p>
+ */
+public class BatchSubRequest
+        extends HttpServletRequestWrapper {
+
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+    private final String method;
+
+    private final String requestUri;
+
+    private final String servletPath;
+
+    private final String queryString;
+
+    private final Map<String, String[]> parameters;
+
+    private final Map<String, List<String>> headers;
+
+    private final Locale locale;
+
+    private final List<Locale> locales;
+
+    private final byte[] body;
+
+    /**
+     * Creates the sub-request.
+     *
+     * @param batchRequest Batch request.
+     * @param method       HTTP method.
+     * @param path         Path within the application with optional query string.
+     * @param headers      Headers of sub-request.
+     * @param body         Body or null.
+     */
+    public BatchSubRequest(final HttpServletRequest batchRequest,
+                           final String method,
+                           final String path,
+                           final Map<String, String> headers,
+                           final byte[] body) {
+        super(batchRequest);
+
+        final int queryStart = path.indexOf('?');
+
+        this.method = method.toUpperCase(Locale.ROOT);
+        this.servletPath = queryStart < 0 ? path : path.substring(0, queryStart);
+        this.requestUri = batchRequest.getContextPath() + servletPath;
+        this.queryString = queryStart < 0 ? null : path.substring(queryStart + 1);
+        this.parameters = parseQueryString(queryString);
+        this.body = body == null ? new byte[0] : body;
+        this.headers = collectHeaders(batchRequest, headers, body != null);
+        this.locale = batchRequest.getLocale();
+        this.locales = Collections.list(batchRequest.getLocales());
+    }
+
+    /**
+     * Parses the query string into decoded parameters.
+     *
+     * @param queryString Query string or null.
+     * @return Unmodifiable parameters in order.
+     */
+    private static Map<String, String[]> parseQueryString(final String queryString) {
+        if ( queryString == null || queryString.isEmpty() ) return Collections.emptyMap();
+
+        final Map<String, List<String>> values = new LinkedHashMap<>();
+
+        for ( final String pair : queryString.split("&") ) {
+            if ( pair.isEmpty() ) continue;
+
+            final int separator = pair.indexOf('=');
+            final String name = decode(separator < 0 ? pair : pair.substring(0, separator));
+            final String value = separator < 0 ? "" : decode(pair.substring(separator + 1));
+
+            values.computeIfAbsent(name, n -> new ArrayList<>()).add(value);
+        }
+
+        final Map<String, String[]> parameters = new LinkedHashMap<>();
+        values.forEach((name, nameValues) -> parameters.put(name, nameValues.toArray(new String[0])));
+
+        return Collections.unmodifiableMap(parameters);
+    }
+
+    private static String decode(final String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Copies the headers of the batch request, which do not describe its body, and overwrites them by the
+     * headers of the sub-request. A body without Content-Type is declared as JSON.
+     *
+     * @param batchRequest Batch request.
+     * @param ownHeaders   Headers of sub-request or null.
+     * @param hasBody      Whether the sub-request has a body.
+     * @return Headers by case insensitive name.
+     */
+    private static Map<String, List<String>> collectHeaders(final HttpServletRequest batchRequest,
+                                                            final Map<String, String> ownHeaders,
+                                                            final boolean hasBody) {
+
+        final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+        final Enumeration<String> headerNames = batchRequest.getHeaderNames();
+        while ( headerNames != null && headerNames.hasMoreElements() ) {
+            final String name = headerNames.nextElement();
+
+            if ( !name.regionMatches(true, 0, "Content-", 0, 8) ) {
+                headers.put(name, Collections.list(batchRequest.getHeaders(name)));
+            }
+        }
+
+        if ( ownHeaders != null ) {
+            ownHeaders.forEach((name, value) -> headers.put(name, List.of(value)));
+        }
+
+        if ( hasBody && !headers.containsKey(HttpHeaders.CONTENT_TYPE) ) {
+            headers.put(HttpHeaders.CONTENT_TYPE, List.of(MediaType.APPLICATION_JSON_VALUE));
+        }
+
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+
+        return headers;
+    }
+
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public String getRequestURI() {
+        return requestUri;
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+        final StringBuffer url = new StringBuffer();
+        url.append(getScheme()).append("://").append(getServerName()).append(':').append(getServerPort());
+        url.append(requestUri);
+        return url;
+    }
+
+    @Override
+    public String getServletPath() {
+        return servletPath;
+    }
+
+    @Override
+    public String getPathInfo() {
+        return null;
+    }
+
+    @Override
+    public String getQueryString() {
+        return queryString;
+    }
+
+    @Override
+    public String getParameter(String name) {
+        final String[] values = parameters.get(name);
+        return values == null ? null : values[0];
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        return parameters;
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return Collections.enumeration(parameters.keySet());
+    }
+
+    @Override
+    public String[] getParameterValues(String name) {
+        return parameters.get(name);
+    }
+
+    @Override
+    public String getHeader(String name) {
+        final List<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        return Collections.enumeration(headers.getOrDefault(name, Collections.emptyList()));
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        return Collections.enumeration(headers.keySet());
+    }
+
+    @Override
+    public int getIntHeader(String name) {
+        final String value = getHeader(name);
+        return value == null ? -1 : Integer.parseInt(value);
+    }
+
+    @Override
+    public long getDateHeader(String name) {
+        final String value = getHeader(name);
+        if ( value == null ) return -1;
+
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch ( DateTimeParseException e ) {
+            throw new IllegalArgumentException("Header '" + name + "' is no date: " + value, e);
+        }
+    }
+
+    @Override
+    public String getContentType() {
+        return getHeader(HttpHeaders.CONTENT_TYPE);
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return StandardCharsets.UTF_8.name();
+    }
+
+    @Override
+    public int getContentLength() {
+        return body.length;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return body.length;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        final ByteArrayInputStream inputStream = new ByteArrayInputStream(body);
+
+        return new ServletInputStream() {
+            @Override
+            public boolean isFinished() {
+                return inputStream.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                throw new UnsupportedOperationException("Sub-requests of a batch are read blocking");
+            }
+
+            @Override
+            public int read() {
+                return inputStream.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return inputStream.read(b, off, len);
+            }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public Locale getLocale() {
+        return locale;
+    }
+
+    @Override
+    public Enumeration<Locale> getLocales() {
+        return Collections.enumeration(locales);
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(attributes.keySet());
+    }
+
+    @Override
+    public void setAttribute(String name, Object o) {
+        if ( o == null ) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, o);
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+
+}
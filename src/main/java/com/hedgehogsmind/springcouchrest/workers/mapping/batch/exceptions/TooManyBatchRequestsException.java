@@ -0,0 +1,34 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.batch.exceptions;
+
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetail;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetailConvertibleRuntimeException;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+
+import java.util.Locale;
+
+/**
+ * Shall be thrown if a batch request contains more sub-requests than allowed.
+ */
+public class TooManyBatchRequestsException
+        extends ProblemDetailConvertibleRuntimeException {
+
+    private final int maxRequests;
+
+    public TooManyBatchRequestsException(String message, int maxRequests) {
+        super(message);
+        this.maxRequests = maxRequests;
+    }
+
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    @Override
+    public ProblemDetail toProblemDetail(Locale locale) {
+        return CouchRestProblems.TOO_MANY_BATCH_REQUESTS
+                .withAttributes()
+                .addAttribute("maxRequests", maxRequests)
+                .toProblemDetail(locale);
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.body;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+
+import java.io.IOException;
+
+/**
+ * <p>
+ * Tracks the nesting depth of objects and arrays while tokens are read and fails with a
+ * {@link JsonParseException} as soon as the maximum depth is exceeded. By this, deeply nested documents
+ * are rejected before the (recursive) deserializers reach them.
+ * </p>
+ *
+ * <p>
+ * Whether the limit has been exceeded can be checked afterwards via {@link #isLimitExceeded()}, even if the
+ * exception has been wrapped by the deserializers.
+ * </p>
+ */
+public class DepthLimitedJsonParser
+        extends JsonParserDelegate {
+
+    private final int maxDepth;
+
+    private int depth;
+
+    private boolean limitExceeded;
+
+    /**
+     * Stores values.
+     *
+     * @param parser   Parser to wrap.
+     * @param maxDepth Maximum nesting depth of objects and arrays.
+     */
+    public DepthLimitedJsonParser(final JsonParser parser, final int maxDepth) {
+        super(parser);
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public JsonToken nextToken() throws IOException {
+        final JsonToken token = delegate.nextToken();
+
+        if ( token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY ) {
+            if ( ++depth > maxDepth ) {
+                limitExceeded = true;
+                throw new JsonParseException(this, "Maximum nesting depth of " + maxDepth + " exceeded");
+            }
+
+        } else if ( token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY ) {
+            depth--;
+        }
+
+        return token;
+    }
+
+    /**
+     * Implemented via {@link #nextToken()}, so that the depth is tracked.
+     *
+     * @return Next value token.
+     * @throws IOException if reading fails or the maximum depth is exceeded.
+     */
+    @Override
+    public JsonToken nextValue() throws IOException {
+        final JsonToken token = nextToken();
+        return token == JsonToken.FIELD_NAME ? nextToken() : token;
+    }
+
+    /**
+     * Skips via {@link #nextToken()}, so that skipped values (e.g. unknown properties) are limited as well.
+     * Afterwards, the current token is the end of the skipped container.
+     *
+     * @return This parser.
+     * @throws IOException if reading fails or the maximum depth is exceeded.
+     */
+    @Override
+    public JsonParser skipChildren() throws IOException {
+        final JsonToken token = delegate.getCurrentToken();
+
+        if ( token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY ) {
+            final int containerDepth = depth;
+
+            while ( depth >= containerDepth && nextToken() != null ) {
+                // tokens are counted by nextToken
+            }
+        }
+
+        return this;
+    }
+
+    public boolean isLimitExceeded() {
+        return limitExceeded;
+    }
+
+}
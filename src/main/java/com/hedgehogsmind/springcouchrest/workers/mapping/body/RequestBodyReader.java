@@ -0,0 +1,149 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.body;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.hedgehogsmind.springcouchrest.workers.mapping.body.exceptions.RequestBodyTooDeeplyNestedException;
+import com.hedgehogsmind.springcouchrest.workers.mapping.body.exceptions.RequestBodyTooLargeException;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * <p>
+ * Reads JSON request bodies directly from the request input stream - without an intermediate string.
+ * The ObjectReader is created once (e.g. per resource). Updates read the body as JSON tree first and merge it
+ * into the existing instance via {@link ObjectReader#withValueToUpdate(Object)} of {@link #getObjectReader()}.
+ * </p>
+ *
+ * <p>
+ * While reading, the body size and the nesting depth of objects and arrays are limited. Bodies whose declared
+ * Content-Length exceeds the maximum size are rejected before reading at all. All other bodies fail as soon as a
+ * limit is exceeded, so that a large or malicious payload is never buffered as a whole.
+ * </p>
+ */
+public class RequestBodyReader {
+
+    private final ObjectReader objectReader;
+
+    private final long maxBodySize;
+
+    private final int maxNestingDepth;
+
+    /**
+     * Stores values.
+     *
+     * @param objectReader    ObjectReader for the type of the body.
+     * @param maxBodySize     Maximum body size in bytes.
+     * @param maxNestingDepth Maximum nesting depth of objects and arrays.
+     */
+    public RequestBodyReader(final ObjectReader objectReader, final long maxBodySize, final int maxNestingDepth) {
+        if ( objectReader == null ) throw new IllegalArgumentException("objectReader must not be null");
+        if ( maxBodySize < 1 ) throw new IllegalArgumentException("maxBodySize must be positive");
+        if ( maxNestingDepth < 1 ) throw new IllegalArgumentException("maxNestingDepth must be positive");
+
+        this.objectReader = objectReader;
+        this.maxBodySize = maxBodySize;
+        this.maxNestingDepth = maxNestingDepth;
+    }
+
+    /**
+     * Reads the body of the given request.
+     *
+     * @param request Request to read body of.
+     * @return Deserialized body.
+     * @throws IOException                          if the body can not be read or deserialized.
+     * @throws RequestBodyTooLargeException         if the body exceeds the maximum size.
+     * @throws RequestBodyTooDeeplyNestedException  if the body exceeds the maximum nesting depth.
+     */
+    public Object read(final HttpServletRequest request) throws IOException {
+        return parse(request, parser -> objectReader.readValue(parser));
+    }
+
+    /**
+     * Reads a sequence of root level values (e.g. newline delimited JSON) from the body of the given request.
+     * The limits apply to the body as a whole.
+     *
+     * @param request Request to read body of.
+     * @return Deserialized values in the order of the body.
+     * @throws IOException                          if the body can not be read or deserialized.
+     * @throws RequestBodyTooLargeException         if the body exceeds the maximum size.
+     * @throws RequestBodyTooDeeplyNestedException  if the body exceeds the maximum nesting depth.
+     */
+    public List<Object> readAll(final HttpServletRequest request) throws IOException {
+        return parse(request, parser -> objectReader.readValues(parser).readAll());
+    }
+
+    /**
+     * Creates the limited parser for the body and applies the given function.
+     *
+     * @param request  Request to read body of.
+     * @param function Function reading from parser.
+     * @param <T>      Type of result.
+     * @return Result of function.
+     * @throws IOException if the body can not be read or deserialized.
+     */
+    private <T> T parse(final HttpServletRequest request, final ParserFunction<T> function) throws IOException {
+        final long contentLength = request.getContentLengthLong();
+
+        if ( contentLength > maxBodySize ) {
+            throw new RequestBodyTooLargeException("Declared Content-Length " + contentLength +
+                    " exceeds maximum of " + maxBodySize + " bytes", maxBodySize);
+        }
+
+        final SizeLimitedInputStream inputStream = new SizeLimitedInputStream(request.getInputStream(), maxBodySize);
+        DepthLimitedJsonParser parser = null;
+
+        try {
+            // creating the parser already reads the first bytes to detect the encoding
+            parser = new DepthLimitedJsonParser(
+                    objectReader.getFactory().createParser(inputStream),
+                    maxNestingDepth
+            );
+
+            return function.apply(parser);
+
+        } catch ( IOException | RuntimeException e ) {
+            // deserializers may wrap the exceptions of stream and parser > check flags
+            if ( inputStream.isLimitExceeded() ) {
+                throw new RequestBodyTooLargeException("Body exceeds maximum of " + maxBodySize + " bytes",
+                        e, maxBodySize);
+            }
+
+            if ( parser != null && parser.isLimitExceeded() ) {
+                throw new RequestBodyTooDeeplyNestedException("Body exceeds maximum nesting depth of " +
+                        maxNestingDepth, e, maxNestingDepth);
+            }
+
+            throw e;
+
+        } finally {
+            if ( parser != null ) parser.close();
+        }
+    }
+
+    public ObjectReader getObjectReader() {
+        return objectReader;
+    }
+
+    public long getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    public int getMaxNestingDepth() {
+        return maxNestingDepth;
+    }
+
+    /**
+     * Reads from a parser.
+     *
+     * @param <T> Type of result.
+     */
+    @FunctionalInterface
+    private interface ParserFunction<T> {
+
+        T apply(JsonParser parser) throws IOException;
+
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.body;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes read from the wrapped stream and fails with an IOException as soon as more than the
+ * maximum size has been read. Whether the limit has been exceeded can be checked afterwards via
+ * {@link #isLimitExceeded()}, even if the IOException has been wrapped by the reading code.
+ */
+public class SizeLimitedInputStream
+        extends FilterInputStream {
+
+    private final long maxSize;
+
+    private long bytesRead;
+
+    private boolean limitExceeded;
+
+    /**
+     * Stores values.
+     *
+     * @param in      Stream to wrap.
+     * @param maxSize Maximum number of bytes which may be read.
+     */
+    public SizeLimitedInputStream(final InputStream in, final long maxSize) {
+        super(in);
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int value = super.read();
+        if ( value >= 0 ) count(1);
+        return value;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        final int read = super.read(b, off, len);
+        if ( read > 0 ) count(read);
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        final long skipped = super.skip(n);
+        if ( skipped > 0 ) count(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    private void count(final long bytes) throws IOException {
+        bytesRead += bytes;
+
+        if ( bytesRead > maxSize ) {
+            limitExceeded = true;
+            throw new IOException("Stream exceeds maximum size of " + maxSize + " bytes");
+        }
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public boolean isLimitExceeded() {
+        return limitExceeded;
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.body.exceptions;
+
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetail;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetailConvertibleRuntimeException;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Shall be thrown if a body, which has to replace an entity as a whole (direct updates), misses properties.
+ */
+public class IncompleteBodyException
+        extends ProblemDetailConvertibleRuntimeException {
+
+    private final List<String> missingProperties;
+
+    public IncompleteBodyException(String message, List<String> missingProperties) {
+        super(message);
+        this.missingProperties = missingProperties;
+    }
+
+    public List<String> getMissingProperties() {
+        return missingProperties;
+    }
+
+    @Override
+    public ProblemDetail toProblemDetail(Locale locale) {
+        return CouchRestProblems.INCOMPLETE_BODY
+                .withAttributes()
+                .addAttribute("missingProperties", missingProperties)
+                .toProblemDetail(locale);
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.body.exceptions;
+
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetail;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetailConvertibleRuntimeException;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+
+import java.util.Locale;
+
+/**
+ * Shall be thrown if a patch document is malformed, e.g. a JSON Patch operation without path, or if the patched
+ * entity violates bean validation constraints.
+ */
+public class InvalidPatchException
+        extends ProblemDetailConvertibleRuntimeException {
+
+    public InvalidPatchException(String message) {
+        super(message);
+    }
+
+    @Override
+    public ProblemDetail toProblemDetail(Locale locale) {
+        return CouchRestProblems.INVALID_DATA.toProblemDetail(locale);
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.body.exceptions;
+
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetail;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetailConvertibleRuntimeException;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+
+import java.util.Locale;
+
+/**
+ * Shall be thrown if a well-formed patch can not be applied to the resource, e.g. because a JSON Patch
+ * operation references a missing path or a test operation fails.
+ */
+public class PatchNotApplicableException
+        extends ProblemDetailConvertibleRuntimeException {
+
+    private final String path;
+
+    public PatchNotApplicableException(String message, String path) {
+        super(message);
+        this.path = path;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public ProblemDetail toProblemDetail(Locale locale) {
+        return CouchRestProblems.PATCH_NOT_APPLICABLE
+                .withAttributes()
+                .addAttribute("path", path)
+                .toProblemDetail(locale);
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.body.exceptions;
+
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetail;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetailConvertibleRuntimeException;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+
+import java.util.Locale;
+
+/**
+ * Shall be thrown if the objects and arrays of a JSON request body are nested deeper than configured.
+ */
+public class RequestBodyTooDeeplyNestedException
+        extends ProblemDetailConvertibleRuntimeException {
+
+    private final int maxDepth;
+
+    public RequestBodyTooDeeplyNestedException(String message, int maxDepth) {
+        super(message);
+        this.maxDepth = maxDepth;
+    }
+
+    public RequestBodyTooDeeplyNestedException(String message, Throwable cause, int maxDepth) {
+        super(message, cause);
+        this.maxDepth = maxDepth;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    @Override
+    public ProblemDetail toProblemDetail(Locale locale) {
+        return CouchRestProblems.REQUEST_BODY_TOO_DEEPLY_NESTED
+                .withAttributes()
+                .addAttribute("maxDepth", maxDepth)
+                .toProblemDetail(locale);
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.body.exceptions;
+
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetail;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetailConvertibleRuntimeException;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+
+import java.util.Locale;
+
+/**
+ * Shall be thrown if a request body exceeds the configured maximum size.
+ */
+public class RequestBodyTooLargeException
+        extends ProblemDetailConvertibleRuntimeException {
+
+    private final long maxSize;
+
+    public RequestBodyTooLargeException(String message, long maxSize) {
+        super(message);
+        this.maxSize = maxSize;
+    }
+
+    public RequestBodyTooLargeException(String message, Throwable cause, long maxSize) {
+        super(message, cause);
+        this.maxSize = maxSize;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public ProblemDetail toProblemDetail(Locale locale) {
+        return CouchRestProblems.REQUEST_BODY_TOO_LARGE
+                .withAttributes()
+                .addAttribute("maxSize", maxSize)
+                .toProblemDetail(locale);
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.body.exceptions;
+
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetail;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetailConvertibleRuntimeException;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+
+import java.util.Locale;
+
+/**
+ * Shall be thrown if a bulk request contains more entities than allowed.
+ */
+public class TooManyBulkItemsException
+        extends ProblemDetailConvertibleRuntimeException {
+
+    private final int maxItems;
+
+    public TooManyBulkItemsException(String message, int maxItems) {
+        super(message);
+        this.maxItems = maxItems;
+    }
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    @Override
+    public ProblemDetail toProblemDetail(Locale locale) {
+        return CouchRestProblems.TOO_MANY_BULK_ITEMS
+                .withAttributes()
+                .addAttribute("maxItems", maxItems)
+                .toProblemDetail(locale);
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.body.exceptions;
+
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetail;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetailConvertibleRuntimeException;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Shall be thrown if the Content-Type of a request body is missing or not supported by the handler.
+ */
+public class UnsupportedMediaTypeException
+        extends ProblemDetailConvertibleRuntimeException {
+
+    private final List<String> supportedMediaTypes;
+
+    public UnsupportedMediaTypeException(String message, List<String> supportedMediaTypes) {
+        super(message);
+        this.supportedMediaTypes = supportedMediaTypes;
+    }
+
+    public List<String> getSupportedMediaTypes() {
+        return supportedMediaTypes;
+    }
+
+    @Override
+    public ProblemDetail toProblemDetail(Locale locale) {
+        return CouchRestProblems.UNSUPPORTED_MEDIA_TYPE
+                .withAttributes()
+                .addAttribute("supportedMediaTypes", supportedMediaTypes)
+                .toProblemDetail(locale);
+    }
+
+}
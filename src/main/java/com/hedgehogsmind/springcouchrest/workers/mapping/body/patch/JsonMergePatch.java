@@ -0,0 +1,68 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.body.patch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Applies JSON Merge Patches (RFC 7396, media type {@link #MEDIA_TYPE}). Object members of the patch replace
+ * the members of the target recursively, null values remove them. All other values replace the target as a whole.
+ */
+public final class JsonMergePatch {
+
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private JsonMergePatch() {}
+
+    /**
+     * Applies the patch. The target is not modified.
+     *
+     * @param target Document to patch.
+     * @param patch  Merge patch.
+     * @return Patched document.
+     */
+    public static JsonNode apply(final JsonNode target, final JsonNode patch) {
+        if ( !patch.isObject() ) {
+            return patch.deepCopy();
+        }
+
+        final ObjectNode result = target != null && target.isObject() ?
+                ((ObjectNode) target).deepCopy() :
+                JsonNodeFactory.instance.objectNode();
+
+        final Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while ( fields.hasNext() ) {
+            final Map.Entry<String, JsonNode> field = fields.next();
+
+            if ( field.getValue().isNull() ) {
+                result.remove(field.getKey());
+            } else {
+                result.set(field.getKey(), apply(result.get(field.getKey()), field.getValue()));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Collects the top level members which the given patch changes.
+     *
+     * @param patch Merge patch.
+     * @return Member names or empty if the patch replaces the whole document.
+     */
+    public static Optional<Set<String>> getTopLevelMemberNames(final JsonNode patch) {
+        if ( !patch.isObject() ) return Optional.empty();
+
+        final Set<String> memberNames = new HashSet<>();
+        patch.fieldNames().forEachRemaining(memberNames::add);
+
+        return Optional.of(memberNames);
+    }
+
+}
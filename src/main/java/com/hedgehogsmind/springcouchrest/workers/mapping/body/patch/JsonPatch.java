@@ -0,0 +1,327 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.body.patch;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.hedgehogsmind.springcouchrest.workers.mapping.body.exceptions.InvalidPatchException;
+import com.hedgehogsmind.springcouchrest.workers.mapping.body.exceptions.PatchNotApplicableException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * <p>
+ * JSON Patch document (RFC 6902, media type {@link #MEDIA_TYPE}): a list of operations (add, remove, replace,
+ * move, copy and test), which are applied one after the other to a JSON document. Paths are JSON Pointers.
+ * </p>
+ *
+ * <p>
+ * Patches are parsed once via {@link #fromJson(JsonNode)} and can then be applied via {@link #apply(JsonNode)}.
+ * If one operation fails, the whole patch fails.
+ * </p>
+ */
+public class JsonPatch {
+
+    public static final String MEDIA_TYPE = "application/json-patch+json";
+
+    private final List<Operation> operations;
+
+    private JsonPatch(final List<Operation> operations) {
+        this.operations = List.copyOf(operations);
+    }
+
+    /**
+     * Parses the given patch document.
+     *
+     * @param patch JSON array of operations.
+     * @return Parsed patch.
+     * @throws InvalidPatchException if the document is no array or contains malformed operations.
+     */
+    public static JsonPatch fromJson(final JsonNode patch) {
+        if ( patch == null || !patch.isArray() ) {
+            throw new InvalidPatchException("JSON Patch must be an array of operations");
+        }
+
+        final List<Operation> operations = new ArrayList<>();
+
+        for ( final JsonNode operation : patch ) {
+            if ( !operation.isObject() ) {
+                throw new InvalidPatchException("JSON Patch operations must be objects");
+            }
+
+            final OperationType type = OperationType.fromName(operation.path("op").asText(null));
+            final JsonPointer path = parsePointer(operation, "path");
+            final JsonPointer from = type == OperationType.MOVE || type == OperationType.COPY ?
+                    parsePointer(operation, "from") :
+                    null;
+
+            final JsonNode value = operation.get("value");
+            if ( value == null &&
+                    (type == OperationType.ADD || type == OperationType.REPLACE || type == OperationType.TEST) ) {
+                throw new InvalidPatchException("JSON Patch operation '" + type.operationName + "' requires a value");
+            }
+
+            operations.add(new Operation(type, path, from, value));
+        }
+
+        return new JsonPatch(operations);
+    }
+
+    /**
+     * Reads the given member as JSON Pointer.
+     *
+     * @param operation Operation object.
+     * @param member    Name of member.
+     * @return Parsed pointer.
+     * @throws InvalidPatchException if the member is missing or no valid pointer.
+     */
+    private static JsonPointer parsePointer(final JsonNode operation, final String member) {
+        final JsonNode pointer = operation.get(member);
+
+        if ( pointer == null || !pointer.isTextual() ) {
+            throw new InvalidPatchException("JSON Patch operation requires '" + member + "'");
+        }
+
+        try {
+            return JsonPointer.compile(pointer.asText());
+        } catch ( IllegalArgumentException e ) {
+            throw new InvalidPatchException("Invalid JSON Pointer '" + pointer.asText() + "'");
+        }
+    }
+
+    /**
+     * Applies all operations. The target is not modified.
+     *
+     * @param target Document to patch.
+     * @return Patched document.
+     * @throws PatchNotApplicableException if an operation can not be applied.
+     */
+    public JsonNode apply(final JsonNode target) {
+        JsonNode result = target.deepCopy();
+
+        for ( final Operation operation : operations ) {
+            result = operation.apply(result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Collects the top level members which the operations read or write (path and from).
+     *
+     * @return Member names or empty if an operation targets the whole document.
+     */
+    public Optional<Set<String>> getTopLevelMemberNames() {
+        final Set<String> memberNames = new HashSet<>();
+
+        for ( final Operation operation : operations ) {
+            for ( final JsonPointer pointer : new JsonPointer[] {operation.path, operation.from} ) {
+                if ( pointer == null ) continue;
+                if ( pointer.matches() ) return Optional.empty();
+
+                memberNames.add(pointer.getMatchingProperty());
+            }
+        }
+
+        return Optional.of(memberNames);
+    }
+
+    public List<Operation> getOperations() {
+        return operations;
+    }
+
+    /**
+     * Operation types of RFC 6902.
+     */
+    public enum OperationType {
+
+        ADD("add"),
+        REMOVE("remove"),
+        REPLACE("replace"),
+        MOVE("move"),
+        COPY("copy"),
+        TEST("test");
+
+        private final String operationName;
+
+        OperationType(final String operationName) {
+            this.operationName = operationName;
+        }
+
+        /**
+         * Finds the type by its name in patch documents.
+         *
+         * @param name Name, e.g. "add".
+         * @return Type.
+         * @throws InvalidPatchException if there is no such type.
+         */
+        public static OperationType fromName(final String name) {
+            for ( final OperationType type : values() ) {
+                if ( type.operationName.equals(name) ) return type;
+            }
+
+            throw new InvalidPatchException("Unknown JSON Patch operation '" + name + "'");
+        }
+
+        public String getOperationName() {
+            return operationName;
+        }
+    }
+
+    /**
+     * One operation of a patch.
+     */
+    public static class Operation {
+
+        private final OperationType type;
+
+        private final JsonPointer path;
+
+        private final JsonPointer from;
+
+        private final JsonNode value;
+
+        public Operation(final OperationType type, final JsonPointer path, final JsonPointer from, final JsonNode value) {
+            this.type = type;
+            this.path = path;
+            this.from = from;
+            this.value = value;
+        }
+
+        /**
+         * Applies this operation to the given document, which may be modified.
+         *
+         * @param document Document.
+         * @return Document after operation (a different instance, if the root has been replaced).
+         */
+        JsonNode apply(final JsonNode document) {
+            switch ( type ) {
+                case ADD:
+                    return add(document, path, value.deepCopy());
+
+                case REMOVE:
+                    remove(document, path);
+                    return document;
+
+                case REPLACE:
+                    if ( path.matches() ) return value.deepCopy();
+
+                    remove(document, path);
+                    return add(document, path, value.deepCopy());
+
+                case MOVE:
+                    if ( path.toString().startsWith(from.toString() + "/") ) {
+                        throw new PatchNotApplicableException("Can not move a value into one of its children",
+                                path.toString());
+                    }
+
+                    final JsonNode moved = get(document, from);
+                    remove(document, from);
+                    return add(document, path, moved);
+
+                case COPY:
+                    return add(document, path, get(document, from).deepCopy());
+
+                case TEST:
+                    if ( !get(document, path).equals(value) ) {
+                        throw new PatchNotApplicableException("Test failed", path.toString());
+                    }
+                    return document;
+
+                default:
+                    throw new IllegalStateException("Unhandled operation type " + type);
+            }
+        }
+
+        /**
+         * Returns the value at the given path.
+         *
+         * @param document Document.
+         * @param pointer  Path.
+         * @return Existing value.
+         * @throws PatchNotApplicableException if there is no value.
+         */
+        private static JsonNode get(final JsonNode document, final JsonPointer pointer) {
+            final JsonNode node = document.at(pointer);
+
+            if ( node.isMissingNode() ) {
+                throw new PatchNotApplicableException("Path does not exist", pointer.toString());
+            }
+
+            return node;
+        }
+
+        /**
+         * Adds the value as described by RFC 6902: object members are added or replaced, array elements are
+         * inserted ("-" appends). The root path replaces the whole document.
+         */
+        private static JsonNode add(final JsonNode document, final JsonPointer pointer, final JsonNode value) {
+            if ( pointer.matches() ) return value;
+
+            final JsonNode parent = get(document, pointer.head());
+            final JsonPointer last = pointer.last();
+
+            if ( parent.isObject() ) {
+                ((ObjectNode) parent).set(last.getMatchingProperty(), value);
+
+            } else if ( parent.isArray() ) {
+                final ArrayNode array = (ArrayNode) parent;
+
+                if ( last.getMatchingProperty().equals("-") ) {
+                    array.add(value);
+
+                } else {
+                    final int index = last.getMatchingIndex();
+                    if ( index < 0 || index > array.size() ) {
+                        throw new PatchNotApplicableException("Array index out of bounds", pointer.toString());
+                    }
+                    array.insert(index, value);
+                }
+
+            } else {
+                throw new PatchNotApplicableException("Parent is neither object nor array", pointer.toString());
+            }
+
+            return document;
+        }
+
+        /**
+         * Removes the value at the given path.
+         */
+        private static void remove(final JsonNode document, final JsonPointer pointer) {
+            if ( pointer.matches() ) {
+                throw new PatchNotApplicableException("Can not remove the whole document", pointer.toString());
+            }
+
+            final JsonNode parent = get(document, pointer.head());
+            get(document, pointer);
+
+            if ( parent.isObject() ) {
+                ((ObjectNode) parent).remove(pointer.last().getMatchingProperty());
+            } else {
+                ((ArrayNode) parent).remove(pointer.last().getMatchingIndex());
+            }
+        }
+
+        public OperationType getType() {
+            return type;
+        }
+
+        public JsonPointer getPath() {
+            return path;
+        }
+
+        public JsonPointer getFrom() {
+            return from;
+        }
+
+        public JsonNode getValue() {
+            return value;
+        }
+    }
+
+}
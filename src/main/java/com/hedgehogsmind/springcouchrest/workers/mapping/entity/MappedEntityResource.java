@@ -1,20 +1,56 @@
 package com.hedgehogsmind.springcouchrest.workers.mapping.entity;
 
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudBulk;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudCollectionETag;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudDirectUpdate;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudFetchPlan;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudFilter;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudLazyLoading;
 import com.hedgehogsmind.springcouchrest.annotations.crud.CrudMethods;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudPaging;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudStreaming;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudViews;
 import com.hedgehogsmind.springcouchrest.beans.CouchRestCore;
 import com.hedgehogsmind.springcouchrest.data.discovery.DiscoveredUnit;
+import com.hedgehogsmind.springcouchrest.util.EntityUtil;
 import com.hedgehogsmind.springcouchrest.workers.mapping.MappedResource;
 import com.hedgehogsmind.springcouchrest.workers.mapping.MappingHandler;
+import com.hedgehogsmind.springcouchrest.workers.mapping.body.RequestBodyReader;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.expand.EntityExpander;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.fetch.EntityFetchPlan;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.fetch.LazyAssociationSerializerModifier;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.fetch.LazyLoadStatistics;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.methods.MappedEntityAssociationGetHandler;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.methods.MappedEntityBulkHandler;
 import com.hedgehogsmind.springcouchrest.workers.mapping.entity.methods.MappedEntityDeleteHandler;
 import com.hedgehogsmind.springcouchrest.workers.mapping.entity.methods.MappedEntityGetHandler;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.methods.MappedEntityPatchHandler;
 import com.hedgehogsmind.springcouchrest.workers.mapping.entity.methods.MappedEntityPostHandler;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.EntityFilterCompiler;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.EntityProjectionCompiler;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.EntityQueryWorker;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.ProjectionPlan;
 import com.hedgehogsmind.springcouchrest.workers.security.ResourceCrudSecurityHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.metamodel.Attribute;
 import javax.persistence.metamodel.EntityType;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Handles request for a mapped entity.
@@ -22,6 +58,8 @@ import java.util.Optional;
 public class MappedEntityResource
         extends MappedResource {
 
+    private static final Logger log = LoggerFactory.getLogger(MappedEntityResource.class);
+
     private final EntityType entityType;
 
     private final CrudRepository repository;
@@ -30,6 +68,62 @@ public class MappedEntityResource
 
     private final ResourceCrudSecurityHandler securityHandler;
 
+    private final EntityQueryWorker queryWorker;
+
+    private final Optional<EntityFetchPlan> fetchPlan;
+
+    private final CrudLazyLoading.Policy lazyLoadingPolicy;
+
+    private final LazyLoadStatistics lazyLoadStatistics;
+
+    private final int defaultPageSize;
+
+    private final int maxPageSize;
+
+    private final int maxIds;
+
+    private final Optional<CrudStreaming> streaming;
+
+    private final Optional<TransactionTemplate> readOnlyTransactionTemplate;
+
+    private final Optional<TransactionTemplate> writeTransactionTemplate;
+
+    private final boolean bulkDeletable;
+
+    private final boolean directUpdate;
+
+    private final Map<String, String> directUpdateAttributeNames;
+
+    private final Optional<CrudBulk> bulk;
+
+    private final EntityFilterCompiler filterCompiler;
+
+    private final EntityProjectionCompiler projectionCompiler;
+
+    private final Optional<ProjectionPlan> summaryPlan;
+
+    private final EntityExpander expander;
+
+    private final ModificationStamp modificationStamp;
+
+    private final boolean collectionETag;
+
+    private final boolean versionETag;
+
+    private final Set<String> basicPropertyNames;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectWriter genericWriter;
+
+    private final ObjectWriter entityWriter;
+
+    private final ObjectWriter entityListWriter;
+
+    private final RequestBodyReader entityBodyReader;
+
+    private final RequestBodyReader treeBodyReader;
+
     /**
      * Stores given values and calls super constructor, which initializes sub handler mappings.
      * Furthermore, this constructor initializes a {@link ResourceCrudSecurityHandler} and tries to
@@ -56,11 +150,333 @@ public class MappedEntityResource
         this.repository = repository;
         this.securityHandler = new ResourceCrudSecurityHandler(this);
         this.methodsToggle = discoveredUnit.getOptionalCouchRestModifierAnnotation(CrudMethods.class);
+
+        final Optional<CrudFetchPlan> fetchPlanAnnotation = discoveredUnit.getOptionalCouchRestModifierAnnotation(CrudFetchPlan.class);
+
+        try {
+            this.fetchPlan = fetchPlanAnnotation.map(annotation -> new EntityFetchPlan(
+                    entityType,
+                    annotation.attributePaths(),
+                    annotation.batchSize()
+            ));
+        } catch ( IllegalArgumentException e ) {
+            throw new IllegalStateException("@CrudFetchPlan is invalid. " + e.getMessage() +
+                    " Source: " + discoveredUnit.getTagAnnotationSource(), e);
+        }
+
+        // collections are loaded into the entities of the persistence context of the transaction
+        if ( fetchPlan.isPresent() && !fetchPlan.get().getCollectionAttributeNames().isEmpty() &&
+                core.getTransactionManager().isEmpty() ) {
+            throw new IllegalStateException("Collections of @CrudFetchPlan require a unique " +
+                    "PlatformTransactionManager. Source: " + discoveredUnit.getTagAnnotationSource());
+        }
+
+        this.queryWorker = new EntityQueryWorker(core.getEntityManager(), entityType, fetchPlan.orElse(null));
+
+        final Optional<CrudPaging> paging = discoveredUnit.getOptionalCouchRestModifierAnnotation(CrudPaging.class);
+        this.defaultPageSize = paging.map(CrudPaging::defaultPageSize).orElse(CrudPaging.DEFAULT_PAGE_SIZE);
+        this.maxPageSize = paging.map(CrudPaging::maxPageSize).orElse(CrudPaging.DEFAULT_MAX_PAGE_SIZE);
+        this.maxIds = paging.map(CrudPaging::maxIds).orElse(CrudPaging.DEFAULT_MAX_IDS);
+
+        if ( maxPageSize < 1 ) {
+            throw new IllegalStateException("maxPageSize of @CrudPaging must be positive. " +
+                    "Source: " + discoveredUnit.getTagAnnotationSource());
+        }
+
+        if ( defaultPageSize < 1 || defaultPageSize > maxPageSize ) {
+            throw new IllegalStateException("defaultPageSize of @CrudPaging must be positive and not greater " +
+                    "than maxPageSize. Source: " + discoveredUnit.getTagAnnotationSource());
+        }
+
+        if ( maxIds < 1 ) {
+            throw new IllegalStateException("maxIds of @CrudPaging must be positive. " +
+                    "Source: " + discoveredUnit.getTagAnnotationSource());
+        }
+
+        this.streaming = discoveredUnit.getOptionalCouchRestModifierAnnotation(CrudStreaming.class);
+
+        if ( streaming.isPresent() && streaming.get().fetchSize() < 1 ) {
+            throw new IllegalStateException("fetchSize of @CrudStreaming must be positive. " +
+                    "Source: " + discoveredUnit.getTagAnnotationSource());
+        }
+
+        this.readOnlyTransactionTemplate = core.getTransactionManager().map(transactionManager -> {
+            final TransactionTemplate template = new TransactionTemplate(transactionManager);
+            template.setReadOnly(true);
+            return template;
+        });
+
+        this.writeTransactionTemplate = core.getTransactionManager().map(TransactionTemplate::new);
+
+        // bulk statements require a transaction
+        this.bulkDeletable = writeTransactionTemplate.isPresent() &&
+                EntityUtil.isBulkDeletable(entityType, core.getEntityManager());
+
+        this.directUpdate = discoveredUnit.getOptionalCouchRestModifierAnnotation(CrudDirectUpdate.class).isPresent();
+
+        if ( directUpdate && writeTransactionTemplate.isEmpty() ) {
+            throw new IllegalStateException("@CrudDirectUpdate requires a unique PlatformTransactionManager. " +
+                    "Source: " + discoveredUnit.getTagAnnotationSource());
+        }
+
+        if ( directUpdate && !EntityUtil.isBulkUpdatable(entityType, core.getEntityManager()) ) {
+            throw new IllegalStateException("@CrudDirectUpdate is not supported by entity " + entityType.getJavaType() +
+                    ". It must not have update callbacks, listeners, collections, embeddables, one-to-one " +
+                    "associations, non-updatable columns or a non-numeric version. " +
+                    "Source: " + discoveredUnit.getTagAnnotationSource());
+        }
+
+        this.bulk = discoveredUnit.getOptionalCouchRestModifierAnnotation(CrudBulk.class);
+
+        if ( bulk.isPresent() && (bulk.get().chunkSize() < 1 || bulk.get().maxItems() < 1) ) {
+            throw new IllegalStateException("chunkSize and maxItems of @CrudBulk must be positive. " +
+                    "Source: " + discoveredUnit.getTagAnnotationSource());
+        }
+
+        // every chunk is committed separately
+        if ( bulk.isPresent() && writeTransactionTemplate.isEmpty() ) {
+            throw new IllegalStateException("@CrudBulk requires a unique PlatformTransactionManager. " +
+                    "Source: " + discoveredUnit.getTagAnnotationSource());
+        }
+
+        if ( bulk.isPresent() && EntityUtil.isPostInsertIdGenerated(entityType, core.getEntityManager()) ) {
+            log.warn("Ids of entity {} are generated on insert (e.g. IDENTITY). Inserts via @CrudBulk can not be " +
+                    "batched. Consider using a sequence. Source: {}", entityType.getJavaType().getName(),
+                    discoveredUnit.getTagAnnotationSource());
+        }
+
+        this.objectMapper = core.getCouchRestObjectMapper();
+
+        final Optional<CrudViews> views = discoveredUnit.getOptionalCouchRestModifierAnnotation(CrudViews.class);
+        final Class<?> detailView = views.map(CrudViews::detail).orElse(void.class);
+
+        this.lazyLoadingPolicy = discoveredUnit.getOptionalCouchRestModifierAnnotation(CrudLazyLoading.class)
+                .map(CrudLazyLoading::value)
+                .orElse(fetchPlan.isPresent() ? CrudLazyLoading.Policy.REFERENCE : CrudLazyLoading.Policy.LOAD);
+        this.lazyLoadStatistics = new LazyLoadStatistics(resourcePathWithTrailingSlash);
+
+        final ObjectMapper writerMapper = createLazyAssociationMapper(objectMapper, lazyLoadingPolicy, lazyLoadStatistics);
+
+        this.genericWriter = writerMapper.writer();
+        this.entityWriter = detailView != void.class ?
+                writerMapper.writerWithView(detailView).forType(entityType.getJavaType()) :
+                writerMapper.writerFor(entityType.getJavaType());
+        this.entityListWriter = writerMapper.writerFor(
+                writerMapper.getTypeFactory().constructCollectionType(List.class, entityType.getJavaType())
+        );
+
+        final String[] filterableAttributeNames = discoveredUnit.getOptionalCouchRestModifierAnnotation(CrudFilter.class)
+                .map(CrudFilter::attributes)
+                .orElse(new String[0]);
+
+        for ( final String attributeName : filterableAttributeNames ) {
+            if ( !EntityFilterCompiler.isFilterable(entityType, attributeName) ) {
+                throw new IllegalStateException("Attribute '" + attributeName + "' of @CrudFilter does not exist " +
+                        "or is no basic attribute. Source: " + discoveredUnit.getTagAnnotationSource());
+            }
+        }
+
+        this.filterCompiler = new EntityFilterCompiler(
+                entityType,
+                Arrays.asList(filterableAttributeNames),
+                objectMapper,
+                maxIds
+        );
+
+        this.projectionCompiler = new EntityProjectionCompiler(
+                entityType,
+                objectMapper,
+                detailView != void.class ? detailView : null
+        );
+
+        this.directUpdateAttributeNames = directUpdate ?
+                findDirectUpdateAttributeNames(objectMapper, entityType, queryWorker.getUpdatableAttributeNames()) :
+                Map.of();
+
+        final Class<?> summaryView = views.map(CrudViews::summary).orElse(void.class);
+
+        try {
+            this.summaryPlan = summaryView != void.class ?
+                    Optional.of(projectionCompiler.createViewPlan(summaryView)) :
+                    Optional.empty();
+        } catch ( IllegalArgumentException e ) {
+            throw new IllegalStateException("Summary view of @CrudViews is not supported. " + e.getMessage() +
+                    " Source: " + discoveredUnit.getTagAnnotationSource(), e);
+        }
+
+        this.expander = new EntityExpander(this, entityType, objectMapper);
+
+        this.modificationStamp = core.getModificationStamp(entityType.getJavaType());
+        this.collectionETag = discoveredUnit.getOptionalCouchRestModifierAnnotation(CrudCollectionETag.class).isPresent();
+
+        // associated data may change without changing the version
+        this.versionETag = queryWorker.hasVersion() && writesOnlyBasicAttributes(objectMapper, entityType);
+        this.basicPropertyNames = findBasicPropertyNames(objectMapper, entityType);
+
+        this.entityBodyReader = new RequestBodyReader(
+                objectMapper.readerFor(entityType.getJavaType()),
+                core.getCouchRestConfiguration().getMaxRequestBodySize(),
+                core.getCouchRestConfiguration().getMaxRequestBodyNestingDepth()
+        );
+
+        this.treeBodyReader = new RequestBodyReader(
+                objectMapper.readerFor(JsonNode.class),
+                core.getCouchRestConfiguration().getMaxRequestBodySize(),
+                core.getCouchRestConfiguration().getMaxRequestBodyNestingDepth()
+        );
+    }
+
+    /**
+     * Creates a copy of the given ObjectMapper, which handles associations that have not been loaded according to
+     * the given policy, see {@link LazyAssociationSerializerModifier}.
+     *
+     * @param objectMapper ObjectMapper to copy.
+     * @param policy       Handling of associations which have not been loaded.
+     * @param statistics   Statistics to count associations which have not been loaded.
+     * @return Copy.
+     */
+    private static ObjectMapper createLazyAssociationMapper(final ObjectMapper objectMapper,
+                                                            final CrudLazyLoading.Policy policy,
+                                                            final LazyLoadStatistics statistics) {
+        final ObjectMapper copy = objectMapper.copy();
+        copy.setSerializerFactory(copy.getSerializerFactory().withSerializerModifier(
+                new LazyAssociationSerializerModifier(policy, statistics)
+        ));
+        return copy;
+    }
+
+    /**
+     * Checks whether all properties written by Jackson are basic attributes of the entity - i.e. neither
+     * associations, embeddables and element collections nor properties which are no attributes at all (e.g. computed
+     * by a getter).
+     *
+     * @param objectMapper ObjectMapper which serializes the entity.
+     * @param entityType   Type of entity.
+     * @return True if only basic attributes are written.
+     */
+    private static boolean writesOnlyBasicAttributes(final ObjectMapper objectMapper, final EntityType entityType) {
+        final Set<String> basicAttributeNames = getBasicAttributeNames(entityType);
+
+        final BeanDescription description = objectMapper.getSerializationConfig()
+                .introspect(objectMapper.constructType(entityType.getJavaType()));
+
+        return description.findProperties().stream()
+                .filter(BeanPropertyDefinition::couldSerialize)
+                .allMatch(property -> basicAttributeNames.contains(property.getInternalName()));
+    }
+
+    /**
+     * Finds the JSON names of the properties written by Jackson, which are basic attributes of the entity (including
+     * id and version). Writing them never loads associations.
+     *
+     * @param objectMapper ObjectMapper which serializes the entity.
+     * @param entityType   Type of entity.
+     * @return Property names.
+     */
+    private static Set<String> findBasicPropertyNames(final ObjectMapper objectMapper, final EntityType entityType) {
+        final Set<String> basicAttributeNames = getBasicAttributeNames(entityType);
+
+        final BeanDescription description = objectMapper.getSerializationConfig()
+                .introspect(objectMapper.constructType(entityType.getJavaType()));
+
+        final Set<String> propertyNames = new HashSet<>();
+        for ( final BeanPropertyDefinition property : description.findProperties() ) {
+            if ( property.couldSerialize() && basicAttributeNames.contains(property.getInternalName()) ) {
+                propertyNames.add(property.getName());
+            }
+        }
+
+        return Set.copyOf(propertyNames);
+    }
+
+    /**
+     * Collects the names of the basic attributes of the given entity type.
+     *
+     * @param entityType Type of entity.
+     * @return Attribute names.
+     */
+    private static Set<String> getBasicAttributeNames(final EntityType entityType) {
+        final Set<String> basicAttributeNames = new HashSet<>();
+        for ( final Object attribute : entityType.getAttributes() ) {
+            if ( ((Attribute<?, ?>) attribute).getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC ) {
+                basicAttributeNames.add(((Attribute<?, ?>) attribute).getName());
+            }
+        }
+
+        return basicAttributeNames;
+    }
+
+    /**
+     * Maps the JSON property names of the given updatable attributes to the attribute names. Attributes which are
+     * not deserialized by Jackson (e.g. <code>@JsonIgnore</code>) are left out, so that direct updates keep their
+     * values.
+     *
+     * @param objectMapper            ObjectMapper which deserializes the entity.
+     * @param entityType              Type of entity.
+     * @param updatableAttributeNames Names of attributes which can be updated directly.
+     * @return Attribute names by property name.
+     */
+    private static Map<String, String> findDirectUpdateAttributeNames(final ObjectMapper objectMapper,
+                                                                      final EntityType entityType,
+                                                                      final Set<String> updatableAttributeNames) {
+        final BeanDescription description = objectMapper.getDeserializationConfig()
+                .introspect(objectMapper.constructType(entityType.getJavaType()));
+
+        final Map<String, String> attributeNames = new HashMap<>();
+        for ( final BeanPropertyDefinition property : description.findProperties() ) {
+            if ( property.couldDeserialize() && updatableAttributeNames.contains(property.getInternalName()) ) {
+                attributeNames.put(property.getName(), property.getInternalName());
+            }
+        }
+
+        return Map.copyOf(attributeNames);
+    }
+
+    /**
+     * Returns a cached ObjectWriter for the given body: for instances of the entity class one whose
+     * serializer has been resolved in advance, for lists of entities one for lists of entities and an untyped one
+     * otherwise. If the given ObjectMapper is not the one of the core, a new untyped writer is returned.
+     * The writer for entities applies the detail view of {@link CrudViews}. All cached writers handle associations
+     * which have not been loaded according to {@link #getLazyLoadingPolicy()} and count them
+     * (see {@link LazyAssociationSerializerModifier}).
+     *
+     * @param body         Body to serialize.
+     * @param objectMapper ObjectMapper used for the request.
+     * @return ObjectWriter.
+     */
+    public ObjectWriter getObjectWriter(final Object body, final ObjectMapper objectMapper) {
+        if ( objectMapper != this.objectMapper ) {
+            return objectMapper.writer();
+        }
+
+        if ( body != null && body.getClass() == entityType.getJavaType() ) {
+            return entityWriter;
+        }
+
+        if ( body instanceof List && isEntityList((List<?>) body) ) {
+            return entityListWriter;
+        }
+
+        return genericWriter;
+    }
+
+    /**
+     * Checks the first element only, as lists are either lists of entities or of other objects
+     * (e.g. multi-get rows).
+     *
+     * @param list List to check.
+     * @return True if list is empty or starts with an instance of the entity class.
+     */
+    private boolean isEntityList(final List<?> list) {
+        return list.isEmpty() || (list.get(0) != null && list.get(0).getClass() == entityType.getJavaType());
     }
 
     /**
      * Conditionally creates CRUD handlers. In case, {@link #getMethodsToggle()} is empty,
      * all CRUD handlers will be added. If present, only those for which the flag of the annotation is true.
+     * The handler for collections of entities comes along with the GET handler.
+     * The PATCH handler additionally requires the saveUpdate flag. The bulk handler requires the saveUpdate flag and
+     * {@link CrudBulk}. It is added before the POST handler, as it handles POST requests as well.
      *
      * @return List of entity resource handlers.
      */
@@ -70,12 +486,21 @@ public class MappedEntityResource
 
         if ( methodsToggle.isEmpty() || methodsToggle.get().get() ) {
             handlers.add(new MappedEntityGetHandler(this));
+            handlers.add(new MappedEntityAssociationGetHandler(this));
+        }
+
+        if ( bulk.isPresent() && (methodsToggle.isEmpty() || methodsToggle.get().saveUpdate()) ) {
+            handlers.add(new MappedEntityBulkHandler(this));
         }
 
         if ( methodsToggle.isEmpty() || methodsToggle.get().saveUpdate() ) {
             handlers.add(new MappedEntityPostHandler(this));
         }
 
+        if ( methodsToggle.isEmpty() || (methodsToggle.get().saveUpdate() && methodsToggle.get().patch()) ) {
+            handlers.add(new MappedEntityPatchHandler(this));
+        }
+
         if ( methodsToggle.isEmpty() || methodsToggle.get().delete() ) {
             handlers.add(new MappedEntityDeleteHandler(this));
         }
@@ -98,4 +523,243 @@ public class MappedEntityResource
     public Optional<CrudMethods> getMethodsToggle() {
         return methodsToggle;
     }
+
+    public EntityQueryWorker getQueryWorker() {
+        return queryWorker;
+    }
+
+    /**
+     * Returns the page size for requests without size parameter, see {@link CrudPaging}.
+     *
+     * @return Default page size.
+     */
+    public int getDefaultPageSize() {
+        return defaultPageSize;
+    }
+
+    /**
+     * Returns the largest page size a request may ask for, see {@link CrudPaging}.
+     *
+     * @return Maximum page size.
+     */
+    public int getMaxPageSize() {
+        return maxPageSize;
+    }
+
+    public int getMaxIds() {
+        return maxIds;
+    }
+
+    /**
+     * Returns the streaming settings, see {@link CrudStreaming}.
+     *
+     * @return Streaming settings or empty if streaming is disabled.
+     */
+    public Optional<CrudStreaming> getStreaming() {
+        return streaming;
+    }
+
+    /**
+     * Returns the reader for bodies which are deserialized into entities. It uses the body limits of the
+     * configuration.
+     *
+     * @return Body reader.
+     */
+    public RequestBodyReader getEntityBodyReader() {
+        return entityBodyReader;
+    }
+
+    /**
+     * Returns the reader for bodies which are read as JSON trees (e.g. patches, updates or bulk items). It uses the body limits
+     * of the configuration.
+     *
+     * @return Body reader.
+     */
+    public RequestBodyReader getTreeBodyReader() {
+        return treeBodyReader;
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * Returns whether entities can be deleted by one bulk statement instead of being loaded and removed.
+     * This requires a transaction manager and an entity without removal cascades, callbacks, listeners and
+     * collections, see {@link EntityUtil#isBulkDeletable(EntityType, javax.persistence.EntityManager)}.
+     *
+     * @return True if bulk deletes can be used.
+     */
+    public boolean isBulkDeletable() {
+        return bulkDeletable;
+    }
+
+    /**
+     * Returns whether updates are written by one bulk statement without loading the existing entity,
+     * see {@link CrudDirectUpdate}. If the entity does not support them, the constructor fails.
+     *
+     * @return True if direct updates are enabled.
+     */
+    public boolean isDirectUpdate() {
+        return directUpdate;
+    }
+
+    /**
+     * Returns the attributes which are written by direct updates, keyed by their JSON property names. The body of a
+     * direct update must contain all of these properties.
+     *
+     * @return Attribute names by property name; empty if direct updates are disabled.
+     */
+    public Map<String, String> getDirectUpdateAttributeNames() {
+        return directUpdateAttributeNames;
+    }
+
+    /**
+     * Returns the compiler for filter query parameters. If the resource has no {@link CrudFilter} annotation,
+     * no attribute can be used for filtering.
+     *
+     * @return Filter compiler.
+     */
+    public EntityFilterCompiler getFilterCompiler() {
+        return filterCompiler;
+    }
+
+    /**
+     * Returns the compiler for the fields query parameter, which selects only some attributes.
+     *
+     * @return Projection compiler.
+     */
+    public EntityProjectionCompiler getProjectionCompiler() {
+        return projectionCompiler;
+    }
+
+    /**
+     * Returns the projection of the summary view, see {@link CrudViews#summary()}. Collection GETs without
+     * fields parameter select only its attributes.
+     *
+     * @return Summary projection or empty if there is no summary view.
+     */
+    public Optional<ProjectionPlan> getSummaryPlan() {
+        return summaryPlan;
+    }
+
+    /**
+     * Returns the expander for the expand parameter of GET requests.
+     *
+     * @return Expander.
+     */
+    public EntityExpander getExpander() {
+        return expander;
+    }
+
+    /**
+     * Returns the stamp which changes with every write to the entity. It is shared by all resources of the entity,
+     * see {@link CouchRestCore#getModificationStamp(Class)}.
+     *
+     * @return Modification stamp.
+     */
+    public ModificationStamp getModificationStamp() {
+        return modificationStamp;
+    }
+
+    /**
+     * Checks whether collections get ETags, see {@link CrudCollectionETag}.
+     *
+     * @return True if annotated with {@link CrudCollectionETag}.
+     */
+    public boolean isCollectionETag() {
+        return collectionETag;
+    }
+
+    /**
+     * Checks whether the ETag of single entities is their version. This is the case, if the entity has a version
+     * and only basic attributes are serialized - associated data may change without changing the version.
+     * Otherwise, the ETag is a hash of the serialized entity.
+     *
+     * @return True if the version can be used as ETag.
+     */
+    public boolean isVersionETag() {
+        return versionETag;
+    }
+
+    /**
+     * Returns the JSON names of the serialized properties which are basic attributes (including id and version).
+     * Reading them from an entity never loads associations.
+     *
+     * @return Property names.
+     */
+    public Set<String> getBasicPropertyNames() {
+        return basicPropertyNames;
+    }
+
+    /**
+     * Returns the fetch plan, see {@link CrudFetchPlan}. If present, entities are loaded via the query worker
+     * instead of the repository, so that the plan is applied.
+     *
+     * @return Fetch plan or empty if there is none.
+     */
+    public Optional<EntityFetchPlan> getFetchPlan() {
+        return fetchPlan;
+    }
+
+    /**
+     * Returns the handling of associations which have not been loaded when a response is written, see
+     * {@link CrudLazyLoading}. Without that annotation, they are loaded - or written as reference, if there is a
+     * fetch plan.
+     *
+     * @return Policy.
+     */
+    public CrudLazyLoading.Policy getLazyLoadingPolicy() {
+        return lazyLoadingPolicy;
+    }
+
+    /**
+     * Returns the counts of associations which have not been loaded when a response was written, per attribute.
+     *
+     * @return Statistics.
+     */
+    public LazyLoadStatistics getLazyLoadStatistics() {
+        return lazyLoadStatistics;
+    }
+
+    /**
+     * Returns the bulk settings, see {@link CrudBulk}.
+     *
+     * @return Bulk settings or empty if the bulk endpoint is disabled.
+     */
+    public Optional<CrudBulk> getBulk() {
+        return bulk;
+    }
+
+    /**
+     * Returns the transaction template for requests with the given HTTP method. GET and HEAD requests get
+     * a read-only transaction: with a JpaTransactionManager, Hibernate then uses flush mode MANUAL and loads
+     * entities read-only, i.e. without snapshots for dirty checking. All other methods get a regular transaction.
+     *
+     * @param httpMethod HTTP method of request.
+     * @return Transaction template or empty if there is no transaction manager.
+     */
+    public Optional<TransactionTemplate> getTransactionTemplate(final String httpMethod) {
+        return httpMethod.equals("GET") || httpMethod.equals("HEAD") ?
+                readOnlyTransactionTemplate :
+                writeTransactionTemplate;
+    }
+
+    /**
+     * Returns the template for read-only transactions, see {@link #getTransactionTemplate(String)}.
+     *
+     * @return Transaction template or empty if there is no transaction manager.
+     */
+    public Optional<TransactionTemplate> getReadOnlyTransactionTemplate() {
+        return readOnlyTransactionTemplate;
+    }
+
+    /**
+     * Returns the template for regular transactions, see {@link #getTransactionTemplate(String)}.
+     *
+     * @return Transaction template or empty if there is no transaction manager.
+     */
+    public Optional<TransactionTemplate> getWriteTransactionTemplate() {
+        return writeTransactionTemplate;
+    }
 }
@@ -1,23 +1,39 @@
 package com.hedgehogsmind.springcouchrest.workers.mapping.entity;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.hedgehogsmind.springcouchrest.util.ETagUtil;
+import com.hedgehogsmind.springcouchrest.util.RequestUtil;
 import com.hedgehogsmind.springcouchrest.workers.mapping.MappedResource;
 import com.hedgehogsmind.springcouchrest.workers.mapping.MappedResourceSubHandlerBase;
 import com.hedgehogsmind.springcouchrest.workers.mapping.entity.exceptions.IdTypeParsingNotSupportedException;
 import com.hedgehogsmind.springcouchrest.workers.mapping.entity.exceptions.IdValueNotParsableException;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.exceptions.InvalidQueryParameterException;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.EntityQueryWorker;
 import com.hedgehogsmind.springcouchrest.workers.security.ResourceCrudSecurityHandler;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.persistence.metamodel.EntityType;
 import javax.servlet.http.HttpServletRequest;
+import javax.validation.Validator;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * <p>
@@ -41,6 +57,11 @@ import java.util.Optional;
 public abstract class MappedEntitySubHandlerBase
         extends MappedResourceSubHandlerBase {
 
+    /**
+     * Methods which do not modify entities.
+     */
+    private static final Set<String> READING_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
     private final MappedEntityResource parentEntityResource;
 
     /**
@@ -62,6 +83,93 @@ public abstract class MappedEntitySubHandlerBase
         return parentEntityResource;
     }
 
+    /**
+     * Lets the extending class handle the request. If a modifying request succeeded, the entity is marked as
+     * modified, see {@link MappedEntityResource#getModificationStamp()}. If the request joined a transaction, which
+     * is still active (e.g. of an atomic batch), this happens only after that transaction has been committed.
+     * Otherwise, earlier responses could be validated again before the changes are visible - or although they are
+     * rolled back.
+     *
+     * @param request      Request to handle.
+     * @param objectMapper ObjectMapper to use for JSON (de-) serialization.
+     * @return Result of the extending class.
+     */
+    @Override
+    public ResponseEntity handle(HttpServletRequest request, ObjectMapper objectMapper) {
+        final ResponseEntity response = super.handle(request, objectMapper);
+
+        if ( !READING_METHODS.contains(getRequestContext(request).getMethod()) &&
+                response.getStatusCode().is2xxSuccessful() ) {
+
+            final ModificationStamp modificationStamp = parentEntityResource.getModificationStamp();
+
+            if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        modificationStamp.markModified();
+                    }
+                });
+            } else {
+                modificationStamp.markModified();
+            }
+        }
+
+        return response;
+    }
+
+    /**
+     * Delegates to {@link MappedEntityResource#getObjectWriter(Object, ObjectMapper)}, which caches the
+     * ObjectWriters for the entity type.
+     *
+     * @param body         Body of ResponseEntity returned by this handler.
+     * @param objectMapper ObjectMapper which has been passed to the handle method.
+     * @return ObjectWriter for body.
+     */
+    @Override
+    public ObjectWriter getObjectWriter(Object body, ObjectMapper objectMapper) {
+        return parentEntityResource.getObjectWriter(body, objectMapper);
+    }
+
+    /**
+     * <p>
+     * Executes the given work within one transaction, chosen via
+     * {@link MappedEntityResource#getTransactionTemplate(String)} for the given HTTP method. Repository calls
+     * within the work join this transaction. If there is no transaction manager, the work is executed directly.
+     * </p>
+     *
+     * <p>
+     * As beginning the transaction acquires a database connection, call this method only after the security
+     * checks passed and the request has been parsed.
+     * </p>
+     *
+     * @param method HTTP method of request.
+     * @param work   Work to execute.
+     * @param <T>    Type of result.
+     * @return Result of work.
+     */
+    protected <T> T executeInTransaction(final String method, final Supplier<T> work) {
+        final Optional<TransactionTemplate> transactionTemplate = parentEntityResource.getTransactionTemplate(method);
+
+        return transactionTemplate.isPresent() ?
+                transactionTemplate.get().execute(status -> work.get()) :
+                work.get();
+    }
+
+    /**
+     * Validates the given entity with the Bean Validation {@link Validator} of the core, if there is one. Hibernate
+     * validates persisted and merged entities only on flush, i.e. after the work has been done, and not at all for
+     * bulk updates.
+     *
+     * @param entity Entity to validate.
+     * @return True if there is no validator or the entity has no constraint violations.
+     */
+    protected boolean isValid(final Object entity) {
+        return parentEntityResource.getCore().getValidator()
+                .map(validator -> validator.validate(entity).isEmpty())
+                .orElse(true);
+    }
+
     /**
      * Convenience method. Calls {@link MappedEntityResource#getSecurityHandler()} of
      * {@link #getParentEntityResource()}.
@@ -118,6 +226,15 @@ public abstract class MappedEntitySubHandlerBase
         return parentEntityResource.getRepository();
     }
 
+    /**
+     * Delivers query worker for entity of type {@link #getEntityClass()}.
+     *
+     * @return Query worker.
+     */
+    protected EntityQueryWorker getQueryWorker() {
+        return parentEntityResource.getQueryWorker();
+    }
+
     /**
      * Tries to parse ID by type {@link #getEntityIdClass()}. Currently supports:
      * <ul>
@@ -145,6 +262,29 @@ public abstract class MappedEntitySubHandlerBase
             throw new IdTypeParsingNotSupportedException(idClass);
     }
 
+    /**
+     * Parses the value of the given query parameter as id.
+     *
+     * @param queryParameters Query parameters.
+     * @param parameter       Name of parameter.
+     * @return Parsed id or null if the parameter is not present.
+     * @throws InvalidQueryParameterException if the value is not a valid id or given more than once.
+     */
+    protected Object parseIdParameter(final Map<String, String[]> queryParameters, final String parameter) {
+        final String[] values = queryParameters.get(parameter);
+        if ( values == null || values.length == 0 ) return null;
+
+        if ( values.length > 1 ) {
+            throw new InvalidQueryParameterException("Parameter given more than once", parameter);
+        }
+
+        try {
+            return parseId(values[0]);
+        } catch ( IdValueNotParsableException e ) {
+            throw new InvalidQueryParameterException("Parameter is not a valid id", e, parameter);
+        }
+    }
+
     /**
      * Tries to parse value as Long. If not possible, a {@link IdValueNotParsableException}
      * will be thrown.
@@ -296,4 +436,92 @@ public abstract class MappedEntitySubHandlerBase
         }
     }
 
+    /**
+     * Creates Link headers for the previous and next page, if existing.
+     *
+     * @param request Request of current page.
+     * @param slice   Current page.
+     * @return Headers.
+     */
+    protected HttpHeaders createPageLinks(final HttpServletRequest request, final Slice<?> slice) {
+        final HttpHeaders headers = new HttpHeaders();
+
+        if ( slice.hasPrevious() ) {
+            headers.add(HttpHeaders.LINK, createLink(
+                    request, EntityQueryWorker.PAGE_PARAMETER, String.valueOf(slice.getNumber() - 1), "prev"
+            ));
+        }
+
+        if ( slice.hasNext() ) {
+            headers.add(HttpHeaders.LINK, createLink(
+                    request, EntityQueryWorker.PAGE_PARAMETER, String.valueOf(slice.getNumber() + 1), "next"
+            ));
+        }
+
+        return headers;
+    }
+
+    /**
+     * Creates a Link header value pointing to the current request with one query parameter replaced.
+     *
+     * @param request   Current request.
+     * @param parameter Query parameter to replace.
+     * @param value     New value. Must not need URL encoding.
+     * @param relation  Relation of link.
+     * @return Link header value.
+     */
+    protected String createLink(final HttpServletRequest request,
+                                final String parameter,
+                                final String value,
+                                final String relation) {
+        return "<" + request.getRequestURI() + "?" +
+                RequestUtil.replaceQueryParameter(request.getQueryString(), parameter, value) +
+                ">; rel=\"" + relation + "\"";
+    }
+
+    /**
+     * Creates the ETag of a collection response from the modification stamps of the given resources.
+     *
+     * @param resources Resources whose entities are contained in the response.
+     * @return ETag or empty if a resource is not annotated with
+     * {@link com.hedgehogsmind.springcouchrest.annotations.crud.CrudCollectionETag}.
+     */
+    protected Optional<String> createCollectionETag(final List<MappedEntityResource> resources) {
+        final long[] stamps = new long[resources.size()];
+
+        for ( int i = 0; i < stamps.length; i++ ) {
+            if ( !resources.get(i).isCollectionETag() ) return Optional.empty();
+            stamps[i] = resources.get(i).getModificationStamp().getStamp();
+        }
+
+        return Optional.of(ETagUtil.fromStamps(stamps));
+    }
+
+    /**
+     * Creates a 304 response without body.
+     *
+     * @param eTag Current ETag.
+     * @return Response.
+     */
+    protected ResponseEntity notModified(final String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+
+    /**
+     * Adds the given ETag to a successful response.
+     *
+     * @param response Response.
+     * @param eTag     ETag.
+     * @return Copy of response with ETag or the given response, if it is no success.
+     */
+    protected ResponseEntity withETag(final ResponseEntity response, final String eTag) {
+        if ( !response.getStatusCode().is2xxSuccessful() ) return response;
+
+        final HttpHeaders headers = new HttpHeaders();
+        headers.addAll(response.getHeaders());
+        headers.setETag(eTag);
+
+        return new ResponseEntity<>(response.getBody(), headers, response.getStatusCode());
+    }
+
 }
@@ -0,0 +1,31 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the writes through CouchRest to one resource. Used for the ETags of collections, see
+ * {@link com.hedgehogsmind.springcouchrest.annotations.crud.CrudCollectionETag}. The counter starts at a random
+ * value, so that ETags sent before a restart of the application do not match afterwards.
+ */
+public class ModificationStamp {
+
+    private final AtomicLong stamp = new AtomicLong(ThreadLocalRandom.current().nextLong());
+
+    /**
+     * Marks the resource as modified by advancing the stamp.
+     */
+    public void markModified() {
+        stamp.incrementAndGet();
+    }
+
+    /**
+     * Returns the current stamp. It changes with every modification, but is no time.
+     *
+     * @return Stamp.
+     */
+    public long getStamp() {
+        return stamp.get();
+    }
+
+}
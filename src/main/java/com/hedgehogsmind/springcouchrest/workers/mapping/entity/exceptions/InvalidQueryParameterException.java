@@ -0,0 +1,44 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.exceptions;
+
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetail;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetailConvertibleRuntimeException;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+
+import java.util.Locale;
+
+/**
+ * Shall be thrown whenever a query parameter has an invalid value, e.g. a page size which is not a number
+ * or a sort attribute which does not exist.
+ */
+public class InvalidQueryParameterException
+        extends ProblemDetailConvertibleRuntimeException {
+
+    private final String parameter;
+
+    public InvalidQueryParameterException(String parameter) {
+        this.parameter = parameter;
+    }
+
+    public InvalidQueryParameterException(String message, String parameter) {
+        super(message);
+        this.parameter = parameter;
+    }
+
+    public InvalidQueryParameterException(String message, Throwable cause, String parameter) {
+        super(message, cause);
+        this.parameter = parameter;
+    }
+
+    public String getParameter() {
+        return parameter;
+    }
+
+    @Override
+    public ProblemDetail toProblemDetail(Locale locale) {
+        return CouchRestProblems.INVALID_QUERY_PARAMETER
+                .withAttributes()
+                .addAttribute("parameter", parameter)
+                .toProblemDetail(locale);
+    }
+
+}
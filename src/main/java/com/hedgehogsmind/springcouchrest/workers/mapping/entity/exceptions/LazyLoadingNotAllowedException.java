@@ -0,0 +1,35 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.exceptions;
+
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetail;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetailConvertibleRuntimeException;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+
+import java.util.Locale;
+
+/**
+ * Thrown while writing a response, if an association which has not been loaded is reached and the resource forbids
+ * lazy loading, see {@link com.hedgehogsmind.springcouchrest.annotations.crud.CrudLazyLoading.Policy#FAIL}.
+ */
+public class LazyLoadingNotAllowedException
+        extends ProblemDetailConvertibleRuntimeException {
+
+    private final String attribute;
+
+    public LazyLoadingNotAllowedException(String attribute) {
+        super("Association " + attribute + " has not been loaded");
+        this.attribute = attribute;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    @Override
+    public ProblemDetail toProblemDetail(Locale locale) {
+        return CouchRestProblems.LAZY_LOADING_NOT_ALLOWED
+                .withAttributes()
+                .addAttribute("attribute", attribute)
+                .toProblemDetail(locale);
+    }
+
+}
@@ -0,0 +1,266 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.expand;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.hedgehogsmind.springcouchrest.workers.mapping.MappedResource;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.MappedEntityResource;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.exceptions.InvalidQueryParameterException;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.EntityQueryWorker;
+import org.hibernate.Hibernate;
+
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.PluralAttribute;
+import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.Type;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * Parses the query parameter {@link #EXPAND_PARAMETER} (e.g. <code>expand=author,tags</code>) and expands the
+ * named associations of loaded rows, see {@link #expand(List, List, ObjectWriter)}. Associations are named by their
+ * JSON property names. To-one associations and collections can be expanded, if the associated entity is published
+ * as CouchRest resource with GET - its read security rule is checked and its ObjectWriters write the associated
+ * entities.
+ * </p>
+ *
+ * <p>
+ * Expansions are resolved on first use (all resources exist by then) and cached per property.
+ * </p>
+ */
+public class EntityExpander {
+
+    public static final String EXPAND_PARAMETER = "expand";
+
+    private final MappedEntityResource resource;
+
+    private final EntityType entityType;
+
+    private final Map<String, String> attributeNamesByPropertyName;
+
+    private final Map<String, Expansion> expansionCache = new ConcurrentHashMap<>();
+
+    /**
+     * Collects the associations which are serialized by Jackson.
+     *
+     * @param resource     Resource whose rows are expanded.
+     * @param entityType   Type of entity of resource.
+     * @param objectMapper ObjectMapper which serializes the entity.
+     */
+    public EntityExpander(final MappedEntityResource resource,
+                          final EntityType entityType,
+                          final ObjectMapper objectMapper) {
+
+        if ( resource == null ) throw new IllegalArgumentException("resource must not be null");
+        if ( entityType == null ) throw new IllegalArgumentException("entityType must not be null");
+        if ( objectMapper == null ) throw new IllegalArgumentException("objectMapper must not be null");
+
+        final Set<String> associationNames = new HashSet<>();
+        for ( final Object attribute : entityType.getAttributes() ) {
+            if ( getTargetType((Attribute<?, ?>) attribute) != null ) {
+                associationNames.add(((Attribute<?, ?>) attribute).getName());
+            }
+        }
+
+        final BeanDescription description = objectMapper.getSerializationConfig()
+                .introspect(objectMapper.constructType(entityType.getJavaType()));
+
+        final Map<String, String> attributeNames = new HashMap<>();
+        for ( final BeanPropertyDefinition property : description.findProperties() ) {
+            if ( property.couldSerialize() && associationNames.contains(property.getInternalName()) ) {
+                attributeNames.put(property.getName(), property.getInternalName());
+            }
+        }
+
+        this.resource = resource;
+        this.entityType = entityType;
+        this.attributeNamesByPropertyName = Map.copyOf(attributeNames);
+    }
+
+    /**
+     * Returns the associated entity type of the given attribute.
+     *
+     * @param attribute Attribute.
+     * @return Entity class or null if the attribute is no association to entities.
+     */
+    private static Class<?> getTargetType(final Attribute<?, ?> attribute) {
+        final Type<?> type = attribute.isCollection() ?
+                ((PluralAttribute<?, ?, ?>) attribute).getElementType() :
+                ((SingularAttribute<?, ?>) attribute).getType();
+
+        return type.getPersistenceType() == Type.PersistenceType.ENTITY ? type.getJavaType() : null;
+    }
+
+    /**
+     * Checks whether expansions are requested.
+     *
+     * @param queryParameters Query parameters of request.
+     * @return True if the expand parameter is present.
+     */
+    public boolean isExpansionRequested(final Map<String, String[]> queryParameters) {
+        return queryParameters.containsKey(EXPAND_PARAMETER);
+    }
+
+    /**
+     * Parses the comma separated properties of the expand parameter (which may also be given multiple times) and
+     * checks the read access of their target resources.
+     *
+     * @param queryParameters Query parameters of request.
+     * @return Expansions in request order. Empty if none are requested.
+     * @throws InvalidQueryParameterException if a property can not be expanded.
+     */
+    public List<Expansion> parse(final Map<String, String[]> queryParameters) {
+        final String[] values = queryParameters.get(EXPAND_PARAMETER);
+        if ( values == null ) return List.of();
+
+        final Set<String> propertyNames = new LinkedHashSet<>();
+        for ( final String value : values ) {
+            for ( final String propertyName : value.split(",") ) {
+                if ( !propertyName.isBlank() ) propertyNames.add(propertyName.trim());
+            }
+        }
+
+        if ( propertyNames.isEmpty() ) {
+            throw new InvalidQueryParameterException("No properties given", EXPAND_PARAMETER);
+        }
+
+        final List<Expansion> expansions = new ArrayList<>(propertyNames.size());
+        for ( final String propertyName : propertyNames ) {
+            final Expansion expansion = getExpansion(propertyName);
+            expansion.getTargetResource().getSecurityHandler().assertReadAccess();
+            expansions.add(expansion);
+        }
+
+        return expansions;
+    }
+
+    /**
+     * Returns the cached expansion of the given property or resolves it.
+     *
+     * @param propertyName JSON property name.
+     * @return Expansion.
+     * @throws InvalidQueryParameterException if the property can not be expanded.
+     */
+    private Expansion getExpansion(final String propertyName) {
+        final Expansion cached = expansionCache.get(propertyName);
+        if ( cached != null ) return cached;
+
+        final String attributeName = attributeNamesByPropertyName.get(propertyName);
+
+        if ( attributeName == null ) {
+            throw new InvalidQueryParameterException("Property '" + propertyName + "' can not be expanded",
+                    EXPAND_PARAMETER);
+        }
+
+        final Attribute<?, ?> attribute = entityType.getAttribute(attributeName);
+        final Class<?> targetType = getTargetType(attribute);
+
+        final MappedEntityResource targetResource = findTargetResource(targetType).orElseThrow(
+                () -> new InvalidQueryParameterException("Property '" + propertyName + "' can not be expanded, " +
+                        "as " + targetType.getSimpleName() + " is not published with GET", EXPAND_PARAMETER)
+        );
+
+        final Expansion expansion = new Expansion(propertyName, attributeName, attribute.isCollection(), targetResource);
+        expansionCache.putIfAbsent(propertyName, expansion);
+
+        return expansion;
+    }
+
+    /**
+     * Searches the resource of the given entity class, which must provide GET.
+     *
+     * @param targetType Entity class.
+     * @return Resource or empty.
+     */
+    public Optional<MappedEntityResource> findTargetResource(final Class<?> targetType) {
+        for ( final MappedResource mappedResource : resource.getCore().getMappedResources() ) {
+            if ( !(mappedResource instanceof MappedEntityResource) ) continue;
+
+            final MappedEntityResource entityResource = (MappedEntityResource) mappedResource;
+
+            if ( entityResource.getEntityType().getJavaType() == targetType &&
+                    (entityResource.getMethodsToggle().isEmpty() || entityResource.getMethodsToggle().get().get()) ) {
+                return Optional.of(entityResource);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * <p>
+     * Expands the given rows: per expansion, the associated entities of all rows are loaded by one query (see
+     * {@link EntityQueryWorker#findAssociated(String, Collection)}) - and the collections of the fetch plan of the
+     * target resource by one query per collection and batch. Must be called within a transaction.
+     * </p>
+     *
+     * @param rows       Entities or projected rows.
+     * @param expansions Expansions, not empty.
+     * @param rowWriter  ObjectWriter for the rows.
+     * @return One {@link ExpandedRow} per row in the same order.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object> expand(final List<?> rows, final List<Expansion> expansions, final ObjectWriter rowWriter) {
+        final EntityQueryWorker queryWorker = resource.getQueryWorker();
+
+        final Set<Object> ids = new LinkedHashSet<>();
+        for ( final Object row : rows ) {
+            ids.add(queryWorker.readId(row));
+        }
+
+        final List<Map<Object, Object>> valuesByExpansion = new ArrayList<>(expansions.size());
+
+        for ( final Expansion expansion : expansions ) {
+            final Map<Object, Object> valuesById = new HashMap<>();
+            final Set<Object> targets = Collections.newSetFromMap(new IdentityHashMap<>());
+
+            if ( !ids.isEmpty() ) {
+                for ( final Object[] pair : queryWorker.findAssociated(expansion.getAttributeName(), ids) ) {
+                    final Object target = Hibernate.unproxy(pair[1]);
+                    targets.add(target);
+
+                    if ( expansion.isCollection() ) {
+                        ((List<Object>) valuesById.computeIfAbsent(pair[0], id -> new ArrayList<>())).add(target);
+                    } else {
+                        valuesById.put(pair[0], target);
+                    }
+                }
+            }
+
+            expansion.getTargetResource().getQueryWorker().loadCollections(new ArrayList<>(targets));
+            valuesByExpansion.add(valuesById);
+        }
+
+        final List<Object> expandedRows = new ArrayList<>(rows.size());
+
+        for ( final Object row : rows ) {
+            final Object id = queryWorker.readId(row);
+            final Map<String, Object> values = new HashMap<>();
+
+            for ( int i = 0; i < expansions.size(); i++ ) {
+                final Object value = valuesByExpansion.get(i).get(id);
+                values.put(
+                        expansions.get(i).getPropertyName(),
+                        value == null && expansions.get(i).isCollection() ? List.of() : value
+                );
+            }
+
+            expandedRows.add(new ExpandedRow(row, rowWriter, expansions, values));
+        }
+
+        return expandedRows;
+    }
+
+    /**
+     * Returns the JSON property names of the associations which may be expanded.
+     *
+     * @return Property names.
+     */
+    public Set<String> getExpandablePropertyNames() {
+        return attributeNamesByPropertyName.keySet();
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.expand;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.MappedEntityResource;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An entity (or projected row) with expanded associations. Serialized as the row itself, whose association
+ * properties are replaced by the associated entities. These are written by the ObjectWriters of their own resource.
+ * While the row is written, this instance is set as attribute {@link #ATTRIBUTE_KEY}, so that the replaced
+ * properties are skipped (see {@link #replaces(Object, String)}) instead of being loaded.
+ */
+public class ExpandedRow
+        implements JsonSerializable {
+
+    /**
+     * Key of the serialization attribute which holds the row being written.
+     */
+    public static final Class<ExpandedRow> ATTRIBUTE_KEY = ExpandedRow.class;
+
+    private final Object row;
+
+    private final ObjectWriter rowWriter;
+
+    private final List<Expansion> expansions;
+
+    private final Map<String, Object> values;
+
+    /**
+     * Stores values.
+     *
+     * @param row        Entity or projected row.
+     * @param rowWriter  ObjectWriter for the row.
+     * @param expansions Expanded associations.
+     * @param values     Associated entity (or list of entities) per JSON property name. Null if there is none.
+     */
+    public ExpandedRow(final Object row,
+                       final ObjectWriter rowWriter,
+                       final List<Expansion> expansions,
+                       final Map<String, Object> values) {
+        this.row = row;
+        this.rowWriter = rowWriter;
+        this.expansions = expansions;
+        this.values = values;
+    }
+
+    @Override
+    public void serialize(final JsonGenerator generator, final SerializerProvider serializers) throws IOException {
+        final TokenBuffer buffer = new TokenBuffer(generator.getCodec(), false);
+        rowWriter.withAttribute(ATTRIBUTE_KEY, this).writeValue(buffer, row);
+
+        generator.writeStartObject();
+
+        try ( final JsonParser parser = buffer.asParser() ) {
+            parser.nextToken();
+
+            while ( parser.nextToken() == JsonToken.FIELD_NAME ) {
+                if ( values.containsKey(parser.getCurrentName()) ) {
+                    // replaced by expansion
+                    parser.nextToken();
+                    parser.skipChildren();
+                } else {
+                    generator.copyCurrentStructure(parser);
+                }
+            }
+        }
+
+        for ( final Expansion expansion : expansions ) {
+            generator.writeFieldName(expansion.getPropertyName());
+            writeValue(generator, expansion.getTargetResource(), values.get(expansion.getPropertyName()));
+        }
+
+        generator.writeEndObject();
+    }
+
+    private static void writeValue(final JsonGenerator generator,
+                                   final MappedEntityResource targetResource,
+                                   final Object value) throws IOException {
+        if ( value == null ) {
+            generator.writeNull();
+
+        } else if ( value instanceof List ) {
+            generator.writeStartArray();
+            for ( final Object element : (List<?>) value ) {
+                writeValue(generator, targetResource, element);
+            }
+            generator.writeEndArray();
+
+        } else {
+            targetResource.getObjectWriter(value, targetResource.getObjectMapper()).writeValue(generator, value);
+        }
+    }
+
+    /**
+     * Checks whether the given property of the given bean is replaced by an expansion.
+     *
+     * @param bean         Bean being written.
+     * @param propertyName JSON property name.
+     * @return True if the bean is the row and the property is expanded.
+     */
+    public boolean replaces(final Object bean, final String propertyName) {
+        return bean == row && values.containsKey(propertyName);
+    }
+
+    @Override
+    public void serializeWithType(final JsonGenerator generator,
+                                  final SerializerProvider serializers,
+                                  final TypeSerializer typeSerializer) throws IOException {
+        serialize(generator, serializers);
+    }
+
+    public Object getRow() {
+        return row;
+    }
+
+}
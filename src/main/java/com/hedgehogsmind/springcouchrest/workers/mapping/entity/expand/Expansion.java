@@ -0,0 +1,53 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.expand;
+
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.MappedEntityResource;
+
+/**
+ * One association to expand, i.e. to write as the associated entities of its target resource. Resolved and cached
+ * per property by {@link EntityExpander}.
+ */
+public class Expansion {
+
+    private final String propertyName;
+
+    private final String attributeName;
+
+    private final boolean collection;
+
+    private final MappedEntityResource targetResource;
+
+    /**
+     * Stores values.
+     *
+     * @param propertyName   JSON property name of the association.
+     * @param attributeName  Name of the association attribute.
+     * @param collection     True for collections, false for to-one associations.
+     * @param targetResource Resource of the associated entity.
+     */
+    public Expansion(final String propertyName,
+                     final String attributeName,
+                     final boolean collection,
+                     final MappedEntityResource targetResource) {
+        this.propertyName = propertyName;
+        this.attributeName = attributeName;
+        this.collection = collection;
+        this.targetResource = targetResource;
+    }
+
+    public String getPropertyName() {
+        return propertyName;
+    }
+
+    public String getAttributeName() {
+        return attributeName;
+    }
+
+    public boolean isCollection() {
+        return collection;
+    }
+
+    public MappedEntityResource getTargetResource() {
+        return targetResource;
+    }
+
+}
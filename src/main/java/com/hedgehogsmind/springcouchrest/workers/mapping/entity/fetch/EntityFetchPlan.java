@@ -0,0 +1,164 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.fetch;
+
+import javax.persistence.EntityGraph;
+import javax.persistence.EntityManager;
+import javax.persistence.Subgraph;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.SingularAttribute;
+import java.util.*;
+
+/**
+ * <p>
+ * Associations to load together with the entities of a resource, see
+ * {@link com.hedgehogsmind.springcouchrest.annotations.crud.CrudFetchPlan}. To-one paths are applied as fetch
+ * graph (see {@link #createHints(EntityManager)}), so that they are joined by the query itself. Collections are
+ * loaded afterwards in batches, see
+ * {@link com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.EntityQueryWorker}.
+ * </p>
+ *
+ * <p>
+ * Joining collections into paged queries is avoided on purpose: then, Hibernate would page in memory.
+ * </p>
+ */
+public class EntityFetchPlan {
+
+    /**
+     * Standard JPA hint for fetch graphs.
+     */
+    public static final String FETCH_GRAPH_HINT = "javax.persistence.fetchgraph";
+
+    private final Class<?> entityClass;
+
+    private final Map<String, Object> graphTree;
+
+    private final List<String> collectionAttributeNames;
+
+    private final int batchSize;
+
+    /**
+     * Validates the given paths against the metamodel and splits them into to-one paths and collections.
+     *
+     * @param entityType     Type of entity.
+     * @param attributePaths Association paths, segments separated by dots.
+     * @param batchSize      Number of entities whose collections are loaded by one query.
+     * @throws IllegalArgumentException if a path does not name an association or a collection is not at the top
+     *                                  level.
+     */
+    public EntityFetchPlan(final EntityType<?> entityType, final String[] attributePaths, final int batchSize) {
+        if ( batchSize < 1 ) throw new IllegalArgumentException("batchSize must be positive");
+
+        this.entityClass = entityType.getJavaType();
+        this.batchSize = batchSize;
+
+        final Map<String, Object> tree = new LinkedHashMap<>();
+        final Set<String> collections = new LinkedHashSet<>();
+
+        for ( final String attributePath : attributePaths ) {
+            final String[] segments = attributePath.trim().split("\\.");
+
+            ManagedType<?> managedType = entityType;
+            Map<String, Object> node = tree;
+
+            for ( int i = 0; i < segments.length; i++ ) {
+                final Attribute<?, ?> attribute = findAttribute(managedType, segments[i], attributePath);
+
+                if ( attribute.isCollection() ) {
+                    if ( segments.length > 1 ) {
+                        throw new IllegalArgumentException("Path '" + attributePath + "' is not supported. " +
+                                "Collections can only be loaded at the top level and as last segment.");
+                    }
+
+                    collections.add(attribute.getName());
+                    break;
+                }
+
+                if ( !attribute.isAssociation() ) {
+                    throw new IllegalArgumentException("Path '" + attributePath + "' is no association path. " +
+                            "Segment '" + segments[i] + "' is no association.");
+                }
+
+                node = subTree(node, attribute.getName());
+                managedType = (ManagedType<?>) ((SingularAttribute<?, ?>) attribute).getType();
+            }
+        }
+
+        this.graphTree = tree;
+        this.collectionAttributeNames = List.copyOf(collections);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> subTree(final Map<String, Object> node, final String attributeName) {
+        return (Map<String, Object>) node.computeIfAbsent(attributeName, name -> new LinkedHashMap<String, Object>());
+    }
+
+    private static Attribute<?, ?> findAttribute(final ManagedType<?> managedType,
+                                                 final String attributeName,
+                                                 final String attributePath) {
+        try {
+            return managedType.getAttribute(attributeName);
+        } catch ( IllegalArgumentException e ) {
+            throw new IllegalArgumentException("Path '" + attributePath + "' is invalid. Attribute '" +
+                    attributeName + "' does not exist.", e);
+        }
+    }
+
+    /**
+     * Creates the query hints which apply the to-one paths as fetch graph.
+     *
+     * @param entityManager EntityManager to create the graph with.
+     * @return Hints. Empty if there are no to-one paths.
+     */
+    public Map<String, Object> createHints(final EntityManager entityManager) {
+        if ( graphTree.isEmpty() ) return Map.of();
+
+        return Map.of(FETCH_GRAPH_HINT, createEntityGraph(entityManager));
+    }
+
+    /**
+     * Creates an entity graph with the to-one paths.
+     *
+     * @param entityManager EntityManager to create the graph with.
+     * @return Entity graph.
+     */
+    @SuppressWarnings("unchecked")
+    public EntityGraph<?> createEntityGraph(final EntityManager entityManager) {
+        final EntityGraph<?> graph = entityManager.createEntityGraph(entityClass);
+
+        graphTree.forEach((attributeName, children) -> {
+            if ( ((Map<String, Object>) children).isEmpty() ) {
+                graph.addAttributeNodes(attributeName);
+            } else {
+                addSubgraph(graph.addSubgraph(attributeName), (Map<String, Object>) children);
+            }
+        });
+
+        return graph;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void addSubgraph(final Subgraph<?> subgraph, final Map<String, Object> tree) {
+        tree.forEach((attributeName, children) -> {
+            if ( ((Map<String, Object>) children).isEmpty() ) {
+                subgraph.addAttributeNodes(attributeName);
+            } else {
+                addSubgraph(subgraph.addSubgraph(attributeName), (Map<String, Object>) children);
+            }
+        });
+    }
+
+    /**
+     * Returns the names of the top level collections to load in batches.
+     *
+     * @return Collection attribute names.
+     */
+    public List<String> getCollectionAttributeNames() {
+        return collectionAttributeNames;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.fetch;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudLazyLoading;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.exceptions.LazyLoadingNotAllowedException;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.expand.ExpandedRow;
+import org.hibernate.Hibernate;
+import org.hibernate.proxy.HibernateProxy;
+
+/**
+ * <p>
+ * Writes loaded associations as usual - loaded to-one proxies are written as the entity they wrap.
+ * </p>
+ *
+ * <p>
+ * Associations which have not been loaded are counted (see {@link LazyLoadStatistics}) and handled according to
+ * the policy: {@link CrudLazyLoading.Policy#LOAD} loads them, {@link CrudLazyLoading.Policy#REFERENCE} writes a to-one
+ * proxy as its id (which the proxy knows without loading) and omits a collection, {@link CrudLazyLoading.Policy#FAIL}
+ * throws a {@link LazyLoadingNotAllowedException}.
+ * </p>
+ *
+ * <p>
+ * Associations which are replaced by an expansion are skipped, see {@link ExpandedRow}.
+ * </p>
+ */
+public class LazyAssociationPropertyWriter
+        extends BeanPropertyWriter {
+
+    private final String attributeName;
+
+    private final CrudLazyLoading.Policy policy;
+
+    private final LazyLoadStatistics statistics;
+
+    /**
+     * Copies the given writer.
+     *
+     * @param base          Writer of the association property.
+     * @param attributeName Name used for statistics and problems, prefixed by the simple name of the class.
+     * @param policy        Handling of associations which have not been loaded.
+     * @param statistics    Statistics to count associations which have not been loaded.
+     */
+    public LazyAssociationPropertyWriter(final BeanPropertyWriter base,
+                                         final String attributeName,
+                                         final CrudLazyLoading.Policy policy,
+                                         final LazyLoadStatistics statistics) {
+        super(base);
+
+        this.attributeName = attributeName;
+        this.policy = policy;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public void serializeAsField(final Object bean,
+                                 final JsonGenerator generator,
+                                 final SerializerProvider provider) throws Exception {
+
+        final Object expandedRow = provider.getAttribute(ExpandedRow.ATTRIBUTE_KEY);
+        if ( expandedRow != null && ((ExpandedRow) expandedRow).replaces(bean, getName()) ) return;
+
+        final Object value = get(bean);
+
+        if ( value == null ) {
+            super.serializeAsField(bean, generator, provider);
+            return;
+        }
+
+        final boolean initialized = Hibernate.isInitialized(value);
+
+        if ( !initialized ) {
+            statistics.record(attributeName);
+
+            if ( policy == CrudLazyLoading.Policy.FAIL ) {
+                throw new LazyLoadingNotAllowedException(attributeName);
+            }
+        }
+
+        if ( value instanceof HibernateProxy ) {
+            if ( initialized || policy == CrudLazyLoading.Policy.LOAD ) {
+                generator.writeFieldName(_name);
+                provider.defaultSerializeValue(Hibernate.unproxy(value), generator);
+
+            } else {
+                generator.writeFieldName(_name);
+                provider.defaultSerializeValue(
+                        ((HibernateProxy) value).getHibernateLazyInitializer().getIdentifier(),
+                        generator
+                );
+            }
+
+        } else if ( initialized || policy == CrudLazyLoading.Policy.LOAD ) {
+            super.serializeAsField(bean, generator, provider);
+        }
+
+        // not loaded collections are omitted
+    }
+
+    public String getAttributeName() {
+        return attributeName;
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.fetch;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudLazyLoading;
+
+import javax.persistence.Entity;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the property writers of associations (properties whose type is an entity, a collection or a map) by
+ * {@link LazyAssociationPropertyWriter}s, which handle associations that have not been loaded according to the
+ * policy of the resource. Registered on a copy of the ObjectMapper per entity resource.
+ */
+public class LazyAssociationSerializerModifier
+        extends BeanSerializerModifier {
+
+    private final CrudLazyLoading.Policy policy;
+
+    private final LazyLoadStatistics statistics;
+
+    /**
+     * Stores values.
+     *
+     * @param policy     Handling of associations which have not been loaded.
+     * @param statistics Statistics of the resource.
+     */
+    public LazyAssociationSerializerModifier(final CrudLazyLoading.Policy policy,
+                                             final LazyLoadStatistics statistics) {
+        if ( policy == null ) throw new IllegalArgumentException("policy must not be null");
+        if ( statistics == null ) throw new IllegalArgumentException("statistics must not be null");
+
+        this.policy = policy;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public List<BeanPropertyWriter> changeProperties(final SerializationConfig config,
+                                                     final BeanDescription beanDescription,
+                                                     final List<BeanPropertyWriter> beanProperties) {
+
+        final List<BeanPropertyWriter> properties = new ArrayList<>(beanProperties.size());
+
+        for ( final BeanPropertyWriter property : beanProperties ) {
+            properties.add(isAssociation(property.getType()) ?
+                    new LazyAssociationPropertyWriter(
+                            property,
+                            beanDescription.getBeanClass().getSimpleName() + "." + property.getName(),
+                            policy,
+                            statistics
+                    ) :
+                    property
+            );
+        }
+
+        return properties;
+    }
+
+    /**
+     * Checks whether a property of the given type may hold a lazy association.
+     *
+     * @param type Type of property.
+     * @return True for entities, collections and maps.
+     */
+    private static boolean isAssociation(final JavaType type) {
+        return type.isCollectionLikeType() ||
+                type.isMapLikeType() ||
+                type.getRawClass().isAnnotationPresent(Entity.class);
+    }
+
+}
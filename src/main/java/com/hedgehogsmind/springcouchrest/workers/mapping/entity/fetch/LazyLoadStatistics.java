@@ -0,0 +1,82 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.fetch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the associations of one resource which have not been loaded when its response was written, per attribute
+ * (e.g. <code>Note.reviewer</code>). The first occurrence of every attribute is logged as warning.
+ */
+public class LazyLoadStatistics {
+
+    private static final Logger log = LoggerFactory.getLogger(LazyLoadStatistics.class);
+
+    private final String resourceName;
+
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+    /**
+     * Stores values.
+     *
+     * @param resourceName Name of resource used for logging.
+     */
+    public LazyLoadStatistics(final String resourceName) {
+        this.resourceName = resourceName;
+    }
+
+    /**
+     * Counts one occurrence of the given attribute.
+     *
+     * @param attributeName Attribute, prefixed by the simple name of its class.
+     */
+    public void record(final String attributeName) {
+        LongAdder count = counts.get(attributeName);
+
+        if ( count == null ) {
+            final LongAdder newCount = new LongAdder();
+            count = counts.putIfAbsent(attributeName, newCount);
+
+            if ( count == null ) {
+                count = newCount;
+                log.warn("Association {} has not been loaded when writing a response of resource {}. " +
+                        "Consider adding it to @CrudFetchPlan.", attributeName, resourceName);
+            }
+        }
+
+        count.increment();
+    }
+
+    /**
+     * Returns the number of occurrences of the given attribute.
+     *
+     * @param attributeName Attribute, prefixed by the simple name of its class.
+     * @return Count.
+     */
+    public long getCount(final String attributeName) {
+        final LongAdder count = counts.get(attributeName);
+        return count != null ? count.sum() : 0;
+    }
+
+    /**
+     * Returns a snapshot of all counts.
+     *
+     * @return Counts by attribute.
+     */
+    public SortedMap<String, Long> getCounts() {
+        final SortedMap<String, Long> snapshot = new TreeMap<>();
+        counts.forEach((attributeName, count) -> snapshot.put(attributeName, count.sum()));
+        return Collections.unmodifiableSortedMap(snapshot);
+    }
+
+    public String getResourceName() {
+        return resourceName;
+    }
+
+}
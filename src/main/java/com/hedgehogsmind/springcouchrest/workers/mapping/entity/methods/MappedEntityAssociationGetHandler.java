@@ -0,0 +1,253 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.methods;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+import com.hedgehogsmind.springcouchrest.util.ETagUtil;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.MappedEntityResource;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.MappedEntitySubHandlerBase;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.exceptions.InvalidQueryParameterException;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.expand.EntityExpander;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.EntityProjectionCompiler;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.EntityQueryWorker;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.ProjectionPlan;
+import org.hibernate.Hibernate;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.ResponseEntity;
+
+import javax.persistence.metamodel.PluralAttribute;
+import javax.persistence.metamodel.Type;
+import javax.servlet.http.HttpServletRequest;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * Handles GET requests for the collections of an entity, e.g. <code>/note/1/comments</code>. Instead of loading the
+ * collection, one page of the associated entities is selected by the database, see
+ * {@link EntityQueryWorker#findAssociatedSlice(javax.persistence.metamodel.EntityType, String, Object, Pageable, ProjectionPlan)}.
+ * </p>
+ *
+ * <p>
+ * Collections are named by their attribute names. All collections of entities published as CouchRest resource with
+ * GET are available - also those which are not serialized with the owning entity (e.g. via
+ * <code>@JsonIgnore</code>), which is the recommended mapping for large collections.
+ * </p>
+ */
+public class MappedEntityAssociationGetHandler
+        extends MappedEntitySubHandlerBase {
+
+    /**
+     * Query parameters of the GET handler, which are not supported for collections. Filters are not supported
+     * either.
+     */
+    private static final List<String> UNSUPPORTED_PARAMETERS = List.of(
+            EntityQueryWorker.CURSOR_PARAMETER,
+            EntityQueryWorker.STREAM_PARAMETER,
+            EntityQueryWorker.IDS_PARAMETER,
+            EntityQueryWorker.START_KEY_PARAMETER,
+            EntityQueryWorker.END_KEY_PARAMETER,
+            EntityExpander.EXPAND_PARAMETER
+    );
+
+    private final Map<String, Class<?>> targetTypesByAttributeName;
+
+    private final Map<String, MappedEntityResource> targetResourceCache = new ConcurrentHashMap<>();
+
+    /**
+     * Collects the collections of entities of the parent resource's entity.
+     *
+     * @param parentEntityResource Parent entity resource.
+     */
+    public MappedEntityAssociationGetHandler(MappedEntityResource parentEntityResource) {
+        super(parentEntityResource);
+
+        final Map<String, Class<?>> targetTypes = new HashMap<>();
+        for ( final Object attribute : parentEntityResource.getEntityType().getPluralAttributes() ) {
+            final Type<?> elementType = ((PluralAttribute<?, ?, ?>) attribute).getElementType();
+
+            if ( elementType.getPersistenceType() == Type.PersistenceType.ENTITY ) {
+                targetTypes.put(((PluralAttribute<?, ?, ?>) attribute).getName(), elementType.getJavaType());
+            }
+        }
+
+        this.targetTypesByAttributeName = Map.copyOf(targetTypes);
+    }
+
+    /**
+     * Only handles GET requests.
+     *
+     * @return GET.
+     */
+    @Override
+    public Set<String> getHttpMethods() {
+        return Set.of("GET");
+    }
+
+    /**
+     * Checks if method is GET and if there are two path variables: the id and the name of a collection whose
+     * entities are published.
+     *
+     * @param request                    Request.
+     * @param method                     HTTP method of request.
+     * @param fullPath                   Full path of request with trailing slash.
+     * @param pathAfterResource          Path after parent resource's path. Ends with trailing slash or is empty.
+     * @param pathVariablesAfterResource PathAfterResource split into parts separated by slash. Empty trailing parts ignored.
+     * @return True if GET and the second path variable names a collection of published entities.
+     */
+    @Override
+    public boolean accepts(HttpServletRequest request,
+                           String method,
+                           String fullPath,
+                           String pathAfterResource,
+                           String[] pathVariablesAfterResource) {
+
+        return method.equals("GET") &&
+                pathVariablesAfterResource.length == 2 &&
+                findTargetResource(pathVariablesAfterResource[1]).isPresent();
+    }
+
+    /**
+     * <p>
+     * Returns one page of the entities of the collection. The page is selected via the query parameters page, size
+     * and sort, where sort refers to the attributes of the associated entity. Links to the previous and next page
+     * are returned in the Link header. The query parameter fields selects only some attributes of the associated
+     * entity; without it, its summary view is selected, if it has one.
+     * </p>
+     *
+     * <p>
+     * The read security rules of both, this resource and the resource of the associated entity, are checked. If the
+     * page is empty and the owning entity does not exist, a NOT_FOUND result is returned.
+     * </p>
+     *
+     * <p>
+     * If both resources are annotated with {@link com.hedgehogsmind.springcouchrest.annotations.crud.CrudCollectionETag},
+     * the page gets an ETag from their modification stamps. A matching If-None-Match header is answered with 304
+     * before the query runs.
+     * </p>
+     *
+     * @param request                    Request to handle.
+     * @param objectMapper               ObjectMapper to use for JSON (de-) serialization.
+     * @param locale                     Locale of request or a default one.
+     * @param method                     HTTP method of request.
+     * @param fullPath                   Full path of request with trailing slash.
+     * @param pathAfterResource          Path after parent resource's path. Ends with trailing slash or is empty.
+     * @param pathVariablesAfterResource PathAfterResource split into parts separated by slash. Empty trailing parts ignored.
+     * @param queryParameters            Query parameters.
+     * @return ResponseEntity which carries the associated entities of the page.
+     */
+    @Override
+    public ResponseEntity handle(HttpServletRequest request,
+                                 ObjectMapper objectMapper,
+                                 Locale locale,
+                                 String method,
+                                 String fullPath,
+                                 String pathAfterResource,
+                                 String[] pathVariablesAfterResource,
+                                 Map<String, String[]> queryParameters) {
+
+        final String attributeName = pathVariablesAfterResource[1];
+        final MappedEntityResource targetResource = findTargetResource(attributeName).orElseThrow();
+
+        getSecurityHandler().assertReadAccess();
+        targetResource.getSecurityHandler().assertReadAccess();
+
+        final Object parsedId = parseId(pathVariablesAfterResource[0]);
+
+        for ( final String parameter : queryParameters.keySet() ) {
+            if ( UNSUPPORTED_PARAMETERS.contains(parameter) ||
+                    targetResource.getFilterCompiler().isFilterParameter(parameter) ) {
+                throw new InvalidQueryParameterException("Parameter not supported for collections", parameter);
+            }
+        }
+
+        // the stamps are read before the query: a write in between leads to a new ETag for the next request
+        final Optional<String> eTag = createCollectionETag(List.of(getParentEntityResource(), targetResource));
+
+        if ( eTag.isPresent() && ETagUtil.matchesIfNoneMatch(request, eTag.get()) ) {
+            return notModified(eTag.get());
+        }
+
+        final Pageable pageable = targetResource.getQueryWorker().parsePageable(
+                queryParameters,
+                targetResource.getDefaultPageSize(),
+                targetResource.getMaxPageSize()
+        );
+
+        final EntityProjectionCompiler projectionCompiler = targetResource.getProjectionCompiler();
+        final ProjectionPlan requested = projectionCompiler.parse(queryParameters, null);
+        final ProjectionPlan projection = requested != null ? requested : targetResource.getSummaryPlan().orElse(null);
+
+        final Optional<Slice<Object>> slice = executeInTransaction(method, () -> {
+            final Slice<Object> found = targetResource.getQueryWorker().findAssociatedSlice(
+                    getEntityType(), attributeName, parsedId, pageable, projection
+            );
+
+            if ( found.isEmpty() && !getRepository().existsById(parsedId) ) {
+                return Optional.empty();
+            }
+
+            final List<Object> content = new ArrayList<>(found.getNumberOfElements());
+            found.forEach(row -> content.add(Hibernate.unproxy(row)));
+
+            final Slice<Object> unproxied = new SliceImpl<>(content, pageable, found.hasNext());
+            return Optional.of(unproxied);
+        });
+
+        if ( slice.isEmpty() ) return CouchRestProblems.NOT_FOUND.toResponseEntity();
+
+        final ResponseEntity response = ResponseEntity.ok()
+                .headers(createPageLinks(request, slice.get()))
+                .body(slice.get().getContent());
+
+        return eTag.isPresent() ? withETag(response, eTag.get()) : response;
+    }
+
+    /**
+     * Writes entities of a collection via the ObjectWriters of their resource. All other bodies are written as
+     * described by {@link MappedEntitySubHandlerBase#getObjectWriter(Object, ObjectMapper)}.
+     *
+     * @param body         Body of ResponseEntity returned by this handler.
+     * @param objectMapper ObjectMapper which has been passed to the handle method.
+     * @return ObjectWriter for body.
+     */
+    @Override
+    public ObjectWriter getObjectWriter(Object body, ObjectMapper objectMapper) {
+        if ( body instanceof List && !((List<?>) body).isEmpty() && ((List<?>) body).get(0) != null ) {
+            final Class<?> elementClass = ((List<?>) body).get(0).getClass();
+
+            for ( final MappedEntityResource targetResource : targetResourceCache.values() ) {
+                if ( targetResource.getEntityType().getJavaType() == elementClass ) {
+                    return targetResource.getObjectWriter(body, objectMapper);
+                }
+            }
+        }
+
+        return super.getObjectWriter(body, objectMapper);
+    }
+
+    /**
+     * Returns the cached resource of the entities of the given collection or searches it, see
+     * {@link EntityExpander#findTargetResource(Class)}.
+     *
+     * @param attributeName Name of collection attribute.
+     * @return Resource or empty if the attribute is no collection of entities published with GET.
+     */
+    private Optional<MappedEntityResource> findTargetResource(final String attributeName) {
+        final MappedEntityResource cached = targetResourceCache.get(attributeName);
+        if ( cached != null ) return Optional.of(cached);
+
+        final Class<?> targetType = targetTypesByAttributeName.get(attributeName);
+        if ( targetType == null ) return Optional.empty();
+
+        final Optional<MappedEntityResource> targetResource =
+                getParentEntityResource().getExpander().findTargetResource(targetType);
+
+        targetResource.ifPresent(resource -> targetResourceCache.putIfAbsent(attributeName, resource));
+
+        return targetResource;
+    }
+
+}
@@ -0,0 +1,288 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.methods;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudBulk;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+import com.hedgehogsmind.springcouchrest.workers.mapping.body.exceptions.TooManyBulkItemsException;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.MappedEntityResource;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.MappedEntitySubHandlerBase;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.BulkSaveRow;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * Handles saving many new or existing entities at once via <code>POST /{resource}/_bulk</code>. Only added if
+ * the bulk endpoint is enabled via {@link CrudBulk}.
+ */
+public class MappedEntityBulkHandler
+        extends MappedEntitySubHandlerBase {
+
+    public static final String BULK_PATH_VARIABLE = "_bulk";
+
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
+    private static final MediaType NDJSON = MediaType.parseMediaType(NDJSON_MEDIA_TYPE);
+
+    /**
+     * Stores parent entity resource.
+     *
+     * @param parentEntityResource Parent entity resource.
+     */
+    public MappedEntityBulkHandler(MappedEntityResource parentEntityResource) {
+        super(parentEntityResource);
+    }
+
+    /**
+     * Only handles POST requests.
+     *
+     * @return POST.
+     */
+    @Override
+    public Set<String> getHttpMethods() {
+        return Set.of("POST");
+    }
+
+    /**
+     * Checks if method is POST and if the only path variable is {@link #BULK_PATH_VARIABLE}.
+     *
+     * @param request                    Request.
+     * @param method                     HTTP method of request.
+     * @param fullPath                   Full path of request with trailing slash.
+     * @param pathAfterResource          Path after parent resource's path. Ends with trailing slash or is empty.
+     * @param pathVariablesAfterResource PathAfterResource split into parts separated by slash. Empty trailing parts ignored.
+     * @return True if method POST and path variable is _bulk.
+     */
+    @Override
+    public boolean accepts(HttpServletRequest request,
+                           String method,
+                           String fullPath,
+                           String pathAfterResource,
+                           String[] pathVariablesAfterResource) {
+
+        return method.equals("POST") &&
+                pathVariablesAfterResource.length == 1 &&
+                pathVariablesAfterResource[0].equals(BULK_PATH_VARIABLE);
+    }
+
+    /**
+     * <p>
+     * Reads the body - a JSON array of entities or, if the Content-Type is {@link #NDJSON_MEDIA_TYPE}, one
+     * entity per line - completely before anything is saved. Malformed bodies and bodies with more than
+     * {@link CrudBulk#maxItems()} entities are rejected as a whole.
+     * </p>
+     *
+     * <p>
+     * The entities are then saved in chunks of {@link CrudBulk#chunkSize()}, each within its own transaction.
+     * Entities without id are inserted, entities with id replace the stored ones. The JDBC batch size of the
+     * session is set to the chunk size, so that the inserts and updates of a chunk are sent in batches when the
+     * chunk is flushed. Afterwards, the persistence context is cleared. The entities of a chunk are deserialized
+     * only when the chunk is saved. By this, only one chunk of entities is held in memory at once.
+     * </p>
+     *
+     * <p>
+     * If a chunk fails, it is rolled back and its entities are saved one by one, so that only the failing entities
+     * are reported. The response contains one {@link BulkSaveRow} per entity in the order of the body.
+     * </p>
+     *
+     * @param request                    Request to handle.
+     * @param objectMapper               ObjectMapper to use for JSON (de-) serialization.
+     * @param locale                     Locale of request or a default one.
+     * @param method                     HTTP method of request.
+     * @param fullPath                   Full path of request with trailing slash.
+     * @param pathAfterResource          Path after parent resource's path. Ends with trailing slash or is empty.
+     * @param pathVariablesAfterResource PathAfterResource split into parts separated by slash. Empty trailing parts ignored.
+     * @param queryParameters            Query parameters.
+     * @return Status per entity or problem.
+     */
+    @Override
+    public ResponseEntity handle(HttpServletRequest request,
+                                 ObjectMapper objectMapper,
+                                 Locale locale,
+                                 String method,
+                                 String fullPath,
+                                 String pathAfterResource,
+                                 String[] pathVariablesAfterResource,
+                                 Map<String, String[]> queryParameters) {
+
+        getSecurityHandler().assertSaveUpdateAccess();
+
+        final CrudBulk bulk = getParentEntityResource().getBulk().orElseThrow();
+
+        final List<JsonNode> items;
+        try {
+            items = readItems(request);
+        } catch ( JsonProcessingException e ) {
+            return CouchRestProblems.INVALID_DATA.toResponseEntity();
+        } catch ( IOException e ) {
+            // logged and answered with UNKNOWN_PROBLEM by the CouchRestHandlerAdapter
+            throw new UncheckedIOException(e);
+        }
+
+        if ( items == null ) {
+            return CouchRestProblems.INVALID_DATA.toResponseEntity();
+        }
+
+        if ( items.size() > bulk.maxItems() ) {
+            throw new TooManyBulkItemsException("Bulk request contains " + items.size() + " entities, " +
+                    "maximum is " + bulk.maxItems(), bulk.maxItems());
+        }
+
+        final List<BulkSaveRow> rows = new ArrayList<>(items.size());
+
+        for ( int start = 0; start < items.size(); start += bulk.chunkSize() ) {
+            final List<JsonNode> chunk = items.subList(start, Math.min(start + bulk.chunkSize(), items.size()));
+            rows.addAll(saveChunk(method, chunk));
+        }
+
+        return ResponseEntity.ok(rows);
+    }
+
+    /**
+     * Reads the body as JSON array or newline delimited JSON, depending on the Content-Type.
+     *
+     * @param request Request to read body from.
+     * @return Items or null if a JSON body is no array.
+     * @throws IOException if the body can not be read or parsed.
+     */
+    private List<JsonNode> readItems(final HttpServletRequest request) throws IOException {
+        final List<JsonNode> items = new ArrayList<>();
+
+        if ( isNdjson(request) ) {
+            for ( final Object item : getParentEntityResource().getTreeBodyReader().readAll(request) ) {
+                items.add((JsonNode) item);
+            }
+
+            return items;
+        }
+
+        final JsonNode body = (JsonNode) getParentEntityResource().getTreeBodyReader().read(request);
+        if ( body == null || !body.isArray() ) return null;
+
+        body.elements().forEachRemaining(items::add);
+        return items;
+    }
+
+    /**
+     * Checks whether the Content-Type of the request is {@link #NDJSON_MEDIA_TYPE}.
+     *
+     * @param request Request.
+     * @return True for newline delimited JSON.
+     */
+    private boolean isNdjson(final HttpServletRequest request) {
+        final String contentType = request.getContentType();
+        if ( contentType == null ) return false;
+
+        try {
+            return NDJSON.equalsTypeAndSubtype(MediaType.parseMediaType(contentType));
+        } catch ( InvalidMediaTypeException e ) {
+            return false;
+        }
+    }
+
+    /**
+     * Deserializes, validates and saves the given items within one transaction. Items which can not be deserialized
+     * or violate constraints are skipped. If the transaction fails, the items are saved one by one.
+     *
+     * @param method HTTP method of request.
+     * @param chunk  Items of chunk.
+     * @return One row per item.
+     */
+    private List<BulkSaveRow> saveChunk(final String method, final List<JsonNode> chunk) {
+        final BulkSaveRow[] rows = new BulkSaveRow[chunk.size()];
+        final List<Integer> entityIndices = new ArrayList<>(chunk.size());
+        final List<Object> entities = new ArrayList<>(chunk.size());
+
+        for ( int i = 0; i < chunk.size(); i++ ) {
+            try {
+                final Object entity = getParentEntityResource().getEntityBodyReader().getObjectReader()
+                        .readValue(chunk.get(i));
+
+                if ( isValid(entity) ) {
+                    entities.add(entity);
+                    entityIndices.add(i);
+                } else {
+                    rows[i] = BulkSaveRow.failed(getGivenId(chunk.get(i)), BulkSaveRow.INVALID_ERROR);
+                }
+            } catch ( IOException e ) {
+                rows[i] = BulkSaveRow.failed(getGivenId(chunk.get(i)), BulkSaveRow.INVALID_ERROR);
+            }
+        }
+
+        if ( entities.isEmpty() ) return Arrays.asList(rows);
+
+        try {
+            final List<Object> ids = executeInTransaction(method, () -> saveAndFlush(entities));
+
+            for ( int i = 0; i < ids.size(); i++ ) {
+                rows[entityIndices.get(i)] = BulkSaveRow.saved(ids.get(i));
+            }
+
+        } catch ( DataAccessException e ) {
+            if ( chunk.size() > 1 ) {
+                // find the failing entities > deserialize again, as the failed attempt may have changed them
+                final List<BulkSaveRow> singleRows = new ArrayList<>(chunk.size());
+                chunk.forEach(item -> singleRows.addAll(saveChunk(method, List.of(item))));
+                return singleRows;
+            }
+
+            rows[0] = BulkSaveRow.failed(getGivenId(chunk.get(0)), toError(e));
+        }
+
+        return Arrays.asList(rows);
+    }
+
+    /**
+     * Saves the given entities with JDBC batching, flushes and clears the persistence context.
+     * Must be called within a transaction.
+     *
+     * @param entities Entities to save.
+     * @return Ids of saved entities in the same order.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Object> saveAndFlush(final List<Object> entities) {
+        getQueryWorker().setJdbcBatchSize(entities.size());
+
+        final List<Object> ids = new ArrayList<>(entities.size());
+        getRepository().saveAll(entities).forEach(saved -> ids.add(getIdValue(saved)));
+
+        getQueryWorker().flushAndClear();
+
+        return ids;
+    }
+
+    /**
+     * Maps the exception of a failed save to an error of {@link BulkSaveRow}.
+     *
+     * @param e Exception.
+     * @return Error.
+     */
+    private String toError(final DataAccessException e) {
+        if ( e instanceof OptimisticLockingFailureException ) return BulkSaveRow.CONFLICT_ERROR;
+        if ( e instanceof DataIntegrityViolationException ) return BulkSaveRow.INVALID_ERROR;
+
+        return BulkSaveRow.FAILED_ERROR;
+    }
+
+    /**
+     * Returns the id given by the client, so that failed rows can be assigned to the entities.
+     *
+     * @param item Item.
+     * @return Id node or null if absent.
+     */
+    private Object getGivenId(final JsonNode item) {
+        final JsonNode id = item.get(getQueryWorker().getIdAttributeName());
+        return id == null || id.isNull() ? null : id;
+    }
+
+}
@@ -4,17 +4,27 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
 import com.hedgehogsmind.springcouchrest.workers.mapping.entity.MappedEntityResource;
 import com.hedgehogsmind.springcouchrest.workers.mapping.entity.MappedEntitySubHandlerBase;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.exceptions.InvalidQueryParameterException;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.EntityFilter;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.EntityFilterCompiler;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.EntityQueryWorker;
 import org.springframework.http.ResponseEntity;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 /**
- * Handles deleting one entity by id.
+ * Handles deleting one entity by id and deleting many entities by ids or id range (bulk delete).
  */
 public class MappedEntityDeleteHandler extends MappedEntitySubHandlerBase {
 
+    public static final String DELETED_COUNT_ATTRIBUTE = "deleted";
+
     /**
      * Stores parent resource.
      * @param parentEntityResource Entity resource which created this handler.
@@ -24,13 +34,23 @@ public class MappedEntityDeleteHandler extends MappedEntitySubHandlerBase {
     }
 
     /**
-     * Accepts requests with HTTP method DELETE and one path variable (being the ID).
+     * Only handles DELETE requests.
+     *
+     * @return DELETE.
+     */
+    @Override
+    public Set<String> getHttpMethods() {
+        return Set.of("DELETE");
+    }
+
+    /**
+     * Accepts requests with HTTP method DELETE and one path variable (being the ID) or none (bulk delete).
      * @param request                    Request.
      * @param method                     HTTP method of request.
      * @param fullPath                   Full path of request with trailing slash.
      * @param pathAfterResource          Path after parent resource's path. Ends with trailing slash or is empty.
      * @param pathVariablesAfterResource PathAfterResource split into parts separated by slash. Empty trailing parts ignored.
-     * @return True if method DELETE and one path variable is present.
+     * @return True if method DELETE and at most one path variable is present.
      */
     @Override
     public boolean accepts(HttpServletRequest request,
@@ -39,12 +59,25 @@ public class MappedEntityDeleteHandler extends MappedEntitySubHandlerBase {
                            String pathAfterResource,
                            String[] pathVariablesAfterResource) {
 
-        return method.equals("DELETE") && pathVariablesAfterResource.length == 1;
+        return method.equals("DELETE") && pathVariablesAfterResource.length <= 1;
     }
 
     /**
-     * First checks, that entity referenced by id exists. If so, it will be deleted.
-     * 
+     * <p>
+     * If the entity can be deleted in bulk (see {@link MappedEntityResource#isBulkDeletable()}), one
+     * <code>DELETE ... WHERE id = ?</code> statement is executed. If no row has been affected, NOT_FOUND is returned.
+     * </p>
+     *
+     * <p>
+     * Otherwise, the entity is loaded first, so that cascades, callbacks and listeners are applied. If it
+     * exists, it will be removed. Both happens within one transaction.
+     * </p>
+     *
+     * <p>
+     * Without path variable, the entities given by the query parameter <code>ids</code> or within the id range
+     * <code>startkey</code>/<code>endkey</code> are deleted, see {@link #deleteMany(String, Map)}.
+     * </p>
+     *
      * @param request                    Request to handle.
      * @param objectMapper               ObjectMapper to use for JSON (de-) serialization.
      * @param locale                     Locale of request or a default one.
@@ -53,7 +86,7 @@ public class MappedEntityDeleteHandler extends MappedEntitySubHandlerBase {
      * @param pathAfterResource          Path after parent resource's path. Ends with trailing slash or is empty.
      * @param pathVariablesAfterResource PathAfterResource split into parts separated by slash. Empty trailing parts ignored.
      * @param queryParameters            Query parameters.
-     * @return
+     * @return Empty response, number of deleted entities or problem.
      */
     @Override
     public ResponseEntity handle(HttpServletRequest request,
@@ -67,12 +100,118 @@ public class MappedEntityDeleteHandler extends MappedEntitySubHandlerBase {
 
         getSecurityHandler().assertDeleteAccess();
 
+        if ( pathVariablesAfterResource.length == 0 ) {
+            return deleteMany(method, queryParameters);
+        }
+
         final Object parsedId = parseId(pathVariablesAfterResource[0]);
 
-        if ( !getRepository().existsById(parsedId) ) return CouchRestProblems.NOT_FOUND.toResponseEntity();
+        return executeInTransaction(method, () -> {
+            if ( getParentEntityResource().isBulkDeletable() ) {
+                if ( getQueryWorker().deleteById(parsedId) == 0 ) return CouchRestProblems.NOT_FOUND.toResponseEntity();
+
+            } else {
+                // loading and removing in one transaction
+                final Optional<Object> existingEntity = getRepository().findById(parsedId);
+                if ( existingEntity.isEmpty() ) return CouchRestProblems.NOT_FOUND.toResponseEntity();
+
+                getRepository().delete(existingEntity.get());
+            }
+
+            return ResponseEntity.ok().build();
+        });
+    }
+
+    /**
+     * <p>
+     * Deletes the entities given by the query parameter <code>ids</code> or within the id range given by
+     * <code>startkey</code> and/or <code>endkey</code> (inclusive), which match the filter parameters
+     * (<code>&lt;attribute&gt;.&lt;operator&gt;</code>, see {@link EntityFilterCompiler}). Ids, an id bound or a filter
+     * is required, so that a plain <code>DELETE /{resource}/</code> never deletes everything. Filters can not be
+     * combined with ids. Paging, sorting and streaming parameters are rejected. The parameters are parsed before
+     * the transaction starts.
+     * </p>
+     *
+     * <p>
+     * If the entity can be deleted in bulk, one <code>DELETE ... WHERE id IN (...)</code> or
+     * <code>DELETE ... WHERE id &gt;= ? AND id &lt;= ? AND ...</code> statement is executed. Otherwise, the entities
+     * are loaded and removed one by one. As for ids, at most {@link MappedEntityResource#getMaxIds()} entities are
+     * loaded; larger selections are rejected before anything is removed. Ids which do not exist are ignored.
+     * </p>
+     *
+     * @param method          HTTP method of request.
+     * @param queryParameters Query parameters.
+     * @return Number of deleted entities as <code>{"deleted": n}</code>.
+     * @throws InvalidQueryParameterException if the parameters are missing or invalid or the id range contains too
+     *                                        many entities, which can not be deleted in bulk.
+     */
+    @SuppressWarnings("unchecked")
+    protected ResponseEntity deleteMany(final String method, final Map<String, String[]> queryParameters) {
+        for ( final String parameter : List.of(EntityQueryWorker.PAGE_PARAMETER, EntityQueryWorker.SIZE_PARAMETER,
+                EntityQueryWorker.SORT_PARAMETER, EntityQueryWorker.CURSOR_PARAMETER,
+                EntityQueryWorker.STREAM_PARAMETER) ) {
+
+            if ( queryParameters.containsKey(parameter) ) {
+                throw new InvalidQueryParameterException("Parameter can not be used for deleting", parameter);
+            }
+        }
+
+        final boolean bulkDeletable = getParentEntityResource().isBulkDeletable();
+        final EntityFilterCompiler filterCompiler = getParentEntityResource().getFilterCompiler();
+
+        if ( getQueryWorker().isMultiGetRequested(queryParameters) ) {
+
+            if ( filterCompiler.isFilterRequested(queryParameters) ) {
+                throw new InvalidQueryParameterException("Filters can not be combined with ids",
+                        EntityQueryWorker.IDS_PARAMETER);
+            }
+
+            final List<Object> ids = getQueryWorker().parseIds(
+                    queryParameters,
+                    this::parseId,
+                    getParentEntityResource().getMaxIds()
+            );
+
+            return ResponseEntity.ok(Map.of(DELETED_COUNT_ATTRIBUTE, executeInTransaction(method, () -> {
+                if ( bulkDeletable ) return getQueryWorker().deleteAllById(ids);
+
+                final List<Object> existingEntities = new ArrayList<>();
+                getRepository().findAllById(EntityQueryWorker.padToPowerOfTwo(ids)).forEach(existingEntities::add);
+                getRepository().deleteAll(existingEntities);
+
+                return existingEntities.size();
+            })));
+        }
+
+        final Object startKey = parseIdParameter(queryParameters, EntityQueryWorker.START_KEY_PARAMETER);
+        final Object endKey = parseIdParameter(queryParameters, EntityQueryWorker.END_KEY_PARAMETER);
+        final EntityFilter filter = filterCompiler.parse(queryParameters);
+
+        if ( startKey == null && endKey == null && filter == EntityFilter.NONE ) {
+            throw new InvalidQueryParameterException("Deleting requires ids, startkey, endkey or a filter",
+                    EntityQueryWorker.IDS_PARAMETER);
+        }
+
+        final int maxIds = getParentEntityResource().getMaxIds();
+
+        return ResponseEntity.ok(Map.of(DELETED_COUNT_ATTRIBUTE, executeInTransaction(method, () -> {
+            if ( bulkDeletable ) return getQueryWorker().deleteByIdRange(startKey, endKey, filter);
+
+            // one more, so that too large ranges are detected without loading them completely
+            final List<Object> existingEntities = getQueryWorker().findAllByIdRange(startKey, endKey, filter, maxIds + 1);
+
+            if ( existingEntities.size() > maxIds ) {
+                throw new InvalidQueryParameterException("Selection contains more than " + maxIds + " entities",
+                        startKey != null ?
+                                EntityQueryWorker.START_KEY_PARAMETER :
+                                endKey != null ?
+                                        EntityQueryWorker.END_KEY_PARAMETER :
+                                        EntityQueryWorker.IDS_PARAMETER);
+            }
 
-        getRepository().deleteById(parsedId);
+            getRepository().deleteAll(existingEntities);
 
-        return ResponseEntity.ok().build();
+            return existingEntities.size();
+        })));
     }
 }
@@ -1,18 +1,54 @@
 package com.hedgehogsmind.springcouchrest.workers.mapping.entity.methods;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudCollectionETag;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudFilter;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudStreaming;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudViews;
 import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+import com.hedgehogsmind.springcouchrest.util.ETagUtil;
+import com.hedgehogsmind.springcouchrest.util.ResponseUtil;
 import com.hedgehogsmind.springcouchrest.workers.mapping.entity.MappedEntityResource;
 import com.hedgehogsmind.springcouchrest.workers.mapping.entity.MappedEntitySubHandlerBase;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.exceptions.InvalidQueryParameterException;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.expand.EntityExpander;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.expand.Expansion;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.EntityFilter;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.EntityFilterCompiler;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.EntityProjectionCompiler;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.EntityQueryWorker;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.KeysetPageRequest;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.KeysetSlice;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.MultiGetRow;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.ProjectedRow;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.ProjectionPlan;
+import org.hibernate.Hibernate;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
- * Handles GET requests for {@link MappedEntityResource}. Either delivers all entities or just
+ * Handles GET requests for {@link MappedEntityResource}. Either delivers a page of entities or just
  * a single one if an id has been provided via a path variable.
  */
 public class MappedEntityGetHandler
@@ -27,6 +63,16 @@ public class MappedEntityGetHandler
         super(parentEntityResource);
     }
 
+    /**
+     * Only handles GET requests.
+     *
+     * @return GET.
+     */
+    @Override
+    public Set<String> getHttpMethods() {
+        return Set.of("GET");
+    }
+
     /**
      * Checks if method is GET and if there are either no path variables or only one.
      *
@@ -49,8 +95,67 @@ public class MappedEntityGetHandler
     }
 
     /**
-     * In case there is no path variable, this method will return all entity instances. If one is given,
-     * this method tries to find that entity. In case it does not exist, a NOT_FOUND result is returned.
+     * <p>
+     * In case there is no path variable, this method will return one page of entity instances. The page is
+     * selected via the query parameters page, size and sort (see {@link EntityQueryWorker}). Links to the
+     * previous and next page are returned in the Link header.
+     * </p>
+     *
+     * <p>
+     * If the query parameter cursor is present, keyset paging is used instead. Then the Link header points
+     * to the next page via an opaque cursor. In both modes, the query parameters startkey and endkey restrict
+     * the ids (inclusive).
+     * </p>
+     *
+     * <p>
+     * All modes except ids can be restricted by filter query parameters like <code>rating.ge=3</code>, if the
+     * resource is annotated with {@link CrudFilter}, see {@link EntityFilterCompiler}.
+     * </p>
+     *
+     * <p>
+     * In all modes, the query parameter fields selects only some attributes, see {@link EntityProjectionCompiler}.
+     * Then, only these columns are read from the database and written to JSON - no entity is loaded. Without
+     * fields, collections are selected via the summary view, if the resource has one (see {@link CrudViews}).
+     * </p>
+     *
+     * <p>
+     * Entities are loaded with the fetch plan of the resource, if it has one (see
+     * {@link com.hedgehogsmind.springcouchrest.annotations.crud.CrudFetchPlan}). Then, single entities and entities
+     * by ids are loaded via the query worker instead of the repository.
+     * </p>
+     *
+     * <p>
+     * In all modes except streaming, the query parameter expand (e.g. <code>expand=author,tags</code>) writes
+     * associations as the associated entities. These are loaded by one query per association after the primary
+     * query, see {@link EntityExpander}.
+     * </p>
+     *
+     * <p>
+     * If the query parameter stream is present and the resource is annotated with {@link CrudStreaming}, all
+     * entities are streamed, see {@link #createEntityStream(ObjectMapper, Sort, Object, Object, EntityFilter, ProjectionPlan, int)}.
+     * </p>
+     *
+     * <p>
+     * If the query parameter ids is present, the entities with these ids are loaded by one query, see
+     * {@link #findAllByIds(List, ProjectionPlan, List)}.
+     * </p>
+     *
+     * <p>
+     * If an id is given, this method tries to find that entity. In case it does not exist, a NOT_FOUND
+     * result is returned.
+     * </p>
+     *
+     * <p>
+     * Collections of resources annotated with {@link CrudCollectionETag} get an ETag from the modification stamps
+     * of all contained resources. A matching If-None-Match header is answered with 304 before the query runs.
+     * Single entities always get an ETag, see
+     * {@link #createEntityResponse(HttpServletRequest, ObjectMapper, Locale, Object, boolean)}.
+     * </p>
+     *
+     * <p>
+     * Database access happens in a read-only transaction, which is started after the security check and
+     * the parsing of the query parameters (see {@link #executeInTransaction(String, java.util.function.Supplier)}).
+     * </p>
      *
      * @param request                    Request to handle.
      * @param objectMapper               ObjectMapper to use for JSON (de-) serialization.
@@ -74,23 +179,393 @@ public class MappedEntityGetHandler
 
         getSecurityHandler().assertReadAccess();
 
+        // query parameters are parsed before the transaction starts, so that invalid requests never
+        // acquire a database connection
+
+        final List<Expansion> expansions = getParentEntityResource().getExpander().parse(queryParameters);
+
         if (pathVariablesAfterResource.length == 0) {
 
-            // Simple get all
-            return ResponseEntity.ok(
-                    getRepository().findAll()
-            );
+            // the stamps are read before the query: a write in between leads to a new ETag for the next request
+            final Optional<String> eTag = createCollectionETag(getCollectionResources(expansions));
+
+            if ( eTag.isPresent() && ETagUtil.matchesIfNoneMatch(request, eTag.get()) ) {
+                return notModified(eTag.get());
+            }
+
+            final ResponseEntity response = handleCollection(request, objectMapper, method, queryParameters, expansions);
+
+            return eTag.isPresent() ? withETag(response, eTag.get()) : response;
 
         } else {
 
             // Get one by id
             final Object parsedId = parseId(pathVariablesAfterResource[0]);
+            final ProjectionPlan projection = getParentEntityResource().getProjectionCompiler().parse(queryParameters, null);
 
-            final Optional entityInstance = getRepository().findById(parsedId);
+            final Optional entityInstance = executeInTransaction(method, () -> {
+                final Optional found = projection != null ?
+                        getQueryWorker().findProjectedById(parsedId, projection) :
+                        getParentEntityResource().getFetchPlan().isPresent() ?
+                                getQueryWorker().findById(parsedId) :
+                                getRepository().findById(parsedId);
+
+                return expansions.isEmpty() || found.isEmpty() ?
+                        found :
+                        Optional.of(expand(List.of(found.get()), expansions, true).get(0));
+            });
 
             return entityInstance.isPresent() ?
-                    ResponseEntity.ok(entityInstance.get()) :
+                    createEntityResponse(request, objectMapper, locale, entityInstance.get(),
+                            projection == null && expansions.isEmpty()) :
                     CouchRestProblems.NOT_FOUND.toResponseEntity();
         }
     }
+
+    /**
+     * Handles the request for a collection, see {@link #handle(HttpServletRequest, ObjectMapper, Locale, String, String, String, String[], Map)}.
+     *
+     * @param request         Request to handle.
+     * @param objectMapper    ObjectMapper to use for JSON (de-) serialization.
+     * @param method          HTTP method of request.
+     * @param queryParameters Query parameters.
+     * @param expansions      Parsed expansions, may be empty.
+     * @return ResponseEntity which carries the entities.
+     */
+    protected ResponseEntity handleCollection(final HttpServletRequest request,
+                                              final ObjectMapper objectMapper,
+                                              final String method,
+                                              final Map<String, String[]> queryParameters,
+                                              final List<Expansion> expansions) {
+
+        final EntityFilterCompiler filterCompiler = getParentEntityResource().getFilterCompiler();
+
+        if ( getQueryWorker().isMultiGetRequested(queryParameters) ) {
+
+            if ( filterCompiler.isFilterRequested(queryParameters) ) {
+                throw new InvalidQueryParameterException("Filters can not be combined with ids",
+                        EntityQueryWorker.IDS_PARAMETER);
+            }
+
+            // Get specific entities by id
+            final List<Object> ids = getQueryWorker().parseIds(
+                    queryParameters,
+                    this::parseId,
+                    getParentEntityResource().getMaxIds()
+            );
+
+            final ProjectionPlan projection = parseCollectionProjection(queryParameters, null);
+
+            return ResponseEntity.ok(executeInTransaction(method, () -> findAllByIds(ids, projection, expansions)));
+        }
+
+        final Object startKey = parseIdParameter(queryParameters, EntityQueryWorker.START_KEY_PARAMETER);
+        final Object endKey = parseIdParameter(queryParameters, EntityQueryWorker.END_KEY_PARAMETER);
+        final EntityFilter filter = filterCompiler.parse(queryParameters);
+
+        if ( getQueryWorker().isStreamRequested(queryParameters) ) {
+
+            // Stream all > the body opens its own transaction while being written
+            final CrudStreaming streaming = getParentEntityResource().getStreaming().orElseThrow(
+                    () -> new InvalidQueryParameterException(
+                            "Streaming not enabled for this resource", EntityQueryWorker.STREAM_PARAMETER
+                    )
+            );
+
+            if ( !expansions.isEmpty() ) {
+                throw new InvalidQueryParameterException("Expansions can not be combined with streaming",
+                        EntityExpander.EXPAND_PARAMETER);
+            }
+
+            final Sort sort = getQueryWorker().parseStreamSort(queryParameters);
+            final ProjectionPlan projection = parseCollectionProjection(queryParameters, null);
+
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(createEntityStream(
+                            objectMapper, sort, startKey, endKey, filter, projection, streaming.fetchSize()
+                    ));
+
+        } else if ( getQueryWorker().isKeysetPageRequested(queryParameters) ) {
+
+            // Get one page after cursor
+            final KeysetPageRequest keysetPageRequest = getQueryWorker().parseKeysetPageRequest(
+                    queryParameters,
+                    getParentEntityResource().getDefaultPageSize(),
+                    getParentEntityResource().getMaxPageSize(),
+                    objectMapper
+            );
+
+            // the cursor of the next page is read from the last row
+            final ProjectionPlan projection = parseCollectionProjection(
+                    queryParameters,
+                    keysetPageRequest.getSortAttributeName()
+            );
+
+            final KeysetSlice slice = executeInTransaction(method, () -> {
+                final KeysetSlice found = getQueryWorker().findKeysetSlice(
+                        keysetPageRequest, startKey, endKey, filter, projection
+                );
+
+                return expansions.isEmpty() ?
+                        found :
+                        new KeysetSlice(expand(found.getContent(), expansions, false), found.getNextCursor().orElse(null));
+            });
+
+            final HttpHeaders headers = new HttpHeaders();
+            slice.getNextCursor().ifPresent(cursor -> headers.add(
+                    HttpHeaders.LINK,
+                    createLink(request, EntityQueryWorker.CURSOR_PARAMETER, cursor.encode(objectMapper), "next")
+            ));
+
+            return ResponseEntity.ok()
+                    .headers(headers)
+                    .body(slice.getContent());
+
+        } else {
+
+            // Get one page
+            final Pageable pageable = getQueryWorker().parsePageable(
+                    queryParameters,
+                    getParentEntityResource().getDefaultPageSize(),
+                    getParentEntityResource().getMaxPageSize()
+            );
+
+            final ProjectionPlan projection = parseCollectionProjection(queryParameters, null);
+
+            final Slice<Object> slice = executeInTransaction(method, () -> {
+                final Slice<Object> found = getQueryWorker().findSlice(pageable, startKey, endKey, filter, projection);
+
+                return expansions.isEmpty() ?
+                        found :
+                        new SliceImpl<>(expand(found.getContent(), expansions, false), pageable, found.hasNext());
+            });
+
+            return ResponseEntity.ok()
+                    .headers(createPageLinks(request, slice))
+                    .body(slice.getContent());
+        }
+    }
+
+    /**
+     * Returns the resources whose entities are contained in a collection response: this one and the ones of the
+     * expanded associations.
+     *
+     * @param expansions Expansions, may be empty.
+     * @return Resources.
+     */
+    protected List<MappedEntityResource> getCollectionResources(final List<Expansion> expansions) {
+        final List<MappedEntityResource> resources = new ArrayList<>(expansions.size() + 1);
+        resources.add(getParentEntityResource());
+        expansions.forEach(expansion -> resources.add(expansion.getTargetResource()));
+
+        return resources;
+    }
+
+    /**
+     * <p>
+     * Creates the response for a single entity or row with an ETag. If the If-None-Match header of the request
+     * matches the ETag, a 304 response is returned instead.
+     * </p>
+     *
+     * <p>
+     * Entities get their version as ETag, if possible (see {@link MappedEntityResource#isVersionETag()}). Then, no
+     * serialization is needed to answer with 304. Otherwise, the body is serialized here and the ETag is a hash
+     * of the JSON. The serialized body is returned, so that it is not serialized twice.
+     * </p>
+     *
+     * @param request      Request.
+     * @param objectMapper ObjectMapper which has been passed to the handle method.
+     * @param locale       Locale of request.
+     * @param body         Entity or row.
+     * @param plainEntity  True if body is an entity without projection and expansions.
+     * @return Response.
+     */
+    protected ResponseEntity createEntityResponse(final HttpServletRequest request,
+                                                  final ObjectMapper objectMapper,
+                                                  final Locale locale,
+                                                  final Object body,
+                                                  final boolean plainEntity) {
+
+        final Object version = plainEntity && getParentEntityResource().isVersionETag() ?
+                getQueryWorker().readVersion(Hibernate.unproxy(body)) :
+                null;
+
+        if ( version != null ) {
+            final String eTag = ETagUtil.fromVersion(version);
+
+            return ETagUtil.matchesIfNoneMatch(request, eTag) ?
+                    notModified(eTag) :
+                    ResponseEntity.ok().eTag(eTag).body(body);
+        }
+
+        final ResponseUtil.BodyConversionResult converted = ResponseUtil.convertBody(
+                body,
+                getObjectWriter(body, objectMapper),
+                locale
+        );
+
+        // a problem occurred while serializing - it is returned without ETag
+        if ( converted.getOverwritingStatus().isPresent() ) return ResponseEntity.ok(converted);
+
+        final String eTag = ETagUtil.fromContent(converted.getBody());
+
+        return ETagUtil.matchesIfNoneMatch(request, eTag) ?
+                notModified(eTag) :
+                ResponseEntity.ok().eTag(eTag).body(converted);
+    }
+
+    /**
+     * Expands the given rows, see {@link EntityExpander#expand(List, List, ObjectWriter)}. Single entities are
+     * written by the ObjectWriter for entities (with detail view), rows of collections by the untyped one.
+     *
+     * @param rows       Entities or projected rows.
+     * @param expansions Expansions, not empty.
+     * @param single     True if the row is returned as single entity.
+     * @return Expanded rows in the same order.
+     */
+    protected List<Object> expand(final List<?> rows, final List<Expansion> expansions, final boolean single) {
+        final ObjectWriter rowWriter = getParentEntityResource().getObjectWriter(
+                single ? rows.get(0) : null,
+                getParentEntityResource().getObjectMapper()
+        );
+
+        return getParentEntityResource().getExpander().expand(rows, expansions, rowWriter);
+    }
+
+    /**
+     * Parses the fields parameter for a collection request. Without fields, the summary view is selected, if the
+     * resource has one.
+     *
+     * @param queryParameters         Query parameters of request.
+     * @param additionalAttributeName Attribute to select in any case (e.g. the sort attribute for cursors) or null.
+     * @return Projection or null if entities shall be loaded.
+     */
+    protected ProjectionPlan parseCollectionProjection(final Map<String, String[]> queryParameters,
+                                                       final String additionalAttributeName) {
+        final EntityProjectionCompiler projectionCompiler = getParentEntityResource().getProjectionCompiler();
+        final ProjectionPlan requested = projectionCompiler.parse(queryParameters, additionalAttributeName);
+
+        if ( requested != null ) return requested;
+
+        return getParentEntityResource().getSummaryPlan()
+                .map(summaryPlan -> projectionCompiler.withAttribute(summaryPlan, additionalAttributeName))
+                .orElse(null);
+    }
+
+    /**
+     * <p>
+     * Creates a body which writes all entities as JSON array to the response output stream. The entities are
+     * read via {@link EntityQueryWorker#streamAll(Sort, Object, Object, EntityFilter, ProjectionPlan, int, java.util.function.Consumer)} within
+     * a read-only transaction (if a transaction manager exists) and serialized one by one via a
+     * {@link JsonGenerator}. Neither the entity list nor the JSON text is ever held in memory as a whole.
+     * </p>
+     *
+     * <p>
+     * Note that the status and headers are already sent when the first entity is written. Hence, errors
+     * occurring while streaming can not be reported as problem detail anymore.
+     * </p>
+     *
+     * @param objectMapper ObjectMapper used for serialization.
+     * @param sort         Order of entities.
+     * @param startKey     Lowest id to include or null.
+     * @param endKey       Highest id to include or null.
+     * @param filter       Filter to apply.
+     * @param projection   Attributes to select or null to stream entities.
+     * @param fetchSize    Number of rows fetched from the database at once.
+     * @return Streaming body.
+     */
+    protected StreamingResponseBody createEntityStream(final ObjectMapper objectMapper,
+                                                       final Sort sort,
+                                                       final Object startKey,
+                                                       final Object endKey,
+                                                       final EntityFilter filter,
+                                                       final ProjectionPlan projection,
+                                                       final int fetchSize) {
+
+        // flushing after every entity would send one chunk per entity
+        final ObjectWriter writer = getParentEntityResource().getObjectWriter(null, objectMapper)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        return outputStream -> {
+            final JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8);
+            generator.writeStartArray();
+
+            final Runnable writeEntities = () -> getQueryWorker().streamAll(sort, startKey, endKey, filter, projection, fetchSize, entity -> {
+                try {
+                    writer.writeValue(generator, entity);
+                } catch ( IOException e ) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            try {
+                executeInTransaction("GET", () -> {
+                    writeEntities.run();
+                    return null;
+                });
+
+            } catch ( UncheckedIOException e ) {
+                throw e.getCause();
+            }
+
+            generator.writeEndArray();
+            generator.flush();
+        };
+    }
+
+    /**
+     * Loads the entities of the given ids via one {@link org.springframework.data.repository.CrudRepository#findAllById(Iterable)}
+     * call. The ids are padded to a power of two (see {@link EntityQueryWorker#padToPowerOfTwo(java.util.Collection)}).
+     * If a projection is given, only its attributes are selected (see
+     * {@link EntityQueryWorker#findAllProjectedById(java.util.Collection, ProjectionPlan)}). If the resource has a
+     * fetch plan, the entities are loaded via {@link EntityQueryWorker#findAllById(java.util.Collection)}. The
+     * found rows are expanded, if expansions are given.
+     *
+     * @param ids        Requested ids in request order.
+     * @param projection Attributes to select or null to load entities.
+     * @param expansions Associations to expand, may be empty.
+     * @return One row per requested id in request order, either with entity or marked as not found.
+     */
+    @SuppressWarnings("unchecked")
+    protected List<MultiGetRow> findAllByIds(final List<Object> ids,
+                                             final ProjectionPlan projection,
+                                             final List<Expansion> expansions) {
+        final Map<Object, Object> entitiesById = new HashMap<>();
+
+        if ( projection != null ) {
+            for ( final ProjectedRow row : getQueryWorker().findAllProjectedById(ids, projection) ) {
+                entitiesById.put(row.getValue(getQueryWorker().getIdAttributeName()), row);
+            }
+
+        } else {
+            final Iterable<Object> entities = getParentEntityResource().getFetchPlan().isPresent() ?
+                    getQueryWorker().findAllById(ids) :
+                    getRepository().findAllById(EntityQueryWorker.padToPowerOfTwo(ids));
+
+            for ( final Object entity : entities ) {
+                entitiesById.put(getIdValue(entity), entity);
+            }
+        }
+
+        if ( !expansions.isEmpty() && !entitiesById.isEmpty() ) {
+            final List<Object> foundIds = new ArrayList<>(entitiesById.keySet());
+            final List<Object> found = new ArrayList<>(foundIds.size());
+            foundIds.forEach(id -> found.add(entitiesById.get(id)));
+
+            final List<Object> expanded = expand(found, expansions, false);
+            for ( int i = 0; i < foundIds.size(); i++ ) {
+                entitiesById.put(foundIds.get(i), expanded.get(i));
+            }
+        }
+
+        final List<MultiGetRow> rows = new ArrayList<>(ids.size());
+        for ( final Object id : ids ) {
+            final Object entity = entitiesById.get(id);
+            rows.add(entity != null ? MultiGetRow.found(id, entity) : MultiGetRow.notFound(id));
+        }
+
+        return rows;
+    }
+
 }
@@ -0,0 +1,354 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.methods;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.std.BeanSerializerBase;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+import com.hedgehogsmind.springcouchrest.workers.mapping.body.exceptions.InvalidPatchException;
+import com.hedgehogsmind.springcouchrest.workers.mapping.body.exceptions.PatchNotApplicableException;
+import com.hedgehogsmind.springcouchrest.workers.mapping.body.exceptions.UnsupportedMediaTypeException;
+import com.hedgehogsmind.springcouchrest.workers.mapping.body.patch.JsonMergePatch;
+import com.hedgehogsmind.springcouchrest.workers.mapping.body.patch.JsonPatch;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.MappedEntityResource;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.MappedEntitySubHandlerBase;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * Handles partial updates of existing entities via JSON Merge Patch (RFC 7396) and JSON Patch (RFC 6902).
+ * The format is chosen by the Content-Type of the request.
+ */
+public class MappedEntityPatchHandler
+        extends MappedEntitySubHandlerBase {
+
+    public static final String PREFER_HEADER = "Prefer";
+
+    public static final String PREFERENCE_APPLIED_HEADER = "Preference-Applied";
+
+    public static final String RETURN_MINIMAL_PREFERENCE = "return=minimal";
+
+    private static final MediaType MERGE_PATCH_MEDIA_TYPE = MediaType.parseMediaType(JsonMergePatch.MEDIA_TYPE);
+
+    private static final MediaType JSON_PATCH_MEDIA_TYPE = MediaType.parseMediaType(JsonPatch.MEDIA_TYPE);
+
+    /**
+     * Stores parent entity resource.
+     *
+     * @param parentEntityResource Parent entity resource.
+     */
+    public MappedEntityPatchHandler(MappedEntityResource parentEntityResource) {
+        super(parentEntityResource);
+    }
+
+    /**
+     * Only handles PATCH requests.
+     *
+     * @return PATCH.
+     */
+    @Override
+    public Set<String> getHttpMethods() {
+        return Set.of("PATCH");
+    }
+
+    /**
+     * Checks if method is PATCH and if there is exactly one path variable (being the ID).
+     *
+     * @param request                    Request.
+     * @param method                     HTTP method of request.
+     * @param fullPath                   Full path of request with trailing slash.
+     * @param pathAfterResource          Path after parent resource's path. Ends with trailing slash or is empty.
+     * @param pathVariablesAfterResource PathAfterResource split into parts separated by slash. Empty trailing parts ignored.
+     * @return True if method PATCH and one path variable is present.
+     */
+    @Override
+    public boolean accepts(HttpServletRequest request,
+                           String method,
+                           String fullPath,
+                           String pathAfterResource,
+                           String[] pathVariablesAfterResource) {
+
+        return method.equals("PATCH") && pathVariablesAfterResource.length == 1;
+    }
+
+    /**
+     * <p>
+     * Parses the patch (before the transaction starts), loads the entity and applies the patch to its JSON
+     * representation. Only the top level fields, which the patch actually changed, are then deserialized into the
+     * loaded entity. By this, Hibernate only considers these properties dirty (and only writes these columns
+     * if the entity is annotated with <code>@DynamicUpdate</code>). A patch which changes nothing does not
+     * update the entity at all. The id can not be changed. The JSON representation only contains the basic properties
+     * and the ones the patch touches, so that other associations are not loaded.
+     * </p>
+     *
+     * <p>
+     * The response contains the whole entity. If the client sends the header <code>Prefer: return=minimal</code>,
+     * it only contains the id and the fields which changed (including e.g. a version).
+     * </p>
+     *
+     * @param request                    Request to handle.
+     * @param objectMapper               ObjectMapper to use for JSON (de-) serialization.
+     * @param locale                     Locale of request or a default one.
+     * @param method                     HTTP method of request.
+     * @param fullPath                   Full path of request with trailing slash.
+     * @param pathAfterResource          Path after parent resource's path. Ends with trailing slash or is empty.
+     * @param pathVariablesAfterResource PathAfterResource split into parts separated by slash. Empty trailing parts ignored.
+     * @param queryParameters            Query parameters.
+     * @return Patched entity or problem.
+     */
+    @Override
+    public ResponseEntity handle(HttpServletRequest request,
+                                 ObjectMapper objectMapper,
+                                 Locale locale,
+                                 String method,
+                                 String fullPath,
+                                 String pathAfterResource,
+                                 String[] pathVariablesAfterResource,
+                                 Map<String, String[]> queryParameters) {
+
+        getSecurityHandler().assertSaveUpdateAccess();
+
+        final Object parsedId = parseId(pathVariablesAfterResource[0]);
+        final boolean mergePatch = isMergePatch(request);
+
+        final JsonNode patchDocument;
+        try {
+            patchDocument = (JsonNode) getParentEntityResource().getTreeBodyReader().read(request);
+        } catch ( JsonProcessingException e ) {
+            return CouchRestProblems.INVALID_DATA.toResponseEntity();
+        } catch ( IOException e ) {
+            // logged and answered with UNKNOWN_PROBLEM by the CouchRestHandlerAdapter
+            throw new UncheckedIOException(e);
+        }
+
+        final JsonPatch jsonPatch = mergePatch ? null : JsonPatch.fromJson(patchDocument);
+        final ObjectMapper entityMapper = getParentEntityResource().getObjectMapper();
+        final Optional<Set<String>> propertyNames = getPropertyNames(mergePatch ?
+                JsonMergePatch.getTopLevelMemberNames(patchDocument) :
+                jsonPatch.getTopLevelMemberNames());
+
+        final Optional<PatchResult> result;
+        try {
+            result = executeInTransaction(method, () -> {
+                final Optional<Object> existingEntity = getRepository().findById(parsedId);
+                if ( existingEntity.isEmpty() ) return Optional.empty();
+
+                final Object entity = existingEntity.get();
+                final ObjectNode before = writeProperties(entityMapper, entity, propertyNames);
+                final JsonNode after = mergePatch ?
+                        JsonMergePatch.apply(before, patchDocument) :
+                        jsonPatch.apply(before);
+
+                if ( !after.isObject() ) {
+                    throw new PatchNotApplicableException("Patched entity must be an object", "");
+                }
+
+                final ObjectNode changedFields = getChangedFields(before, (ObjectNode) after);
+
+                if ( changedFields.has(getQueryWorker().getIdAttributeName()) ) {
+                    throw new PatchNotApplicableException("Id can not be changed",
+                            "/" + getQueryWorker().getIdAttributeName());
+                }
+
+                if ( changedFields.size() == 0 ) return Optional.of(new PatchResult(entity, before));
+
+                try {
+                    getParentEntityResource().getEntityBodyReader().getObjectReader()
+                            .withValueToUpdate(entity)
+                            .readValue(changedFields);
+                } catch ( IOException e ) {
+                    throw new UncheckedIOException(e);
+                }
+
+                if ( !isValid(entity) ) {
+                    // rolls back the transaction, so that the changed entity is not flushed
+                    throw new InvalidPatchException("Patched entity violates constraints");
+                }
+
+                return Optional.of(new PatchResult(getRepository().save(entity), before));
+            });
+
+        } catch ( UncheckedIOException e ) {
+            return CouchRestProblems.INVALID_DATA.toResponseEntity();
+
+        } catch ( OptimisticLockingFailureException e ) {
+            return CouchRestProblems.VERSION_CONFLICT.toResponseEntity();
+        }
+
+        if ( result.isEmpty() ) {
+            return CouchRestProblems.NOT_FOUND.toResponseEntity();
+        }
+
+        if ( !isReturnMinimalPreferred(request) ) {
+            return ResponseEntity.ok(result.get().entity);
+        }
+
+        // compared after commit, so that e.g. incremented versions are included
+        final ObjectNode minimal = getChangedFields(
+                result.get().before,
+                writeProperties(entityMapper, result.get().entity, propertyNames)
+        );
+        minimal.set(getQueryWorker().getIdAttributeName(), result.get().before.get(getQueryWorker().getIdAttributeName()));
+
+        return ResponseEntity.ok()
+                .header(PREFERENCE_APPLIED_HEADER, RETURN_MINIMAL_PREFERENCE)
+                .body(minimal);
+    }
+
+    /**
+     * Determines the patch format by the Content-Type of the request.
+     *
+     * @param request Request.
+     * @return True for JSON Merge Patch, false for JSON Patch.
+     * @throws UnsupportedMediaTypeException if the Content-Type is missing or neither of both.
+     */
+    private boolean isMergePatch(final HttpServletRequest request) {
+        final String contentType = request.getContentType();
+
+        if ( contentType != null ) {
+            try {
+                final MediaType mediaType = MediaType.parseMediaType(contentType);
+
+                if ( MERGE_PATCH_MEDIA_TYPE.equalsTypeAndSubtype(mediaType) ) return true;
+                if ( JSON_PATCH_MEDIA_TYPE.equalsTypeAndSubtype(mediaType) ) return false;
+
+            } catch ( InvalidMediaTypeException e ) {
+                // handled below
+            }
+        }
+
+        throw new UnsupportedMediaTypeException("Unsupported Content-Type '" + contentType + "' for PATCH",
+                List.of(JsonMergePatch.MEDIA_TYPE, JsonPatch.MEDIA_TYPE));
+    }
+
+    /**
+     * Determines the properties to write for the given members which the patch touches: these and all basic
+     * properties (including id and version), so that the minimal response contains e.g. an incremented version.
+     *
+     * @param touchedPropertyNames Top level members touched by the patch or empty if it targets the whole entity.
+     * @return Properties to write or empty for all properties.
+     */
+    private Optional<Set<String>> getPropertyNames(final Optional<Set<String>> touchedPropertyNames) {
+        return touchedPropertyNames.map(touched -> {
+            final Set<String> propertyNames = new HashSet<>(getParentEntityResource().getBasicPropertyNames());
+            propertyNames.addAll(touched);
+            return propertyNames;
+        });
+    }
+
+    /**
+     * Writes the given properties of the entity to a JSON object. The other properties are not read at all, so that
+     * associations which the patch does not touch are not loaded.
+     *
+     * @param entityMapper  ObjectMapper of the resource.
+     * @param entity        Entity to write.
+     * @param propertyNames Properties to write or empty for all properties.
+     * @return JSON object.
+     */
+    private ObjectNode writeProperties(final ObjectMapper entityMapper,
+                                       final Object entity,
+                                       final Optional<Set<String>> propertyNames) {
+
+        if ( propertyNames.isEmpty() ) return entityMapper.valueToTree(entity);
+
+        final SerializerProvider provider = entityMapper.getSerializerProviderInstance();
+
+        try {
+            final JsonSerializer<Object> serializer = provider.findTypedValueSerializer(entity.getClass(), true, null);
+
+            if ( !(serializer instanceof BeanSerializerBase) ) return entityMapper.valueToTree(entity);
+
+            final TokenBuffer buffer = new TokenBuffer(entityMapper, false);
+            buffer.writeStartObject();
+
+            final Iterator<PropertyWriter> properties = ((BeanSerializerBase) serializer).properties();
+            while ( properties.hasNext() ) {
+                final PropertyWriter property = properties.next();
+
+                if ( propertyNames.get().contains(property.getName()) ) {
+                    property.serializeAsField(entity, buffer, provider);
+                }
+            }
+
+            buffer.writeEndObject();
+            return entityMapper.readTree(buffer.asParser());
+
+        } catch ( RuntimeException e ) {
+            throw e;
+
+        } catch ( Exception e ) {
+            // same as valueToTree
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Collects the top level fields whose values differ. Fields missing in after are contained as null.
+     *
+     * @param before Fields before.
+     * @param after  Fields after.
+     * @return New object containing the changed fields with their values of after.
+     */
+    private ObjectNode getChangedFields(final ObjectNode before, final ObjectNode after) {
+        final ObjectNode changedFields = after.objectNode();
+
+        after.fields().forEachRemaining(field -> {
+            if ( !field.getValue().equals(before.get(field.getKey())) ) {
+                changedFields.set(field.getKey(), field.getValue());
+            }
+        });
+
+        before.fieldNames().forEachRemaining(fieldName -> {
+            if ( !after.has(fieldName) ) changedFields.putNull(fieldName);
+        });
+
+        return changedFields;
+    }
+
+    /**
+     * Checks the Prefer header (RFC 7240) for <code>return=minimal</code>.
+     *
+     * @param request Request.
+     * @return True if the client prefers minimal responses.
+     */
+    private boolean isReturnMinimalPreferred(final HttpServletRequest request) {
+        final Enumeration<String> preferHeaders = request.getHeaders(PREFER_HEADER);
+        if ( preferHeaders == null ) return false;
+
+        while ( preferHeaders.hasMoreElements() ) {
+            for ( final String preference : preferHeaders.nextElement().split(",") ) {
+                if ( preference.trim().equalsIgnoreCase(RETURN_MINIMAL_PREFERENCE) ) return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Patched entity and its JSON representation before patching.
+     */
+    private static class PatchResult {
+
+        private final Object entity;
+
+        private final ObjectNode before;
+
+        private PatchResult(final Object entity, final ObjectNode before) {
+            this.entity = entity;
+            this.before = before;
+        }
+    }
+
+}
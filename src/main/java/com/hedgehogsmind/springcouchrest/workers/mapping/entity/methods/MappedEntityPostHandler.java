@@ -1,18 +1,24 @@
 package com.hedgehogsmind.springcouchrest.workers.mapping.entity.methods;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectReader;
 import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+import com.hedgehogsmind.springcouchrest.workers.mapping.body.RequestBodyReader;
+import com.hedgehogsmind.springcouchrest.workers.mapping.body.exceptions.IncompleteBodyException;
 import com.hedgehogsmind.springcouchrest.workers.mapping.entity.MappedEntityResource;
 import com.hedgehogsmind.springcouchrest.workers.mapping.entity.MappedEntitySubHandlerBase;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -33,6 +39,16 @@ public class MappedEntityPostHandler
         super(parentEntityResource);
     }
 
+    /**
+     * Only handles POST requests.
+     *
+     * @return POST.
+     */
+    @Override
+    public Set<String> getHttpMethods() {
+        return Set.of("POST");
+    }
+
     /**
      * Checks if method is POST and if there are 0-1 path variables.
      *
@@ -66,6 +82,24 @@ public class MappedEntityPostHandler
      * subset of fields is supported.
      * </p>
      *
+     * <p>
+     * The body is parsed directly from the request input stream by the {@link RequestBodyReader} of the
+     * parent resource, which enforces the body size and nesting depth limits.
+     * </p>
+     *
+     * <p>
+     * Loading and saving happen within one transaction. The body is read before the transaction starts, so that no
+     * connection is held while it is being received. For updates, it is read as JSON tree, which is merged into the
+     * loaded entity within the transaction. If the entity has been changed in the meantime (<code>@Version</code>),
+     * VERSION_CONFLICT is returned.
+     * </p>
+     *
+     * <p>
+     * If direct updates are enabled ({@link com.hedgehogsmind.springcouchrest.annotations.crud.CrudDirectUpdate}),
+     * the existing entity is not loaded. The body replaces it via one bulk update instead, hence it must contain all
+     * properties of the entity.
+     * </p>
+     *
      * @param request                    Request to handle.
      * @param objectMapper               ObjectMapper to use for JSON (de-) serialization.
      * @param locale                     Locale of request or a default one.
@@ -89,38 +123,133 @@ public class MappedEntityPostHandler
         getSecurityHandler().assertSaveUpdateAccess();
 
         try {
-            // We use an ObjectReader instead of the ObjectMapper, because we may need
-            // to pass an existing entity instance for value updates
-            ObjectReader objectReader = objectMapper.readerFor(getEntityClass());
+            if ( pathVariablesAfterResource.length == 0 ) {
+                // new entities are parsed before the transaction starts, so that no connection
+                // is held while the body is being received
+                final Object newEntity = getParentEntityResource().getEntityBodyReader().read(request);
+
+                // TODO @peter validate newEntity
+
+                return executeInTransaction(method, () -> ResponseEntity.ok(getRepository().save(newEntity)));
+            }
+
+            // in case we have an id, we try to parse it, check existence and update the existing instance
+            final Object parsedId = parseId(pathVariablesAfterResource[0]);
+
+            if ( getParentEntityResource().isDirectUpdate() ) {
+                return updateDirectly(request, method, parsedId);
+            }
 
-            // in case we have an id, we try to parse it, check existence and store the id value in the instance
-            if ( pathVariablesAfterResource.length == 1 ) {
-                final Object parsedId = parseId(pathVariablesAfterResource[0]);
+            final JsonNode body = (JsonNode) getParentEntityResource().getTreeBodyReader().read(request);
 
+            return executeInTransaction(method, () -> {
                 final Optional<Object> existingEntity = getRepository().findById(parsedId);
 
                 if ( existingEntity.isEmpty() ) {
                     return CouchRestProblems.NOT_FOUND.toResponseEntity();
                 }
 
-                // We pass the existing entity for updates to reader
-                objectReader = objectReader.withValueToUpdate(existingEntity.get());
-            }
+                final Object updatedEntity = mergeBody(body, existingEntity.get());
+
+                // TODO @peter validate updatedEntity
+
+                return ResponseEntity.ok(getRepository().save(updatedEntity));
+            });
+
+        } catch ( UncheckedIOException e ) {
+            return toProblemResponseEntity(e.getCause());
+
+        } catch ( OptimisticLockingFailureException e ) {
+            return CouchRestProblems.VERSION_CONFLICT.toResponseEntity();
+
+        } catch ( IOException e ) {
+            return toProblemResponseEntity(e);
+        }
+    }
+
+    /**
+     * Deserializes the body into a new instance (before the transaction starts), sets the id and writes it by one
+     * bulk update. Only if nothing has been updated, the existence is checked to tell NOT_FOUND and
+     * VERSION_CONFLICT apart.
+     *
+     * @param request  Request to read body from.
+     * @param method   HTTP method of request.
+     * @param parsedId Id of entity to update.
+     * @return Updated entity or problem (INVALID_DATA if the entity violates bean validation constraints).
+     * @throws IOException             if the body can not be read or deserialized.
+     * @throws IncompleteBodyException if the body misses properties, which would be cleared otherwise.
+     */
+    private ResponseEntity updateDirectly(final HttpServletRequest request,
+                                          final String method,
+                                          final Object parsedId) throws IOException {
+
+        final JsonNode body = (JsonNode) getParentEntityResource().getTreeBodyReader().read(request);
+        final Map<String, String> attributeNames = getParentEntityResource().getDirectUpdateAttributeNames();
 
-            final String body = request.getReader().lines().collect(Collectors.joining("\n"));
-            final Object serializedData = objectReader.readValue(body);
+        if ( !body.isObject() ) {
+            return CouchRestProblems.INVALID_DATA.toResponseEntity();
+        }
 
-            // TODO @peter validate serializedData
+        final List<String> missingProperties = attributeNames.keySet().stream()
+                .filter(propertyName -> !body.has(propertyName))
+                .sorted()
+                .collect(Collectors.toList());
+
+        if ( !missingProperties.isEmpty() ) {
+            throw new IncompleteBodyException("Direct update body misses properties " + missingProperties,
+                    missingProperties);
+        }
 
-            final Object savedEntity = getRepository().save(serializedData);
-            return ResponseEntity.ok(savedEntity);
+        final Object entity = getParentEntityResource().getEntityBodyReader().getObjectReader().readValue(body);
+        setIdValue(entity, parsedId);
 
-        } catch ( JsonProcessingException e ) {
+        if ( !isValid(entity) ) {
             return CouchRestProblems.INVALID_DATA.toResponseEntity();
+        }
+
+        return executeInTransaction(method, () -> {
+            if ( getQueryWorker().updateById(parsedId, entity, attributeNames.values()) > 0 ) {
+                return ResponseEntity.ok(entity);
+            }
 
+            return getRepository().existsById(parsedId) ?
+                    CouchRestProblems.VERSION_CONFLICT.toResponseEntity() :
+                    CouchRestProblems.NOT_FOUND.toResponseEntity();
+        });
+    }
+
+    /**
+     * Merges the already read body into the given entity. Wraps IOExceptions, so that this method can be used within
+     * transaction callbacks. The runtime exception makes the transaction roll back.
+     *
+     * @param body           Body read as JSON tree.
+     * @param entityToUpdate Entity to update.
+     * @return Updated entity.
+     * @throws UncheckedIOException if the body does not fit the entity.
+     */
+    private Object mergeBody(final JsonNode body, final Object entityToUpdate) {
+        try {
+            return getParentEntityResource().getEntityBodyReader().getObjectReader()
+                    .withValueToUpdate(entityToUpdate)
+                    .readValue(body);
         } catch ( IOException e ) {
-            // TODO @peter better response >> maybe own exception so that error will be logged?
-            return CouchRestProblems.UNKNOWN_PROBLEM.toResponseEntity();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Maps an exception which occurred while reading the body to a problem.
+     *
+     * @param e Exception.
+     * @return INVALID_DATA if the body is no valid JSON or does not fit the entity.
+     * @throws UncheckedIOException otherwise, so that the CouchRestHandlerAdapter logs it and answers with
+     *                              UNKNOWN_PROBLEM.
+     */
+    private ResponseEntity toProblemResponseEntity(final IOException e) {
+        if ( e instanceof JsonProcessingException ) {
+            return CouchRestProblems.INVALID_DATA.toResponseEntity();
         }
+
+        throw new UncheckedIOException(e);
     }
 }
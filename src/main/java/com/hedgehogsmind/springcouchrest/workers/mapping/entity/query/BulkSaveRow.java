@@ -0,0 +1,72 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.query;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One row of a bulk save result. Carries the id of the entity and either <code>ok: true</code> or one of the
+ * errors {@link #INVALID_ERROR}, {@link #CONFLICT_ERROR} and {@link #FAILED_ERROR}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class BulkSaveRow {
+
+    /**
+     * The entity could not be deserialized or violated a constraint.
+     */
+    public static final String INVALID_ERROR = "invalid";
+
+    /**
+     * The entity has been changed in the meantime (<code>@Version</code>).
+     */
+    public static final String CONFLICT_ERROR = "conflict";
+
+    /**
+     * The entity could not be saved for another reason.
+     */
+    public static final String FAILED_ERROR = "failed";
+
+    private final Object id;
+
+    private final Boolean ok;
+
+    private final String error;
+
+    private BulkSaveRow(final Object id, final Boolean ok, final String error) {
+        this.id = id;
+        this.ok = ok;
+        this.error = error;
+    }
+
+    /**
+     * Creates row for a saved entity.
+     *
+     * @param id Id of saved entity.
+     * @return Row.
+     */
+    public static BulkSaveRow saved(final Object id) {
+        return new BulkSaveRow(id, true, null);
+    }
+
+    /**
+     * Creates row for an entity which has not been saved.
+     *
+     * @param id    Id given by the client or null.
+     * @param error Error.
+     * @return Row.
+     */
+    public static BulkSaveRow failed(final Object id, final String error) {
+        return new BulkSaveRow(id, null, error);
+    }
+
+    public Object getId() {
+        return id;
+    }
+
+    public Boolean getOk() {
+        return ok;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+}
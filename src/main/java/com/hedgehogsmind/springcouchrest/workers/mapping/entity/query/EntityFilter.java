@@ -0,0 +1,78 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.query;
+
+import javax.persistence.Query;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+/**
+ * Filters of one request: a (shared) {@link FilterShape} and the values to bind to its parameters.
+ * Created by {@link EntityFilterCompiler#parse(java.util.Map)}.
+ */
+public class EntityFilter {
+
+    /**
+     * Filter which does not restrict anything.
+     */
+    public static final EntityFilter NONE = new EntityFilter(FilterShape.EMPTY, List.of());
+
+    private final FilterShape shape;
+
+    private final List<Object> values;
+
+    /**
+     * Stores values.
+     *
+     * @param shape  Shape of filter.
+     * @param values One value per parameter of the shape, in the same order.
+     */
+    public EntityFilter(final FilterShape shape, final List<Object> values) {
+        if ( shape.getParameterNames().size() != values.size() ) {
+            throw new IllegalArgumentException("Expected " + shape.getParameterNames().size() + " values, but got " +
+                    values.size());
+        }
+
+        this.shape = shape;
+        this.values = List.copyOf(values);
+    }
+
+    /**
+     * Creates the predicates of the filter for the given query root, see
+     * {@link FilterShape#createPredicates(CriteriaBuilder, Root)}.
+     *
+     * @param criteriaBuilder Builder.
+     * @param root            Root of query.
+     * @return Mutable list of predicates.
+     */
+    public List<Predicate> createPredicates(final CriteriaBuilder criteriaBuilder, final Root<?> root) {
+        return shape.createPredicates(criteriaBuilder, root);
+    }
+
+    /**
+     * Binds the values to the parameters of a query (or bulk statement), which has been created with the predicates
+     * of this filter.
+     *
+     * @param query Query.
+     */
+    public void bindParameters(final Query query) {
+        final List<String> parameterNames = shape.getParameterNames();
+
+        for ( int i = 0; i < parameterNames.size(); i++ ) {
+            query.setParameter(parameterNames.get(i), values.get(i));
+        }
+    }
+
+    public FilterShape getShape() {
+        return shape;
+    }
+
+    public List<Object> getValues() {
+        return values;
+    }
+
+    public boolean isEmpty() {
+        return shape.isEmpty();
+    }
+
+}
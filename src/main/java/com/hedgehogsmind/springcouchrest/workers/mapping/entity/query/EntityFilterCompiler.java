@@ -0,0 +1,348 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.query;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.exceptions.InvalidQueryParameterException;
+import org.springframework.util.ClassUtils;
+
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * Parses the filter query parameters of a collection GET (e.g. <code>rating.ge=3</code>, see {@link FilterOperator})
+ * into an {@link EntityFilter}. Only the attributes given on creation (see
+ * {@link com.hedgehogsmind.springcouchrest.annotations.crud.CrudFilter}) can be used.
+ * </p>
+ *
+ * <p>
+ * Filters are split into their shape and their values. The shape only depends on the signature of the filters,
+ * i.e. the attributes, operators and the number of IN values (padded to a power of two, see
+ * {@link EntityQueryWorker#padToPowerOfTwo(Collection)}). Shapes are cached per signature, so that requests with
+ * the same filters - but other values - reuse the same shape and hence the same statement. At most
+ * {@link #MAX_CACHED_SHAPES} shapes are cached; further shapes are compiled for every request.
+ * </p>
+ */
+public class EntityFilterCompiler {
+
+    /**
+     * Maximum number of cached filter shapes.
+     */
+    public static final int MAX_CACHED_SHAPES = 256;
+
+    private final EntityType entityType;
+
+    private final Map<String, SingularAttribute> filterableAttributes;
+
+    private final ObjectMapper objectMapper;
+
+    private final int maxInValues;
+
+    private final Map<String, FilterShape> shapeCache = new ConcurrentHashMap<>();
+
+    /**
+     * Stores values and resolves the filterable attributes.
+     *
+     * @param entityType               Type of entity to filter.
+     * @param filterableAttributeNames Names of attributes which can be used for filtering.
+     * @param objectMapper             ObjectMapper to convert filter values with.
+     * @param maxInValues              Maximum number of values of one IN filter.
+     * @throws IllegalArgumentException if an attribute can not be used for filtering, see {@link #isFilterable(EntityType, String)}.
+     */
+    public EntityFilterCompiler(final EntityType entityType,
+                                final Collection<String> filterableAttributeNames,
+                                final ObjectMapper objectMapper,
+                                final int maxInValues) {
+
+        if ( entityType == null ) throw new IllegalArgumentException("entityType must not be null");
+        if ( objectMapper == null ) throw new IllegalArgumentException("objectMapper must not be null");
+
+        final Map<String, SingularAttribute> filterable = new HashMap<>();
+
+        for ( final String attributeName : filterableAttributeNames ) {
+            if ( !isFilterable(entityType, attributeName) ) {
+                throw new IllegalArgumentException("Attribute '" + attributeName + "' of entity " +
+                        entityType.getJavaType().getName() + " can not be used for filtering. Only basic " +
+                        "attributes are supported.");
+            }
+
+            filterable.put(attributeName, entityType.getSingularAttribute(attributeName));
+        }
+
+        this.entityType = entityType;
+        this.filterableAttributes = Map.copyOf(filterable);
+        this.objectMapper = objectMapper;
+        this.maxInValues = maxInValues;
+    }
+
+    /**
+     * Checks whether the given attribute can be used for filtering, which is the case for basic singular
+     * attributes.
+     *
+     * @param entityType    Type of entity.
+     * @param attributeName Name of attribute.
+     * @return True if filterable.
+     */
+    public static boolean isFilterable(final EntityType entityType, final String attributeName) {
+        for ( final Object attribute : entityType.getSingularAttributes() ) {
+            final SingularAttribute singularAttribute = (SingularAttribute) attribute;
+
+            if ( singularAttribute.getName().equals(attributeName) ) {
+                return singularAttribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks whether the given query parameter is a filter, i.e. its name ends with the suffix of a
+     * {@link FilterOperator}.
+     *
+     * @param parameter Name of query parameter.
+     * @return True if filter parameter.
+     */
+    public boolean isFilterParameter(final String parameter) {
+        final int dot = parameter.lastIndexOf('.');
+        return dot > 0 && FilterOperator.fromSuffix(parameter.substring(dot + 1)).isPresent();
+    }
+
+    /**
+     * Checks whether any filter parameter is given.
+     *
+     * @param queryParameters Query parameters of request.
+     * @return True if at least one filter parameter exists.
+     */
+    public boolean isFilterRequested(final Map<String, String[]> queryParameters) {
+        return queryParameters.keySet().stream().anyMatch(this::isFilterParameter);
+    }
+
+    /**
+     * Parses all filter parameters. Parameters given multiple times result in multiple filters, which must all
+     * match. Other query parameters are ignored.
+     *
+     * @param queryParameters Query parameters of request.
+     * @return Filter. {@link EntityFilter#NONE} if there are no filter parameters.
+     * @throws InvalidQueryParameterException if an attribute can not be used for filtering or a value is invalid.
+     */
+    public EntityFilter parse(final Map<String, String[]> queryParameters) {
+        // sorted, so that the same filters always have the same signature
+        final SortedMap<String, String[]> filterParameters = new TreeMap<>();
+
+        queryParameters.forEach((parameter, values) -> {
+            if ( isFilterParameter(parameter) ) filterParameters.put(parameter, values);
+        });
+
+        if ( filterParameters.isEmpty() ) return EntityFilter.NONE;
+
+        final List<ParsedCondition> conditions = new ArrayList<>();
+
+        filterParameters.forEach((parameter, values) -> {
+            final int dot = parameter.lastIndexOf('.');
+            final String attributeName = parameter.substring(0, dot);
+            final FilterOperator operator = FilterOperator.fromSuffix(parameter.substring(dot + 1)).orElseThrow();
+
+            final SingularAttribute attribute = filterableAttributes.get(attributeName);
+
+            if ( attribute == null ) {
+                throw new InvalidQueryParameterException("Attribute '" + attributeName + "' can not be used for " +
+                        "filtering", parameter);
+            }
+
+            for ( final String value : values ) {
+                conditions.add(parseCondition(parameter, attribute, operator, value));
+            }
+        });
+
+        final StringBuilder signature = new StringBuilder();
+        final List<Object> values = new ArrayList<>();
+
+        for ( final ParsedCondition condition : conditions ) {
+            signature.append(condition.getSignature()).append('&');
+            values.addAll(condition.values);
+        }
+
+        FilterShape shape = shapeCache.get(signature.toString());
+
+        if ( shape == null ) {
+            shape = createShape(conditions);
+
+            if ( shapeCache.size() < MAX_CACHED_SHAPES ) {
+                shapeCache.putIfAbsent(signature.toString(), shape);
+            }
+        }
+
+        return new EntityFilter(shape, values);
+    }
+
+    /**
+     * Parses one value of a filter parameter.
+     *
+     * @param parameter Name of parameter.
+     * @param attribute Filtered attribute.
+     * @param operator  Operator.
+     * @param value     Value of parameter.
+     * @return Parsed condition.
+     */
+    private ParsedCondition parseCondition(final String parameter,
+                                           final SingularAttribute attribute,
+                                           final FilterOperator operator,
+                                           final String value) {
+
+        final Class<?> valueType = ClassUtils.resolvePrimitiveIfNecessary(attribute.getJavaType());
+
+        if ( operator.isComparison() && !Comparable.class.isAssignableFrom(valueType) ) {
+            throw new InvalidQueryParameterException("Attribute '" + attribute.getName() + "' can not be compared " +
+                    "by order", parameter);
+        }
+
+        switch ( operator ) {
+            case NULL:
+                if ( value.isBlank() || value.trim().equalsIgnoreCase("true") ) {
+                    return new ParsedCondition(attribute, operator, false, List.of());
+                } else if ( value.trim().equalsIgnoreCase("false") ) {
+                    return new ParsedCondition(attribute, operator, true, List.of());
+                } else {
+                    throw new InvalidQueryParameterException("Parameter must be true or false", parameter);
+                }
+
+            case IN:
+                final List<Object> inValues = new ArrayList<>();
+
+                for ( final String inValue : value.split(",") ) {
+                    if ( inValue.isEmpty() ) continue;
+
+                    if ( inValues.size() == maxInValues ) {
+                        throw new InvalidQueryParameterException("More than " + maxInValues + " values given",
+                                parameter);
+                    }
+
+                    inValues.add(convertValue(parameter, valueType, inValue));
+                }
+
+                if ( inValues.isEmpty() ) {
+                    throw new InvalidQueryParameterException("No values given", parameter);
+                }
+
+                return new ParsedCondition(attribute, operator, false, EntityQueryWorker.padToPowerOfTwo(inValues));
+
+            case LIKE:
+                if ( valueType != String.class ) {
+                    throw new InvalidQueryParameterException("Attribute '" + attribute.getName() + "' is no " +
+                            "string", parameter);
+                }
+
+                return new ParsedCondition(attribute, operator, false, List.of(value));
+
+            default:
+                return new ParsedCondition(attribute, operator, false, List.of(convertValue(parameter, valueType, value)));
+        }
+    }
+
+    /**
+     * Converts the given string to the type of the attribute via the ObjectMapper.
+     *
+     * @param parameter Name of parameter.
+     * @param valueType Type of attribute.
+     * @param value     Value to convert.
+     * @return Converted value, never null.
+     */
+    private Object convertValue(final String parameter, final Class<?> valueType, final String value) {
+        if ( valueType == String.class ) return value;
+
+        final Object converted;
+
+        try {
+            converted = objectMapper.convertValue(value.trim(), valueType);
+        } catch ( IllegalArgumentException e ) {
+            throw new InvalidQueryParameterException("Parameter value '" + value + "' is no valid " +
+                    valueType.getSimpleName(), e, parameter);
+        }
+
+        if ( converted == null ) {
+            throw new InvalidQueryParameterException("Parameter value must not be empty", parameter);
+        }
+
+        return converted;
+    }
+
+    /**
+     * Compiles the shape of the given conditions. Parameters are named by the position of their condition.
+     *
+     * @param conditions Conditions in signature order.
+     * @return Shape.
+     */
+    private FilterShape createShape(final List<ParsedCondition> conditions) {
+        final List<FilterShape.Condition> shapeConditions = new ArrayList<>(conditions.size());
+
+        for ( int i = 0; i < conditions.size(); i++ ) {
+            final ParsedCondition condition = conditions.get(i);
+
+            final List<String> parameterNames = new ArrayList<>(condition.values.size());
+            for ( int j = 0; j < condition.values.size(); j++ ) {
+                parameterNames.add("filter" + i + "_" + j);
+            }
+
+            shapeConditions.add(new FilterShape.Condition(
+                    condition.attribute.getName(),
+                    condition.operator,
+                    ClassUtils.resolvePrimitiveIfNecessary(condition.attribute.getJavaType()),
+                    parameterNames,
+                    condition.negated
+            ));
+        }
+
+        return new FilterShape(shapeConditions);
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    public Set<String> getFilterableAttributeNames() {
+        return filterableAttributes.keySet();
+    }
+
+    /**
+     * Returns the number of cached shapes.
+     *
+     * @return Cache size.
+     */
+    public int getCachedShapeCount() {
+        return shapeCache.size();
+    }
+
+    /**
+     * One parsed filter value before its shape is known.
+     */
+    private static class ParsedCondition {
+
+        private final SingularAttribute attribute;
+
+        private final FilterOperator operator;
+
+        private final boolean negated;
+
+        private final List<Object> values;
+
+        private ParsedCondition(final SingularAttribute attribute,
+                                final FilterOperator operator,
+                                final boolean negated,
+                                final List<Object> values) {
+            this.attribute = attribute;
+            this.operator = operator;
+            this.negated = negated;
+            this.values = values;
+        }
+
+        private String getSignature() {
+            return attribute.getName() + "." + operator.getSuffix() +
+                    (negated ? "!" : "") +
+                    (operator == FilterOperator.IN ? "[" + values.size() + "]" : "");
+        }
+
+    }
+
+}
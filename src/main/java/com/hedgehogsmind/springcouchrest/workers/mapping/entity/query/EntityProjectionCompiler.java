@@ -0,0 +1,294 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.query;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.AnnotationIntrospector;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.exceptions.InvalidQueryParameterException;
+
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * Parses the query parameter {@link #FIELDS_PARAMETER} (e.g. <code>fields=title,rating</code>) into a
+ * {@link ProjectionPlan}. Fields are named by their JSON property names. Only basic attributes which are
+ * serialized by Jackson without property specific serializer or format can be selected - so that a projection
+ * never reveals more than the entity itself and writes the values in the same way. If single entities are written
+ * with a detail view, only properties of this view can be selected. The id is always selected.
+ * </p>
+ *
+ * <p>
+ * Besides fields, plans can be created for Jackson views, see {@link #createViewPlan(Class)}.
+ * </p>
+ *
+ * <p>
+ * Plans are cached per field set, independent of the order of the fields. At most {@link #MAX_CACHED_PLANS} plans
+ * are cached; further plans are created for every request.
+ * </p>
+ */
+public class EntityProjectionCompiler {
+
+    public static final String FIELDS_PARAMETER = "fields";
+
+    /**
+     * Maximum number of cached plans.
+     */
+    public static final int MAX_CACHED_PLANS = 256;
+
+    private final String idAttributeName;
+
+    private final Map<String, String> attributeNamesByPropertyName;
+
+    private final Map<String, String> propertyNamesByAttributeName;
+
+    private final List<BeanPropertyDefinition> serializedProperties;
+
+    private final boolean defaultViewInclusion;
+
+    private final Map<String, ProjectionPlan> planCache = new ConcurrentHashMap<>();
+
+    /**
+     * Collects the attributes which can be selected.
+     *
+     * @param entityType   Type of entity.
+     * @param objectMapper ObjectMapper which serializes the entity.
+     * @param detailView   Jackson view single entities are written with or null if they are written without view.
+     */
+    public EntityProjectionCompiler(final EntityType entityType,
+                                    final ObjectMapper objectMapper,
+                                    final Class<?> detailView) {
+        if ( entityType == null ) throw new IllegalArgumentException("entityType must not be null");
+        if ( objectMapper == null ) throw new IllegalArgumentException("objectMapper must not be null");
+
+        this.defaultViewInclusion = objectMapper.isEnabled(MapperFeature.DEFAULT_VIEW_INCLUSION);
+        this.idAttributeName = entityType.getId(entityType.getIdType().getJavaType()).getName();
+
+        final Set<String> basicAttributeNames = new HashSet<>();
+        for ( final Object attribute : entityType.getSingularAttributes() ) {
+            final SingularAttribute singularAttribute = (SingularAttribute) attribute;
+
+            if ( singularAttribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC ) {
+                basicAttributeNames.add(singularAttribute.getName());
+            }
+        }
+
+        final BeanDescription description = objectMapper.getSerializationConfig()
+                .introspect(objectMapper.constructType(entityType.getJavaType()));
+        final AnnotationIntrospector introspector = objectMapper.getSerializationConfig().getAnnotationIntrospector();
+
+        final Map<String, String> attributeNames = new HashMap<>();
+        final Map<String, String> propertyNames = new HashMap<>();
+        final List<BeanPropertyDefinition> serialized = new ArrayList<>();
+
+        for ( final BeanPropertyDefinition property : description.findProperties() ) {
+            if ( !property.couldSerialize() ) continue;
+
+            serialized.add(property);
+
+            if ( !basicAttributeNames.contains(property.getInternalName()) ) continue;
+
+            if ( introspector.findSerializer(property.getAccessor()) != null ||
+                    hasFormat(introspector, property) ) continue;
+
+            propertyNames.put(property.getInternalName(), property.getName());
+
+            // fields must not reveal properties which single entities do not show
+            if ( detailView == null || isInView(property, detailView) ) {
+                attributeNames.put(property.getName(), property.getInternalName());
+            }
+        }
+
+        this.attributeNamesByPropertyName = Map.copyOf(attributeNames);
+        this.propertyNamesByAttributeName = Map.copyOf(propertyNames);
+        this.serializedProperties = List.copyOf(serialized);
+    }
+
+    /**
+     * Checks whether the property is written with the given view. Properties without view are part of every view,
+     * if <code>MapperFeature.DEFAULT_VIEW_INCLUSION</code> is enabled.
+     *
+     * @param property Property to check.
+     * @param view     Jackson view.
+     * @return True if the property belongs to the view.
+     */
+    private boolean isInView(final BeanPropertyDefinition property, final Class<?> view) {
+        final Class<?>[] propertyViews = property.findViews();
+
+        return propertyViews == null ?
+                defaultViewInclusion :
+                Arrays.stream(propertyViews).anyMatch(propertyView -> propertyView.isAssignableFrom(view));
+    }
+
+    /**
+     * Checks whether the property has a format. Introspector pairs (e.g. Spring Boot's ObjectMapper) return an
+     * empty format instead of null for properties without format.
+     *
+     * @param introspector Introspector of ObjectMapper.
+     * @param property     Property to check.
+     * @return True if a format is given.
+     */
+    private static boolean hasFormat(final AnnotationIntrospector introspector, final BeanPropertyDefinition property) {
+        final JsonFormat.Value format = introspector.findFormat(property.getAccessor());
+        return format != null && !format.equals(JsonFormat.Value.empty());
+    }
+
+    /**
+     * Checks whether a projection is requested, which is the case if the fields parameter is present.
+     *
+     * @param queryParameters Query parameters of request.
+     * @return True if fields are given.
+     */
+    public boolean isProjectionRequested(final Map<String, String[]> queryParameters) {
+        return queryParameters.containsKey(FIELDS_PARAMETER);
+    }
+
+    /**
+     * Parses the comma separated fields of the fields parameter (which may also be given multiple times).
+     *
+     * @param queryParameters         Query parameters of request.
+     * @param additionalAttributeName Attribute to select in any case (e.g. the sort attribute for cursors) or null.
+     * @return Plan or null if no projection is requested.
+     * @throws InvalidQueryParameterException if a field is unknown or can not be selected.
+     */
+    public ProjectionPlan parse(final Map<String, String[]> queryParameters, final String additionalAttributeName) {
+        final String[] values = queryParameters.get(FIELDS_PARAMETER);
+        if ( values == null ) return null;
+
+        final Set<String> attributeNames = new HashSet<>();
+
+        for ( final String value : values ) {
+            for ( final String field : value.split(",") ) {
+                if ( field.isBlank() ) continue;
+
+                final String attributeName = attributeNamesByPropertyName.get(field.trim());
+
+                if ( attributeName == null ) {
+                    throw new InvalidQueryParameterException("Field '" + field.trim() + "' can not be selected",
+                            FIELDS_PARAMETER);
+                }
+
+                attributeNames.add(attributeName);
+            }
+        }
+
+        if ( attributeNames.isEmpty() ) {
+            throw new InvalidQueryParameterException("No fields given", FIELDS_PARAMETER);
+        }
+
+        if ( additionalAttributeName != null ) attributeNames.add(additionalAttributeName);
+
+        return getPlan(attributeNames);
+    }
+
+    /**
+     * Creates a plan which selects all properties of the given Jackson view. Properties without view are part of
+     * the view, if <code>MapperFeature.DEFAULT_VIEW_INCLUSION</code> is enabled.
+     *
+     * @param view Jackson view.
+     * @return Plan.
+     * @throws IllegalArgumentException if the view contains a property which can not be selected.
+     */
+    public ProjectionPlan createViewPlan(final Class<?> view) {
+        final Set<String> attributeNames = new HashSet<>();
+
+        for ( final BeanPropertyDefinition property : serializedProperties ) {
+            if ( !isInView(property, view) ) continue;
+
+            if ( !propertyNamesByAttributeName.containsKey(property.getInternalName()) ) {
+                throw new IllegalArgumentException("Property '" + property.getName() + "' of view " + view.getName() +
+                        " can not be selected. Only basic attributes without property specific serializer or " +
+                        "format are supported.");
+            }
+
+            attributeNames.add(property.getInternalName());
+        }
+
+        return getPlan(attributeNames);
+    }
+
+    /**
+     * Returns a plan which selects the attributes of the given plan and the given attribute.
+     *
+     * @param plan          Plan.
+     * @param attributeName Attribute to select in addition or null.
+     * @return Given plan if it already selects the attribute (or attribute is null), otherwise an extended plan.
+     */
+    public ProjectionPlan withAttribute(final ProjectionPlan plan, final String attributeName) {
+        if ( attributeName == null || plan.getAttributeNames().contains(attributeName) ) return plan;
+
+        final Set<String> attributeNames = new HashSet<>(plan.getAttributeNames());
+        attributeNames.add(attributeName);
+
+        return getPlan(attributeNames);
+    }
+
+    /**
+     * Returns the cached plan for the given attributes or creates it.
+     *
+     * @param selectedAttributeNames Attributes to select. The id is added in any case.
+     * @return Plan.
+     */
+    private ProjectionPlan getPlan(final Collection<String> selectedAttributeNames) {
+        // sorted, so that the order of fields does not matter for caching
+        final SortedSet<String> attributeNames = new TreeSet<>(selectedAttributeNames);
+        attributeNames.remove(idAttributeName);
+
+        final String key = String.join(",", attributeNames);
+
+        ProjectionPlan plan = planCache.get(key);
+
+        if ( plan == null ) {
+            plan = createPlan(attributeNames);
+
+            if ( planCache.size() < MAX_CACHED_PLANS ) {
+                planCache.putIfAbsent(key, plan);
+            }
+        }
+
+        return plan;
+    }
+
+    /**
+     * Creates a plan which selects the id first and the given attributes afterwards.
+     *
+     * @param attributeNames Attributes to select besides the id.
+     * @return Plan.
+     */
+    private ProjectionPlan createPlan(final Collection<String> attributeNames) {
+        final List<String> selectedAttributeNames = new ArrayList<>();
+        selectedAttributeNames.add(idAttributeName);
+        selectedAttributeNames.addAll(attributeNames);
+
+        final List<String> propertyNames = new ArrayList<>();
+        for ( final String attributeName : selectedAttributeNames ) {
+            propertyNames.add(propertyNamesByAttributeName.getOrDefault(attributeName, attributeName));
+        }
+
+        return new ProjectionPlan(selectedAttributeNames, propertyNames);
+    }
+
+    /**
+     * Returns the JSON property names of the attributes which can be selected.
+     *
+     * @return Field names.
+     */
+    public Set<String> getSelectableFieldNames() {
+        return attributeNamesByPropertyName.keySet();
+    }
+
+    /**
+     * Returns the number of cached plans.
+     *
+     * @return Cache size.
+     */
+    public int getCachedPlanCount() {
+        return planCache.size();
+    }
+
+}
@@ -0,0 +1,1448 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.query;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.fetch.EntityFetchPlan;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.exceptions.IdValueNotParsableException;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.exceptions.InvalidQueryParameterException;
+import org.hibernate.Session;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.util.ClassUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.ManyToMany;
+import javax.persistence.OneToMany;
+import javax.persistence.PersistenceException;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * Runs collection queries for one entity type via the JPA criteria API. Collection queries are always
+ * limited to one page. No count query is executed: one more row than requested is fetched to find out,
+ * whether there is a next page.
+ * </p>
+ *
+ * <p>
+ * Also parses the paging and sorting query parameters {@link #PAGE_PARAMETER}, {@link #SIZE_PARAMETER}
+ * and {@link #SORT_PARAMETER}. Only basic attributes of the entity can be used for sorting. Results are always
+ * ordered by the id attribute last, so that pages are stable.
+ * </p>
+ *
+ * <p>
+ * Besides offset paging, keyset paging is supported (query parameter {@link #CURSOR_PARAMETER}). There, the next
+ * page is selected via <code>WHERE (sort, id) &gt; (?, ?)</code> instead of an offset. By this, deep pages cost
+ * the same as the first one. Both modes can be restricted to an id range via {@link #START_KEY_PARAMETER} and
+ * {@link #END_KEY_PARAMETER} (both inclusive) and by an {@link EntityFilter}. Instead of entities, all modes can
+ * select only some attributes via a {@link ProjectionPlan}. Then, the rows are returned as {@link ProjectedRow}s.
+ * </p>
+ *
+ * <p>
+ * Finally, whole collections can be streamed (query parameter {@link #STREAM_PARAMETER}), see
+ * {@link #streamAll(Sort, Object, Object, EntityFilter, ProjectionPlan, int, Consumer)}. Specific entities can be requested via
+ * {@link #IDS_PARAMETER}, see {@link #parseIds(Map, Function, int)}.
+ * </p>
+ *
+ * <p>
+ * If a {@link EntityFetchPlan} is given, all queries for entities (not for projections) apply its fetch graph and
+ * load its collections afterwards in batches, see {@link #loadCollections(List)}. Single entities and entities by
+ * id are loaded with the fetch plan via {@link #findById(Object)} and {@link #findAllById(Collection)}.
+ * </p>
+ *
+ * <p>
+ * The entities of one collection of another entity can be paged as well, without loading that collection, see
+ * {@link #findAssociatedSlice(EntityType, String, Object, Pageable, ProjectionPlan)}.
+ * </p>
+ *
+ * <p>
+ * Besides queries, single entities can be deleted or updated by one bulk statement, see {@link #deleteById(Object)}
+ * and {@link #updateById(Object, Object, Collection)}. Many entities can be deleted by id or id range, see
+ * {@link #deleteAllById(Collection)} and {@link #deleteByIdRange(Object, Object)}. Bulk saves are supported by
+ * {@link #setJdbcBatchSize(int)} and {@link #flushAndClear()}.
+ * </p>
+ */
+public class EntityQueryWorker {
+
+    public static final String PAGE_PARAMETER = "page";
+
+    public static final String SIZE_PARAMETER = "size";
+
+    public static final String SORT_PARAMETER = "sort";
+
+    public static final String CURSOR_PARAMETER = "cursor";
+
+    public static final String START_KEY_PARAMETER = "startkey";
+
+    public static final String END_KEY_PARAMETER = "endkey";
+
+    public static final String STREAM_PARAMETER = "stream";
+
+    public static final String IDS_PARAMETER = "ids";
+
+    private final EntityManager entityManager;
+
+    private final EntityType entityType;
+
+    private final String idAttributeName;
+
+    private final SingularAttribute idAttribute;
+
+    private final Set<String> sortableAttributeNames;
+
+    private final Map<String, SingularAttribute> keysetSortableAttributes;
+
+    private final SingularAttribute versionAttribute;
+
+    private final List<SingularAttribute> updatableAttributes;
+
+    private final EntityFetchPlan fetchPlan;
+
+    /**
+     * Same as {@link #EntityQueryWorker(EntityManager, EntityType, EntityFetchPlan)} without fetch plan.
+     *
+     * @param entityManager EntityManager to create queries with.
+     * @param entityType    Type of entity to query.
+     */
+    public EntityQueryWorker(final EntityManager entityManager, final EntityType entityType) {
+        this(entityManager, entityType, null);
+    }
+
+    /**
+     * Stores values and collects the sortable and updatable attributes of the entity type.
+     *
+     * @param entityManager EntityManager to create queries with.
+     * @param entityType    Type of entity to query.
+     * @param fetchPlan     Associations to load with the entities or null.
+     */
+    public EntityQueryWorker(final EntityManager entityManager,
+                             final EntityType entityType,
+                             final EntityFetchPlan fetchPlan) {
+
+        if ( entityManager == null ) throw new IllegalArgumentException("entityManager must not be null");
+        if ( entityType == null ) throw new IllegalArgumentException("entityType must not be null");
+
+        this.entityManager = entityManager;
+        this.entityType = entityType;
+        this.fetchPlan = fetchPlan;
+        this.idAttribute = entityType.getId(entityType.getIdType().getJavaType());
+        this.idAttributeName = idAttribute.getName();
+
+        final Set<String> sortable = new HashSet<>();
+        final Map<String, SingularAttribute> keysetSortable = new HashMap<>();
+        final List<SingularAttribute> updatable = new ArrayList<>();
+        SingularAttribute version = null;
+
+        for ( final Object attribute : entityType.getSingularAttributes() ) {
+            final SingularAttribute singularAttribute = (SingularAttribute) attribute;
+
+            if ( singularAttribute.isVersion() ) {
+                version = singularAttribute;
+
+            } else if ( !singularAttribute.isId() &&
+                    (singularAttribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC ||
+                            singularAttribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.MANY_TO_ONE) ) {
+
+                updatable.add(singularAttribute);
+            }
+
+            if ( singularAttribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC ) {
+                sortable.add(singularAttribute.getName());
+
+                // keyset comparisons do not work with null values. Hibernate reports primitives as optional
+                // unless nullable is set to false.
+                final boolean notNull = !singularAttribute.isOptional() || singularAttribute.getJavaType().isPrimitive();
+
+                if ( notNull && !singularAttribute.isId() &&
+                        Comparable.class.isAssignableFrom(ClassUtils.resolvePrimitiveIfNecessary(singularAttribute.getJavaType())) ) {
+
+                    keysetSortable.put(singularAttribute.getName(), singularAttribute);
+                }
+            }
+        }
+
+        this.sortableAttributeNames = Set.copyOf(sortable);
+        this.keysetSortableAttributes = Map.copyOf(keysetSortable);
+        this.versionAttribute = version;
+        this.updatableAttributes = List.copyOf(updatable);
+    }
+
+    /**
+     * Checks whether keyset paging is requested, which is the case if the cursor parameter is present
+     * (even without value).
+     *
+     * @param queryParameters Query parameters of request.
+     * @return True if keyset paging is requested.
+     */
+    public boolean isKeysetPageRequested(final Map<String, String[]> queryParameters) {
+        return queryParameters.containsKey(CURSOR_PARAMETER);
+    }
+
+    /**
+     * Checks whether streaming of the whole collection is requested, which is the case if the stream parameter
+     * is present (even without value).
+     *
+     * @param queryParameters Query parameters of request.
+     * @return True if streaming is requested.
+     */
+    public boolean isStreamRequested(final Map<String, String[]> queryParameters) {
+        return queryParameters.containsKey(STREAM_PARAMETER);
+    }
+
+    /**
+     * Parses the sort parameter for streaming. The paging parameters page, size and cursor are not allowed.
+     *
+     * @param queryParameters Query parameters of request.
+     * @return Sort.
+     * @throws InvalidQueryParameterException if a paging parameter is present or the sort is invalid.
+     */
+    public Sort parseStreamSort(final Map<String, String[]> queryParameters) {
+        for ( final String pagingParameter : List.of(PAGE_PARAMETER, SIZE_PARAMETER, CURSOR_PARAMETER) ) {
+            if ( queryParameters.containsKey(pagingParameter) ) {
+                throw new InvalidQueryParameterException("Paging can not be combined with stream", pagingParameter);
+            }
+        }
+
+        return parseSort(queryParameters.get(SORT_PARAMETER));
+    }
+
+    /**
+     * Checks whether a multi-get is requested, which is the case if the ids parameter is present.
+     *
+     * @param queryParameters Query parameters of request.
+     * @return True if specific ids are requested.
+     */
+    public boolean isMultiGetRequested(final Map<String, String[]> queryParameters) {
+        return queryParameters.containsKey(IDS_PARAMETER);
+    }
+
+    /**
+     * Parses the comma separated ids of the ids parameter (which may also be given multiple times). The order
+     * of the request is kept, duplicates are kept as well. Paging, sorting, streaming and id ranges can not be
+     * combined with ids.
+     *
+     * @param queryParameters Query parameters of request.
+     * @param idParser        Parses one id, e.g. {@link com.hedgehogsmind.springcouchrest.workers.mapping.entity.MappedEntitySubHandlerBase}'s parseId.
+     * @param maxIds          Maximum number of ids.
+     * @return Ids in request order.
+     * @throws InvalidQueryParameterException if there are no, too many or invalid ids or other collection parameters.
+     */
+    public List<Object> parseIds(final Map<String, String[]> queryParameters,
+                                 final Function<String, Object> idParser,
+                                 final int maxIds) {
+
+        for ( final String parameter : List.of(PAGE_PARAMETER, SIZE_PARAMETER, SORT_PARAMETER, CURSOR_PARAMETER,
+                STREAM_PARAMETER, START_KEY_PARAMETER, END_KEY_PARAMETER) ) {
+
+            if ( queryParameters.containsKey(parameter) ) {
+                throw new InvalidQueryParameterException("Parameter can not be combined with ids", parameter);
+            }
+        }
+
+        final List<Object> ids = new ArrayList<>();
+
+        for ( final String value : queryParameters.get(IDS_PARAMETER) ) {
+            for ( final String id : value.split(",") ) {
+                if ( id.isBlank() ) continue;
+
+                if ( ids.size() == maxIds ) {
+                    throw new InvalidQueryParameterException("More than " + maxIds + " ids requested", IDS_PARAMETER);
+                }
+
+                try {
+                    ids.add(idParser.apply(id.trim()));
+                } catch ( IdValueNotParsableException e ) {
+                    throw new InvalidQueryParameterException("Parameter contains invalid id", e, IDS_PARAMETER);
+                }
+            }
+        }
+
+        if ( ids.isEmpty() ) {
+            throw new InvalidQueryParameterException("No ids given", IDS_PARAMETER);
+        }
+
+        return ids;
+    }
+
+    /**
+     * Removes duplicates and pads the ids to the next power of two by repeating the last id. By this, IN lists
+     * only have a few distinct sizes, so that statement and plan caches of Hibernate and the database stay warm.
+     *
+     * @param ids Ids, not empty.
+     * @param <T> Type of ids.
+     * @return Distinct ids padded to a power of two.
+     */
+    public static <T> List<T> padToPowerOfTwo(final Collection<T> ids) {
+        final List<T> padded = new ArrayList<>(new LinkedHashSet<>(ids));
+        final T last = padded.get(padded.size() - 1);
+        final int paddedSize = Integer.highestOneBit(padded.size() - 1) << 1;
+
+        while ( padded.size() < paddedSize ) {
+            padded.add(last);
+        }
+
+        return padded;
+    }
+
+    /**
+     * Parses paging and sorting query parameters. A missing page defaults to the first one, a missing size to
+     * the given default size. Sizes greater than maxPageSize are reduced to maxPageSize. The sort parameter
+     * can be given multiple times with values like <code>title</code> or <code>title,desc</code>.
+     *
+     * @param queryParameters Query parameters of request.
+     * @param defaultPageSize Page size if none is given.
+     * @param maxPageSize     Maximum page size.
+     * @return Requested page.
+     * @throws InvalidQueryParameterException if a parameter value is invalid.
+     */
+    public Pageable parsePageable(final Map<String, String[]> queryParameters,
+                                  final int defaultPageSize,
+                                  final int maxPageSize) {
+
+        final int page = parseNonNegativeInt(queryParameters, PAGE_PARAMETER, 0);
+        final int requestedSize = parseNonNegativeInt(queryParameters, SIZE_PARAMETER, defaultPageSize);
+
+        if ( requestedSize == 0 ) {
+            throw new InvalidQueryParameterException("Page size must be positive", SIZE_PARAMETER);
+        }
+
+        final int size = Math.min(requestedSize, maxPageSize);
+
+        if ( (long) page * size > Integer.MAX_VALUE ) {
+            throw new InvalidQueryParameterException("Page offset too large", PAGE_PARAMETER);
+        }
+
+        return PageRequest.of(page, size, parseSort(queryParameters.get(SORT_PARAMETER)));
+    }
+
+    /**
+     * Parses the query parameters for keyset paging. An empty cursor requests the first page. At most one sort
+     * parameter is allowed and only non optional basic attributes can be used, as keyset comparisons do not work
+     * with null values. The id is used as tie breaker in the same direction. The page parameter is not allowed.
+     *
+     * @param queryParameters Query parameters of request.
+     * @param defaultPageSize Page size if none is given.
+     * @param maxPageSize     Maximum page size.
+     * @param objectMapper    ObjectMapper to decode the cursor with.
+     * @return Requested keyset page.
+     * @throws InvalidQueryParameterException if a parameter value is invalid.
+     */
+    public KeysetPageRequest parseKeysetPageRequest(final Map<String, String[]> queryParameters,
+                                                    final int defaultPageSize,
+                                                    final int maxPageSize,
+                                                    final ObjectMapper objectMapper) {
+
+        if ( queryParameters.containsKey(PAGE_PARAMETER) ) {
+            throw new InvalidQueryParameterException("Page can not be combined with cursor", PAGE_PARAMETER);
+        }
+
+        final int requestedSize = parseNonNegativeInt(queryParameters, SIZE_PARAMETER, defaultPageSize);
+
+        if ( requestedSize == 0 ) {
+            throw new InvalidQueryParameterException("Page size must be positive", SIZE_PARAMETER);
+        }
+
+        final Sort sort = parseSort(queryParameters.get(SORT_PARAMETER));
+        final List<Sort.Order> orders = sort.toList();
+
+        if ( orders.size() > 1 ) {
+            throw new InvalidQueryParameterException("Only one sort attribute allowed with cursor", SORT_PARAMETER);
+        }
+
+        String sortAttributeName = null;
+        boolean ascending = true;
+
+        if ( !orders.isEmpty() ) {
+            ascending = orders.get(0).isAscending();
+
+            if ( !orders.get(0).getProperty().equals(idAttributeName) ) {
+                sortAttributeName = orders.get(0).getProperty();
+
+                if ( !keysetSortableAttributes.containsKey(sortAttributeName) ) {
+                    throw new InvalidQueryParameterException("Attribute '" + sortAttributeName + "' can not be " +
+                            "used for sorting with cursor", SORT_PARAMETER);
+                }
+            }
+        }
+
+        final String[] cursorValues = queryParameters.get(CURSOR_PARAMETER);
+
+        if ( cursorValues != null && cursorValues.length > 1 ) {
+            throw new InvalidQueryParameterException("Parameter given more than once", CURSOR_PARAMETER);
+        }
+
+        KeysetCursor cursor = null;
+
+        if ( cursorValues != null && cursorValues.length == 1 && !cursorValues[0].isBlank() ) {
+            cursor = KeysetCursor.decode(
+                    cursorValues[0].trim(),
+                    objectMapper,
+                    sortAttributeName != null ? keysetSortableAttributes.get(sortAttributeName).getJavaType() : null,
+                    idAttribute.getJavaType()
+            );
+
+            if ( !cursor.matchesOrder(sortAttributeName, ascending) ) {
+                throw new InvalidQueryParameterException("Cursor has been created for another order", CURSOR_PARAMETER);
+            }
+        }
+
+        return new KeysetPageRequest(sortAttributeName, ascending, Math.min(requestedSize, maxPageSize), cursor);
+    }
+
+    private static int parseNonNegativeInt(final Map<String, String[]> queryParameters,
+                                           final String parameter,
+                                           final int defaultValue) {
+
+        final String[] values = queryParameters.get(parameter);
+        if ( values == null || values.length == 0 ) return defaultValue;
+
+        if ( values.length > 1 ) {
+            throw new InvalidQueryParameterException("Parameter given more than once", parameter);
+        }
+
+        try {
+            final int value = Integer.parseInt(values[0].trim());
+
+            if ( value < 0 ) {
+                throw new InvalidQueryParameterException("Parameter must not be negative", parameter);
+            }
+
+            return value;
+
+        } catch ( NumberFormatException e ) {
+            throw new InvalidQueryParameterException("Parameter not a number", e, parameter);
+        }
+    }
+
+    /**
+     * Parses the values of the sort parameter.
+     *
+     * @param values Values or null.
+     * @return Sort. Unsorted if no values given.
+     */
+    protected Sort parseSort(final String[] values) {
+        if ( values == null || values.length == 0 ) return Sort.unsorted();
+
+        final List<Sort.Order> orders = new ArrayList<>();
+
+        for ( final String value : values ) {
+            final int comma = value.indexOf(',');
+            final String attributeName = (comma < 0 ? value : value.substring(0, comma)).trim();
+            final String direction = comma < 0 ? "" : value.substring(comma + 1).trim();
+
+            if ( !sortableAttributeNames.contains(attributeName) ) {
+                throw new InvalidQueryParameterException("Unknown sort attribute '" + attributeName + "'", SORT_PARAMETER);
+            }
+
+            if ( direction.isEmpty() || direction.equalsIgnoreCase("asc") ) {
+                orders.add(Sort.Order.asc(attributeName));
+            } else if ( direction.equalsIgnoreCase("desc") ) {
+                orders.add(Sort.Order.desc(attributeName));
+            } else {
+                throw new InvalidQueryParameterException("Unknown sort direction '" + direction + "'", SORT_PARAMETER);
+            }
+        }
+
+        return Sort.by(orders);
+    }
+
+    /**
+     * Appends an ascending order by id, if the given sort does not order by id yet.
+     *
+     * @param sort Sort to complete.
+     * @return Sort with id order.
+     */
+    protected Sort withIdOrder(final Sort sort) {
+        return sort.getOrderFor(idAttributeName) == null ?
+                sort.and(Sort.by(idAttributeName)) :
+                sort;
+    }
+
+    /**
+     * Same as {@link #findSlice(Pageable, Object, Object, EntityFilter, ProjectionPlan)} without id range, filter
+     * and projection.
+     *
+     * @param pageable Requested page.
+     * @return Slice with the entities of the page.
+     */
+    public Slice<Object> findSlice(final Pageable pageable) {
+        return findSlice(pageable, null, null, EntityFilter.NONE, null);
+    }
+
+    /**
+     * Loads the requested page. Fetches one more row than the page size to determine, whether there
+     * is a next page.
+     *
+     * @param pageable Requested page.
+     * @param startKey Lowest id to include or null.
+     * @param endKey   Highest id to include or null.
+     * @param filter     Filter to apply.
+     * @param projection Attributes to select or null to load entities.
+     * @return Slice with the entities (or projected rows) of the page.
+     */
+    public Slice<Object> findSlice(final Pageable pageable,
+                                   final Object startKey,
+                                   final Object endKey,
+                                   final EntityFilter filter,
+                                   final ProjectionPlan projection) {
+
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Object> query = createSelectQuery(criteriaBuilder, projection);
+        final Root<?> root = query.from(entityType);
+
+        select(query, root, projection);
+        query.where(createRestrictions(criteriaBuilder, root, startKey, endKey, filter).toArray(new Predicate[0]));
+        query.orderBy(QueryUtils.toOrders(withIdOrder(pageable.getSort()), root, criteriaBuilder));
+
+        return toSlice(createQuery(query, filter, projection), pageable, projection);
+    }
+
+    /**
+     * <p>
+     * Loads the requested page of the entities of this worker, which are associated with one owning entity via
+     * the given collection attribute. Fetches one more row than the page size to determine, whether there is a
+     * next page. The collection itself is never loaded.
+     * </p>
+     *
+     * <p>
+     * If the collection is mapped by an attribute of this entity (<code>mappedBy</code>), the query runs on this
+     * owning side: <code>SELECT e FROM Entity e WHERE e.owner.id = ?</code>. Then, the fetch plan applies. Otherwise,
+     * the entities are selected via <code>SELECT e FROM Owner o JOIN o.attribute e WHERE o.id = ?</code> and only
+     * the collections of the fetch plan are loaded.
+     * </p>
+     *
+     * @param ownerType     Type of owning entity.
+     * @param attributeName Name of collection attribute of owning entity.
+     * @param ownerId       Id of owning entity.
+     * @param pageable      Requested page. Sorted by attributes of this entity.
+     * @param projection    Attributes to select or null to load entities.
+     * @return Slice with the entities (or projected rows) of the page.
+     */
+    public Slice<Object> findAssociatedSlice(final EntityType<?> ownerType,
+                                             final String attributeName,
+                                             final Object ownerId,
+                                             final Pageable pageable,
+                                             final ProjectionPlan projection) {
+
+        final Attribute<?, ?> association = ownerType.getAttribute(attributeName);
+        final String ownerIdAttributeName = ownerType.getId(ownerType.getIdType().getJavaType()).getName();
+        final String mappedBy = findMappedBy(association);
+
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Object> query = createSelectQuery(criteriaBuilder, projection);
+        final From<?, ?> target;
+
+        if ( mappedBy != null ) {
+            final Root<?> root = query.from(entityType);
+            final Path<?> owner = entityType.getAttribute(mappedBy).isCollection() ?
+                    root.join(mappedBy) :
+                    root.get(mappedBy);
+
+            query.where(criteriaBuilder.equal(owner.get(ownerIdAttributeName), ownerId));
+            target = root;
+
+        } else {
+            final Root<?> owner = query.from(ownerType);
+            target = owner.join(attributeName);
+
+            query.where(criteriaBuilder.equal(owner.get(ownerIdAttributeName), ownerId));
+        }
+
+        if ( projection != null ) {
+            query.multiselect(projection.createSelections(target));
+        } else {
+            query.select(target);
+        }
+
+        query.orderBy(QueryUtils.toOrders(withIdOrder(pageable.getSort()), target, criteriaBuilder));
+
+        // the fetch graph describes this entity, so it can only be applied if this entity is the root
+        final TypedQuery<Object> typedQuery = mappedBy != null ?
+                createQuery(query, EntityFilter.NONE, projection) :
+                entityManager.createQuery(query);
+
+        return toSlice(typedQuery, pageable, projection);
+    }
+
+    /**
+     * Reads the <code>mappedBy</code> attribute of the JPA annotation of the given collection.
+     *
+     * @param association Collection attribute.
+     * @return Name of the attribute of the associated entity or null if the collection is not mapped by one.
+     */
+    private static String findMappedBy(final Attribute<?, ?> association) {
+        if ( !(association.getJavaMember() instanceof AnnotatedElement) ) return null;
+
+        final AnnotatedElement member = (AnnotatedElement) association.getJavaMember();
+        final OneToMany oneToMany = member.getAnnotation(OneToMany.class);
+        final ManyToMany manyToMany = member.getAnnotation(ManyToMany.class);
+
+        final String mappedBy = oneToMany != null ?
+                oneToMany.mappedBy() :
+                manyToMany != null ? manyToMany.mappedBy() : "";
+
+        return mappedBy.isEmpty() ? null : mappedBy;
+    }
+
+    /**
+     * Runs the given query for one page. Fetches one more row than the page size to determine, whether there is a
+     * next page. The collections of the fetch plan are loaded for the found entities.
+     *
+     * @param typedQuery Query for entities or projected values.
+     * @param pageable   Requested page.
+     * @param projection Attributes selected by the query or null if it selects entities.
+     * @return Slice with the entities (or projected rows) of the page.
+     */
+    private Slice<Object> toSlice(final TypedQuery<Object> typedQuery,
+                                  final Pageable pageable,
+                                  final ProjectionPlan projection) {
+
+        final List<Object> result = toRows(typedQuery
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .setHint(QueryHints.READ_ONLY, true)
+                .getResultList(), projection);
+
+        final boolean hasNext = result.size() > pageable.getPageSize();
+        final List<Object> content = hasNext ? result.subList(0, pageable.getPageSize()) : result;
+
+        if ( projection == null ) loadCollections(content);
+
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    /**
+     * Loads the requested keyset page. The page starts after the position of the cursor, if given. Fetches one
+     * more row than the page size to determine, whether there is a next page.
+     *
+     * @param request  Requested page.
+     * @param startKey Lowest id to include or null.
+     * @param endKey   Highest id to include or null.
+     * @param filter     Filter to apply.
+     * @param projection Attributes to select or null to load entities. Must contain the sort attribute.
+     * @return Slice with the entities (or projected rows) of the page and the cursor for the next one.
+     */
+    @SuppressWarnings("unchecked")
+    public KeysetSlice findKeysetSlice(final KeysetPageRequest request,
+                                       final Object startKey,
+                                       final Object endKey,
+                                       final EntityFilter filter,
+                                       final ProjectionPlan projection) {
+
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Object> query = createSelectQuery(criteriaBuilder, projection);
+        final Root<?> root = query.from(entityType);
+
+        final Expression<Comparable> idPath = root.get(idAttributeName);
+        final Expression<Comparable> sortPath = request.getSortAttributeName() != null ?
+                root.get(request.getSortAttributeName()) :
+                null;
+
+        final List<Predicate> predicates = createRestrictions(criteriaBuilder, root, startKey, endKey, filter);
+
+        final KeysetCursor cursor = request.getCursor();
+        if ( cursor != null ) {
+            final Comparable cursorId = (Comparable) cursor.getIdValue();
+            final Predicate afterId = request.isAscending() ?
+                    criteriaBuilder.greaterThan(idPath, cursorId) :
+                    criteriaBuilder.lessThan(idPath, cursorId);
+
+            if ( sortPath == null ) {
+                predicates.add(afterId);
+
+            } else {
+                // (sort, id) > (?, ?) expanded, because JPA does not support row value comparisons
+                final Comparable cursorSortValue = (Comparable) cursor.getSortValue();
+                final Predicate afterSortValue = request.isAscending() ?
+                        criteriaBuilder.greaterThan(sortPath, cursorSortValue) :
+                        criteriaBuilder.lessThan(sortPath, cursorSortValue);
+
+                predicates.add(criteriaBuilder.or(
+                        afterSortValue,
+                        criteriaBuilder.and(criteriaBuilder.equal(sortPath, cursorSortValue), afterId)
+                ));
+            }
+        }
+
+        final List<javax.persistence.criteria.Order> orders = new ArrayList<>();
+        if ( sortPath != null ) {
+            orders.add(request.isAscending() ? criteriaBuilder.asc(sortPath) : criteriaBuilder.desc(sortPath));
+        }
+        orders.add(request.isAscending() ? criteriaBuilder.asc(idPath) : criteriaBuilder.desc(idPath));
+
+        select(query, root, projection);
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(orders);
+
+        final List<Object> result = toRows(createQuery(query, filter, projection)
+                .setMaxResults(request.getSize() + 1)
+                .setHint(QueryHints.READ_ONLY, true)
+                .getResultList(), projection);
+
+        final List<Object> content = result.size() > request.getSize() ? result.subList(0, request.getSize()) : result;
+
+        if ( projection == null ) loadCollections(content);
+
+        if ( result.size() <= request.getSize() ) {
+            return new KeysetSlice(content, null);
+        }
+
+        final Object last = content.get(content.size() - 1);
+
+        return new KeysetSlice(
+                content,
+                new KeysetCursor(
+                        request.getSortAttributeName(),
+                        request.isAscending(),
+                        request.getSortAttributeName() != null ?
+                                readRowValue(last, keysetSortableAttributes.get(request.getSortAttributeName())) :
+                                null,
+                        readRowValue(last, idAttribute)
+                )
+        );
+    }
+
+    /**
+     * <p>
+     * Reads all entities in the given order via a forward-only cursor and passes them one by one to the given
+     * consumer. The JDBC driver fetches fetchSize rows at once. Entities are loaded read-only and detached
+     * right after the consumer returns, so that the persistence context does not grow. With a projection,
+     * {@link ProjectedRow}s are passed instead, which are never managed.
+     * </p>
+     *
+     * <p>
+     * If the fetch plan contains collections, entities are passed in batches of its batch size: the collections
+     * of a batch are loaded, then its entities are passed to the consumer and the persistence context is cleared.
+     * </p>
+     *
+     * <p>
+     * Must be called within a transaction (or with an EntityManager which stays open), as the cursor
+     * is read while the consumer runs.
+     * </p>
+     *
+     * @param sort      Order. Completed by an order by id.
+     * @param startKey  Lowest id to include or null.
+     * @param endKey    Highest id to include or null.
+     * @param filter     Filter to apply.
+     * @param projection Attributes to select or null to load entities.
+     * @param fetchSize  Number of rows fetched at once.
+     * @param consumer   Consumer receiving each entity (or projected row).
+     */
+    public void streamAll(final Sort sort,
+                          final Object startKey,
+                          final Object endKey,
+                          final EntityFilter filter,
+                          final ProjectionPlan projection,
+                          final int fetchSize,
+                          final Consumer<Object> consumer) {
+
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Object> query = createSelectQuery(criteriaBuilder, projection);
+        final Root<?> root = query.from(entityType);
+
+        select(query, root, projection);
+        query.where(createRestrictions(criteriaBuilder, root, startKey, endKey, filter).toArray(new Predicate[0]));
+        query.orderBy(QueryUtils.toOrders(withIdOrder(sort), root, criteriaBuilder));
+
+        final boolean loadsCollections = projection == null && fetchPlan != null &&
+                !fetchPlan.getCollectionAttributeNames().isEmpty();
+        final List<Object> batch = new ArrayList<>();
+
+        try ( final Stream<Object> entities = createQuery(query, filter, projection)
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.READ_ONLY, true)
+                .getResultStream() ) {
+
+            entities.forEach(entity -> {
+                if ( projection != null ) {
+                    consumer.accept(projection.toRow((Object[]) entity));
+
+                } else if ( loadsCollections ) {
+                    batch.add(entity);
+                    if ( batch.size() == fetchPlan.getBatchSize() ) consumeBatch(batch, consumer);
+
+                } else {
+                    consumer.accept(entity);
+                    entityManager.detach(entity);
+                }
+            });
+
+            if ( !batch.isEmpty() ) consumeBatch(batch, consumer);
+        }
+    }
+
+    /**
+     * Loads the collections of the given entities, passes them to the consumer, clears the persistence context
+     * and empties the batch.
+     *
+     * @param batch    Entities.
+     * @param consumer Consumer receiving each entity.
+     */
+    private void consumeBatch(final List<Object> batch, final Consumer<Object> consumer) {
+        loadCollections(batch);
+        batch.forEach(consumer);
+        entityManager.clear();
+        batch.clear();
+    }
+
+    /**
+     * Loads the entity with the given id with the fetch plan, if there is one.
+     *
+     * @param id Id of entity.
+     * @return Entity or empty if there is no entity with the given id.
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<Object> findById(final Object id) {
+        final Object entity = entityManager.find(
+                entityType.getJavaType(),
+                id,
+                fetchPlan != null ? fetchPlan.createHints(entityManager) : Map.of()
+        );
+
+        if ( entity != null ) loadCollections(List.of(entity));
+
+        return Optional.ofNullable(entity);
+    }
+
+    /**
+     * Loads the entities with the given ids via one <code>SELECT ... WHERE id IN (...)</code> query with the fetch
+     * plan, if there is one. The ids are padded, see {@link #padToPowerOfTwo(Collection)}.
+     *
+     * @param ids Ids of entities, not empty.
+     * @return Existing entities in no specific order.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object> findAllById(final Collection<Object> ids) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Object> query = criteriaBuilder.createQuery(entityType.getJavaType());
+        final Root<Object> root = query.from(entityType);
+
+        query.select(root).where(root.get(idAttribute).in(padToPowerOfTwo(ids)));
+
+        final List<Object> entities = createQuery(query, EntityFilter.NONE, null)
+                .setHint(QueryHints.READ_ONLY, true)
+                .getResultList();
+
+        loadCollections(entities);
+
+        return entities;
+    }
+
+    /**
+     * Loads the entities associated via the given attribute with the entities of the given ids by one
+     * <code>SELECT owner.id, target FROM ... JOIN owner.attribute target WHERE owner.id IN (...)</code> query.
+     * The ids are padded, see {@link #padToPowerOfTwo(Collection)}. Owners without associated entity are not
+     * contained.
+     *
+     * @param attributeName Name of association attribute (to-one or collection).
+     * @param ids           Ids of owning entities, not empty.
+     * @return Pairs of owner id and associated entity in no specific order.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findAssociated(final String attributeName, final Collection<Object> ids) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Object[]> query = criteriaBuilder.createQuery(Object[].class);
+        final Root<Object> root = query.from(entityType);
+        final Join<Object, Object> target = root.join(attributeName);
+
+        query.multiselect(root.get(idAttribute), target)
+                .where(root.get(idAttribute).in(padToPowerOfTwo(ids)));
+
+        return entityManager.createQuery(query)
+                .setHint(QueryHints.READ_ONLY, true)
+                .getResultList();
+    }
+
+    /**
+     * <p>
+     * Loads the collections of the fetch plan for the given managed entities: one query with
+     * <code>LEFT JOIN FETCH</code> per collection and batch of entities (selected by id). Hibernate initializes the
+     * collections of the already managed entities with the fetched rows. Does nothing without fetch plan.
+     * </p>
+     *
+     * <p>
+     * Must be called within a transaction (or with an EntityManager which stays open).
+     * </p>
+     *
+     * @param entities Managed entities.
+     */
+    @SuppressWarnings("unchecked")
+    public void loadCollections(final List<Object> entities) {
+        if ( fetchPlan == null || entities.isEmpty() ) return;
+
+        for ( final String collectionAttributeName : fetchPlan.getCollectionAttributeNames() ) {
+            for ( int start = 0; start < entities.size(); start += fetchPlan.getBatchSize() ) {
+                final List<Object> ids = new ArrayList<>();
+                for ( final Object entity : entities.subList(start, Math.min(entities.size(), start + fetchPlan.getBatchSize())) ) {
+                    ids.add(readAttributeValue(entity, idAttribute));
+                }
+
+                final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+                final CriteriaQuery<Object> query = criteriaBuilder.createQuery(entityType.getJavaType());
+                final Root<Object> root = query.from(entityType);
+
+                root.fetch(collectionAttributeName, JoinType.LEFT);
+                query.select(root).distinct(true).where(root.get(idAttribute).in(padToPowerOfTwo(ids)));
+
+                entityManager.createQuery(query).getResultList();
+            }
+        }
+    }
+
+    /**
+     * Selects the attributes of the given projection of the entity with the given id.
+     *
+     * @param id         Id of entity.
+     * @param projection Attributes to select.
+     * @return Row or empty if there is no entity with the given id.
+     */
+    public Optional<ProjectedRow> findProjectedById(final Object id, final ProjectionPlan projection) {
+        final List<ProjectedRow> rows = findAllProjectedById(List.of(id), projection);
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+
+    /**
+     * Selects the attributes of the given projection of the entities with the given ids via one
+     * <code>SELECT ... WHERE id IN (...)</code> query. The ids are padded, see {@link #padToPowerOfTwo(Collection)}.
+     *
+     * @param ids        Ids of entities, not empty.
+     * @param projection Attributes to select.
+     * @return Rows of existing entities in no specific order.
+     */
+    @SuppressWarnings("unchecked")
+    public List<ProjectedRow> findAllProjectedById(final Collection<Object> ids, final ProjectionPlan projection) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Object> query = createSelectQuery(criteriaBuilder, projection);
+        final Root<?> root = query.from(entityType);
+
+        select(query, root, projection);
+        query.where(root.get(idAttributeName).in(padToPowerOfTwo(ids)));
+
+        return (List<ProjectedRow>) (List) toRows(entityManager.createQuery(query).getResultList(), projection);
+    }
+
+    /**
+     * <p>
+     * Deletes the entity with the given id via one <code>DELETE ... WHERE id = ?</code> statement. The entity
+     * is neither loaded nor are cascades, callbacks or listeners executed. Check
+     * {@link com.hedgehogsmind.springcouchrest.util.EntityUtil#isBulkDeletable(EntityType, EntityManager)}
+     * before using this method.
+     * </p>
+     *
+     * <p>
+     * Must be called within a transaction.
+     * </p>
+     *
+     * @param id Id of entity to delete.
+     * @return Number of deleted rows; 0 if there is no entity with the given id.
+     */
+    @SuppressWarnings("unchecked")
+    public int deleteById(final Object id) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaDelete<Object> delete = criteriaBuilder.createCriteriaDelete(entityType.getJavaType());
+        final Root<Object> root = delete.from(entityType);
+
+        delete.where(criteriaBuilder.equal(root.get(idAttribute), id));
+
+        return entityManager.createQuery(delete).executeUpdate();
+    }
+
+    /**
+     * <p>
+     * Deletes the entities with the given ids via one <code>DELETE ... WHERE id IN (...)</code> statement. The ids
+     * are padded, see {@link #padToPowerOfTwo(Collection)}. Same restrictions as {@link #deleteById(Object)}.
+     * </p>
+     *
+     * <p>
+     * Must be called within a transaction.
+     * </p>
+     *
+     * @param ids Ids of entities to delete, not empty.
+     * @return Number of deleted rows.
+     */
+    @SuppressWarnings("unchecked")
+    public int deleteAllById(final Collection<Object> ids) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaDelete<Object> delete = criteriaBuilder.createCriteriaDelete(entityType.getJavaType());
+        final Root<Object> root = delete.from(entityType);
+
+        delete.where(root.get(idAttribute).in(padToPowerOfTwo(ids)));
+
+        return entityManager.createQuery(delete).executeUpdate();
+    }
+
+    /**
+     * <p>
+     * Deletes the entities within the given id range, which match the given filter, via one
+     * <code>DELETE ... WHERE id &gt;= ? AND id &lt;= ? AND ...</code> statement. Same restrictions as
+     * {@link #deleteById(Object)}.
+     * </p>
+     *
+     * <p>
+     * Must be called within a transaction.
+     * </p>
+     *
+     * @param startKey Lowest id to delete or null.
+     * @param endKey   Highest id to delete or null.
+     * @param filter   Filter to apply.
+     * @return Number of deleted rows.
+     */
+    @SuppressWarnings("unchecked")
+    public int deleteByIdRange(final Object startKey, final Object endKey, final EntityFilter filter) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaDelete<Object> delete = criteriaBuilder.createCriteriaDelete(entityType.getJavaType());
+        final Root<Object> root = delete.from(entityType);
+
+        delete.where(createRestrictions(criteriaBuilder, root, startKey, endKey, filter).toArray(new Predicate[0]));
+
+        final Query query = entityManager.createQuery(delete);
+        filter.bindParameters(query);
+
+        return query.executeUpdate();
+    }
+
+    /**
+     * Loads the entities within the given id range, which match the given filter, ordered by id. Used if entities
+     * can not be deleted by a bulk statement.
+     *
+     * @param startKey   Lowest id to include or null.
+     * @param endKey     Highest id to include or null.
+     * @param filter     Filter to apply.
+     * @param maxResults Maximum number of entities to load.
+     * @return Entities, at most maxResults.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object> findAllByIdRange(final Object startKey,
+                                         final Object endKey,
+                                         final EntityFilter filter,
+                                         final int maxResults) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Object> query = criteriaBuilder.createQuery(entityType.getJavaType());
+        final Root<Object> root = query.from(entityType);
+
+        query.select(root)
+                .where(createRestrictions(criteriaBuilder, root, startKey, endKey, filter).toArray(new Predicate[0]))
+                .orderBy(criteriaBuilder.asc(root.get(idAttribute)));
+
+        return createQuery(query, filter, null).setMaxResults(maxResults).getResultList();
+    }
+
+    /**
+     * <p>
+     * Updates the entity with the given id via one <code>UPDATE ... WHERE id = ?</code> statement, which sets the
+     * given basic and many-to-one attributes (see {@link #getUpdatableAttributeNames()}) to the values of the given
+     * instance. All other attributes keep their values. The existing entity is not loaded and no callbacks or
+     * listeners are executed. Check
+     * {@link com.hedgehogsmind.springcouchrest.util.EntityUtil#isBulkUpdatable(EntityType, EntityManager)}
+     * before using this method.
+     * </p>
+     *
+     * <p>
+     * If the entity has a version attribute, only the row with the version of the given instance is updated
+     * and the version is incremented. After a successful update, the given instance carries the new version.
+     * If the given instance has no version, nothing is updated.
+     * </p>
+     *
+     * <p>
+     * Must be called within a transaction.
+     * </p>
+     *
+     * @param id             Id of entity to update.
+     * @param entity         Instance holding the new values.
+     * @param attributeNames Names of the attributes to set.
+     * @return Number of updated rows; 0 if there is no entity with the given id (and version).
+     */
+    @SuppressWarnings("unchecked")
+    public int updateById(final Object id, final Object entity, final Collection<String> attributeNames) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaUpdate<Object> update = criteriaBuilder.createCriteriaUpdate(entityType.getJavaType());
+        final Root<Object> root = update.from(entityType);
+
+        final List<Predicate> predicates = new ArrayList<>();
+        predicates.add(criteriaBuilder.equal(root.get(idAttribute), id));
+
+        for ( final SingularAttribute attribute : updatableAttributes ) {
+            if ( attributeNames.contains(attribute.getName()) ) {
+                update.set(attribute.getName(), readAttributeValue(entity, attribute));
+            }
+        }
+
+        Number version = null;
+        if ( versionAttribute != null ) {
+            version = (Number) readAttributeValue(entity, versionAttribute);
+            if ( version == null ) return 0;
+
+            final Path<Number> versionPath = root.get(versionAttribute.getName());
+            update.set(versionPath, criteriaBuilder.sum(versionPath, toVersionType(1)));
+            predicates.add(criteriaBuilder.equal(versionPath, version));
+        }
+
+        update.where(predicates.toArray(new Predicate[0]));
+
+        final int updatedRows = entityManager.createQuery(update).executeUpdate();
+
+        if ( updatedRows > 0 && version != null ) {
+            writeAttributeValue(entity, versionAttribute, toVersionType(version.longValue() + 1));
+        }
+
+        return updatedRows;
+    }
+
+    /**
+     * Converts the given value to the type of the version attribute.
+     *
+     * @param value Value.
+     * @return Short, Integer or Long.
+     */
+    private Number toVersionType(final long value) {
+        final Class<?> versionType = ClassUtils.resolvePrimitiveIfNecessary(versionAttribute.getJavaType());
+
+        if ( versionType == Short.class ) return (short) value;
+        if ( versionType == Integer.class ) return (int) value;
+        if ( versionType == Long.class ) return value;
+
+        throw new IllegalStateException("Unsupported version type " + versionType + " of entity " +
+                entityType.getJavaType());
+    }
+
+    /**
+     * <p>
+     * Sets the JDBC batch size of the current Hibernate session. By this, inserts and updates of one flush are sent
+     * in batches - independent of the global <code>hibernate.jdbc.batch_size</code>. Does nothing if the JPA
+     * provider is not Hibernate.
+     * </p>
+     *
+     * <p>
+     * Must be called within a transaction.
+     * </p>
+     *
+     * @param batchSize Batch size.
+     */
+    public void setJdbcBatchSize(final int batchSize) {
+        try {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+        } catch ( PersistenceException e ) {
+            // no Hibernate session > no batching
+        }
+    }
+
+    /**
+     * <p>
+     * Flushes all pending changes and detaches all managed entities afterwards. Exceptions are translated into
+     * Spring's DataAccessException hierarchy, like those of repositories.
+     * </p>
+     *
+     * <p>
+     * Must be called within a transaction.
+     * </p>
+     */
+    public void flushAndClear() {
+        try {
+            entityManager.flush();
+        } catch ( RuntimeException e ) {
+            final DataAccessException translated = EntityManagerFactoryUtils.convertJpaAccessExceptionIfPossible(e);
+            throw translated != null ? translated : e;
+        }
+
+        entityManager.clear();
+    }
+
+    /**
+     * Creates predicates restricting the id to the given range.
+     *
+     * @param criteriaBuilder Builder.
+     * @param root            Root of query.
+     * @param startKey        Lowest id to include or null.
+     * @param endKey          Highest id to include or null.
+     * @return Mutable list of 0-2 predicates.
+     */
+    @SuppressWarnings("unchecked")
+    protected List<Predicate> createIdRangePredicates(final CriteriaBuilder criteriaBuilder,
+                                                      final Root<?> root,
+                                                      final Object startKey,
+                                                      final Object endKey) {
+        final List<Predicate> predicates = new ArrayList<>();
+        final Expression<Comparable> idPath = root.get(idAttributeName);
+
+        if ( startKey != null ) predicates.add(criteriaBuilder.greaterThanOrEqualTo(idPath, (Comparable) startKey));
+        if ( endKey != null ) predicates.add(criteriaBuilder.lessThanOrEqualTo(idPath, (Comparable) endKey));
+
+        return predicates;
+    }
+
+    /**
+     * Creates predicates restricting the id to the given range and applying the given filter.
+     *
+     * @param criteriaBuilder Builder.
+     * @param root            Root of query.
+     * @param startKey        Lowest id to include or null.
+     * @param endKey          Highest id to include or null.
+     * @param filter          Filter to apply.
+     * @return Mutable list of predicates.
+     */
+    protected List<Predicate> createRestrictions(final CriteriaBuilder criteriaBuilder,
+                                                 final Root<?> root,
+                                                 final Object startKey,
+                                                 final Object endKey,
+                                                 final EntityFilter filter) {
+        final List<Predicate> predicates = createIdRangePredicates(criteriaBuilder, root, startKey, endKey);
+        predicates.addAll(filter.createPredicates(criteriaBuilder, root));
+        return predicates;
+    }
+
+    /**
+     * Creates a query for entities or - if a projection is given - for arrays of the projected values.
+     *
+     * @param criteriaBuilder Builder.
+     * @param projection      Attributes to select or null to load entities.
+     * @return Query without root.
+     */
+    @SuppressWarnings("unchecked")
+    private CriteriaQuery<Object> createSelectQuery(final CriteriaBuilder criteriaBuilder,
+                                                    final ProjectionPlan projection) {
+        return projection != null ?
+                (CriteriaQuery) criteriaBuilder.createQuery(Object[].class) :
+                criteriaBuilder.createQuery(entityType.getJavaType());
+    }
+
+    /**
+     * Selects the root entity or the attributes of the given projection.
+     *
+     * @param query      Query created by {@link #createSelectQuery(CriteriaBuilder, ProjectionPlan)}.
+     * @param root       Root of query.
+     * @param projection Attributes to select or null to load entities.
+     */
+    private void select(final CriteriaQuery<Object> query, final Root<?> root, final ProjectionPlan projection) {
+        if ( projection != null ) {
+            query.multiselect(projection.createSelections(root));
+        } else {
+            query.select(root);
+        }
+    }
+
+    /**
+     * Wraps the value arrays of a projection query into {@link ProjectedRow}s.
+     *
+     * @param result     Query result.
+     * @param projection Attributes selected or null if entities have been loaded.
+     * @return Rows or the given entities.
+     */
+    private List<Object> toRows(final List<Object> result, final ProjectionPlan projection) {
+        if ( projection == null ) return result;
+
+        final List<Object> rows = new ArrayList<>(result.size());
+        for ( final Object values : result ) {
+            rows.add(projection.toRow((Object[]) values));
+        }
+
+        return rows;
+    }
+
+    /**
+     * Checks whether the entity has a version attribute.
+     *
+     * @return True if there is a version attribute.
+     */
+    public boolean hasVersion() {
+        return versionAttribute != null;
+    }
+
+    /**
+     * Reads the version of the given entity.
+     *
+     * @param entity Entity.
+     * @return Version.
+     * @throws IllegalStateException if the entity has no version attribute.
+     */
+    public Object readVersion(final Object entity) {
+        if ( versionAttribute == null ) throw new IllegalStateException("Entity has no version attribute");
+
+        return readAttributeValue(entity, versionAttribute);
+    }
+
+    /**
+     * Reads the id of an entity or a projected row.
+     *
+     * @param row Entity or projected row.
+     * @return Id.
+     */
+    public Object readId(final Object row) {
+        return readRowValue(row, idAttribute);
+    }
+
+    /**
+     * Reads the value of the given attribute from an entity or a projected row.
+     *
+     * @param row       Entity or projected row.
+     * @param attribute Attribute to read.
+     * @return Value.
+     */
+    private Object readRowValue(final Object row, final SingularAttribute attribute) {
+        return row instanceof ProjectedRow ?
+                ((ProjectedRow) row).getValue(attribute.getName()) :
+                readAttributeValue(row, attribute);
+    }
+
+    /**
+     * Creates a typed query and binds the values of the given filter, whose predicates the query contains.
+     * Queries for entities get the fetch graph of the fetch plan, if there is one.
+     *
+     * @param query      Criteria query.
+     * @param filter     Filter used for the criteria query.
+     * @param projection Attributes selected by the criteria query or null if it selects entities.
+     * @return Typed query.
+     */
+    private TypedQuery<Object> createQuery(final CriteriaQuery<Object> query,
+                                           final EntityFilter filter,
+                                           final ProjectionPlan projection) {
+        final TypedQuery<Object> typedQuery = entityManager.createQuery(query);
+        filter.bindParameters(typedQuery);
+
+        if ( projection == null && fetchPlan != null ) {
+            fetchPlan.createHints(entityManager).forEach(typedQuery::setHint);
+        }
+
+        return typedQuery;
+    }
+
+    /**
+     * Reads the value of the given attribute from the entity via its field or getter.
+     *
+     * @param entity    Entity to read from.
+     * @param attribute Attribute to read.
+     * @return Value.
+     */
+    protected Object readAttributeValue(final Object entity, final SingularAttribute attribute) {
+        final Member member = attribute.getJavaMember();
+
+        try {
+            if ( member instanceof Field ) {
+                final Field field = (Field) member;
+                if ( !field.canAccess(entity) ) field.trySetAccessible();
+                return field.get(entity);
+
+            } else if ( member instanceof Method ) {
+                final Method method = (Method) member;
+                if ( !method.canAccess(entity) ) method.trySetAccessible();
+                return method.invoke(entity);
+
+            } else {
+                throw new IllegalStateException("Unsupported member type " + member.getClass() + " of attribute '" +
+                        attribute.getName() + "' of entity " + entityType.getJavaType());
+            }
+
+        } catch ( ReflectiveOperationException e ) {
+            throw new RuntimeException("Could not read attribute '" + attribute.getName() + "' of entity " +
+                    entityType.getJavaType(), e);
+        }
+    }
+
+    /**
+     * Writes the value of the given attribute via the field or - if the attribute is accessed via a getter - via
+     * the corresponding setter.
+     *
+     * @param entity    Entity to write.
+     * @param attribute Attribute to write.
+     * @param value     Value to write.
+     */
+    protected void writeAttributeValue(final Object entity, final SingularAttribute attribute, final Object value) {
+        final Member member = attribute.getJavaMember();
+
+        try {
+            if ( member instanceof Field ) {
+                final Field field = (Field) member;
+                if ( !field.canAccess(entity) ) field.trySetAccessible();
+                field.set(entity, value);
+
+            } else if ( member instanceof Method ) {
+                final String setterName = "set" + attribute.getName();
+                final Method setter = Arrays.stream(entityType.getJavaType().getMethods())
+                        .filter(method -> method.getName().equalsIgnoreCase(setterName) && method.getParameterCount() == 1)
+                        .findAny()
+                        .orElseThrow(() -> new IllegalStateException("No setter for attribute '" +
+                                attribute.getName() + "' of entity " + entityType.getJavaType()));
+
+                setter.invoke(entity, value);
+
+            } else {
+                throw new IllegalStateException("Unsupported member type " + member.getClass() + " of attribute '" +
+                        attribute.getName() + "' of entity " + entityType.getJavaType());
+            }
+
+        } catch ( ReflectiveOperationException e ) {
+            throw new RuntimeException("Could not write attribute '" + attribute.getName() + "' of entity " +
+                    entityType.getJavaType(), e);
+        }
+    }
+
+    public EntityManager getEntityManager() {
+        return entityManager;
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    public String getIdAttributeName() {
+        return idAttributeName;
+    }
+
+    public Set<String> getSortableAttributeNames() {
+        return sortableAttributeNames;
+    }
+
+    public Set<String> getKeysetSortableAttributeNames() {
+        return keysetSortableAttributes.keySet();
+    }
+
+    /**
+     * Returns the attributes which {@link #updateById(Object, Object, Collection)} can set: all basic and many-to-one
+     * attributes except id and version.
+     *
+     * @return Attribute names.
+     */
+    public Set<String> getUpdatableAttributeNames() {
+        return updatableAttributes.stream()
+                .map(Attribute::getName)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Returns the fetch plan applied to queries for entities.
+     *
+     * @return Fetch plan or empty.
+     */
+    public Optional<EntityFetchPlan> getFetchPlan() {
+        return Optional.ofNullable(fetchPlan);
+    }
+
+}
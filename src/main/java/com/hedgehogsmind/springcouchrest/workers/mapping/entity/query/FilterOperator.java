@@ -0,0 +1,92 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.query;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Operators of filter query parameters. A filter is given as <code>&lt;attribute&gt;.&lt;operator&gt;=value</code>,
+ * e.g. <code>rating.ge=3</code>.
+ */
+public enum FilterOperator {
+
+    /**
+     * Attribute equals value.
+     */
+    EQ("eq", false),
+
+    /**
+     * Attribute does not equal value.
+     */
+    NE("ne", false),
+
+    /**
+     * Attribute is less than value.
+     */
+    LT("lt", true),
+
+    /**
+     * Attribute is less than or equal to value.
+     */
+    LE("le", true),
+
+    /**
+     * Attribute is greater than value.
+     */
+    GT("gt", true),
+
+    /**
+     * Attribute is greater than or equal to value.
+     */
+    GE("ge", true),
+
+    /**
+     * Attribute equals one of the comma separated values.
+     */
+    IN("in", false),
+
+    /**
+     * Attribute matches the pattern (SQL LIKE with % and _ as wildcards and \ as escape character). Only
+     * applicable to string attributes.
+     */
+    LIKE("like", false),
+
+    /**
+     * Attribute is null (value true or empty) or not null (value false).
+     */
+    NULL("null", false);
+
+    private final String suffix;
+
+    private final boolean comparison;
+
+    FilterOperator(final String suffix, final boolean comparison) {
+        this.suffix = suffix;
+        this.comparison = comparison;
+    }
+
+    /**
+     * Finds the operator for the given parameter suffix.
+     *
+     * @param suffix Suffix after the attribute name, e.g. ge.
+     * @return Operator or empty if suffix is unknown.
+     */
+    public static Optional<FilterOperator> fromSuffix(final String suffix) {
+        return Arrays.stream(values())
+                .filter(operator -> operator.suffix.equals(suffix))
+                .findAny();
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    /**
+     * Returns whether this operator compares by order and hence requires a comparable attribute.
+     *
+     * @return True for lt, le, gt and ge.
+     */
+    public boolean isComparison() {
+        return comparison;
+    }
+
+}
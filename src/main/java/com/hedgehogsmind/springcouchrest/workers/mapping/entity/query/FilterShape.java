@@ -0,0 +1,196 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.query;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Compiled form of a set of filters without their values: which attribute is compared by which operator
+ * against which named parameters. Filters with the same signature (see {@link EntityFilterCompiler}) share one
+ * shape.
+ * </p>
+ *
+ * <p>
+ * Values are never inlined, but always bound to the named parameters. By this, all requests with the same
+ * shape result in the same JPQL and SQL, so that the query plan caches of Hibernate and the database are hit.
+ * </p>
+ */
+public class FilterShape {
+
+    /**
+     * Shape without any condition.
+     */
+    public static final FilterShape EMPTY = new FilterShape(List.of());
+
+    private final List<Condition> conditions;
+
+    private final List<String> parameterNames;
+
+    /**
+     * Stores the conditions and collects their parameter names.
+     *
+     * @param conditions Conditions in signature order.
+     */
+    public FilterShape(final List<Condition> conditions) {
+        this.conditions = List.copyOf(conditions);
+
+        final List<String> names = new ArrayList<>();
+        conditions.forEach(condition -> names.addAll(condition.getParameterNames()));
+        this.parameterNames = List.copyOf(names);
+    }
+
+    /**
+     * Creates one predicate per condition for the given query root.
+     *
+     * @param criteriaBuilder Builder.
+     * @param root            Root of query.
+     * @return Mutable list of predicates.
+     */
+    public List<Predicate> createPredicates(final CriteriaBuilder criteriaBuilder, final Root<?> root) {
+        final List<Predicate> predicates = new ArrayList<>(conditions.size());
+
+        for ( final Condition condition : conditions ) {
+            predicates.add(condition.createPredicate(criteriaBuilder, root));
+        }
+
+        return predicates;
+    }
+
+    public List<Condition> getConditions() {
+        return conditions;
+    }
+
+    /**
+     * Returns the names of all parameters in the order of the conditions.
+     *
+     * @return Parameter names.
+     */
+    public List<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    public boolean isEmpty() {
+        return conditions.isEmpty();
+    }
+
+    /**
+     * One condition of a filter shape.
+     */
+    public static class Condition {
+
+        private final String attributeName;
+
+        private final FilterOperator operator;
+
+        private final Class<?> valueType;
+
+        private final List<String> parameterNames;
+
+        private final boolean negated;
+
+        /**
+         * Stores values.
+         *
+         * @param attributeName  Attribute to compare.
+         * @param operator       Operator.
+         * @param valueType      Type of the parameters (wrapper type for primitives).
+         * @param parameterNames Names of parameters. Exactly one, except for IN (at least one) and NULL (none).
+         * @param negated        Only for NULL: whether the attribute must not be null.
+         */
+        public Condition(final String attributeName,
+                         final FilterOperator operator,
+                         final Class<?> valueType,
+                         final List<String> parameterNames,
+                         final boolean negated) {
+            this.attributeName = attributeName;
+            this.operator = operator;
+            this.valueType = valueType;
+            this.parameterNames = List.copyOf(parameterNames);
+            this.negated = negated;
+        }
+
+        /**
+         * Creates the predicate of this condition.
+         *
+         * @param criteriaBuilder Builder.
+         * @param root            Root of query.
+         * @return Predicate.
+         */
+        @SuppressWarnings("unchecked")
+        protected Predicate createPredicate(final CriteriaBuilder criteriaBuilder, final Root<?> root) {
+            final Path<Object> path = root.get(attributeName);
+
+            switch ( operator ) {
+                case EQ:
+                    return criteriaBuilder.equal(path, parameter(criteriaBuilder, 0));
+
+                case NE:
+                    return criteriaBuilder.notEqual(path, parameter(criteriaBuilder, 0));
+
+                case LT:
+                    return criteriaBuilder.lessThan((Expression<Comparable>) (Expression) path,
+                            (Expression<Comparable>) parameter(criteriaBuilder, 0));
+
+                case LE:
+                    return criteriaBuilder.lessThanOrEqualTo((Expression<Comparable>) (Expression) path,
+                            (Expression<Comparable>) parameter(criteriaBuilder, 0));
+
+                case GT:
+                    return criteriaBuilder.greaterThan((Expression<Comparable>) (Expression) path,
+                            (Expression<Comparable>) parameter(criteriaBuilder, 0));
+
+                case GE:
+                    return criteriaBuilder.greaterThanOrEqualTo((Expression<Comparable>) (Expression) path,
+                            (Expression<Comparable>) parameter(criteriaBuilder, 0));
+
+                case IN:
+                    final Expression<?>[] values = new Expression[parameterNames.size()];
+                    for ( int i = 0; i < values.length; i++ ) {
+                        values[i] = parameter(criteriaBuilder, i);
+                    }
+                    return path.in(values);
+
+                case LIKE:
+                    return criteriaBuilder.like((Expression<String>) (Expression) path,
+                            (Expression<String>) parameter(criteriaBuilder, 0), '\\');
+
+                case NULL:
+                    return negated ? criteriaBuilder.isNotNull(path) : criteriaBuilder.isNull(path);
+
+                default:
+                    throw new IllegalStateException("Unsupported filter operator " + operator);
+            }
+        }
+
+        private Expression<?> parameter(final CriteriaBuilder criteriaBuilder, final int index) {
+            return criteriaBuilder.parameter(valueType, parameterNames.get(index));
+        }
+
+        public String getAttributeName() {
+            return attributeName;
+        }
+
+        public FilterOperator getOperator() {
+            return operator;
+        }
+
+        public Class<?> getValueType() {
+            return valueType;
+        }
+
+        public List<String> getParameterNames() {
+            return parameterNames;
+        }
+
+        public boolean isNegated() {
+            return negated;
+        }
+
+    }
+
+}
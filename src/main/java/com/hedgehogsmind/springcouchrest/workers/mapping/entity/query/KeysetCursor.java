@@ -0,0 +1,150 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.query;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.exceptions.InvalidQueryParameterException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * <p>
+ * Position in a keyset paged collection: the sort key and id of the last entity delivered. The next page starts
+ * right after this position. Besides the position, the cursor stores the order it has been created for, so that
+ * it can not be used with another order.
+ * </p>
+ *
+ * <p>
+ * Clients receive the cursor as opaque token (Base64 URL encoded JSON), see {@link #encode(ObjectMapper)}.
+ * </p>
+ */
+public final class KeysetCursor {
+
+    private static final String SORT_ATTRIBUTE_FIELD = "s";
+
+    private static final String ASCENDING_FIELD = "a";
+
+    private static final String SORT_VALUE_FIELD = "v";
+
+    private static final String ID_FIELD = "i";
+
+    private final String sortAttributeName;
+
+    private final boolean ascending;
+
+    private final Object sortValue;
+
+    private final Object idValue;
+
+    /**
+     * Stores values.
+     *
+     * @param sortAttributeName Name of sort attribute or null if only sorted by id.
+     * @param ascending         Direction of order.
+     * @param sortValue         Value of sort attribute of last entity or null if only sorted by id.
+     * @param idValue           Id of last entity.
+     */
+    public KeysetCursor(final String sortAttributeName,
+                        final boolean ascending,
+                        final Object sortValue,
+                        final Object idValue) {
+        this.sortAttributeName = sortAttributeName;
+        this.ascending = ascending;
+        this.sortValue = sortValue;
+        this.idValue = idValue;
+    }
+
+    /**
+     * Encodes this cursor as token which does not need URL encoding.
+     *
+     * @param objectMapper ObjectMapper used to serialize the values.
+     * @return Token.
+     */
+    public String encode(final ObjectMapper objectMapper) {
+        final ObjectNode node = objectMapper.createObjectNode();
+
+        if ( sortAttributeName != null ) {
+            node.put(SORT_ATTRIBUTE_FIELD, sortAttributeName);
+            node.set(SORT_VALUE_FIELD, objectMapper.valueToTree(sortValue));
+        }
+
+        node.put(ASCENDING_FIELD, ascending);
+        node.set(ID_FIELD, objectMapper.valueToTree(idValue));
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                node.toString().getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    /**
+     * Decodes a token created by {@link #encode(ObjectMapper)}. Sort and id values are converted to the given types.
+     *
+     * @param token         Token.
+     * @param objectMapper  ObjectMapper used to deserialize the values.
+     * @param sortValueType Type of sort attribute or null if only sorted by id.
+     * @param idType        Type of id.
+     * @return Cursor.
+     * @throws InvalidQueryParameterException if the token is malformed.
+     */
+    public static KeysetCursor decode(final String token,
+                                      final ObjectMapper objectMapper,
+                                      final Class<?> sortValueType,
+                                      final Class<?> idType) {
+        try {
+            final JsonNode node = objectMapper.readTree(Base64.getUrlDecoder().decode(token));
+
+            if ( !node.hasNonNull(ID_FIELD) || !node.has(ASCENDING_FIELD) ) {
+                throw new InvalidQueryParameterException("Cursor incomplete", EntityQueryWorker.CURSOR_PARAMETER);
+            }
+
+            final String sortAttributeName = node.hasNonNull(SORT_ATTRIBUTE_FIELD) ?
+                    node.get(SORT_ATTRIBUTE_FIELD).asText() :
+                    null;
+
+            return new KeysetCursor(
+                    sortAttributeName,
+                    node.get(ASCENDING_FIELD).asBoolean(),
+                    sortAttributeName != null && sortValueType != null ?
+                            objectMapper.treeToValue(node.get(SORT_VALUE_FIELD), sortValueType) :
+                            null,
+                    objectMapper.treeToValue(node.get(ID_FIELD), idType)
+            );
+
+        } catch ( InvalidQueryParameterException e ) {
+            throw e;
+
+        } catch ( Exception e ) {
+            throw new InvalidQueryParameterException("Cursor malformed", e, EntityQueryWorker.CURSOR_PARAMETER);
+        }
+    }
+
+    /**
+     * Checks whether this cursor has been created for the given order.
+     *
+     * @param sortAttributeName Name of sort attribute or null if only sorted by id.
+     * @param ascending         Direction.
+     * @return True if the order matches.
+     */
+    public boolean matchesOrder(final String sortAttributeName, final boolean ascending) {
+        return Objects.equals(this.sortAttributeName, sortAttributeName) && this.ascending == ascending;
+    }
+
+    public String getSortAttributeName() {
+        return sortAttributeName;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public Object getSortValue() {
+        return sortValue;
+    }
+
+    public Object getIdValue() {
+        return idValue;
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.query;
+
+/**
+ * Request for a keyset paged collection. Created by
+ * {@link EntityQueryWorker#parseKeysetPageRequest(java.util.Map, int, int, com.fasterxml.jackson.databind.ObjectMapper)}.
+ */
+public final class KeysetPageRequest {
+
+    private final String sortAttributeName;
+
+    private final boolean ascending;
+
+    private final int size;
+
+    private final KeysetCursor cursor;
+
+    /**
+     * Stores values.
+     *
+     * @param sortAttributeName Name of sort attribute or null if only sorted by id.
+     * @param ascending         Direction of order. Applies to sort attribute and id.
+     * @param size              Page size.
+     * @param cursor            Position after which the page starts or null for the first page.
+     */
+    public KeysetPageRequest(final String sortAttributeName,
+                             final boolean ascending,
+                             final int size,
+                             final KeysetCursor cursor) {
+        this.sortAttributeName = sortAttributeName;
+        this.ascending = ascending;
+        this.size = size;
+        this.cursor = cursor;
+    }
+
+    public String getSortAttributeName() {
+        return sortAttributeName;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public KeysetCursor getCursor() {
+        return cursor;
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.query;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Page of a keyset paged collection. Carries the cursor for the next page if there is one.
+ */
+public final class KeysetSlice {
+
+    private final List<Object> content;
+
+    private final KeysetCursor nextCursor;
+
+    /**
+     * Stores values.
+     *
+     * @param content    Entities of page.
+     * @param nextCursor Cursor of next page or null if this is the last page.
+     */
+    public KeysetSlice(final List<Object> content, final KeysetCursor nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Object> getContent() {
+        return content;
+    }
+
+    public Optional<KeysetCursor> getNextCursor() {
+        return Optional.ofNullable(nextCursor);
+    }
+
+}
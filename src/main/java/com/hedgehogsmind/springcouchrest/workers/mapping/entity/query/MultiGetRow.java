@@ -0,0 +1,59 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.query;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One row of a multi-get result (query parameter {@link EntityQueryWorker#IDS_PARAMETER}). Carries the requested
+ * id and either the entity or the error {@link #NOT_FOUND_ERROR}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class MultiGetRow {
+
+    public static final String NOT_FOUND_ERROR = "not_found";
+
+    private final Object id;
+
+    private final Object entity;
+
+    private final String error;
+
+    private MultiGetRow(final Object id, final Object entity, final String error) {
+        this.id = id;
+        this.entity = entity;
+        this.error = error;
+    }
+
+    /**
+     * Creates row for found entity.
+     *
+     * @param id     Requested id.
+     * @param entity Entity.
+     * @return Row.
+     */
+    public static MultiGetRow found(final Object id, final Object entity) {
+        return new MultiGetRow(id, entity, null);
+    }
+
+    /**
+     * Creates row for an id which does not exist.
+     *
+     * @param id Requested id.
+     * @return Row with error {@link #NOT_FOUND_ERROR}.
+     */
+    public static MultiGetRow notFound(final Object id) {
+        return new MultiGetRow(id, null, NOT_FOUND_ERROR);
+    }
+
+    public Object getId() {
+        return id;
+    }
+
+    public Object getEntity() {
+        return entity;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+}
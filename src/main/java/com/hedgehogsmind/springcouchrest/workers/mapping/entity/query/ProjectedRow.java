@@ -0,0 +1,71 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.query;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+
+/**
+ * One row of a projection query (see {@link ProjectionPlan}). Serialized as JSON object with the JSON property
+ * names of the selected attributes, directly from the selected values - no entity is instantiated.
+ */
+public class ProjectedRow
+        implements JsonSerializable {
+
+    private final ProjectionPlan plan;
+
+    private final Object[] values;
+
+    /**
+     * Stores values.
+     *
+     * @param plan   Plan of the query which selected the row.
+     * @param values Selected values in the order of the plan.
+     */
+    public ProjectedRow(final ProjectionPlan plan, final Object[] values) {
+        if ( values.length != plan.getAttributeNames().size() ) {
+            throw new IllegalArgumentException("Expected " + plan.getAttributeNames().size() + " values, but got " +
+                    values.length);
+        }
+
+        this.plan = plan;
+        this.values = values;
+    }
+
+    /**
+     * Returns the value of the given attribute.
+     *
+     * @param attributeName Name of selected attribute.
+     * @return Value.
+     * @throws IllegalArgumentException if the attribute has not been selected.
+     */
+    public Object getValue(final String attributeName) {
+        return values[plan.indexOf(attributeName)];
+    }
+
+    @Override
+    public void serialize(final JsonGenerator generator, final SerializerProvider serializers) throws IOException {
+        generator.writeStartObject();
+
+        for ( int i = 0; i < values.length; i++ ) {
+            generator.writeFieldName(plan.getPropertyNames().get(i));
+            serializers.defaultSerializeValue(values[i], generator);
+        }
+
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(final JsonGenerator generator,
+                                  final SerializerProvider serializers,
+                                  final TypeSerializer typeSerializer) throws IOException {
+        serialize(generator, serializers);
+    }
+
+    public ProjectionPlan getPlan() {
+        return plan;
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.query;
+
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Selection of a projection query: which attributes are selected and under which JSON property names they are
+ * written. Created and cached per field set by {@link EntityProjectionCompiler}.
+ */
+public class ProjectionPlan {
+
+    private final List<String> attributeNames;
+
+    private final List<String> propertyNames;
+
+    /**
+     * Stores values.
+     *
+     * @param attributeNames Names of selected attributes.
+     * @param propertyNames  JSON property names of selected attributes in the same order.
+     */
+    public ProjectionPlan(final List<String> attributeNames, final List<String> propertyNames) {
+        if ( attributeNames.size() != propertyNames.size() ) {
+            throw new IllegalArgumentException("attributeNames and propertyNames must have the same size");
+        }
+
+        this.attributeNames = List.copyOf(attributeNames);
+        this.propertyNames = List.copyOf(propertyNames);
+    }
+
+    /**
+     * Creates one selection per selected attribute.
+     *
+     * @param root Root (or joined entity) of query.
+     * @return Selections in the order of the plan.
+     */
+    public List<Selection<?>> createSelections(final From<?, ?> root) {
+        final List<Selection<?>> selections = new ArrayList<>(attributeNames.size());
+
+        for ( final String attributeName : attributeNames ) {
+            selections.add(root.get(attributeName));
+        }
+
+        return selections;
+    }
+
+    /**
+     * Wraps one result row of a query with the selections of this plan.
+     *
+     * @param values Selected values.
+     * @return Row.
+     */
+    public ProjectedRow toRow(final Object[] values) {
+        return new ProjectedRow(this, values);
+    }
+
+    /**
+     * Returns the position of the given attribute.
+     *
+     * @param attributeName Name of selected attribute.
+     * @return Index.
+     * @throws IllegalArgumentException if the attribute has not been selected.
+     */
+    public int indexOf(final String attributeName) {
+        final int index = attributeNames.indexOf(attributeName);
+
+        if ( index < 0 ) {
+            throw new IllegalArgumentException("Attribute '" + attributeName + "' not selected");
+        }
+
+        return index;
+    }
+
+    public List<String> getAttributeNames() {
+        return attributeNames;
+    }
+
+    public List<String> getPropertyNames() {
+        return propertyNames;
+    }
+
+}
@@ -76,4 +76,41 @@ public class ValidatedAndNormalizedCouchRestConfigurationTest {
         );
     }
 
+    @Test
+    public void testFailOnNonPositiveRequestBodyLimits() {
+        final CouchRestConfiguration sizeConfig = new EmptyConfig() {
+            @Override
+            public String getCouchRestBasePath() {
+                return "/api/";
+            }
+
+            @Override
+            public long getMaxRequestBodySize() {
+                return 0;
+            }
+        };
+
+        Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> new ValidatedAndNormalizedCouchRestConfiguration(sizeConfig)
+        );
+
+        final CouchRestConfiguration depthConfig = new EmptyConfig() {
+            @Override
+            public String getCouchRestBasePath() {
+                return "/api/";
+            }
+
+            @Override
+            public int getMaxRequestBodyNestingDepth() {
+                return -1;
+            }
+        };
+
+        Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> new ValidatedAndNormalizedCouchRestConfiguration(depthConfig)
+        );
+    }
+
 }
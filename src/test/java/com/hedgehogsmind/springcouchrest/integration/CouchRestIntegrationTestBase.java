@@ -29,10 +29,13 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -83,6 +86,16 @@ public abstract class CouchRestIntegrationTestBase {
             return new TestSingleUserDetailsService(passwordEncoder());
         }
 
+        @Bean
+        public WebMvcConfigurer rejectingInterceptorConfigurer() {
+            return new WebMvcConfigurer() {
+                @Override
+                public void addInterceptors(InterceptorRegistry registry) {
+                    registry.addInterceptor(new TestRejectingInterceptor());
+                }
+            };
+        }
+
         @Bean
         public CouchRestConfiguration couchRestConfiguration() {
             return new CouchRestConfigurationAdapter() {
@@ -137,6 +150,8 @@ public abstract class CouchRestIntegrationTestBase {
 
     protected int lastStatusCode = -1;
 
+    protected Headers lastResponseHeaders;
+
     protected OkHttpClient httpClient;
 
     @BeforeEach
@@ -249,7 +264,7 @@ public abstract class CouchRestIntegrationTestBase {
 
     /**
      * Performs a http request against the local test server. Stores status code in
-     * {@link #lastStatusCode}.
+     * {@link #lastStatusCode} and headers in {@link #lastResponseHeaders}.
      *
      * @param path     Path starting with leading slash.
      * @param method   HTTP method.
@@ -257,6 +272,24 @@ public abstract class CouchRestIntegrationTestBase {
      * @return Response.
      */
     protected String perform(final String path, final String method, final String jsonBody) {
+        return perform(path, method, jsonBody, "application/json", Map.of());
+    }
+
+    /**
+     * Same as {@link #perform(String, String, String)} but with given content type and additional headers.
+     *
+     * @param path        Path starting with leading slash.
+     * @param method      HTTP method.
+     * @param jsonBody    Optional. Null or JSON payload as String.
+     * @param contentType Content type of payload.
+     * @param headers     Additional request headers.
+     * @return Response.
+     */
+    protected String perform(final String path,
+                             final String method,
+                             final String jsonBody,
+                             final String contentType,
+                             final Map<String, String> headers) {
         if (!path.startsWith("/")) {
             throw new IllegalArgumentException("path must start with leading slash");
         }
@@ -266,17 +299,19 @@ public abstract class CouchRestIntegrationTestBase {
                         method,
                         jsonBody != null ?
                                 RequestBody.create(
-                                        MediaType.parse("application/json"),
+                                        MediaType.parse(contentType),
                                         jsonBody
                                 )
                                 : null
                 )
                 .url("http://localhost:" + port + path)
+                .headers(Headers.of(headers))
                 .build();
 
         try {
             final Response response = httpClient.newCall(request).execute();
             lastStatusCode = response.code();
+            lastResponseHeaders = response.headers();
 
             return new String(response.body().bytes());
         } catch (IOException e) {
@@ -371,6 +406,22 @@ public abstract class CouchRestIntegrationTestBase {
         return parseJsonArray(post(path, jsonBody));
     }
 
+    /**
+     * Performs PATCH call.
+     *
+     * @param path        Path with leading slash.
+     * @param contentType Content type of patch, e.g. application/merge-patch+json.
+     * @param jsonBody    Patch.
+     * @param headers     Additional request headers.
+     * @return JSON response.
+     */
+    protected JSONObject patchWithJsonObjectResponse(final String path,
+                                                     final String contentType,
+                                                     final String jsonBody,
+                                                     final Map<String, String> headers) {
+        return parseJsonObject(perform(path, "PATCH", jsonBody, contentType, headers));
+    }
+
     /**
      * Convenience method. Calls {@link #perform(String, String, String)} with method DELETE and no body.
      *
@@ -0,0 +1,25 @@
+package com.hedgehogsmind.springcouchrest.integration;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Rejects all requests which carry the header {@link #REJECT_HEADER}.
+ */
+public class TestRejectingInterceptor
+        implements HandlerInterceptor {
+
+    public static final String REJECT_HEADER = "X-Test-Reject";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if ( request.getHeader(REJECT_HEADER) == null ) return true;
+
+        response.setStatus(HttpStatus.FORBIDDEN.value());
+        return false;
+    }
+
+}
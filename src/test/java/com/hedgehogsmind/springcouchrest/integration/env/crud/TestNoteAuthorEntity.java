@@ -0,0 +1,28 @@
+package com.hedgehogsmind.springcouchrest.integration.env.crud;
+
+import com.hedgehogsmind.springcouchrest.annotations.CouchRest;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+
+@Entity
+@CouchRest
+public class TestNoteAuthorEntity {
+
+    @Id
+    @GeneratedValue
+    public long id;
+
+    @Column
+    public String name;
+
+    public TestNoteAuthorEntity() {
+    }
+
+    public TestNoteAuthorEntity(String name) {
+        this.name = name;
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.hedgehogsmind.springcouchrest.integration.env.crud;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.hedgehogsmind.springcouchrest.annotations.CouchRest;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+
+@Entity
+@CouchRest
+public class TestNoteCommentEntity {
+
+    @Id
+    @GeneratedValue
+    public long id;
+
+    @Column
+    public String text;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    public TestNoteEntityWithRelations note;
+
+    public TestNoteCommentEntity() {
+    }
+
+    public TestNoteCommentEntity(String text, TestNoteEntityWithRelations note) {
+        this.text = text;
+        this.note = note;
+    }
+
+}
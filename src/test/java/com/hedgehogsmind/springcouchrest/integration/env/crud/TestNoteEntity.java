@@ -1,11 +1,13 @@
 package com.hedgehogsmind.springcouchrest.integration.env.crud;
 
 import com.hedgehogsmind.springcouchrest.annotations.CouchRest;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudStreaming;
 
 import javax.persistence.Entity;
 
 @Entity
 @CouchRest
+@CrudStreaming(fetchSize = 2)
 public class TestNoteEntity extends AbstractTestNoteEntity {
 
     public TestNoteEntity() {
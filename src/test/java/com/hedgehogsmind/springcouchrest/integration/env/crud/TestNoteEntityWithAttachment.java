@@ -0,0 +1,24 @@
+package com.hedgehogsmind.springcouchrest.integration.env.crud;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.hedgehogsmind.springcouchrest.annotations.CouchRest;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudStreaming;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Lob;
+
+@Entity
+@CouchRest
+@CrudStreaming
+public class TestNoteEntityWithAttachment extends AbstractTestNoteEntity {
+
+    @Lob
+    @Column
+    public String attachment;
+
+    @JsonIgnore
+    @Column
+    public String secret;
+
+}
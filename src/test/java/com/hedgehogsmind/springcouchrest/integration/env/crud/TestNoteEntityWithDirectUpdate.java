@@ -0,0 +1,23 @@
+package com.hedgehogsmind.springcouchrest.integration.env.crud;
+
+import com.hedgehogsmind.springcouchrest.annotations.CouchRest;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudDirectUpdate;
+
+import javax.persistence.Entity;
+import javax.persistence.Version;
+import javax.validation.constraints.Max;
+
+@Entity
+@CouchRest
+@CrudDirectUpdate
+public class TestNoteEntityWithDirectUpdate extends AbstractTestNoteEntity {
+
+    @Version
+    public Long version;
+
+    @Max(5)
+    public int getRating() {
+        return rating;
+    }
+
+}
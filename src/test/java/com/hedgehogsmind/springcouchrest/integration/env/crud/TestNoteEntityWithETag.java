@@ -0,0 +1,17 @@
+package com.hedgehogsmind.springcouchrest.integration.env.crud;
+
+import com.hedgehogsmind.springcouchrest.annotations.CouchRest;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudCollectionETag;
+
+import javax.persistence.Entity;
+import javax.persistence.Version;
+
+@Entity
+@CouchRest
+@CrudCollectionETag
+public class TestNoteEntityWithETag extends AbstractTestNoteEntity {
+
+    @Version
+    public Long version;
+
+}
@@ -0,0 +1,22 @@
+package com.hedgehogsmind.springcouchrest.integration.env.crud;
+
+import com.hedgehogsmind.springcouchrest.annotations.CouchRest;
+
+import javax.persistence.ElementCollection;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Version;
+import java.util.HashSet;
+import java.util.Set;
+
+@Entity
+@CouchRest
+public class TestNoteEntityWithETagAndTags extends AbstractTestNoteEntity {
+
+    @Version
+    public Long version;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    public Set<String> tags = new HashSet<>();
+
+}
@@ -0,0 +1,32 @@
+package com.hedgehogsmind.springcouchrest.integration.env.crud;
+
+import com.hedgehogsmind.springcouchrest.annotations.CouchRest;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudFetchPlan;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudStreaming;
+
+import javax.persistence.ElementCollection;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.ManyToOne;
+import java.util.HashSet;
+import java.util.Set;
+
+@Entity
+@CouchRest
+@CrudStreaming
+@CrudFetchPlan(attributePaths = {"author", "tags"}, batchSize = 2)
+public class TestNoteEntityWithFetchPlan extends AbstractTestNoteEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    public TestNoteAuthorEntity author;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    public TestNoteAuthorEntity reviewer;
+
+    @ElementCollection
+    public Set<String> tags = new HashSet<>();
+
+    @ElementCollection
+    public Set<String> keywords = new HashSet<>();
+
+}
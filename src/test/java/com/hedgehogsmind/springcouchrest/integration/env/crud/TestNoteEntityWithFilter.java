@@ -0,0 +1,12 @@
+package com.hedgehogsmind.springcouchrest.integration.env.crud;
+
+import com.hedgehogsmind.springcouchrest.annotations.CouchRest;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudFilter;
+
+import javax.persistence.Entity;
+
+@Entity
+@CouchRest
+@CrudFilter(attributes = {"title", "rating"})
+public class TestNoteEntityWithFilter extends AbstractTestNoteEntity {
+}
@@ -0,0 +1,18 @@
+package com.hedgehogsmind.springcouchrest.integration.env.crud;
+
+import com.hedgehogsmind.springcouchrest.annotations.CouchRest;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudLazyLoading;
+
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.ManyToOne;
+
+@Entity
+@CouchRest
+@CrudLazyLoading(CrudLazyLoading.Policy.FAIL)
+public class TestNoteEntityWithLazyLoadingGuard extends AbstractTestNoteEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    public TestNoteAuthorEntity reviewer;
+
+}
@@ -0,0 +1,37 @@
+package com.hedgehogsmind.springcouchrest.integration.env.crud;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.hedgehogsmind.springcouchrest.annotations.CouchRest;
+
+import javax.persistence.ElementCollection;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.ManyToMany;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Entity
+@CouchRest
+public class TestNoteEntityWithRelations extends AbstractTestNoteEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    public TestNoteAuthorEntity author;
+
+    @ManyToMany
+    public List<TestNoteAuthorEntity> coauthors = new ArrayList<>();
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    public TestNoteEntityWithCrudSecurity securedNote;
+
+    @ElementCollection
+    public Set<String> tags = new HashSet<>();
+
+    @JsonIgnore
+    @OneToMany(mappedBy = "note")
+    public List<TestNoteCommentEntity> comments = new ArrayList<>();
+
+}
@@ -0,0 +1,21 @@
+package com.hedgehogsmind.springcouchrest.integration.env.crud;
+
+import com.hedgehogsmind.springcouchrest.annotations.CouchRest;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudPaging;
+
+import javax.persistence.Entity;
+import javax.persistence.PreRemove;
+
+@Entity
+@CouchRest
+@CrudPaging(maxIds = 2)
+public class TestNoteEntityWithRemoveCallback extends AbstractTestNoteEntity {
+
+    public static int removeCount;
+
+    @PreRemove
+    public void countRemove() {
+        removeCount++;
+    }
+
+}
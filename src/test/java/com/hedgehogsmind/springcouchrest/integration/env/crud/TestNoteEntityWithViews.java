@@ -0,0 +1,40 @@
+package com.hedgehogsmind.springcouchrest.integration.env.crud;
+
+import com.fasterxml.jackson.annotation.JsonView;
+import com.hedgehogsmind.springcouchrest.annotations.CouchRest;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudStreaming;
+import com.hedgehogsmind.springcouchrest.annotations.crud.CrudViews;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Lob;
+
+@Entity
+@CouchRest
+@CrudStreaming
+@CrudViews(summary = TestNoteEntityWithViews.Summary.class, detail = TestNoteEntityWithViews.Detail.class)
+public class TestNoteEntityWithViews extends AbstractTestNoteEntity {
+
+    public interface Summary {
+    }
+
+    public interface Detail extends Summary {
+    }
+
+    public interface Internal {
+    }
+
+    @JsonView(Summary.class)
+    @Column
+    public String label;
+
+    @JsonView(Detail.class)
+    @Lob
+    @Column
+    public String body;
+
+    @JsonView(Internal.class)
+    @Column
+    public String remark;
+
+}
@@ -0,0 +1,127 @@
+package com.hedgehogsmind.springcouchrest.integration.tests.crud;
+
+import com.hedgehogsmind.springcouchrest.integration.env.crud.TestNoteAuthorEntity;
+import com.hedgehogsmind.springcouchrest.integration.env.crud.TestNoteCommentEntity;
+import com.hedgehogsmind.springcouchrest.integration.env.crud.TestNoteEntityWithRelations;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.List;
+
+public class CouchRestAssociationTest
+        extends CouchRestAbstractCrudIntegrationTestBase<TestNoteEntityWithRelations> {
+
+    private CrudRepository<TestNoteAuthorEntity, Long> authorRepository;
+
+    private CrudRepository<TestNoteCommentEntity, Long> commentRepository;
+
+    private TestNoteEntityWithRelations note;
+
+    @BeforeEach
+    public void setupRelations() {
+        authorRepository = (CrudRepository<TestNoteAuthorEntity, Long>) applicationContext.getAutowireCapableBeanFactory().initializeBean(
+                new SimpleJpaRepository<TestNoteAuthorEntity, Long>(TestNoteAuthorEntity.class, entityManager),
+                "AuthorRepo"
+        );
+
+        commentRepository = (CrudRepository<TestNoteCommentEntity, Long>) applicationContext.getAutowireCapableBeanFactory().initializeBean(
+                new SimpleJpaRepository<TestNoteCommentEntity, Long>(TestNoteCommentEntity.class, entityManager),
+                "CommentRepo"
+        );
+
+        note = persistedTestNotes.get(0);
+        note.coauthors = List.of(
+                authorRepository.save(new TestNoteAuthorEntity("Bob")),
+                authorRepository.save(new TestNoteAuthorEntity("Ada"))
+        );
+        noteRepository.save(note);
+
+        for ( int i = 0; i < 5; i++ ) {
+            commentRepository.save(new TestNoteCommentEntity("Comment " + i, note));
+        }
+
+        // comment of another note, which must never be returned
+        commentRepository.save(new TestNoteCommentEntity("Other", persistedTestNotes.get(1)));
+    }
+
+    @AfterEach
+    public void cleanupRelations() {
+        // comments and notes reference notes and authors
+        commentRepository.deleteAll();
+        noteRepository.deleteAll();
+        authorRepository.deleteAll();
+    }
+
+    private String getCommentsPath() {
+        return getNoteBasePath() + note.id + "/comments";
+    }
+
+    @Test
+    public void testPagesOfMappedCollection() {
+        final JSONArray firstPage = getWithJsonArrayResponse(getCommentsPath() + "?size=3&sort=text,desc");
+        assertStatusCode(200);
+
+        Assertions.assertEquals(3, firstPage.length());
+        Assertions.assertEquals("Comment 4", firstPage.getJSONObject(0).getString("text"));
+        Assertions.assertFalse(firstPage.getJSONObject(0).has("note"));
+        Assertions.assertTrue(lastResponseHeaders.get("Link").contains("rel=\"next\""));
+
+        final JSONArray secondPage = getWithJsonArrayResponse(getCommentsPath() + "?size=3&sort=text,desc&page=1");
+        assertStatusCode(200);
+
+        Assertions.assertEquals(2, secondPage.length());
+        Assertions.assertEquals("Comment 0", secondPage.getJSONObject(1).getString("text"));
+        Assertions.assertFalse(lastResponseHeaders.get("Link").contains("rel=\"next\""));
+    }
+
+    @Test
+    public void testPagesOfJoinedCollection() {
+        final JSONArray page = getWithJsonArrayResponse(getNoteBasePath() + note.id + "/coauthors?sort=name&size=1");
+        assertStatusCode(200);
+
+        Assertions.assertEquals(1, page.length());
+        Assertions.assertEquals("Ada", page.getJSONObject(0).getString("name"));
+        Assertions.assertTrue(lastResponseHeaders.get("Link").contains("rel=\"next\""));
+    }
+
+    @Test
+    public void testFields() {
+        final JSONArray page = getWithJsonArrayResponse(getCommentsPath() + "?fields=text");
+        assertStatusCode(200);
+
+        Assertions.assertEquals(5, page.length());
+        Assertions.assertTrue(page.getJSONObject(0).has("id"));
+        Assertions.assertTrue(page.getJSONObject(0).has("text"));
+    }
+
+    @Test
+    public void testEmptyCollection() {
+        final JSONArray page = getWithJsonArrayResponse(getNoteBasePath() + persistedTestNotes.get(2).id + "/comments");
+        assertStatusCode(200);
+
+        Assertions.assertEquals(0, page.length());
+    }
+
+    @Test
+    public void testOwnerNotFound() {
+        final JSONObject problem = getWithJsonObjectResponse(getNoteBasePath() + "-1/comments");
+        assertProblemDetailGiven(CouchRestProblems.NOT_FOUND, problem);
+    }
+
+    @Test
+    public void testUnsupportedParameters() {
+        assertProblemDetailGiven(CouchRestProblems.INVALID_QUERY_PARAMETER,
+                getWithJsonObjectResponse(getCommentsPath() + "?cursor"));
+
+        assertProblemDetailGiven(CouchRestProblems.INVALID_QUERY_PARAMETER,
+                getWithJsonObjectResponse(getCommentsPath() + "?sort=note"));
+    }
+
+}
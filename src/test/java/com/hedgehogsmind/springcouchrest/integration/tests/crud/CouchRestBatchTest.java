@@ -0,0 +1,169 @@
+package com.hedgehogsmind.springcouchrest.integration.tests.crud;
+
+import com.hedgehogsmind.springcouchrest.configuration.CouchRestConfigurationAdapter;
+import com.hedgehogsmind.springcouchrest.integration.TestRejectingInterceptor;
+import com.hedgehogsmind.springcouchrest.integration.env.crud.TestNoteEntityWithBulk;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+import com.hedgehogsmind.springcouchrest.workers.mapping.batch.BatchHandler;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CouchRestBatchTest
+        extends CouchRestAbstractCrudIntegrationTestBase<TestNoteEntityWithBulk> {
+
+    private String getBatchPath() {
+        return getBasePath() + BatchHandler.BATCH_PATH_SEGMENT;
+    }
+
+    private String getAtomicBatchPath() {
+        return getBatchPath() + "?" + BatchHandler.ATOMIC_PARAMETER;
+    }
+
+    @Test
+    public void testBatchIndependent() {
+        final TestNoteEntityWithBulk first = persistedTestNotes.get(0);
+        final TestNoteEntityWithBulk second = persistedTestNotes.get(1);
+
+        final JSONArray response = postWithJsonArrayResponse(getBatchPath(), "[ " +
+                "{ \"method\": \"POST\", \"path\": \"" + getNoteBasePath() + "\", \"body\": { \"title\": \"New\" } }, " +
+                "{ \"method\": \"GET\", \"path\": \"" + getNoteBasePath() + first.id + "\" }, " +
+                "{ \"method\": \"GET\", \"path\": \"" + getNoteBasePath() + second.id + "\" }, " +
+                "{ \"method\": \"GET\", \"path\": \"" + getNoteBasePath() + "?ids=" + first.id + "," + second.id + "\" }, " +
+                "{ \"method\": \"DELETE\", \"path\": \"" + getNoteBasePath() + (second.id + 1000) + "\" } ]");
+
+        assertStatusCode(200);
+        Assertions.assertEquals(5, response.length());
+
+        Assertions.assertEquals(200, response.getJSONObject(0).getInt("status"));
+        Assertions.assertEquals("New", response.getJSONObject(0).getJSONObject("body").getString("title"));
+
+        Assertions.assertEquals(200, response.getJSONObject(1).getInt("status"));
+        Assertions.assertEquals(first.title, response.getJSONObject(1).getJSONObject("body").getString("title"));
+
+        Assertions.assertEquals(200, response.getJSONObject(2).getInt("status"));
+        Assertions.assertEquals(second.title, response.getJSONObject(2).getJSONObject("body").getString("title"));
+
+        Assertions.assertEquals(200, response.getJSONObject(3).getInt("status"));
+        Assertions.assertEquals(2, response.getJSONObject(3).getJSONArray("body").length());
+
+        // failing sub-requests do not affect the others
+        final JSONObject notFound = response.getJSONObject(4);
+        Assertions.assertEquals(404, notFound.getInt("status"));
+        Assertions.assertEquals(CouchRestProblems.NOT_FOUND.getType().toString(),
+                notFound.getJSONObject("body").getString("type"));
+
+        Assertions.assertEquals(4, getNoteEntityCount());
+    }
+
+    @Test
+    public void testBatchAppliesInterceptorsToSubRequests() {
+        final TestNoteEntityWithBulk first = persistedTestNotes.get(0);
+
+        final JSONArray response = postWithJsonArrayResponse(getBatchPath(), "[ " +
+                "{ \"method\": \"GET\", \"path\": \"" + getNoteBasePath() + first.id + "\" }, " +
+                "{ \"method\": \"DELETE\", \"path\": \"" + getNoteBasePath() + first.id + "\", " +
+                "\"headers\": { \"" + TestRejectingInterceptor.REJECT_HEADER + "\": \"true\" } } ]");
+
+        assertStatusCode(200);
+        Assertions.assertEquals(200, response.getJSONObject(0).getInt("status"));
+
+        final JSONObject rejected = response.getJSONObject(1);
+        Assertions.assertEquals(403, rejected.getInt("status"));
+        Assertions.assertEquals(CouchRestProblems.FORBIDDEN.getType().toString(),
+                rejected.getJSONObject("body").getString("type"));
+
+        Assertions.assertEquals(3, getNoteEntityCount());
+    }
+
+    @Test
+    public void testBatchRelativePath() {
+        final TestNoteEntityWithBulk first = persistedTestNotes.get(0);
+        final String relativeNotePath = getNoteBasePath().substring(getBasePath().length());
+
+        final JSONArray response = postWithJsonArrayResponse(getBatchPath(),
+                "[ { \"method\": \"get\", \"path\": \"" + relativeNotePath + first.id + "\" } ]");
+
+        assertStatusCode(200);
+        Assertions.assertEquals(200, response.getJSONObject(0).getInt("status"));
+        Assertions.assertEquals(first.id, response.getJSONObject(0).getJSONObject("body").getLong("id"));
+    }
+
+    @Test
+    public void testBatchAtomicCommits() {
+        final TestNoteEntityWithBulk first = persistedTestNotes.get(0);
+
+        final JSONArray response = postWithJsonArrayResponse(getAtomicBatchPath(), "[ " +
+                "{ \"method\": \"POST\", \"path\": \"" + getNoteBasePath() + "\", \"body\": { \"title\": \"New\" } }, " +
+                "{ \"method\": \"POST\", \"path\": \"" + getNoteBasePath() + first.id + "\", " +
+                "\"body\": { \"title\": \"Updated\" } }, " +
+                "{ \"method\": \"GET\", \"path\": \"" + getNoteBasePath() + first.id + "\" } ]");
+
+        assertStatusCode(200);
+
+        for ( int i = 0; i < response.length(); i++ ) {
+            Assertions.assertEquals(200, response.getJSONObject(i).getInt("status"));
+        }
+
+        Assertions.assertEquals("Updated", response.getJSONObject(2).getJSONObject("body").getString("title"));
+        Assertions.assertEquals("Updated", noteRepository.findById(first.id).get().title);
+        Assertions.assertEquals(4, getNoteEntityCount());
+    }
+
+    @Test
+    public void testBatchAtomicRollsBack() {
+        final TestNoteEntityWithBulk first = persistedTestNotes.get(0);
+        final long missingId = persistedTestNotes.get(2).id + 1000;
+
+        final JSONArray response = postWithJsonArrayResponse(getAtomicBatchPath(), "[ " +
+                "{ \"method\": \"POST\", \"path\": \"" + getNoteBasePath() + first.id + "\", " +
+                "\"body\": { \"title\": \"Updated\" } }, " +
+                "{ \"method\": \"GET\", \"path\": \"" + getNoteBasePath() + missingId + "\" }, " +
+                "{ \"method\": \"POST\", \"path\": \"" + getNoteBasePath() + "\", \"body\": { \"title\": \"New\" } } ]");
+
+        assertStatusCode(200);
+        Assertions.assertEquals(424, response.getJSONObject(0).getInt("status"));
+        Assertions.assertEquals(404, response.getJSONObject(1).getInt("status"));
+        Assertions.assertEquals(424, response.getJSONObject(2).getInt("status"));
+
+        Assertions.assertEquals(first.title, noteRepository.findById(first.id).get().title);
+        Assertions.assertEquals(3, getNoteEntityCount());
+    }
+
+    @Test
+    public void testBatchUnknownPathAndInvalidItem() {
+        final JSONArray response = postWithJsonArrayResponse(getBatchPath(), "[ " +
+                "{ \"method\": \"GET\", \"path\": \"" + getBasePath() + "unknown_resource/1\" }, " +
+                "{ \"method\": \"POST\", \"path\": \"" + getBatchPath() + "\", \"body\": [] }, " +
+                "{ \"path\": \"" + getNoteBasePath() + "\" } ]");
+
+        assertStatusCode(200);
+        Assertions.assertEquals(404, response.getJSONObject(0).getInt("status"));
+        Assertions.assertEquals(404, response.getJSONObject(1).getInt("status"));
+        Assertions.assertEquals(CouchRestProblems.INVALID_DATA.getStatus(), response.getJSONObject(2).getInt("status"));
+    }
+
+    @Test
+    public void testBatchTooManyRequests() {
+        final StringBuilder body = new StringBuilder("[");
+        for ( int i = 0; i <= CouchRestConfigurationAdapter.DEFAULT_MAX_BATCH_SIZE; i++ ) {
+            if ( i > 0 ) body.append(',');
+            body.append("{ \"method\": \"POST\", \"path\": \"").append(getNoteBasePath()).append("\", \"body\": {} }");
+        }
+        body.append(']');
+
+        final JSONObject response = postWithJsonObjectResponse(getBatchPath(), body.toString());
+
+        assertProblemDetailGiven(CouchRestProblems.TOO_MANY_BATCH_REQUESTS, response);
+        Assertions.assertEquals(3, getNoteEntityCount());
+    }
+
+    @Test
+    public void testBatchNoArray() {
+        final JSONObject response = postWithJsonObjectResponse(getBatchPath(), "{ \"method\": \"GET\" }");
+
+        assertProblemDetailGiven(CouchRestProblems.INVALID_DATA, response);
+    }
+
+}
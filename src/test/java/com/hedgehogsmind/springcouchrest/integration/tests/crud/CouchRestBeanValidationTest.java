@@ -0,0 +1,40 @@
+package com.hedgehogsmind.springcouchrest.integration.tests.crud;
+
+import com.hedgehogsmind.springcouchrest.integration.env.crud.TestNoteEntityWithDirectUpdate;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+public class CouchRestBeanValidationTest
+        extends CouchRestAbstractCrudIntegrationTestBase<TestNoteEntityWithDirectUpdate> {
+
+    @Test
+    public void testPatchWithConstraintViolation() {
+        final TestNoteEntityWithDirectUpdate entity = persistedTestNotes.get(0);
+
+        final JSONObject response = patchWithJsonObjectResponse(getNoteBasePath() + entity.id,
+                "application/merge-patch+json", "{ \"rating\": 6 }", Map.of());
+
+        assertProblemDetailGiven(CouchRestProblems.INVALID_DATA, response);
+
+        final TestNoteEntityWithDirectUpdate unchanged = noteRepository.findById(entity.id).get();
+        Assertions.assertEquals(entity.rating, unchanged.rating);
+        Assertions.assertEquals(entity.version, unchanged.version);
+    }
+
+    @Test
+    public void testPatchWithoutConstraintViolation() {
+        final TestNoteEntityWithDirectUpdate entity = persistedTestNotes.get(0);
+
+        final JSONObject response = patchWithJsonObjectResponse(getNoteBasePath() + entity.id,
+                "application/merge-patch+json", "{ \"rating\": 5 }", Map.of());
+
+        assertStatusCode(200);
+        Assertions.assertEquals(5, response.getInt("rating"));
+        Assertions.assertEquals(5, noteRepository.findById(entity.id).get().rating);
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.hedgehogsmind.springcouchrest.integration.tests.crud;
+
+import com.hedgehogsmind.springcouchrest.integration.env.crud.TestNoteEntityWithBulk;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.methods.MappedEntityBulkHandler;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.query.BulkSaveRow;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+public class CouchRestBulkTest
+        extends CouchRestAbstractCrudIntegrationTestBase<TestNoteEntityWithBulk> {
+
+    private String getBulkPath() {
+        return getNoteBasePath() + MappedEntityBulkHandler.BULK_PATH_VARIABLE;
+    }
+
+    @Test
+    public void testBulkSaveJsonArray() {
+        final JSONArray response = postWithJsonArrayResponse(getBulkPath(),
+                "[ { \"title\": \"A\", \"rating\": 1 }, { \"title\": \"B\", \"rating\": 2 }, " +
+                        "{ \"title\": \"C\", \"rating\": 3 } ]");
+
+        assertStatusCode(200);
+        Assertions.assertEquals(3, response.length());
+
+        for ( int i = 0; i < response.length(); i++ ) {
+            Assertions.assertTrue(response.getJSONObject(i).getBoolean("ok"));
+        }
+
+        Assertions.assertEquals(6, getNoteEntityCount());
+        Assertions.assertEquals("B", noteRepository.findById(response.getJSONObject(1).getLong("id")).get().title);
+    }
+
+    @Test
+    public void testBulkSaveNdjson() {
+        final JSONArray response = parseJsonArray(perform(getBulkPath(), "POST",
+                "{ \"title\": \"A\", \"rating\": 1 }\n{ \"title\": \"B\", \"rating\": 2 }\n",
+                MappedEntityBulkHandler.NDJSON_MEDIA_TYPE, Map.of()));
+
+        assertStatusCode(200);
+        Assertions.assertEquals(2, response.length());
+        Assertions.assertEquals("A", noteRepository.findById(response.getJSONObject(0).getLong("id")).get().title);
+        Assertions.assertEquals(5, getNoteEntityCount());
+    }
+
+    @Test
+    public void testBulkSaveReportsFailingEntitiesOnly() {
+        final TestNoteEntityWithBulk updated = persistedTestNotes.get(0);
+        final TestNoteEntityWithBulk outdated = persistedTestNotes.get(1);
+
+        // first chunk fails because of the outdated version > saved one by one
+        final JSONArray response = postWithJsonArrayResponse(getBulkPath(),
+                "[ { \"id\": " + updated.id + ", \"title\": \"Updated\", \"version\": " + updated.version + " }, " +
+                        "{ \"id\": " + outdated.id + ", \"title\": \"Outdated\", \"version\": " +
+                        (outdated.version + 1) + " }, " +
+                        "{ \"title\": \"New\" } ]");
+
+        assertStatusCode(200);
+        Assertions.assertEquals(3, response.length());
+
+        Assertions.assertTrue(response.getJSONObject(0).getBoolean("ok"));
+        Assertions.assertEquals(updated.id, response.getJSONObject(0).getLong("id"));
+
+        final JSONObject conflict = response.getJSONObject(1);
+        Assertions.assertFalse(conflict.has("ok"));
+        Assertions.assertEquals(outdated.id, conflict.getLong("id"));
+        Assertions.assertEquals(BulkSaveRow.CONFLICT_ERROR, conflict.getString("error"));
+
+        Assertions.assertTrue(response.getJSONObject(2).getBoolean("ok"));
+
+        Assertions.assertEquals("Updated", noteRepository.findById(updated.id).get().title);
+        Assertions.assertEquals(outdated.title, noteRepository.findById(outdated.id).get().title);
+        Assertions.assertEquals(4, getNoteEntityCount());
+    }
+
+    @Test
+    public void testBulkSaveInvalidEntity() {
+        final JSONArray response = postWithJsonArrayResponse(getBulkPath(),
+                "[ { \"title\": \"A\" }, { \"rating\": \"not a number\" } ]");
+
+        assertStatusCode(200);
+        Assertions.assertTrue(response.getJSONObject(0).getBoolean("ok"));
+        Assertions.assertEquals(BulkSaveRow.INVALID_ERROR, response.getJSONObject(1).getString("error"));
+        Assertions.assertEquals(4, getNoteEntityCount());
+    }
+
+    @Test
+    public void testBulkSaveEntityViolatingConstraint() {
+        final JSONArray response = postWithJsonArrayResponse(getBulkPath(),
+                "[ { \"title\": \"A\", \"rating\": 6 }, { \"title\": \"B\", \"rating\": 5 } ]");
+
+        assertStatusCode(200);
+        Assertions.assertEquals(BulkSaveRow.INVALID_ERROR, response.getJSONObject(0).getString("error"));
+        Assertions.assertTrue(response.getJSONObject(1).getBoolean("ok"));
+        Assertions.assertEquals(4, getNoteEntityCount());
+    }
+
+    @Test
+    public void testBulkSaveTooManyEntities() {
+        final JSONObject response = postWithJsonObjectResponse(getBulkPath(),
+                "[ {}, {}, {}, {}, {}, {} ]");
+
+        assertProblemDetailGiven(CouchRestProblems.TOO_MANY_BULK_ITEMS, response);
+        Assertions.assertEquals(3, getNoteEntityCount());
+    }
+
+    @Test
+    public void testBulkSaveNoArray() {
+        final JSONObject response = postWithJsonObjectResponse(getBulkPath(), "{ \"title\": \"A\" }");
+
+        assertProblemDetailGiven(CouchRestProblems.INVALID_DATA, response);
+        Assertions.assertEquals(3, getNoteEntityCount());
+    }
+
+}
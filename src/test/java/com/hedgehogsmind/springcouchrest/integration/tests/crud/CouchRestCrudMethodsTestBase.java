@@ -2,6 +2,7 @@ package com.hedgehogsmind.springcouchrest.integration.tests.crud;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hedgehogsmind.springcouchrest.configuration.CouchRestConfigurationAdapter;
 import com.hedgehogsmind.springcouchrest.integration.env.crud.AbstractTestNoteEntity;
 import com.hedgehogsmind.springcouchrest.integration.env.crud.TestNoteEntity;
 import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
@@ -12,7 +13,9 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public abstract class CouchRestCrudMethodsTestBase<ET extends AbstractTestNoteEntity>
         extends CouchRestAbstractCrudIntegrationTestBase<ET> {
@@ -35,6 +38,172 @@ public abstract class CouchRestCrudMethodsTestBase<ET extends AbstractTestNoteEn
         Assertions.assertTrue(allNotes.isEmpty(), "Mismatch between persisted notes and serialized ones");
     }
 
+    @Test
+    public void testGetAllPaged() {
+        final JSONArray firstPage = getWithJsonArrayResponse(getNoteBasePath() + "?size=2&sort=rating,desc");
+        assertStatusCode(200);
+
+        Assertions.assertEquals(2, firstPage.length());
+        Assertions.assertEquals(5, firstPage.getJSONObject(0).getInt("rating"));
+        Assertions.assertEquals(3, firstPage.getJSONObject(1).getInt("rating"));
+        Assertions.assertEquals(
+                List.of("<" + getNoteBasePath() + "?size=2&sort=rating,desc&page=1>; rel=\"next\""),
+                lastResponseHeaders.values("Link")
+        );
+
+        final JSONArray secondPage = getWithJsonArrayResponse(getNoteBasePath() + "?size=2&sort=rating,desc&page=1");
+        assertStatusCode(200);
+
+        Assertions.assertEquals(1, secondPage.length());
+        Assertions.assertEquals(2, secondPage.getJSONObject(0).getInt("rating"));
+        Assertions.assertTrue(lastResponseHeaders.get("Link").contains("rel=\"prev\""));
+        Assertions.assertFalse(lastResponseHeaders.get("Link").contains("rel=\"next\""));
+    }
+
+    @Test
+    public void testGetAllInvalidPagingParameters() {
+        assertProblemDetailGiven(
+                CouchRestProblems.INVALID_QUERY_PARAMETER,
+                getWithJsonObjectResponse(getNoteBasePath() + "?size=abc")
+        );
+
+        assertProblemDetailGiven(
+                CouchRestProblems.INVALID_QUERY_PARAMETER,
+                getWithJsonObjectResponse(getNoteBasePath() + "?page=-1")
+        );
+
+        assertProblemDetailGiven(
+                CouchRestProblems.INVALID_QUERY_PARAMETER,
+                getWithJsonObjectResponse(getNoteBasePath() + "?sort=unknownAttribute")
+        );
+    }
+
+    @Test
+    public void testGetAllWithCursor() {
+        final JSONArray firstPage = getWithJsonArrayResponse(getNoteBasePath() + "?cursor&size=2&sort=rating,desc");
+        assertStatusCode(200);
+
+        Assertions.assertEquals(2, firstPage.length());
+        Assertions.assertEquals(5, firstPage.getJSONObject(0).getInt("rating"));
+        Assertions.assertEquals(3, firstPage.getJSONObject(1).getInt("rating"));
+
+        final String nextLink = lastResponseHeaders.get("Link");
+        Assertions.assertNotNull(nextLink);
+        Assertions.assertTrue(nextLink.endsWith("rel=\"next\""));
+
+        final JSONArray secondPage = getWithJsonArrayResponse(nextLink.substring(1, nextLink.indexOf('>')));
+        assertStatusCode(200);
+
+        Assertions.assertEquals(1, secondPage.length());
+        Assertions.assertEquals(2, secondPage.getJSONObject(0).getInt("rating"));
+        Assertions.assertNull(lastResponseHeaders.get("Link"));
+    }
+
+    @Test
+    public void testGetAllWithInvalidCursor() {
+        assertProblemDetailGiven(
+                CouchRestProblems.INVALID_QUERY_PARAMETER,
+                getWithJsonObjectResponse(getNoteBasePath() + "?cursor=abc")
+        );
+
+        // title is nullable and can not be used for keyset paging
+        assertProblemDetailGiven(
+                CouchRestProblems.INVALID_QUERY_PARAMETER,
+                getWithJsonObjectResponse(getNoteBasePath() + "?cursor&sort=title")
+        );
+
+        // cursor created for another order
+        getWithJsonArrayResponse(getNoteBasePath() + "?cursor&size=1");
+        final String nextLink = lastResponseHeaders.get("Link");
+
+        assertProblemDetailGiven(
+                CouchRestProblems.INVALID_QUERY_PARAMETER,
+                getWithJsonObjectResponse(nextLink.substring(1, nextLink.indexOf('>')) + "&sort=rating")
+        );
+    }
+
+    @Test
+    public void testGetAllInIdRange() {
+        final List<Long> ids = new ArrayList<>();
+        persistedTestNotes.forEach(note -> ids.add(note.id));
+        ids.sort(Long::compareTo);
+
+        final JSONArray range = getWithJsonArrayResponse(
+                getNoteBasePath() + "?startkey=" + ids.get(1) + "&endkey=" + ids.get(2)
+        );
+        assertStatusCode(200);
+
+        Assertions.assertEquals(2, range.length());
+        Assertions.assertEquals(ids.get(1), range.getJSONObject(0).getLong("id"));
+        Assertions.assertEquals(ids.get(2), range.getJSONObject(1).getLong("id"));
+
+        final JSONArray rangeWithCursor = getWithJsonArrayResponse(
+                getNoteBasePath() + "?cursor&endkey=" + ids.get(0)
+        );
+        assertStatusCode(200);
+
+        Assertions.assertEquals(1, rangeWithCursor.length());
+        Assertions.assertEquals(ids.get(0), rangeWithCursor.getJSONObject(0).getLong("id"));
+
+        assertProblemDetailGiven(
+                CouchRestProblems.INVALID_QUERY_PARAMETER,
+                getWithJsonObjectResponse(getNoteBasePath() + "?startkey=abc")
+        );
+    }
+
+    @Test
+    public void testGetAllStreamed() {
+        final JSONArray all = getWithJsonArrayResponse(getNoteBasePath() + "?stream&sort=rating,desc");
+        assertStatusCode(200);
+
+        // fetch size of TestNoteEntity is smaller than the number of notes
+        Assertions.assertEquals(3, all.length());
+        Assertions.assertEquals(5, all.getJSONObject(0).getInt("rating"));
+        Assertions.assertEquals(3, all.getJSONObject(1).getInt("rating"));
+        Assertions.assertEquals(2, all.getJSONObject(2).getInt("rating"));
+        Assertions.assertNull(lastResponseHeaders.get("Link"));
+
+        assertProblemDetailGiven(
+                CouchRestProblems.INVALID_QUERY_PARAMETER,
+                getWithJsonObjectResponse(getNoteBasePath() + "?stream&size=2")
+        );
+    }
+
+    @Test
+    public void testGetMultipleByIds() {
+        final long first = persistedTestNotes.get(0).id;
+        final long third = persistedTestNotes.get(2).id;
+
+        final JSONArray response = getWithJsonArrayResponse(
+                getNoteBasePath() + "?ids=" + third + "," + Long.MAX_VALUE + "," + first);
+
+        assertStatusCode(200);
+        Assertions.assertEquals(3, response.length());
+
+        Assertions.assertEquals(third, response.getJSONObject(0).getLong("id"));
+        Assertions.assertEquals(persistedTestNotes.get(2).title,
+                response.getJSONObject(0).getJSONObject("entity").getString("title"));
+
+        Assertions.assertEquals(Long.MAX_VALUE, response.getJSONObject(1).getLong("id"));
+        Assertions.assertEquals("not_found", response.getJSONObject(1).getString("error"));
+        Assertions.assertFalse(response.getJSONObject(1).has("entity"));
+
+        Assertions.assertEquals(first, response.getJSONObject(2).getLong("id"));
+        Assertions.assertEquals(first, response.getJSONObject(2).getJSONObject("entity").getLong("id"));
+    }
+
+    @Test
+    public void testGetMultipleByInvalidIds() {
+        assertProblemDetailGiven(CouchRestProblems.INVALID_QUERY_PARAMETER,
+                getWithJsonObjectResponse(getNoteBasePath() + "?ids=1,abc"));
+
+        assertProblemDetailGiven(CouchRestProblems.INVALID_QUERY_PARAMETER,
+                getWithJsonObjectResponse(getNoteBasePath() + "?ids="));
+
+        assertProblemDetailGiven(CouchRestProblems.INVALID_QUERY_PARAMETER,
+                getWithJsonObjectResponse(getNoteBasePath() + "?ids=1&page=1"));
+    }
+
     @Test
     public void testGetOne() throws JsonProcessingException {
         final long noteId = persistedTestNotes.get(0).id;
@@ -160,12 +329,102 @@ public abstract class CouchRestCrudMethodsTestBase<ET extends AbstractTestNoteEn
         assertProblemDetailGiven(CouchRestProblems.INVALID_DATA, response);
     }
 
+    @Test
+    void testTooDeeplyNestedBody() {
+        // unknown property, so that the deserializer does not reject the value before the limit is reached
+        final String deeplyNested = "{ \"unknown\": " + "[".repeat(40) + "]".repeat(40) + " }";
+        final JSONObject response = postWithJsonObjectResponse(getNoteBasePath(), deeplyNested);
+        assertProblemDetailGiven(CouchRestProblems.REQUEST_BODY_TOO_DEEPLY_NESTED, response);
+    }
+
+    @Test
+    void testTooLargeBody() {
+        final String tooLarge = "{ \"content\": \"" +
+                "a".repeat((int) CouchRestConfigurationAdapter.DEFAULT_MAX_REQUEST_BODY_SIZE) + "\" }";
+        final JSONObject response = postWithJsonObjectResponse(getNoteBasePath(), tooLarge);
+        assertProblemDetailGiven(CouchRestProblems.REQUEST_BODY_TOO_LARGE, response);
+    }
+
     @Test
     void testPostWrongIdType() {
         final JSONObject response = postWithJsonObjectResponse(getNoteBasePath()+"abc", "{}");
         assertProblemDetailGiven(CouchRestProblems.WRONG_ID_TYPE, response);
     }
 
+    @Test
+    void testMergePatch() {
+        final ET entity = persistedTestNotes.get(0);
+
+        final JSONObject response = patchWithJsonObjectResponse(getNoteBasePath() + entity.id,
+                "application/merge-patch+json", "{ \"title\": \"Patched\", \"content\": null }", Map.of());
+
+        assertStatusCode(200);
+        Assertions.assertEquals("Patched", response.getString("title"));
+        Assertions.assertEquals(entity.rating, response.getInt("rating"));
+
+        final ET patched = noteRepository.findById(entity.id).get();
+        Assertions.assertEquals("Patched", patched.title);
+        Assertions.assertNull(patched.content);
+        Assertions.assertEquals(entity.rating, patched.rating);
+    }
+
+    @Test
+    void testJsonPatchWithMinimalResponse() {
+        final ET entity = persistedTestNotes.get(0);
+
+        final JSONObject response = patchWithJsonObjectResponse(getNoteBasePath() + entity.id,
+                "application/json-patch+json",
+                "[ { \"op\": \"test\", \"path\": \"/rating\", \"value\": " + entity.rating + " }," +
+                        " { \"op\": \"replace\", \"path\": \"/rating\", \"value\": 1 } ]",
+                Map.of("Prefer", "return=minimal"));
+
+        assertStatusCode(200);
+        Assertions.assertEquals("return=minimal", lastResponseHeaders.get("Preference-Applied"));
+        Assertions.assertEquals(Set.of("id", "rating"), response.keySet());
+        Assertions.assertEquals(1, response.getInt("rating"));
+        Assertions.assertEquals(1, noteRepository.findById(entity.id).get().rating);
+    }
+
+    @Test
+    void testJsonPatchTestFailed() {
+        final ET entity = persistedTestNotes.get(0);
+
+        final JSONObject response = patchWithJsonObjectResponse(getNoteBasePath() + entity.id,
+                "application/json-patch+json",
+                "[ { \"op\": \"test\", \"path\": \"/rating\", \"value\": " + (entity.rating + 1) + " }," +
+                        " { \"op\": \"replace\", \"path\": \"/rating\", \"value\": 1 } ]",
+                Map.of());
+
+        assertProblemDetailGiven(CouchRestProblems.PATCH_NOT_APPLICABLE, response);
+        Assertions.assertEquals(entity.rating, noteRepository.findById(entity.id).get().rating);
+    }
+
+    @Test
+    void testPatchChangingId() {
+        final ET entity = persistedTestNotes.get(0);
+
+        final JSONObject response = patchWithJsonObjectResponse(getNoteBasePath() + entity.id,
+                "application/merge-patch+json", "{ \"id\": " + Long.MAX_VALUE + " }", Map.of());
+
+        assertProblemDetailGiven(CouchRestProblems.PATCH_NOT_APPLICABLE, response);
+    }
+
+    @Test
+    void testPatchUnsupportedMediaType() {
+        final JSONObject response = patchWithJsonObjectResponse(getNoteBasePath() + getSomeNoteEntityId(),
+                "application/json", "{ \"title\": \"Patched\" }", Map.of());
+
+        assertProblemDetailGiven(CouchRestProblems.UNSUPPORTED_MEDIA_TYPE, response);
+    }
+
+    @Test
+    void testPatchNotExisting() {
+        final JSONObject response = patchWithJsonObjectResponse(getNoteBasePath() + Long.MAX_VALUE,
+                "application/merge-patch+json", "{ \"title\": \"Patched\" }", Map.of());
+
+        assertProblemDetailGiven(CouchRestProblems.NOT_FOUND, response);
+    }
+
     @Test
     void testDeleteNotExisting() {
         final JSONObject response = deleteWithJsonObjectResponse(getNoteBasePath()+Long.MAX_VALUE); // very large id which probably does not exist
@@ -189,4 +448,46 @@ public abstract class CouchRestCrudMethodsTestBase<ET extends AbstractTestNoteEn
         final JSONObject response = deleteWithJsonObjectResponse(getNoteBasePath()+"abc");
         assertProblemDetailGiven(CouchRestProblems.WRONG_ID_TYPE, response);
     }
+
+    @Test
+    void testDeleteManyByIds() {
+        final long firstId = persistedTestNotes.get(0).id;
+        final long secondId = persistedTestNotes.get(1).id;
+
+        final JSONObject response = deleteWithJsonObjectResponse(getNoteBasePath() + "?ids=" + firstId + "," +
+                secondId + "," + Long.MAX_VALUE);
+
+        assertStatusCode(200);
+        Assertions.assertEquals(2, response.getInt("deleted"));
+        Assertions.assertEquals(1, noteRepository.count());
+        Assertions.assertTrue(noteRepository.existsById(persistedTestNotes.get(2).id));
+    }
+
+    @Test
+    void testDeleteManyByIdRange() {
+        final long startKey = persistedTestNotes.get(1).id;
+        final long expectedDeleted = persistedTestNotes.stream().filter(note -> note.id >= startKey).count();
+
+        final JSONObject response = deleteWithJsonObjectResponse(getNoteBasePath() + "?startkey=" + startKey);
+
+        assertStatusCode(200);
+        Assertions.assertEquals(expectedDeleted, response.getLong("deleted"));
+        Assertions.assertEquals(persistedTestNotes.size() - expectedDeleted, noteRepository.count());
+    }
+
+    @Test
+    void testDeleteManyWithoutParameters() {
+        final JSONObject response = deleteWithJsonObjectResponse(getNoteBasePath());
+
+        assertProblemDetailGiven(CouchRestProblems.INVALID_QUERY_PARAMETER, response);
+        Assertions.assertEquals(persistedTestNotes.size(), noteRepository.count());
+    }
+
+    @Test
+    void testDeleteManyWithPagingParameter() {
+        final JSONObject response = deleteWithJsonObjectResponse(getNoteBasePath() + "?startkey=0&size=1");
+
+        assertProblemDetailGiven(CouchRestProblems.INVALID_QUERY_PARAMETER, response);
+        Assertions.assertEquals(persistedTestNotes.size(), noteRepository.count());
+    }
 }
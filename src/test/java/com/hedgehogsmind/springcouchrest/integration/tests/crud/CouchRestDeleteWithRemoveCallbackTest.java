@@ -0,0 +1,41 @@
+package com.hedgehogsmind.springcouchrest.integration.tests.crud;
+
+import com.hedgehogsmind.springcouchrest.integration.env.crud.TestNoteEntityWithRemoveCallback;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CouchRestDeleteWithRemoveCallbackTest
+        extends CouchRestAbstractCrudIntegrationTestBase<TestNoteEntityWithRemoveCallback> {
+
+    private long getSortedId(final int index) {
+        return persistedTestNotes.stream().mapToLong(note -> note.id).sorted().toArray()[index];
+    }
+
+    @Test
+    public void testDeleteManyByIdRangeLoadsEntities() {
+        final int removeCountBefore = TestNoteEntityWithRemoveCallback.removeCount;
+
+        final JSONObject response = deleteWithJsonObjectResponse(getNoteBasePath() + "?startkey=" +
+                getSortedId(1));
+
+        assertStatusCode(200);
+        Assertions.assertEquals(2, response.getInt("deleted"));
+        Assertions.assertEquals(removeCountBefore + 2, TestNoteEntityWithRemoveCallback.removeCount);
+        Assertions.assertEquals(1, getNoteEntityCount());
+    }
+
+    @Test
+    public void testDeleteManyByIdRangeWithMoreEntitiesThanMaxIds() {
+        final int removeCountBefore = TestNoteEntityWithRemoveCallback.removeCount;
+
+        final JSONObject response = deleteWithJsonObjectResponse(getNoteBasePath() + "?startkey=" +
+                getSortedId(0));
+
+        assertProblemDetailGiven(CouchRestProblems.INVALID_QUERY_PARAMETER, response);
+        Assertions.assertEquals(removeCountBefore, TestNoteEntityWithRemoveCallback.removeCount);
+        Assertions.assertEquals(3, getNoteEntityCount());
+    }
+
+}
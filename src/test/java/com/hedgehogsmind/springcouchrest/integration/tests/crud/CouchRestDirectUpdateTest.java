@@ -0,0 +1,94 @@
+package com.hedgehogsmind.springcouchrest.integration.tests.crud;
+
+import com.hedgehogsmind.springcouchrest.integration.env.crud.TestNoteEntityWithDirectUpdate;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CouchRestDirectUpdateTest
+        extends CouchRestAbstractCrudIntegrationTestBase<TestNoteEntityWithDirectUpdate> {
+
+    @Test
+    public void testDirectUpdate() {
+        final TestNoteEntityWithDirectUpdate entity = persistedTestNotes.get(0);
+
+        final JSONObject response = postWithJsonObjectResponse(getNoteBasePath() + entity.id,
+                "{ \"title\": \"New title\", \"content\": \"New content\", \"rating\": 4, " +
+                        "\"version\": " + entity.version + " }");
+
+        assertStatusCode(200);
+        Assertions.assertEquals(entity.id, response.getLong("id"));
+        Assertions.assertEquals(entity.version + 1, response.getLong("version"));
+
+        final TestNoteEntityWithDirectUpdate updated = noteRepository.findById(entity.id).get();
+        Assertions.assertEquals("New title", updated.title);
+        Assertions.assertEquals("New content", updated.content);
+        Assertions.assertEquals(4, updated.rating);
+        Assertions.assertEquals(entity.version + 1, updated.version);
+    }
+
+    @Test
+    public void testDirectUpdateWithOutdatedVersion() {
+        final TestNoteEntityWithDirectUpdate entity = persistedTestNotes.get(0);
+
+        final JSONObject response = postWithJsonObjectResponse(getNoteBasePath() + entity.id,
+                "{ \"title\": \"New title\", \"content\": \"New content\", \"rating\": 4, " +
+                        "\"version\": " + (entity.version + 1) + " }");
+
+        assertProblemDetailGiven(CouchRestProblems.VERSION_CONFLICT, response);
+        Assertions.assertEquals(entity.title, noteRepository.findById(entity.id).get().title);
+    }
+
+    @Test
+    public void testDirectUpdateWithoutVersion() {
+        final TestNoteEntityWithDirectUpdate entity = persistedTestNotes.get(0);
+
+        final JSONObject response = postWithJsonObjectResponse(getNoteBasePath() + entity.id,
+                "{ \"title\": \"New title\", \"content\": \"New content\", \"rating\": 4 }");
+
+        assertProblemDetailGiven(CouchRestProblems.VERSION_CONFLICT, response);
+    }
+
+    @Test
+    public void testDirectUpdateNotExisting() {
+        final JSONObject response = postWithJsonObjectResponse(getNoteBasePath() + Long.MAX_VALUE,
+                "{ \"title\": \"New title\", \"content\": \"New content\", \"rating\": 4, \"version\": 0 }");
+
+        assertProblemDetailGiven(CouchRestProblems.NOT_FOUND, response);
+    }
+
+    @Test
+    public void testDirectUpdateWithMissingProperty() {
+        final TestNoteEntityWithDirectUpdate entity = persistedTestNotes.get(0);
+
+        final JSONObject response = postWithJsonObjectResponse(getNoteBasePath() + entity.id,
+                "{ \"title\": \"New title\", \"rating\": 4, \"version\": " + entity.version + " }");
+
+        assertProblemDetailGiven(CouchRestProblems.INCOMPLETE_BODY, response);
+        Assertions.assertEquals("content", response.getJSONArray("missingProperties").getString(0));
+        Assertions.assertEquals(1, response.getJSONArray("missingProperties").length());
+
+        final TestNoteEntityWithDirectUpdate unchanged = noteRepository.findById(entity.id).get();
+        Assertions.assertEquals(entity.title, unchanged.title);
+        Assertions.assertEquals(entity.content, unchanged.content);
+        Assertions.assertEquals(entity.version, unchanged.version);
+    }
+
+    @Test
+    public void testDirectUpdateWithConstraintViolation() {
+        final TestNoteEntityWithDirectUpdate entity = persistedTestNotes.get(0);
+
+        final JSONObject response = postWithJsonObjectResponse(getNoteBasePath() + entity.id,
+                "{ \"title\": \"New title\", \"content\": \"New content\", \"rating\": 6, " +
+                        "\"version\": " + entity.version + " }");
+
+        assertProblemDetailGiven(CouchRestProblems.INVALID_DATA, response);
+
+        final TestNoteEntityWithDirectUpdate unchanged = noteRepository.findById(entity.id).get();
+        Assertions.assertEquals(entity.title, unchanged.title);
+        Assertions.assertEquals(entity.rating, unchanged.rating);
+        Assertions.assertEquals(entity.version, unchanged.version);
+    }
+
+}
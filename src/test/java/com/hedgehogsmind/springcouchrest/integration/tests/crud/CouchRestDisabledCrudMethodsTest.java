@@ -3,6 +3,8 @@ package com.hedgehogsmind.springcouchrest.integration.tests.crud;
 import com.hedgehogsmind.springcouchrest.integration.env.crud.TestNoteEntityWithDisabledCrudMethods;
 import org.junit.jupiter.api.Test;
 
+import java.util.Map;
+
 public class CouchRestDisabledCrudMethodsTest
         extends CouchRestAbstractCrudIntegrationTestBase<TestNoteEntityWithDisabledCrudMethods>  {
 
@@ -31,6 +33,12 @@ public class CouchRestDisabledCrudMethodsTest
         assertStatusCode(404);
     }
 
+    @Test
+    public void testPatch404() {
+        perform(getNoteBasePath()+"2", "PATCH", "{}", "application/merge-patch+json", Map.of());
+        assertStatusCode(404);
+    }
+
     @Test
     public void testDelete404() {
         delete(getNoteBasePath()+"2");
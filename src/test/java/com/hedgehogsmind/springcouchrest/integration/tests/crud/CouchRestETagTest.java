@@ -0,0 +1,116 @@
+package com.hedgehogsmind.springcouchrest.integration.tests.crud;
+
+import com.hedgehogsmind.springcouchrest.integration.env.crud.TestNoteEntityWithETag;
+import com.hedgehogsmind.springcouchrest.integration.env.crud.TestNoteEntityWithETagAndTags;
+import com.hedgehogsmind.springcouchrest.workers.mapping.batch.BatchHandler;
+import com.hedgehogsmind.springcouchrest.workers.mapping.entity.MappedEntityResource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+public class CouchRestETagTest
+        extends CouchRestAbstractCrudIntegrationTestBase<TestNoteEntityWithETag> {
+
+    private String getWithHeader(final String path, final String header, final String value) {
+        return perform(path, "GET", null, "application/json", Map.of(header, value));
+    }
+
+    @Test
+    public void testVersionETag() {
+        final String path = getNoteBasePath() + getSomeNoteEntityId();
+
+        get(path);
+        assertStatusCode(200);
+        Assertions.assertEquals("\"0\"", lastResponseHeaders.get("ETag"));
+
+        Assertions.assertTrue(getWithHeader(path, "If-None-Match", "\"0\"").isEmpty());
+        assertStatusCode(304);
+        Assertions.assertEquals("\"0\"", lastResponseHeaders.get("ETag"));
+
+        postWithJsonObjectResponse(path, "{ \"content\": \"Changed\" }");
+        assertStatusCode(200);
+
+        getWithHeader(path, "If-None-Match", "\"0\"");
+        assertStatusCode(200);
+        Assertions.assertEquals("\"1\"", lastResponseHeaders.get("ETag"));
+    }
+
+    @Test
+    public void testNoVersionETagWithAssociatedData() {
+        Assertions.assertTrue(getMappedEntityResource(TestNoteEntityWithETag.class).isVersionETag());
+        Assertions.assertFalse(getMappedEntityResource(TestNoteEntityWithETagAndTags.class).isVersionETag());
+    }
+
+    private MappedEntityResource getMappedEntityResource(final Class<?> entityClass) {
+        return core.getMappedResources().stream()
+                .filter(resource -> resource instanceof MappedEntityResource)
+                .map(resource -> (MappedEntityResource) resource)
+                .filter(resource -> resource.getEntityType().getJavaType() == entityClass)
+                .findAny()
+                .orElseThrow();
+    }
+
+    @Test
+    public void testContentETag() {
+        final String path = getNoteBasePath() + getSomeNoteEntityId() + "?fields=title";
+
+        final String body = get(path);
+        assertStatusCode(200);
+
+        final String eTag = lastResponseHeaders.get("ETag");
+        Assertions.assertTrue(eTag.startsWith("\"0"));
+        Assertions.assertTrue(body.contains(persistedTestNotes.get(0).title));
+
+        Assertions.assertTrue(getWithHeader(path, "If-None-Match", eTag).isEmpty());
+        assertStatusCode(304);
+    }
+
+    @Test
+    public void testCollectionETag() {
+        final String path = getNoteBasePath();
+
+        get(path);
+        assertStatusCode(200);
+
+        final String eTag = lastResponseHeaders.get("ETag");
+        Assertions.assertNotNull(eTag);
+        Assertions.assertNull(lastResponseHeaders.get("Last-Modified"));
+
+        Assertions.assertTrue(getWithHeader(path, "If-None-Match", "W/\"other\", " + eTag).isEmpty());
+        assertStatusCode(304);
+
+        postWithJsonObjectResponse(path, "{ \"title\": \"New\", \"content\": \"Note\", \"rating\": 1 }");
+        assertStatusCode(200);
+
+        getWithHeader(path, "If-None-Match", eTag);
+        assertStatusCode(200);
+        Assertions.assertNotEquals(eTag, lastResponseHeaders.get("ETag"));
+    }
+
+    @Test
+    public void testCollectionETagAfterAtomicBatch() {
+        final String path = getNoteBasePath();
+        final String batchPath = getBasePath() + BatchHandler.BATCH_PATH_SEGMENT + "?" + BatchHandler.ATOMIC_PARAMETER;
+        final String newNote = "{ \"method\": \"POST\", \"path\": \"" + path + "\", \"body\": { \"title\": \"New\" } }";
+
+        get(path);
+        final String eTag = lastResponseHeaders.get("ETag");
+
+        // rolled back > still current
+        postWithJsonArrayResponse(batchPath, "[ " + newNote + ", " +
+                "{ \"method\": \"GET\", \"path\": \"" + path + Long.MAX_VALUE + "\" } ]");
+        assertStatusCode(200);
+
+        Assertions.assertTrue(getWithHeader(path, "If-None-Match", eTag).isEmpty());
+        assertStatusCode(304);
+
+        postWithJsonArrayResponse(batchPath, "[ " + newNote + " ]");
+        assertStatusCode(200);
+
+        getWithHeader(path, "If-None-Match", eTag);
+        assertStatusCode(200);
+        Assertions.assertNotEquals(eTag, lastResponseHeaders.get("ETag"));
+    }
+
+}
@@ -0,0 +1,144 @@
+package com.hedgehogsmind.springcouchrest.integration.tests.crud;
+
+import com.hedgehogsmind.springcouchrest.integration.env.crud.TestNoteAuthorEntity;
+import com.hedgehogsmind.springcouchrest.integration.env.crud.TestNoteEntityWithRelations;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.List;
+import java.util.Set;
+
+public class CouchRestExpandTest
+        extends CouchRestAbstractCrudIntegrationTestBase<TestNoteEntityWithRelations> {
+
+    private CrudRepository<TestNoteAuthorEntity, Long> authorRepository;
+
+    private TestNoteAuthorEntity author;
+
+    @BeforeEach
+    public void setupRelations() {
+        authorRepository = (CrudRepository<TestNoteAuthorEntity, Long>) applicationContext.getAutowireCapableBeanFactory().initializeBean(
+                new SimpleJpaRepository<TestNoteAuthorEntity, Long>(TestNoteAuthorEntity.class, entityManager),
+                "AuthorRepo"
+        );
+
+        author = authorRepository.save(new TestNoteAuthorEntity("Ada"));
+        final TestNoteAuthorEntity coauthor1 = authorRepository.save(new TestNoteAuthorEntity("Bob"));
+        final TestNoteAuthorEntity coauthor2 = authorRepository.save(new TestNoteAuthorEntity("Cy"));
+
+        // the last note has neither author nor coauthors
+        for ( final TestNoteEntityWithRelations note : persistedTestNotes.subList(0, 2) ) {
+            note.author = author;
+            note.coauthors = List.of(coauthor1, coauthor2);
+            note.tags = Set.of("couch");
+            noteRepository.save(note);
+        }
+    }
+
+    @AfterEach
+    public void cleanupRelations() {
+        // notes reference the authors
+        noteRepository.deleteAll();
+        authorRepository.deleteAll();
+    }
+
+    private void assertExpandedPage(final JSONArray page) {
+        int withAuthor = 0;
+
+        for ( int i = 0; i < page.length(); i++ ) {
+            final JSONObject note = page.getJSONObject(i);
+
+            if ( note.isNull("author") ) {
+                Assertions.assertEquals(0, note.getJSONArray("coauthors").length());
+            } else {
+                assertExpanded(note);
+                withAuthor++;
+            }
+        }
+
+        Assertions.assertEquals(2, withAuthor);
+    }
+
+    private void assertExpanded(final JSONObject note) {
+        Assertions.assertEquals("Ada", note.getJSONObject("author").getString("name"));
+        Assertions.assertEquals(author.id, note.getJSONObject("author").getLong("id"));
+        Assertions.assertEquals(2, note.getJSONArray("coauthors").length());
+        Assertions.assertTrue(note.getJSONArray("coauthors").getJSONObject(0).has("name"));
+    }
+
+    @Test
+    public void testExpandSingleEntity() {
+        final JSONObject note = getWithJsonObjectResponse(getNoteBasePath() + getSomeNoteEntityId() +
+                "?expand=author,coauthors");
+        assertStatusCode(200);
+
+        assertExpanded(note);
+        Assertions.assertEquals(persistedTestNotes.get(0).title, note.getString("title"));
+        Assertions.assertEquals(1, note.getJSONArray("tags").length());
+    }
+
+    @Test
+    public void testExpandPage() {
+        final JSONArray page = getWithJsonArrayResponse(getNoteBasePath() + "?expand=author,coauthors");
+        assertStatusCode(200);
+
+        Assertions.assertEquals(3, page.length());
+        assertExpandedPage(page);
+    }
+
+    @Test
+    public void testExpandKeysetPage() {
+        final JSONArray page = getWithJsonArrayResponse(getNoteBasePath() + "?cursor&size=3&expand=author,coauthors");
+        assertStatusCode(200);
+
+        Assertions.assertEquals(3, page.length());
+        assertExpandedPage(page);
+    }
+
+    @Test
+    public void testExpandIds() {
+        final JSONArray rows = getWithJsonArrayResponse(getNoteBasePath() + "?ids=" +
+                persistedTestNotes.get(0).id + ",-1&expand=author,coauthors");
+        assertStatusCode(200);
+
+        assertExpanded(rows.getJSONObject(0).getJSONObject("entity"));
+        Assertions.assertFalse(rows.getJSONObject(1).has("entity"));
+    }
+
+    @Test
+    public void testExpandWithFields() {
+        final JSONObject note = getWithJsonObjectResponse(getNoteBasePath() + getSomeNoteEntityId() +
+                "?fields=title&expand=author");
+        assertStatusCode(200);
+
+        Assertions.assertEquals("Ada", note.getJSONObject("author").getString("name"));
+        Assertions.assertTrue(note.has("title"));
+        Assertions.assertFalse(note.has("content"));
+    }
+
+    @Test
+    public void testNotExpandable() {
+        assertProblemDetailGiven(CouchRestProblems.INVALID_QUERY_PARAMETER,
+                getWithJsonObjectResponse(getNoteBasePath() + "?expand=tags"));
+
+        assertProblemDetailGiven(CouchRestProblems.INVALID_QUERY_PARAMETER,
+                getWithJsonObjectResponse(getNoteBasePath() + "?expand=title"));
+
+        assertProblemDetailGiven(CouchRestProblems.INVALID_QUERY_PARAMETER,
+                getWithJsonObjectResponse(getNoteBasePath() + "?expand="));
+    }
+
+    @Test
+    public void testSecurityRulesOfTargetResource() {
+        assertProblemDetailGiven(CouchRestProblems.FORBIDDEN,
+                getWithJsonObjectResponse(getNoteBasePath() + "?expand=securedNote"));
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.hedgehogsmind.springcouchrest.integration.tests.crud;
+
+import com.hedgehogsmind.springcouchrest.integration.env.crud.TestNoteAuthorEntity;
+import com.hedgehogsmind.springcouchrest.integration.env.crud.TestNoteEntityWithFetchPlan;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.Set;
+
+public class CouchRestFetchPlanTest
+        extends CouchRestAbstractCrudIntegrationTestBase<TestNoteEntityWithFetchPlan> {
+
+    private CrudRepository<TestNoteAuthorEntity, Long> authorRepository;
+
+    private TestNoteAuthorEntity author;
+
+    private TestNoteAuthorEntity reviewer;
+
+    @BeforeEach
+    public void setupFetchPlanData() {
+        authorRepository = (CrudRepository<TestNoteAuthorEntity, Long>) applicationContext.getAutowireCapableBeanFactory().initializeBean(
+                new SimpleJpaRepository<TestNoteAuthorEntity, Long>(TestNoteAuthorEntity.class, entityManager),
+                "AuthorRepo"
+        );
+
+        author = authorRepository.save(new TestNoteAuthorEntity("Ada"));
+        reviewer = authorRepository.save(new TestNoteAuthorEntity("Bob"));
+
+        for ( final TestNoteEntityWithFetchPlan note : persistedTestNotes ) {
+            note.author = author;
+            note.reviewer = reviewer;
+            note.tags = Set.of("couch", "rest");
+            note.keywords = Set.of("hidden");
+            noteRepository.save(note);
+        }
+    }
+
+    @AfterEach
+    public void cleanupFetchPlanData() {
+        // notes reference the authors
+        noteRepository.deleteAll();
+        authorRepository.deleteAll();
+    }
+
+    private void assertFetchPlan(final JSONObject note) {
+        Assertions.assertEquals("Ada", note.getJSONObject("author").getString("name"));
+        Assertions.assertEquals(author.id, note.getJSONObject("author").getLong("id"));
+
+        // not in plan: written as id without loading
+        Assertions.assertEquals(reviewer.id, note.getLong("reviewer"));
+
+        Assertions.assertEquals(2, note.getJSONArray("tags").length());
+
+        // not in plan: omitted
+        Assertions.assertFalse(note.has("keywords"));
+    }
+
+    @Test
+    public void testSingleEntity() {
+        final JSONObject note = getWithJsonObjectResponse(getNoteBasePath() + getSomeNoteEntityId());
+        assertStatusCode(200);
+
+        assertFetchPlan(note);
+    }
+
+    @Test
+    public void testPage() {
+        final JSONArray page = getWithJsonArrayResponse(getNoteBasePath());
+        assertStatusCode(200);
+
+        Assertions.assertEquals(3, page.length());
+        for ( int i = 0; i < page.length(); i++ ) {
+            assertFetchPlan(page.getJSONObject(i));
+        }
+    }
+
+    @Test
+    public void testKeysetPage() {
+        final JSONArray page = getWithJsonArrayResponse(getNoteBasePath() + "?cursor&size=2");
+        assertStatusCode(200);
+
+        Assertions.assertEquals(2, page.length());
+        assertFetchPlan(page.getJSONObject(0));
+        assertFetchPlan(page.getJSONObject(1));
+    }
+
+    @Test
+    public void testMultiGet() {
+        final JSONArray rows = getWithJsonArrayResponse(getNoteBasePath() + "?ids=" +
+                persistedTestNotes.get(0).id + "," + persistedTestNotes.get(1).id);
+        assertStatusCode(200);
+
+        Assertions.assertEquals(2, rows.length());
+        assertFetchPlan(rows.getJSONObject(0).getJSONObject("entity"));
+        assertFetchPlan(rows.getJSONObject(1).getJSONObject("entity"));
+    }
+
+    @Test
+    public void testReferencesAreCounted() {
+        getWithJsonObjectResponse(getNoteBasePath() + getSomeNoteEntityId());
+        assertStatusCode(200);
+
+        final long count = core.getLazyLoadCounts().values().stream()
+                .mapToLong(counts -> counts.getOrDefault("TestNoteEntityWithFetchPlan.reviewer", 0L))
+                .sum();
+
+        Assertions.assertTrue(count > 0);
+    }
+
+    @Test
+    public void testStreamLoadsCollectionsInBatches() {
+        // batch size 2: one full and one partial batch
+        final JSONArray stream = getWithJsonArrayResponse(getNoteBasePath() + "?stream");
+        assertStatusCode(200);
+
+        Assertions.assertEquals(3, stream.length());
+        for ( int i = 0; i < stream.length(); i++ ) {
+            assertFetchPlan(stream.getJSONObject(i));
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.hedgehogsmind.springcouchrest.integration.tests.crud;
+
+import com.hedgehogsmind.springcouchrest.integration.env.crud.TestNoteEntityWithAttachment;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+public class CouchRestFieldsTest
+        extends CouchRestAbstractCrudIntegrationTestBase<TestNoteEntityWithAttachment> {
+
+    private void assertFields(final JSONObject object, final String... fields) {
+        Assertions.assertEquals(Set.of(fields), object.keySet());
+    }
+
+    @Test
+    public void testFieldsOnPage() {
+        final JSONArray response = getWithJsonArrayResponse(getNoteBasePath() + "?fields=title,rating&sort=rating");
+        assertStatusCode(200);
+
+        Assertions.assertEquals(3, response.length());
+
+        for ( int i = 0; i < response.length(); i++ ) {
+            assertFields(response.getJSONObject(i), "id", "title", "rating");
+        }
+
+        Assertions.assertEquals("First note", response.getJSONObject(0).getString("title"));
+        Assertions.assertEquals(2, response.getJSONObject(0).getInt("rating"));
+    }
+
+    @Test
+    public void testFieldsById() {
+        final TestNoteEntityWithAttachment note = persistedTestNotes.get(0);
+
+        final JSONObject response = getWithJsonObjectResponse(getNoteBasePath() + note.id + "?fields=content");
+        assertStatusCode(200);
+
+        assertFields(response, "id", "content");
+        Assertions.assertEquals(note.content, response.getString("content"));
+
+        getWithJsonObjectResponse(getNoteBasePath() + (note.id + 1000) + "?fields=content");
+        assertStatusCode(CouchRestProblems.NOT_FOUND.getStatus());
+    }
+
+    @Test
+    public void testFieldsWithIds() {
+        final TestNoteEntityWithAttachment note = persistedTestNotes.get(1);
+
+        final JSONArray response = getWithJsonArrayResponse(getNoteBasePath() + "?ids=" + note.id + "," +
+                (note.id + 1000) + "&fields=title");
+        assertStatusCode(200);
+
+        assertFields(response.getJSONObject(0).getJSONObject("entity"), "id", "title");
+        Assertions.assertEquals(note.title, response.getJSONObject(0).getJSONObject("entity").getString("title"));
+        Assertions.assertEquals("not_found", response.getJSONObject(1).getString("error"));
+    }
+
+    @Test
+    public void testFieldsWithCursor() {
+        final JSONArray firstPage = getWithJsonArrayResponse(getNoteBasePath() + "?cursor&size=2&sort=rating,desc&fields=title");
+        assertStatusCode(200);
+
+        // the sort attribute is selected as well, as the cursor is read from it
+        assertFields(firstPage.getJSONObject(0), "id", "title", "rating");
+        Assertions.assertEquals(5, firstPage.getJSONObject(0).getInt("rating"));
+
+        final String nextLink = lastResponseHeaders.get("Link");
+        Assertions.assertNotNull(nextLink);
+
+        final JSONArray secondPage = getWithJsonArrayResponse(nextLink.substring(1, nextLink.indexOf('>')));
+        assertStatusCode(200);
+
+        Assertions.assertEquals(1, secondPage.length());
+        Assertions.assertEquals(2, secondPage.getJSONObject(0).getInt("rating"));
+    }
+
+    @Test
+    public void testFieldsWithStream() {
+        final JSONArray response = getWithJsonArrayResponse(getNoteBasePath() + "?stream&fields=title");
+        assertStatusCode(200);
+
+        Assertions.assertEquals(3, response.length());
+        assertFields(response.getJSONObject(0), "id", "title");
+    }
+
+    @Test
+    public void testFieldsInvalid() {
+        final JSONObject ignored = getWithJsonObjectResponse(getNoteBasePath() + "?fields=secret");
+        assertProblemDetailGiven(CouchRestProblems.INVALID_QUERY_PARAMETER, ignored);
+        Assertions.assertEquals("fields", ignored.getString("parameter"));
+
+        assertProblemDetailGiven(CouchRestProblems.INVALID_QUERY_PARAMETER,
+                getWithJsonObjectResponse(getNoteBasePath() + "?fields=unknown"));
+
+        assertProblemDetailGiven(CouchRestProblems.INVALID_QUERY_PARAMETER,
+                getWithJsonObjectResponse(getNoteBasePath() + "?fields="));
+    }
+
+}
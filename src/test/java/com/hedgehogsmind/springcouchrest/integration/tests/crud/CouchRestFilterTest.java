@@ -0,0 +1,119 @@
+package com.hedgehogsmind.springcouchrest.integration.tests.crud;
+
+import com.hedgehogsmind.springcouchrest.integration.env.crud.TestNoteEntityWithFilter;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class CouchRestFilterTest
+        extends CouchRestAbstractCrudIntegrationTestBase<TestNoteEntityWithFilter> {
+
+    private Set<String> getTitles(final String query) {
+        final JSONArray response = getWithJsonArrayResponse(getNoteBasePath() + "?" + query);
+        assertStatusCode(200);
+
+        final Set<String> titles = new HashSet<>();
+        for ( int i = 0; i < response.length(); i++ ) {
+            titles.add(response.getJSONObject(i).getString("title"));
+        }
+
+        return titles;
+    }
+
+    @Test
+    public void testFilterEquality() {
+        Assertions.assertEquals(Set.of("Shopping list"), getTitles("title.eq=Shopping%20list"));
+        Assertions.assertEquals(Set.of("First note", "Shopping list"), getTitles("rating.ne=5"));
+    }
+
+    @Test
+    public void testFilterRange() {
+        Assertions.assertEquals(Set.of("Pinned information", "Shopping list"), getTitles("rating.ge=3"));
+        Assertions.assertEquals(Set.of("Shopping list"), getTitles("rating.gt=2&rating.lt=5"));
+        Assertions.assertEquals(Set.of("First note", "Shopping list"), getTitles("rating.le=3"));
+    }
+
+    @Test
+    public void testFilterIn() {
+        Assertions.assertEquals(Set.of("First note", "Pinned information"), getTitles("rating.in=2,5"));
+        Assertions.assertEquals(Set.of("First note", "Pinned information", "Shopping list"),
+                getTitles("rating.in=2,3,5"));
+    }
+
+    @Test
+    public void testFilterLike() {
+        Assertions.assertEquals(Set.of("First note"), getTitles("title.like=%25note"));
+        Assertions.assertEquals(Set.of(), getTitles("title.like=note"));
+    }
+
+    @Test
+    public void testFilterNull() {
+        Assertions.assertEquals(Set.of(), getTitles("title.null=true"));
+        Assertions.assertEquals(3, getTitles("title.null=false").size());
+    }
+
+    @Test
+    public void testFilterWithPagingAndCursor() {
+        final JSONArray page = getWithJsonArrayResponse(getNoteBasePath() + "?rating.ge=3&size=1&sort=rating");
+        assertStatusCode(200);
+        Assertions.assertEquals(1, page.length());
+        Assertions.assertEquals("Shopping list", page.getJSONObject(0).getString("title"));
+
+        final JSONArray keysetPage = getWithJsonArrayResponse(getNoteBasePath() + "?rating.ge=3&cursor&sort=rating,desc");
+        assertStatusCode(200);
+        Assertions.assertEquals(2, keysetPage.length());
+        Assertions.assertEquals("Pinned information", keysetPage.getJSONObject(0).getString("title"));
+    }
+
+    @Test
+    public void testFilterNotWhitelisted() {
+        final JSONObject response = getWithJsonObjectResponse(getNoteBasePath() + "?content.eq=x");
+
+        assertProblemDetailGiven(CouchRestProblems.INVALID_QUERY_PARAMETER, response);
+        Assertions.assertEquals("content.eq", response.getString("parameter"));
+    }
+
+    @Test
+    public void testFilterInvalidValues() {
+        assertProblemDetailGiven(CouchRestProblems.INVALID_QUERY_PARAMETER,
+                getWithJsonObjectResponse(getNoteBasePath() + "?rating.eq=abc"));
+
+        assertProblemDetailGiven(CouchRestProblems.INVALID_QUERY_PARAMETER,
+                getWithJsonObjectResponse(getNoteBasePath() + "?rating.like=3"));
+
+        assertProblemDetailGiven(CouchRestProblems.INVALID_QUERY_PARAMETER,
+                getWithJsonObjectResponse(getNoteBasePath() + "?title.null=maybe"));
+    }
+
+    @Test
+    public void testFilterWithIds() {
+        final JSONObject response = getWithJsonObjectResponse(getNoteBasePath() + "?ids=" + getSomeNoteEntityId() +
+                "&rating.ge=3");
+
+        assertProblemDetailGiven(CouchRestProblems.INVALID_QUERY_PARAMETER, response);
+    }
+
+    @Test
+    public void testDeleteManyByFilter() {
+        final JSONObject response = deleteWithJsonObjectResponse(getNoteBasePath() + "?rating.le=3");
+
+        assertStatusCode(200);
+        Assertions.assertEquals(2, response.getInt("deleted"));
+        Assertions.assertEquals(Set.of("Pinned information"), getTitles("rating.ge=0"));
+    }
+
+    @Test
+    public void testDeleteManyByFilterWithIds() {
+        final JSONObject response = deleteWithJsonObjectResponse(getNoteBasePath() + "?ids=" +
+                getSomeNoteEntityId() + "&rating.ge=3");
+
+        assertProblemDetailGiven(CouchRestProblems.INVALID_QUERY_PARAMETER, response);
+        Assertions.assertEquals(3, getNoteEntityCount());
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.hedgehogsmind.springcouchrest.integration.tests.crud;
+
+import com.hedgehogsmind.springcouchrest.integration.env.crud.TestNoteAuthorEntity;
+import com.hedgehogsmind.springcouchrest.integration.env.crud.TestNoteEntityWithLazyLoadingGuard;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.Map;
+import java.util.Set;
+
+public class CouchRestLazyLoadingGuardTest
+        extends CouchRestAbstractCrudIntegrationTestBase<TestNoteEntityWithLazyLoadingGuard> {
+
+    private static final String REVIEWER_ATTRIBUTE = "TestNoteEntityWithLazyLoadingGuard.reviewer";
+
+    private CrudRepository<TestNoteAuthorEntity, Long> authorRepository;
+
+    @BeforeEach
+    public void setupReviewer() {
+        authorRepository = (CrudRepository<TestNoteAuthorEntity, Long>) applicationContext.getAutowireCapableBeanFactory().initializeBean(
+                new SimpleJpaRepository<TestNoteAuthorEntity, Long>(TestNoteAuthorEntity.class, entityManager),
+                "AuthorRepo"
+        );
+
+        final TestNoteEntityWithLazyLoadingGuard note = persistedTestNotes.get(0);
+        note.reviewer = authorRepository.save(new TestNoteAuthorEntity("Bob"));
+        noteRepository.save(note);
+    }
+
+    @AfterEach
+    public void cleanupReviewer() {
+        // notes reference the authors
+        noteRepository.deleteAll();
+        authorRepository.deleteAll();
+    }
+
+    private long getReviewerCount() {
+        return core.getLazyLoadCounts().values().stream()
+                .mapToLong(counts -> counts.getOrDefault(REVIEWER_ATTRIBUTE, 0L))
+                .sum();
+    }
+
+    @Test
+    public void testFailFast() {
+        final long countBefore = getReviewerCount();
+
+        final JSONObject response = getWithJsonObjectResponse(getNoteBasePath() + getSomeNoteEntityId());
+
+        assertProblemDetailGiven(CouchRestProblems.LAZY_LOADING_NOT_ALLOWED, response);
+        Assertions.assertEquals(REVIEWER_ATTRIBUTE, response.getString("attribute"));
+        Assertions.assertEquals(countBefore + 1, getReviewerCount());
+    }
+
+    @Test
+    public void testNotesWithoutReviewer() {
+        final JSONObject response = getWithJsonObjectResponse(getNoteBasePath() + persistedTestNotes.get(1).id);
+        assertStatusCode(200);
+
+        Assertions.assertTrue(response.isNull("reviewer"));
+    }
+
+    @Test
+    public void testFieldsSelectNoAssociation() {
+        final JSONArray page = getWithJsonArrayResponse(getNoteBasePath() + "?fields=title");
+        assertStatusCode(200);
+
+        Assertions.assertEquals(3, page.length());
+    }
+
+    @Test
+    public void testCountsAreGroupedByResource() {
+        getWithJsonObjectResponse(getNoteBasePath() + getSomeNoteEntityId());
+
+        final boolean counted = core.getLazyLoadCounts().entrySet().stream()
+                .filter(entry -> entry.getValue().containsKey(REVIEWER_ATTRIBUTE))
+                .map(Map.Entry::getKey)
+                .anyMatch(resourcePath -> resourcePath.equals(getNoteBasePath()));
+
+        Assertions.assertTrue(counted);
+    }
+
+    @Test
+    public void testPatchDoesNotLoadUntouchedAssociations() {
+        final long id = getSomeNoteEntityId();
+
+        final JSONObject minimal = patchWithJsonObjectResponse(getNoteBasePath() + id,
+                "application/merge-patch+json", "{ \"title\": \"Patched\" }", Map.of("Prefer", "return=minimal"));
+
+        assertStatusCode(200);
+        Assertions.assertEquals(Set.of("id", "title"), minimal.keySet());
+
+        // the patch itself did not load the reviewer, so writing the whole entity fails like a GET
+        final JSONObject full = patchWithJsonObjectResponse(getNoteBasePath() + id,
+                "application/merge-patch+json", "{ \"title\": \"Patched again\" }", Map.of());
+
+        assertProblemDetailGiven(CouchRestProblems.LAZY_LOADING_NOT_ALLOWED, full);
+        Assertions.assertEquals("Patched again", noteRepository.findById(id).get().title);
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.hedgehogsmind.springcouchrest.integration.tests.crud;
+
+import com.hedgehogsmind.springcouchrest.integration.env.crud.TestNoteEntityWithViews;
+import com.hedgehogsmind.springcouchrest.rest.problemdetail.problems.CouchRestProblems;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CouchRestViewsTest
+        extends CouchRestAbstractCrudIntegrationTestBase<TestNoteEntityWithViews> {
+
+    @BeforeEach
+    public void setupViewData() {
+        for ( final TestNoteEntityWithViews note : persistedTestNotes ) {
+            note.label = "Label of " + note.title;
+            note.body = "Body of " + note.title;
+            noteRepository.save(note);
+        }
+    }
+
+    private void assertSummary(final JSONObject object) {
+        Assertions.assertTrue(object.has("id"));
+        Assertions.assertTrue(object.getString("label").startsWith("Label of "));
+        Assertions.assertFalse(object.has("body"));
+    }
+
+    @Test
+    public void testSummaryViewOnCollections() {
+        final JSONArray page = getWithJsonArrayResponse(getNoteBasePath());
+        assertStatusCode(200);
+        Assertions.assertEquals(3, page.length());
+        for ( int i = 0; i < page.length(); i++ ) {
+            assertSummary(page.getJSONObject(i));
+        }
+
+        final JSONArray keysetPage = getWithJsonArrayResponse(getNoteBasePath() + "?cursor&size=2");
+        assertStatusCode(200);
+        assertSummary(keysetPage.getJSONObject(0));
+
+        final JSONArray stream = getWithJsonArrayResponse(getNoteBasePath() + "?stream");
+        assertStatusCode(200);
+        assertSummary(stream.getJSONObject(0));
+
+        final JSONArray multiGet = getWithJsonArrayResponse(getNoteBasePath() + "?ids=" + getSomeNoteEntityId());
+        assertStatusCode(200);
+        assertSummary(multiGet.getJSONObject(0).getJSONObject("entity"));
+    }
+
+    @Test
+    public void testDetailViewOnSingleEntity() {
+        final TestNoteEntityWithViews note = persistedTestNotes.get(0);
+
+        final JSONObject response = getWithJsonObjectResponse(getNoteBasePath() + note.id);
+        assertStatusCode(200);
+
+        Assertions.assertEquals("Label of " + note.title, response.getString("label"));
+        Assertions.assertEquals("Body of " + note.title, response.getString("body"));
+    }
+
+    @Test
+    public void testFieldsOverrideSummaryView() {
+        // body belongs to the detail view only
+        final JSONArray page = getWithJsonArrayResponse(getNoteBasePath() + "?fields=body");
+        assertStatusCode(200);
+
+        Assertions.assertTrue(page.getJSONObject(0).getString("body").startsWith("Body of "));
+        Assertions.assertFalse(page.getJSONObject(0).has("label"));
+    }
+
+    @Test
+    public void testFieldsOutsideDetailView() {
+        final JSONObject response = getWithJsonObjectResponse(getNoteBasePath() + "?fields=body,remark");
+
+        assertProblemDetailGiven(CouchRestProblems.INVALID_QUERY_PARAMETER, response);
+    }
+
+}
@@ -89,6 +89,24 @@ public class AnnotationUtilTest {
         Assertions.assertTrue(dummy2Values.contains("2.2"), "Missing value");
     }
 
+    @DummyModifierAnnotation1("1.1")
+    @DummyModifierAnnotation2("2.1")
+    @DummyModifierAnnotation2("2.2")
+    public static class MixedDemoClass {
+
+    }
+
+    @Test
+    public void testGetDifferentModifierAnnotationsOfOneClass() {
+        final List<Annotation> modifierAnnotations = AnnotationUtil.getAllAnnotationsAnnotatedWith(
+                MixedDemoClass.class, CouchRestModifierAnnotation.class
+        );
+
+        Assertions.assertEquals(3, modifierAnnotations.size());
+        Assertions.assertEquals(1, modifierAnnotations.stream().filter(a -> a instanceof DummyModifierAnnotation1).count());
+        Assertions.assertEquals(2, modifierAnnotations.stream().filter(a -> a instanceof DummyModifierAnnotation2).count());
+    }
+
     @Test
     public void testGetAnnotationExisting() {
         final AnnotationUtil.AnnotationOccurrence<CouchRest> o =
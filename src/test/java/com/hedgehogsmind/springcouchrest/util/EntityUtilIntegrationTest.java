@@ -7,6 +7,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
 import javax.persistence.*;
+import java.util.List;
 
 @DataJpaTest
 public class EntityUtilIntegrationTest {
@@ -26,6 +27,57 @@ public class EntityUtilIntegrationTest {
         public String value;
     }
 
+    @Entity
+    public static class DummyEntityWithRemoveCallback {
+        @Id
+        @GeneratedValue
+        public int id;
+
+        @PreRemove
+        public void beforeRemove() {
+        }
+    }
+
+    @Entity
+    public static class DummyEntityWithCollection {
+        @Id
+        @GeneratedValue
+        public int id;
+
+        @ElementCollection
+        public List<String> values;
+    }
+
+    @Entity
+    public static class DummyEntityWithRemoveCascade {
+        @Id
+        @GeneratedValue
+        public int id;
+
+        @OneToOne(cascade = CascadeType.REMOVE)
+        public DummyEntity dummy;
+    }
+
+    @Entity
+    public static class DummyEntityWithReference {
+        @Id
+        @GeneratedValue
+        public int id;
+
+        @ManyToOne
+        public DummyEntity dummy;
+    }
+
+    @Entity
+    public static class DummyEntityWithTimestampVersion {
+        @Id
+        @GeneratedValue
+        public int id;
+
+        @Version
+        public java.sql.Timestamp version;
+    }
+
     public static class NonEntityClass {
 
     }
@@ -56,4 +108,38 @@ public class EntityUtilIntegrationTest {
         );
     }
 
+    @Test
+    public void testIsBulkDeletable() {
+        Assertions.assertTrue(isBulkDeletable(DummyEntity.class));
+        Assertions.assertTrue(isBulkDeletable(DummyEntityWithReference.class));
+
+        Assertions.assertFalse(isBulkDeletable(DummyEntityWithRemoveCallback.class));
+        Assertions.assertFalse(isBulkDeletable(DummyEntityWithCollection.class));
+        Assertions.assertFalse(isBulkDeletable(DummyEntityWithRemoveCascade.class));
+    }
+
+    @Test
+    public void testIsBulkUpdatable() {
+        Assertions.assertTrue(isBulkUpdatable(DummyEntity.class));
+        Assertions.assertTrue(isBulkUpdatable(DummyEntityWithReference.class));
+
+        Assertions.assertFalse(isBulkUpdatable(DummyEntityWithCollection.class));
+        Assertions.assertFalse(isBulkUpdatable(DummyEntityWithRemoveCascade.class)); // one-to-one
+        Assertions.assertFalse(isBulkUpdatable(DummyEntityWithTimestampVersion.class));
+    }
+
+    private boolean isBulkUpdatable(final Class<?> entityClass) {
+        return EntityUtil.isBulkUpdatable(
+                EntityUtil.getRequiredEntityTypeByEntityClass(entityClass, entityManager),
+                entityManager
+        );
+    }
+
+    private boolean isBulkDeletable(final Class<?> entityClass) {
+        return EntityUtil.isBulkDeletable(
+                EntityUtil.getRequiredEntityTypeByEntityClass(entityClass, entityManager),
+                entityManager
+        );
+    }
+
 }
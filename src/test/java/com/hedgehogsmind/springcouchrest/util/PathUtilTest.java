@@ -49,4 +49,52 @@ public class PathUtilTest {
         );
     }
 
+    @Test
+    public void testNormalizedPathIsReturnedAsIs() {
+        final String path = "/hello/world/";
+
+        Assertions.assertSame(path, PathUtil.removeMultipleSlashes(path));
+        Assertions.assertSame(path, PathUtil.normalizeWithTrailingSlash(path));
+    }
+
+    @Test
+    public void testSplitIntoSegments() {
+        Assertions.assertArrayEquals(
+                new String[] {"hello", "world"},
+                PathUtil.splitIntoSegments("//hello///world/")
+        );
+
+        Assertions.assertArrayEquals(
+                new String[] {"hello"},
+                PathUtil.splitIntoSegments("hello")
+        );
+
+        Assertions.assertArrayEquals(new String[0], PathUtil.splitIntoSegments("/"));
+        Assertions.assertArrayEquals(new String[0], PathUtil.splitIntoSegments(""));
+    }
+
+    @Test
+    public void testMayStartWith() {
+        Assertions.assertTrue(PathUtil.mayStartWith("/api/note/1", 0, "/api/"));
+        Assertions.assertTrue(PathUtil.mayStartWith("//api///note", 0, "/api/"));
+        Assertions.assertTrue(PathUtil.mayStartWith("api/note", 0, "/api/"));
+        Assertions.assertTrue(PathUtil.mayStartWith("/api", 0, "/api/"));
+        Assertions.assertTrue(PathUtil.mayStartWith("/ctx/api/note", 4, "/api/"));
+
+        Assertions.assertFalse(PathUtil.mayStartWith("/actuator/health", 0, "/api/"));
+        Assertions.assertFalse(PathUtil.mayStartWith("/apis/note", 0, "/api/"));
+        Assertions.assertFalse(PathUtil.mayStartWith("/ap", 0, "/api/"));
+        Assertions.assertFalse(PathUtil.mayStartWith("/", 0, "/api/"));
+    }
+
+    @Test
+    public void testMayStartWithUndecidable() {
+        // encoded characters and path parameters need the regular path handling
+        Assertions.assertTrue(PathUtil.mayStartWith("/%61pi/note", 0, "/api/"));
+        Assertions.assertTrue(PathUtil.mayStartWith("/api;jsessionid=1/note", 0, "/api/"));
+
+        // behind the prefix they do not matter
+        Assertions.assertFalse(PathUtil.mayStartWith("/other/%61pi/", 0, "/api/"));
+    }
+
 }
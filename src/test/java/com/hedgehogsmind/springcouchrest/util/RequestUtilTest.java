@@ -61,4 +61,34 @@ public class RequestUtilTest {
         );
     }
 
+    @Test
+    public void testMayTargetPath() {
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getContextPath()).thenReturn("/ctx");
+        when(request.getRequestURI()).thenReturn("/ctx//api/note");
+
+        Assertions.assertTrue(RequestUtil.mayTargetPath(request, "/api/"));
+        Assertions.assertFalse(RequestUtil.mayTargetPath(request, "/other/"));
+    }
+
+    @Test
+    public void testMayTargetPathWithForeignContextPath() {
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getContextPath()).thenReturn("/ctx");
+        when(request.getRequestURI()).thenReturn("/%63tx/other");
+
+        // can not be decided cheaply
+        Assertions.assertTrue(RequestUtil.mayTargetPath(request, "/api/"));
+    }
+
+    @Test
+    public void testReplaceQueryParameter() {
+        Assertions.assertEquals("page=2", RequestUtil.replaceQueryParameter(null, "page", "2"));
+        Assertions.assertEquals("page=2", RequestUtil.replaceQueryParameter("page=1", "page", "2"));
+        Assertions.assertEquals(
+                "size=10&pages=3&page=2",
+                RequestUtil.replaceQueryParameter("page=1&size=10&page&pages=3", "page", "2")
+        );
+    }
+
 }
@@ -8,14 +8,18 @@ import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetail;
 import com.hedgehogsmind.springcouchrest.rest.problemdetail.ProblemDetailDto;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentCaptor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
@@ -31,9 +35,8 @@ public class ResponseUtilTest {
 
     private static final ObjectMapper OM = new ObjectMapper();
 
-    protected PrintWriter writer() {
-        final PrintWriter mockWriter = mock(PrintWriter.class);
-        return mockWriter;
+    protected ByteArrayOutputStream output() {
+        return new ByteArrayOutputStream();
     }
 
     protected HttpServletRequest request() {
@@ -49,10 +52,24 @@ public class ResponseUtilTest {
         return mockRequest;
     }
 
-    protected HttpServletResponse response(final PrintWriter writer) {
+    protected HttpServletResponse response(final ByteArrayOutputStream output) {
         try {
             final HttpServletResponse mockResponse = mock(HttpServletResponse.class);
-            when(mockResponse.getWriter()).thenReturn(writer);
+            when(mockResponse.getOutputStream()).thenReturn(new ServletOutputStream() {
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                }
+
+                @Override
+                public void write(int b) {
+                    output.write(b);
+                }
+            });
             return mockResponse;
         } catch ( IOException e ) {
             throw new RuntimeException(e);
@@ -60,19 +77,20 @@ public class ResponseUtilTest {
     }
 
     protected HttpServletResponse response() {
-        return response(writer());
+        return response(output());
+    }
+
+    private void assertWritten(final ByteArrayOutputStream output, final String expected) {
+        Assertions.assertEquals(expected, output.toString(StandardCharsets.UTF_8));
     }
 
     private String removeInstancePart(final String value) {
         return value.replaceAll("\"instance\":\"urn:uuid:[0-9a-zA-Z-]+\"", "");
     }
 
-    private void checkProblemDetail(final PrintWriter writerMock, final ProblemDetail problemDetail) {
-        ArgumentCaptor<String> argument = ArgumentCaptor.forClass(String.class);
-        verify(writerMock).print(argument.capture());
-
+    private void checkProblemDetail(final ByteArrayOutputStream output, final ProblemDetail problemDetail) {
         final String expected = removeInstancePart(problemDetail.toJson());
-        final String actual = removeInstancePart(argument.getValue());
+        final String actual = removeInstancePart(output.toString(StandardCharsets.UTF_8));
 
         Assertions.assertEquals(
                 expected,
@@ -137,78 +155,79 @@ public class ResponseUtilTest {
         final String body = "This is a test! äüöéê∂†®";
         final ResponseEntity re = ResponseEntity.ok(body);
 
-        final PrintWriter writer = writer();
+        final ByteArrayOutputStream output = output();
         final HttpServletRequest request = request();
-        final HttpServletResponse response = response(writer);
+        final HttpServletResponse response = response(output);
 
         ResponseUtil.writeResponseEntity(re, request, response, OM);
 
-        verify(writer).print(body);
+        assertWritten(output, body);
+        verify(response).setContentLength(body.getBytes(StandardCharsets.UTF_8).length);
     }
 
     @Test
     void testBooleanBody() {
         final ResponseEntity re = ResponseEntity.ok(true);
 
-        final PrintWriter writer = writer();
+        final ByteArrayOutputStream output = output();
         final HttpServletRequest request = request();
-        final HttpServletResponse response = response(writer);
+        final HttpServletResponse response = response(output);
 
         ResponseUtil.writeResponseEntity(re, request, response, OM);
 
-        verify(writer).print("true");
+        assertWritten(output, "true");
     }
 
     @Test
     void testLongBody() {
         final ResponseEntity re = ResponseEntity.ok(12345L);
 
-        final PrintWriter writer = writer();
+        final ByteArrayOutputStream output = output();
         final HttpServletRequest request = request();
-        final HttpServletResponse response = response(writer);
+        final HttpServletResponse response = response(output);
 
         ResponseUtil.writeResponseEntity(re, request, response, OM);
 
-        verify(writer).print("12345");
+        assertWritten(output, "12345");
     }
 
     @Test
     void testIntegerBody() {
         final ResponseEntity re = ResponseEntity.ok(54321);
 
-        final PrintWriter writer = writer();
+        final ByteArrayOutputStream output = output();
         final HttpServletRequest request = request();
-        final HttpServletResponse response = response(writer);
+        final HttpServletResponse response = response(output);
 
         ResponseUtil.writeResponseEntity(re, request, response, OM);
 
-        verify(writer).print("54321");
+        assertWritten(output, "54321");
     }
 
     @Test
     void testDoubleBody() {
         final ResponseEntity re = ResponseEntity.ok(2.345);
 
-        final PrintWriter writer = writer();
+        final ByteArrayOutputStream output = output();
         final HttpServletRequest request = request();
-        final HttpServletResponse response = response(writer);
+        final HttpServletResponse response = response(output);
 
         ResponseUtil.writeResponseEntity(re, request, response, OM);
 
-        verify(writer).print("2.345");
+        assertWritten(output, "2.345");
     }
 
     @Test
     void testFloatBody() {
         final ResponseEntity re = ResponseEntity.ok(1.05f);
 
-        final PrintWriter writer = writer();
+        final ByteArrayOutputStream output = output();
         final HttpServletRequest request = request();
-        final HttpServletResponse response = response(writer);
+        final HttpServletResponse response = response(output);
 
         ResponseUtil.writeResponseEntity(re, request, response, OM);
 
-        verify(writer).print("1.05");
+        assertWritten(output, "1.05");
     }
 
     @Test
@@ -223,13 +242,13 @@ public class ResponseUtilTest {
 
         final ResponseEntity re = ResponseEntity.ok(detail);
 
-        final PrintWriter writer = writer();
+        final ByteArrayOutputStream output = output();
         final HttpServletRequest request = request();
-        final HttpServletResponse response = response(writer);
+        final HttpServletResponse response = response(output);
 
         ResponseUtil.writeResponseEntity(re, request, response, OM);
 
-        checkProblemDetail(writer, detail);
+        checkProblemDetail(output, detail);
     }
 
     @Test
@@ -243,13 +262,13 @@ public class ResponseUtilTest {
 
         final ResponseEntity re = ResponseEntity.ok(descriptor);
 
-        final PrintWriter writer = writer();
+        final ByteArrayOutputStream output = output();
         final HttpServletRequest request = request();
-        final HttpServletResponse response = response(writer);
+        final HttpServletResponse response = response(output);
 
         ResponseUtil.writeResponseEntity(re, request, response, OM);
 
-        checkProblemDetail(writer, descriptor.toProblemDetail(Locale.ENGLISH));
+        checkProblemDetail(output, descriptor.toProblemDetail(Locale.ENGLISH));
     }
 
     @Test
@@ -263,13 +282,13 @@ public class ResponseUtilTest {
 
         final ResponseEntity re = ResponseEntity.ok(descriptor);
 
-        final PrintWriter writer = writer();
+        final ByteArrayOutputStream output = output();
         final HttpServletRequest request = requestWithLocale(); // Only difference (compared to testProblemDescriptorBody() )
-        final HttpServletResponse response = response(writer);
+        final HttpServletResponse response = response(output);
 
         ResponseUtil.writeResponseEntity(re, request, response, OM);
 
-        checkProblemDetail(writer, descriptor.toProblemDetail(Locale.ENGLISH));
+        checkProblemDetail(output, descriptor.toProblemDetail(Locale.ENGLISH));
     }
 
     @Test
@@ -287,13 +306,13 @@ public class ResponseUtilTest {
 
         final ResponseEntity re = ResponseEntity.ok(attributed);
 
-        final PrintWriter writer = writer();
+        final ByteArrayOutputStream output = output();
         final HttpServletRequest request = request();
-        final HttpServletResponse response = response(writer);
+        final HttpServletResponse response = response(output);
 
         ResponseUtil.writeResponseEntity(re, request, response, OM);
 
-        checkProblemDetail(writer, attributed.toProblemDetail(Locale.ENGLISH));
+        checkProblemDetail(output, attributed.toProblemDetail(Locale.ENGLISH));
     }
 
     public static class SomeDto {
@@ -309,12 +328,25 @@ public class ResponseUtilTest {
 
         final ResponseEntity re = ResponseEntity.ok(body);
 
-        final PrintWriter writer = writer();
+        final ByteArrayOutputStream output = output();
         final HttpServletRequest request = request();
-        final HttpServletResponse response = response(writer);
+        final HttpServletResponse response = response(output);
 
         ResponseUtil.writeResponseEntity(re, request, response, OM);
 
-        verify(writer).print(OM.writeValueAsString(body));
+        assertWritten(output, OM.writeValueAsString(body));
+    }
+
+    @Test
+    void testStreamingBody() throws IOException {
+        final StreamingResponseBody body = outputStream -> outputStream.write("[1,2]".getBytes(StandardCharsets.UTF_8));
+        final ResponseEntity re = ResponseEntity.ok(body);
+
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        ResponseUtil.writeResponseEntity(re, request(), response, OM);
+
+        Assertions.assertEquals("[1,2]", response.getContentAsString());
+        Assertions.assertEquals("application/json;charset=UTF-8", response.getContentType());
     }
 }
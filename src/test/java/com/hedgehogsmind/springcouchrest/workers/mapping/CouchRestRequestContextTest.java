@@ -0,0 +1,60 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Locale;
+
+public class CouchRestRequestContextTest {
+
+    @Test
+    public void testParsesRequest() {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "//api/note///42");
+        request.addParameter("page", "2");
+
+        final CouchRestRequestContext context = CouchRestRequestContext.attach(request);
+
+        Assertions.assertEquals("GET", context.getMethod());
+        Assertions.assertEquals("/api/note/42/", context.getFullPath());
+        Assertions.assertEquals("42/", context.getPathAfter("/api/note/"));
+        Assertions.assertArrayEquals(new String[] {"42"}, context.getPathVariablesAfter("/api/note/"));
+        Assertions.assertArrayEquals(new String[] {"note", "42"}, context.getPathVariablesAfter("/api/"));
+        Assertions.assertArrayEquals(new String[0], context.getPathVariablesAfter("/api/note/42/"));
+        Assertions.assertArrayEquals(new String[] {"2"}, context.getQueryParameters().get("page"));
+        Assertions.assertEquals(Locale.ENGLISH, context.getLocale());
+    }
+
+    @Test
+    public void testAttachedContextIsReused() {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/note/");
+
+        final CouchRestRequestContext context = CouchRestRequestContext.attach(request);
+
+        Assertions.assertSame(context, request.getAttribute(CouchRestRequestContext.REQUEST_ATTRIBUTE));
+        Assertions.assertSame(context, CouchRestRequestContext.of(request));
+    }
+
+    @Test
+    public void testStaleContextIsReplaced() {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/note/");
+        final CouchRestRequestContext context = CouchRestRequestContext.attach(request);
+
+        // e.g. error dispatch with same request instance
+        request.setRequestURI("/error");
+
+        final CouchRestRequestContext newContext = CouchRestRequestContext.of(request);
+        Assertions.assertNotSame(context, newContext);
+        Assertions.assertEquals("/error/", newContext.getFullPath());
+    }
+
+    @Test
+    public void testPathAfterForeignPrefix() {
+        final CouchRestRequestContext context = CouchRestRequestContext.attach(
+                new MockHttpServletRequest("GET", "/api/note/")
+        );
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> context.getPathAfter("/api/tree/"));
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.handler.MappedInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class MappingRouterTest {
+
+    private MappedResource resource(final String path, final MappingHandler... handlers) {
+        final MappedResource resource = mock(MappedResource.class);
+        when(resource.getResourcePathWithTrailingSlash()).thenReturn(path);
+        when(resource.getSubMappingHandlers()).thenReturn(List.of(handlers));
+        return resource;
+    }
+
+    private MappedResourceSubHandlerBase handler(final String method, final boolean accepts) {
+        final MappedResourceSubHandlerBase handler = mock(MappedResourceSubHandlerBase.class);
+        when(handler.getHttpMethods()).thenReturn(Set.of(method));
+        when(handler.accepts(any(HttpServletRequest.class))).thenReturn(accepts);
+        return handler;
+    }
+
+    @Test
+    public void testFindsHandlerByPathAndMethod() {
+        final MappedResourceSubHandlerBase noteGet = handler("GET", true);
+        final MappedResourceSubHandlerBase notePost = handler("POST", true);
+        final MappedResourceSubHandlerBase treeGet = handler("GET", true);
+
+        final MappingRouter router = new MappingRouter(List.of(
+                resource("/api/note/", noteGet, notePost),
+                resource("/api/tree/", treeGet)
+        ));
+
+        Assertions.assertEquals(Optional.of(noteGet), router.findHandler(new MockHttpServletRequest("GET", "/api/note/1")));
+        Assertions.assertEquals(Optional.of(notePost), router.findHandler(new MockHttpServletRequest("POST", "/api/note/")));
+        Assertions.assertEquals(Optional.of(treeGet), router.findHandler(new MockHttpServletRequest("GET", "//api/tree")));
+
+        // only handlers registered for the request's method are asked
+        verify(noteGet, times(1)).accepts(any(HttpServletRequest.class));
+        verify(notePost, times(1)).accepts(any(HttpServletRequest.class));
+    }
+
+    @Test
+    public void testUnknownPathOrMethod() {
+        final MappingRouter router = new MappingRouter(List.of(
+                resource("/api/note/", handler("GET", true))
+        ));
+
+        Assertions.assertTrue(router.findHandler(new MockHttpServletRequest("GET", "/api/")).isEmpty());
+        Assertions.assertTrue(router.findHandler(new MockHttpServletRequest("GET", "/other/note/")).isEmpty());
+        Assertions.assertTrue(router.findHandler(new MockHttpServletRequest("GET", "/api/notes/")).isEmpty());
+        Assertions.assertTrue(router.findHandler(new MockHttpServletRequest("DELETE", "/api/note/1")).isEmpty());
+    }
+
+    @Test
+    public void testDeeperResourceIsPreferred() {
+        final MappedResourceSubHandlerBase outerHandler = handler("GET", true);
+        final MappedResourceSubHandlerBase innerHandler = handler("GET", true);
+        final MappedResourceSubHandlerBase rejectingInnerHandler = handler("POST", false);
+
+        final MappingRouter router = new MappingRouter(List.of(
+                resource("/api/a/", outerHandler),
+                resource("/api/a/b/", innerHandler, rejectingInnerHandler)
+        ));
+
+        Assertions.assertEquals(Optional.of(innerHandler), router.findHandler(new MockHttpServletRequest("GET", "/api/a/b/1")));
+        Assertions.assertEquals(Optional.of(outerHandler), router.findHandler(new MockHttpServletRequest("GET", "/api/a/1")));
+
+        // inner resource rejects > no fallback handler for POST in outer resource
+        Assertions.assertTrue(router.findHandler(new MockHttpServletRequest("POST", "/api/a/b/")).isEmpty());
+    }
+
+    @Test
+    public void testPathClash() {
+        Assertions.assertThrows(IllegalStateException.class, () -> new MappingRouter(List.of(
+                resource("/api/note/"),
+                resource("/api//note")
+        )));
+    }
+
+    @Test
+    public void testInterceptorsArePrefilteredPerRoute() {
+        final MappedResourceSubHandlerBase noteGet = handler("GET", true);
+        final MappedResourceSubHandlerBase treeGet = handler("GET", true);
+
+        final HandlerInterceptor global = mock(HandlerInterceptor.class);
+        final HandlerInterceptor treeOnly = mock(HandlerInterceptor.class);
+        final HandlerInterceptor treeItemsOnly = mock(HandlerInterceptor.class);
+
+        final MappingRouter router = new MappingRouter(List.of(
+                resource("/api/note/", noteGet),
+                resource("/api/tree/", treeGet)
+        )).withInterceptors(List.of(
+                global,
+                new MappedInterceptor(new String[] {"/api/tree/**"}, treeOnly),
+                new MappedInterceptor(new String[] {"/api/tree/*"}, treeItemsOnly)
+        ));
+
+        final HandlerExecutionChain noteChain = router.findHandlerExecutionChain(
+                CouchRestRequestContext.attach(new MockHttpServletRequest("GET", "/api/note/1"))
+        );
+
+        Assertions.assertSame(noteGet, noteChain.getHandler());
+        Assertions.assertEquals(List.of(global), noteChain.getInterceptorList());
+
+        final HandlerExecutionChain treeItemChain = router.findHandlerExecutionChain(
+                CouchRestRequestContext.attach(new MockHttpServletRequest("GET", "/api/tree/1"))
+        );
+
+        Assertions.assertSame(treeGet, treeItemChain.getHandler());
+        Assertions.assertEquals(List.of(global, treeOnly, treeItemsOnly), treeItemChain.getInterceptorList());
+
+        final HandlerExecutionChain treeChain = router.findHandlerExecutionChain(
+                CouchRestRequestContext.attach(new MockHttpServletRequest("GET", "/api/tree/"))
+        );
+
+        Assertions.assertEquals(List.of(global, treeOnly), treeChain.getInterceptorList());
+
+        // chains carry per request state and must not be shared
+        Assertions.assertNotSame(treeItemChain, router.findHandlerExecutionChain(
+                CouchRestRequestContext.attach(new MockHttpServletRequest("GET", "/api/tree/1"))
+        ));
+    }
+
+    @Test
+    public void testNoChainForUnknownPath() {
+        final MappingRouter router = new MappingRouter(List.of(
+                resource("/api/note/", handler("GET", true))
+        )).withInterceptors(List.of());
+
+        Assertions.assertNull(router.findHandlerExecutionChain(
+                CouchRestRequestContext.attach(new MockHttpServletRequest("GET", "/api/tree/"))
+        ));
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.body;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hedgehogsmind.springcouchrest.workers.mapping.body.exceptions.RequestBodyTooDeeplyNestedException;
+import com.hedgehogsmind.springcouchrest.workers.mapping.body.exceptions.RequestBodyTooLargeException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+public class RequestBodyReaderTest {
+
+    public static class Dto {
+        public String a;
+        public int b;
+        public Object nested;
+    }
+
+    private static final ObjectMapper OM = new ObjectMapper();
+
+    private RequestBodyReader reader(final long maxSize, final int maxDepth) {
+        return new RequestBodyReader(OM.readerFor(Dto.class), maxSize, maxDepth);
+    }
+
+    private MockHttpServletRequest request(final String body) {
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/dto/");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    /**
+     * Request without Content-Length, e.g. chunked transfer encoding.
+     */
+    private MockHttpServletRequest requestWithoutContentLength(final String body) {
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/dto/") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        final Dto dto = (Dto) reader(1024, 4).read(request("{\"a\": \"äöü\", \"b\": 1, \"nested\": [[1], {\"x\": 2}]}"));
+
+        Assertions.assertEquals("äöü", dto.a);
+        Assertions.assertEquals(1, dto.b);
+        Assertions.assertEquals(List.of(List.of(1), Map.of("x", 2)), dto.nested);
+    }
+
+    @Test
+    public void testDeclaredContentLengthTooLarge() {
+        final RequestBodyTooLargeException e = Assertions.assertThrows(
+                RequestBodyTooLargeException.class,
+                () -> reader(10, 4).read(request("{\"a\": \"more than ten bytes\"}"))
+        );
+
+        Assertions.assertEquals(10, e.getMaxSize());
+    }
+
+    @Test
+    public void testStreamedBodyTooLarge() {
+        Assertions.assertThrows(
+                RequestBodyTooLargeException.class,
+                () -> reader(10, 4).read(requestWithoutContentLength("{\"a\": \"more than ten bytes\"}"))
+        );
+    }
+
+    @Test
+    public void testTooDeeplyNested() {
+        final RequestBodyTooDeeplyNestedException e = Assertions.assertThrows(
+                RequestBodyTooDeeplyNestedException.class,
+                () -> reader(1024, 4).read(request("{\"nested\": [[[[1]]]]}"))
+        );
+
+        Assertions.assertEquals(4, e.getMaxDepth());
+
+        // skipped (unknown) properties are limited as well
+        final RequestBodyReader ignoringReader = new RequestBodyReader(
+                OM.copy().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                        .readerFor(Dto.class),
+                1024,
+                3
+        );
+
+        Assertions.assertThrows(
+                RequestBodyTooDeeplyNestedException.class,
+                () -> ignoringReader.read(request("{\"unknown\": {\"x\": [[1]]}}"))
+        );
+
+        // skipping must not break the depth tracking
+        Assertions.assertDoesNotThrow(
+                () -> ignoringReader.read(request("{\"unknown\": {\"x\": [1]}, \"nested\": [[1]]}"))
+        );
+    }
+
+    @Test
+    public void testInvalidJson() {
+        Assertions.assertThrows(
+                JsonProcessingException.class,
+                () -> reader(1024, 4).read(request("{\"a\": "))
+        );
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.body.patch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.Set;
+
+public class JsonMergePatchTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private void assertPatched(final String target, final String patch, final String expected)
+            throws JsonProcessingException {
+
+        final JsonNode targetNode = objectMapper.readTree(target);
+        final JsonNode result = JsonMergePatch.apply(targetNode, objectMapper.readTree(patch));
+
+        Assertions.assertEquals(objectMapper.readTree(expected), result);
+        Assertions.assertEquals(objectMapper.readTree(target), targetNode, "target has been modified");
+    }
+
+    @Test
+    public void testReplaceAndAdd() throws JsonProcessingException {
+        assertPatched("{\"a\":\"b\"}", "{\"a\":\"c\",\"d\":1}", "{\"a\":\"c\",\"d\":1}");
+    }
+
+    @Test
+    public void testRemoveByNull() throws JsonProcessingException {
+        assertPatched("{\"a\":\"b\",\"c\":1}", "{\"a\":null}", "{\"c\":1}");
+    }
+
+    @Test
+    public void testNestedObjectsAreMerged() throws JsonProcessingException {
+        assertPatched("{\"a\":{\"b\":1,\"c\":2}}", "{\"a\":{\"c\":null,\"d\":3}}", "{\"a\":{\"b\":1,\"d\":3}}");
+    }
+
+    @Test
+    public void testArraysAreReplaced() throws JsonProcessingException {
+        assertPatched("{\"a\":[1,2]}", "{\"a\":[3]}", "{\"a\":[3]}");
+    }
+
+    @Test
+    public void testNonObjectPatchReplacesTarget() throws JsonProcessingException {
+        assertPatched("{\"a\":1}", "[1]", "[1]");
+    }
+
+    @Test
+    public void testTopLevelMemberNames() throws JsonProcessingException {
+        Assertions.assertEquals(Optional.of(Set.of("a", "c")),
+                JsonMergePatch.getTopLevelMemberNames(objectMapper.readTree("{\"a\":{\"b\":1},\"c\":null}")));
+        Assertions.assertEquals(Optional.empty(), JsonMergePatch.getTopLevelMemberNames(objectMapper.readTree("[1]")));
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.body.patch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hedgehogsmind.springcouchrest.workers.mapping.body.exceptions.InvalidPatchException;
+import com.hedgehogsmind.springcouchrest.workers.mapping.body.exceptions.PatchNotApplicableException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.Set;
+
+public class JsonPatchTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private JsonNode apply(final String target, final String patch) throws JsonProcessingException {
+        return JsonPatch.fromJson(objectMapper.readTree(patch)).apply(objectMapper.readTree(target));
+    }
+
+    private void assertPatched(final String target, final String patch, final String expected)
+            throws JsonProcessingException {
+
+        Assertions.assertEquals(objectMapper.readTree(expected), apply(target, patch));
+    }
+
+    @Test
+    public void testAdd() throws JsonProcessingException {
+        assertPatched("{\"a\":1}", "[{\"op\":\"add\",\"path\":\"/b\",\"value\":2}]", "{\"a\":1,\"b\":2}");
+        assertPatched("{\"a\":[1,3]}", "[{\"op\":\"add\",\"path\":\"/a/1\",\"value\":2}]", "{\"a\":[1,2,3]}");
+        assertPatched("{\"a\":[1]}", "[{\"op\":\"add\",\"path\":\"/a/-\",\"value\":2}]", "{\"a\":[1,2]}");
+    }
+
+    @Test
+    public void testRemoveAndReplace() throws JsonProcessingException {
+        assertPatched("{\"a\":1,\"b\":2}", "[{\"op\":\"remove\",\"path\":\"/a\"}]", "{\"b\":2}");
+        assertPatched("{\"a\":[1,2]}", "[{\"op\":\"remove\",\"path\":\"/a/0\"}]", "{\"a\":[2]}");
+        assertPatched("{\"a\":1}", "[{\"op\":\"replace\",\"path\":\"/a\",\"value\":null}]", "{\"a\":null}");
+    }
+
+    @Test
+    public void testMoveAndCopy() throws JsonProcessingException {
+        assertPatched("{\"a\":1}", "[{\"op\":\"move\",\"from\":\"/a\",\"path\":\"/b\"}]", "{\"b\":1}");
+        assertPatched("{\"a\":{\"c\":1}}", "[{\"op\":\"copy\",\"from\":\"/a\",\"path\":\"/b\"}]",
+                "{\"a\":{\"c\":1},\"b\":{\"c\":1}}");
+    }
+
+    @Test
+    public void testEscapedPointer() throws JsonProcessingException {
+        assertPatched("{\"a/b\":1}", "[{\"op\":\"replace\",\"path\":\"/a~1b\",\"value\":2}]", "{\"a/b\":2}");
+    }
+
+    @Test
+    public void testTargetNotModified() throws JsonProcessingException {
+        final JsonNode target = objectMapper.readTree("{\"a\":1}");
+        JsonPatch.fromJson(objectMapper.readTree("[{\"op\":\"remove\",\"path\":\"/a\"}]")).apply(target);
+
+        Assertions.assertEquals(objectMapper.readTree("{\"a\":1}"), target);
+    }
+
+    @Test
+    public void testTopLevelMemberNames() throws JsonProcessingException {
+        final JsonPatch patch = JsonPatch.fromJson(objectMapper.readTree("[" +
+                "{\"op\":\"test\",\"path\":\"/a/0\",\"value\":1}," +
+                "{\"op\":\"move\",\"from\":\"/b~1c\",\"path\":\"/d\"}]"));
+
+        Assertions.assertEquals(Optional.of(Set.of("a", "b/c", "d")), patch.getTopLevelMemberNames());
+
+        final JsonPatch rootPatch = JsonPatch.fromJson(
+                objectMapper.readTree("[{\"op\":\"replace\",\"path\":\"\",\"value\":{}}]"));
+
+        Assertions.assertEquals(Optional.empty(), rootPatch.getTopLevelMemberNames());
+    }
+
+    @Test
+    public void testNotApplicable() {
+        Assertions.assertThrows(PatchNotApplicableException.class,
+                () -> apply("{\"a\":1}", "[{\"op\":\"test\",\"path\":\"/a\",\"value\":2}]"));
+
+        Assertions.assertThrows(PatchNotApplicableException.class,
+                () -> apply("{\"a\":1}", "[{\"op\":\"remove\",\"path\":\"/b\"}]"));
+
+        Assertions.assertThrows(PatchNotApplicableException.class,
+                () -> apply("{\"a\":1}", "[{\"op\":\"replace\",\"path\":\"/b\",\"value\":2}]"));
+
+        Assertions.assertThrows(PatchNotApplicableException.class,
+                () -> apply("{\"a\":[1]}", "[{\"op\":\"add\",\"path\":\"/a/5\",\"value\":2}]"));
+
+        Assertions.assertThrows(PatchNotApplicableException.class,
+                () -> apply("{\"a\":{}}", "[{\"op\":\"move\",\"from\":\"/a\",\"path\":\"/a/b\"}]"));
+    }
+
+    @Test
+    public void testInvalidPatches() {
+        Assertions.assertThrows(InvalidPatchException.class,
+                () -> apply("{}", "{\"op\":\"add\",\"path\":\"/a\",\"value\":1}"));
+
+        Assertions.assertThrows(InvalidPatchException.class,
+                () -> apply("{}", "[{\"op\":\"unknown\",\"path\":\"/a\"}]"));
+
+        Assertions.assertThrows(InvalidPatchException.class,
+                () -> apply("{}", "[{\"op\":\"add\",\"value\":1}]"));
+
+        Assertions.assertThrows(InvalidPatchException.class,
+                () -> apply("{}", "[{\"op\":\"add\",\"path\":\"/a\"}]"));
+
+        Assertions.assertThrows(InvalidPatchException.class,
+                () -> apply("{}", "[{\"op\":\"copy\",\"path\":\"/a\"}]"));
+    }
+
+}
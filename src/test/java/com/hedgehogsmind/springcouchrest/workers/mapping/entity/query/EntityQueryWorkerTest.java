@@ -0,0 +1,23 @@
+package com.hedgehogsmind.springcouchrest.workers.mapping.entity.query;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class EntityQueryWorkerTest {
+
+    @Test
+    public void testPadToPowerOfTwo() {
+        Assertions.assertEquals(List.of(1L), EntityQueryWorker.padToPowerOfTwo(List.of(1L)));
+        Assertions.assertEquals(List.of(1L, 2L), EntityQueryWorker.padToPowerOfTwo(List.of(1L, 2L)));
+        Assertions.assertEquals(List.of(1L, 2L, 3L, 3L), EntityQueryWorker.padToPowerOfTwo(List.of(1L, 2L, 3L)));
+        Assertions.assertEquals(8, EntityQueryWorker.padToPowerOfTwo(List.of(1L, 2L, 3L, 4L, 5L)).size());
+    }
+
+    @Test
+    public void testPadToPowerOfTwoRemovesDuplicates() {
+        Assertions.assertEquals(List.of(2L, 1L), EntityQueryWorker.padToPowerOfTwo(List.of(2L, 1L, 2L)));
+    }
+
+}